@@ -0,0 +1,37 @@
+package Interfaces;
+
+import model.RapportOccupation;
+
+import java.time.LocalDate;
+
+/**
+ * Interface pour les statistiques d'occupation du réseau (utilisation par heure, pics de demande, taux de refus).
+ */
+public interface AnalyseOccupationService {
+    /**
+     * Retourne le rapport d'occupation de tout le réseau, avec le détail par borne et par lieu.
+     *
+     * @param du Le premier jour de la période.
+     * @param au Le dernier jour de la période (inclus).
+     * @return Le {@link RapportOccupation}, vide si la période est invalide.
+     */
+    RapportOccupation getRapportReseau(LocalDate du, LocalDate au);
+    /**
+     * Retourne le rapport d'occupation d'un lieu.
+     *
+     * @param lieuId L'identifiant du lieu.
+     * @param du Le premier jour de la période.
+     * @param au Le dernier jour de la période (inclus).
+     * @return Le {@link RapportOccupation}, vide si le lieu n'a aucune réservation ou si la période est invalide.
+     */
+    RapportOccupation getRapportLieu(long lieuId, LocalDate du, LocalDate au);
+    /**
+     * Retourne le rapport d'occupation d'une borne.
+     *
+     * @param borneId L'identifiant de la borne.
+     * @param du Le premier jour de la période.
+     * @param au Le dernier jour de la période (inclus).
+     * @return Le {@link RapportOccupation}, vide si la borne n'a aucune réservation ou si la période est invalide.
+     */
+    RapportOccupation getRapportBorne(long borneId, LocalDate du, LocalDate au);
+}
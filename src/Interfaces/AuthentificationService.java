@@ -1,7 +1,10 @@
 package Interfaces;
 
+import model.RapportImport;
 import model.Utilisateur;
 
+import java.io.IOException;
+import java.io.Reader;
 import java.util.Optional;
 
 /**
@@ -20,23 +23,33 @@ public interface AuthentificationService {
     Optional<Utilisateur> inscrire(String email, String motDePasse);
     /**
      * Génère un code de validation unique, l'associe à l'utilisateur spécifié
-     * (typiquement en le stockant dans l'objet Utilisateur) et le retourne.
+     * (le code a une durée de validité limitée) et le retourne.
      * Dans une application réelle, ce service enverrait aussi le code par email.
      *
      * @param utilisateur L'{@link Utilisateur} pour lequel générer et stocker le code.
-     * @return Le code de validation généré, ou null en cas d'erreur.
+     * @return Le code de validation généré, ou null en cas d'erreur (compte déjà validé, trop de codes en attente).
      */
     String genererEtStockerCodeValidation(Utilisateur utilisateur); // Renommé pour clarté
+    /**
+     * Renvoie le code de validation d'un compte non encore validé : le code en attente s'il est
+     * encore valide, sinon un nouveau code (après expiration, ou pour un compte importé sans code).
+     *
+     * @param email L'email du compte à valider.
+     * @return Le code de validation, ou null si le compte est inconnu, déjà validé, ou si trop de codes sont en attente.
+     */
+    String renvoyerCodeValidation(String email);
     /**
      * Tente de valider un compte utilisateur en utilisant l'email et le code de validation fournis.
-     * Vérifie si l'utilisateur existe, s'il n'est pas déjà validé, et si le code correspond.
+     * Vérifie si l'utilisateur existe, s'il n'est pas déjà validé, et si le code correspond et n'a pas expiré.
+     * Le nombre de tentatives par email est limité.
      * Si la validation réussit, le statut de l'utilisateur est mis à jour (devient valide)
      * et le code de validation est généralement supprimé ou invalidé.
      *
      * @param email L'email de l'utilisateur tentant de valider son compte.
      * @param code Le code de validation fourni par l'utilisateur.
+     * @return true si le compte a été validé par cet appel, false sinon.
      */
-    void validerCompte(String email, String code);
+    boolean validerCompte(String email, String code);
     /**
      * Tente de connecter un utilisateur en vérifiant son email et son mot de passe.
      * La connexion n'est possible que si l'utilisateur existe, si son compte est validé
@@ -48,5 +61,19 @@ public interface AuthentificationService {
      * ou un {@code Optional} vide sinon.
      */
     Optional<Utilisateur> connecter(String email, String motDePasse);
+    /**
+     * Importe en masse des utilisateurs depuis un flux CSV ({@code email;motDePasse} par ligne,
+     * en-tête {@code email;motDePasse} facultatif). Le flux est lu au fil de l'eau, sans tout charger en mémoire.
+     * Les lignes dont l'email est invalide ou déjà utilisé (dans le système ou plus haut dans le fichier)
+     * sont rejetées. Une empreinte ({@code pbkdf2$...}) est reprise telle quelle si elle a exactement
+     * le nombre d'itérations configuré, sinon la ligne est rejetée.
+     * Les comptes importés non validés obtiennent leur code par {@link #renvoyerCodeValidation(String)}.
+     *
+     * @param source Le flux CSV à lire.
+     * @param comptesValides true pour créer les comptes directement validés (sans code de validation).
+     * @return Le {@link RapportImport} des lignes acceptées et rejetées.
+     * @throws IOException si la lecture du flux échoue.
+     */
+    RapportImport importerUtilisateurs(Reader source, boolean comptesValides) throws IOException;
     // Pas d'autres méthodes requises par les specs obligatoires
 }
\ No newline at end of file
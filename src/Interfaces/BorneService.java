@@ -5,6 +5,7 @@ import model.EtatBorne;
 import model.LieuRecharge;
 import model.StatutReservation;
 
+import java.io.*;
 import java.time.LocalDateTime;
 import java.util.List;
 import java.util.Optional;
@@ -42,9 +43,18 @@ public interface BorneService {
     /**
      * Récupère la liste de tous les lieux de recharge enregistrés dans le système.
      *
+     * La liste retournée est une copie modifiable : pour une simple lecture, préférer {@link #getLieuxVue()}.
+     *
      * @return Une {@code List} contenant tous les {@link LieuRecharge}. Peut-être vide.
      */
     List<LieuRecharge> getAllLieux(); // Utile pour l'admin
+    /**
+     * Retourne un instantané non modifiable de tous les lieux, partagé entre les appels
+     * tant qu'aucun lieu n'est ajouté (pas de copie à chaque lecture).
+     *
+     * @return Une {@code List} non modifiable des {@link LieuRecharge}. Peut-être vide.
+     */
+    List<LieuRecharge> getLieuxVue();
 
     /**
      * Ajoute une nouvelle borne de recharge à un lieu existant spécifié par son ID.
@@ -94,4 +104,65 @@ public interface BorneService {
      * @return Une {@code List} contenant les {@link BorneRecharge} disponibles. Peut-être vide.
      */
     List<BorneRecharge> rechercherBornesDisponibles(LocalDateTime debut, LocalDateTime fin); // Exigence clé
+    /**
+     * Retourne le nombre de bornes du réseau dans un état donné (tableau de bord d'exploitation).
+     * Le comptage est tenu à jour au fil des ajouts, modifications et suppressions : l'appel est en temps constant.
+     *
+     * @param etat L'{@link EtatBorne} recherché.
+     * @return Le nombre de bornes dans cet état.
+     */
+    int getNombreBornes(EtatBorne etat);
+    /**
+     * Applique d'un bloc une série de changements d'état remontés par les bornes (télémétrie).
+     * Le lot est appliqué sous un seul verrou, sans affichage par borne ; les identifiants inconnus sont ignorés.
+     *
+     * @param borneIds Les identifiants des bornes, lus de l'indice 0 à {@code nombre - 1}.
+     * @param etats Les nouveaux états, à la même position que l'identifiant correspondant.
+     * @param nombre Le nombre de changements du lot.
+     * @return Le nombre de bornes dont l'état a effectivement changé.
+     */
+    int appliquerEtats(long[] borneIds, EtatBorne[] etats, int nombre);
+    /**
+     * Estime le coût d'utilisation d'une borne sur un créneau, selon la tarification
+     * en vigueur (heures pleines/creuses, week-end, tarifs propres au lieu).
+     *
+     * @param borne La {@link BorneRecharge} concernée.
+     * @param debut La date et heure de début du créneau.
+     * @param fin La date et heure de fin du créneau.
+     * @return Le coût estimé du créneau.
+     */
+    double estimerCout(BorneRecharge borne, LocalDateTime debut, LocalDateTime fin);
+
+    /**
+     * Exporte la topologie du réseau (lieux, bornes, tarifs, états) au format CSV.
+     *
+     * @param sortie Le flux dans lequel écrire.
+     * @throws IOException si l'écriture échoue.
+     */
+    void exporterTopologieCsv(Writer sortie) throws IOException;
+    /**
+     * Exporte la topologie du réseau au format binaire compact.
+     *
+     * @param sortie Le flux dans lequel écrire.
+     * @throws IOException si l'écriture échoue.
+     */
+    void exporterTopologieBinaire(OutputStream sortie) throws IOException;
+    /**
+     * Importe une topologie CSV. L'import est tout ou rien : le fichier est entièrement lu
+     * et vérifié avant que le moindre lieu ou la moindre borne ne soit ajouté au système.
+     * Les éléments importés reçoivent de nouveaux identifiants.
+     *
+     * @param source Le flux CSV à lire.
+     * @return Le nombre de bornes importées.
+     * @throws IOException si la lecture échoue ou si le contenu est invalide (rien n'est alors importé).
+     */
+    int importerTopologieCsv(Reader source) throws IOException;
+    /**
+     * Importe une topologie binaire, avec les mêmes garanties que {@link #importerTopologieCsv(Reader)}.
+     *
+     * @param source Le flux binaire à lire.
+     * @return Le nombre de bornes importées.
+     * @throws IOException si la lecture échoue ou si le contenu est invalide (rien n'est alors importé).
+     */
+    int importerTopologieBinaire(InputStream source) throws IOException;
 }
\ No newline at end of file
@@ -0,0 +1,50 @@
+package Interfaces;
+
+import model.AgregatMesures;
+import model.Reservation;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Optional;
+
+/**
+ * Interface pour le comptage de l'énergie délivrée par les bornes (relevés de compteur et sessions de charge).
+ */
+public interface ComptageService {
+    /**
+     * Enregistre un relevé périodique du compteur d'une borne.
+     * Les relevés d'une borne doivent arriver dans l'ordre chronologique.
+     *
+     * @param borneId L'identifiant de la borne.
+     * @param instant L'instant du relevé.
+     * @param compteurWh L'index du compteur, en Wh (ne diminue jamais).
+     * @param puissanceW La puissance instantanée délivrée, en W.
+     * @return true si le relevé est enregistré, false s'il est refusé (hors ordre, index en baisse, puissance négative).
+     */
+    boolean enregistrerMesure(long borneId, LocalDateTime instant, long compteurWh, int puissanceW);
+    /**
+     * Retourne la courbe sous-échantillonnée des relevés d'une borne : un agrégat
+     * (énergie, puissance moyenne et maximale) par intervalle de durée {@code pas}.
+     *
+     * @param borneId L'identifiant de la borne.
+     * @param debut Le début de la plage (inclus).
+     * @param fin La fin de la plage (exclue).
+     * @param pas La durée d'un intervalle (au moins une seconde).
+     * @return Les agrégats des intervalles ayant au moins un relevé, dans l'ordre chronologique.
+     */
+    List<AgregatMesures> getMesures(long borneId, LocalDateTime debut, LocalDateTime fin, Duration pas);
+    /**
+     * Retourne la session de charge mesurée pendant une réservation : les relevés de sa borne sur son créneau.
+     *
+     * @param reservation La {@link Reservation}.
+     * @return Un {@code Optional} avec le résumé de la session, vide si aucun relevé n'a été reçu sur le créneau.
+     */
+    Optional<AgregatMesures> getSessionRecharge(Reservation reservation);
+    /**
+     * Retourne le nombre total de relevés enregistrés.
+     *
+     * @return Le nombre de relevés.
+     */
+    long getNombreMesures();
+}
@@ -0,0 +1,58 @@
+package Interfaces;
+
+import java.util.Optional;
+import java.util.function.Consumer;
+
+/**
+ * Interface de stockage des objets d'un service (lieux, bornes, utilisateurs ou réservations), par id.
+ * Les services gardent leurs objets et leurs index en mémoire : ils enregistrent dans le dépôt chaque ajout,
+ * modification ou suppression, et relisent son contenu au démarrage
+ * (voir {@code BorneServiceImplement#utiliserDepots}).
+ * Les méthodes peuvent être appelées par plusieurs threads en même temps.
+ *
+ * @param <T> Le type des objets stockés.
+ */
+public interface Depot<T> {
+    /**
+     * Enregistre l'état actuel d'un objet, en remplaçant l'éventuelle version précédente.
+     * L'écriture peut être différée : elle est durable après {@link #synchroniser()}.
+     *
+     * @param id L'identifiant de l'objet.
+     * @param objet L'objet à enregistrer.
+     */
+    void enregistrer(long id, T objet);
+    /**
+     * Supprime un objet du dépôt. Sans effet si l'id est inconnu.
+     *
+     * @param id L'identifiant de l'objet.
+     */
+    void supprimer(long id);
+    /**
+     * Relit la dernière version enregistrée d'un objet.
+     *
+     * @param id L'identifiant de l'objet.
+     * @return Un {@link Optional} contenant l'objet, ou vide si l'id est inconnu.
+     */
+    Optional<T> trouver(long id);
+    /**
+     * Passe la dernière version de chaque objet du dépôt au consommateur (chargement au démarrage).
+     *
+     * @param consommateur Reçoit chaque objet.
+     * @return Le nombre d'objets passés.
+     */
+    long charger(Consumer<T> consommateur);
+    /**
+     * Retourne le nombre d'objets du dépôt.
+     *
+     * @return Le nombre d'objets.
+     */
+    long taille();
+    /**
+     * Rend durables toutes les écritures faites avant l'appel.
+     */
+    void synchroniser();
+    /**
+     * Synchronise puis libère les ressources du dépôt, qui ne doit plus être utilisé.
+     */
+    void fermer();
+}
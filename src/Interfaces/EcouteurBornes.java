@@ -0,0 +1,31 @@
+package Interfaces;
+
+import model.BorneRecharge;
+import model.LieuRecharge;
+
+/**
+ * Reçoit les modifications de la topologie (lieux, bornes et leurs états) faites par le service des bornes
+ * (voir {@code BorneServiceImplement#ajouterEcouteur}), par exemple pour les reproduire ailleurs.
+ * Les changements d'état d'une borne sont signalés sous le verrou des états, dans l'ordre où ils sont faits :
+ * les méthodes doivent être rapides et ne pas appeler le service des bornes.
+ */
+public interface EcouteurBornes {
+    /**
+     * Un lieu vient d'être ajouté ou modifié (nom, adresse).
+     *
+     * @param lieu Le {@link LieuRecharge} concerné.
+     */
+    void lieuModifie(LieuRecharge lieu);
+    /**
+     * Une borne vient d'être ajoutée ou modifiée (état, tarif).
+     *
+     * @param borne La {@link BorneRecharge} concernée.
+     */
+    void borneModifiee(BorneRecharge borne);
+    /**
+     * Une borne vient d'être supprimée.
+     *
+     * @param borne La {@link BorneRecharge} supprimée.
+     */
+    void borneSupprimee(BorneRecharge borne);
+}
@@ -0,0 +1,38 @@
+package Interfaces;
+
+import model.Reservation;
+import model.StatutReservation;
+
+/**
+ * Reçoit les événements du cycle de vie des réservations (voir
+ * {@code ReservationServiceImplement#ajouterEcouteur}), pour tenir à jour des agrégats
+ * sans reparcourir l'historique.
+ * Les méthodes sont appelées sur le thread qui a provoqué l'événement, éventuellement en parallèle :
+ * elles doivent être rapides et ne pas appeler le service de réservation. La création est signalée
+ * avant que la réservation soit visible, donc avant tout autre événement de cette réservation ;
+ * les événements suivants peuvent en revanche arriver dans le désordre : les agrégats doivent être additifs.
+ */
+public interface EcouteurReservations {
+    /**
+     * Une réservation vient d'être créée, avec le statut {@link StatutReservation#EN_ATTENTE}.
+     *
+     * @param reservation La {@link Reservation} créée.
+     */
+    void reservationCreee(Reservation reservation);
+    /**
+     * Le statut d'une réservation vient de changer (acceptation, refus manuel ou automatique).
+     *
+     * @param reservation La {@link Reservation} concernée.
+     * @param ancien Le statut précédent.
+     * @param nouveau Le nouveau statut.
+     */
+    void statutModifie(Reservation reservation, StatutReservation ancien, StatutReservation nouveau);
+    /**
+     * Une réservation vient d'être retirée comme si elle n'avait jamais existé
+     * (réservation de groupe annulée faute de bornes suffisantes).
+     *
+     * @param reservation La {@link Reservation} retirée.
+     * @param statut Le statut qu'elle avait au moment du retrait.
+     */
+    void reservationRetiree(Reservation reservation, StatutReservation statut);
+}
@@ -0,0 +1,22 @@
+package Interfaces;
+
+import model.SuggestionCreneau;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+/**
+ * Interface pour la recommandation de créneaux peu demandés, proches d'un créneau recherché.
+ */
+public interface RecommandationService {
+    /**
+     * Propose des lieux et des horaires proches du créneau demandé (même durée, décalé d'au plus quelques heures),
+     * parmi les moins demandés d'après l'historique des réservations, et ayant encore au moins une borne libre.
+     *
+     * @param debut La date et heure de début du créneau recherché.
+     * @param fin La date et heure de fin du créneau recherché.
+     * @param nombre Le nombre maximal de suggestions.
+     * @return Les {@link SuggestionCreneau}, de la moins demandée à la plus demandée. Peut-être vide.
+     */
+    List<SuggestionCreneau> recommander(LocalDateTime debut, LocalDateTime fin, int nombre);
+}
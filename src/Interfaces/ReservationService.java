@@ -1,12 +1,13 @@
 package Interfaces;
 
-import model.BorneRecharge;
-import model.Reservation;
-import model.StatutReservation;
-import model.Utilisateur;
+import model.*;
 
-import java.time.LocalDateTime;
+import java.time.*;
+import java.util.Collection;
 import java.util.List;
+import java.util.Optional;
+import java.util.Set;
+import java.util.stream.Stream;
 
 /**
  * Interface pour la gestion des réservations.
@@ -26,22 +27,68 @@ public interface ReservationService {
      * @param fin La date et heure de fin du créneau souhaité.
      */
     void creerReservation(Utilisateur utilisateur, BorneRecharge borne, LocalDateTime debut, LocalDateTime fin);
+    /**
+     * Réserve une borne pour un créneau, avec les mêmes vérifications que
+     * {@link #creerReservation(Utilisateur, BorneRecharge, LocalDateTime, LocalDateTime)},
+     * si elle est {@link EtatBorne#DISPONIBLE}, et retourne la réservation créée.
+     *
+     * @param utilisateur L'{@link Utilisateur} (doit être valide) effectuant la réservation.
+     * @param borne La {@link BorneRecharge} à réserver.
+     * @param debut La date et heure de début du créneau souhaité.
+     * @param fin La date et heure de fin du créneau souhaité.
+     * @return La {@link Reservation} créée (EN_ATTENTE), ou vide si la borne n'est pas disponible,
+     * déjà réservée sur le créneau, ou si les données sont invalides.
+     */
+    Optional<Reservation> reserver(Utilisateur utilisateur, BorneRecharge borne, LocalDateTime debut, LocalDateTime fin);
+    /**
+     * Réserve, tout ou rien, {@code nombre} bornes parmi des candidates pour le même créneau.
+     * Les bornes libres sont retenues par id croissant ; si elles sont moins de {@code nombre},
+     * aucune réservation n'est créée. L'opération est atomique vis-à-vis des autres réservations
+     * sur ces bornes : seules les bornes concernées sont verrouillées.
+     *
+     * @param utilisateur L'{@link Utilisateur} (doit être valide) effectuant la réservation.
+     * @param candidates Les {@link BorneRecharge} parmi lesquelles choisir.
+     * @param nombre Le nombre de bornes à réserver (strictement positif).
+     * @param debut La date et heure de début du créneau.
+     * @param fin La date et heure de fin du créneau.
+     * @return Les {@link Reservation} créées (EN_ATTENTE), ou vide si la demande n'a pas pu être satisfaite.
+     */
+    Optional<List<Reservation>> reserverGroupe(Utilisateur utilisateur, Collection<BorneRecharge> candidates, int nombre,
+                                               LocalDateTime debut, LocalDateTime fin);
+    /**
+     * Réserve, tout ou rien, {@code nombre} bornes DISPONIBLE d'un lieu pour le même créneau.
+     * Voir {@link #reserverGroupe(Utilisateur, Collection, int, LocalDateTime, LocalDateTime)}.
+     *
+     * @param utilisateur L'{@link Utilisateur} (doit être valide) effectuant la réservation.
+     * @param lieu Le {@link LieuRecharge} dont les bornes sont candidates.
+     * @param nombre Le nombre de bornes à réserver (strictement positif).
+     * @param debut La date et heure de début du créneau.
+     * @param fin La date et heure de fin du créneau.
+     * @return Les {@link Reservation} créées (EN_ATTENTE), ou vide si la demande n'a pas pu être satisfaite.
+     */
+    Optional<List<Reservation>> reserverGroupe(Utilisateur utilisateur, LieuRecharge lieu, int nombre,
+                                               LocalDateTime debut, LocalDateTime fin);
     /**
      * Accepte une réservation existante qui est actuellement en attente.
      * Met à jour le statut de la réservation à {@link StatutReservation#ACCEPTEE}.
      * Déclenche également la génération du document de reçu via le {@link DocumentService}.
+     * La transition est atomique : si plusieurs opérateurs traitent la même réservation,
+     * un seul réussit et un seul reçu est généré.
      *
      * @param reservationId L'identifiant de la réservation à accepter.
+     * @return true si cet appel a effectué la transition, false sinon (inconnue ou déjà traitée).
      */
-    void accepterReservation(long reservationId);
+    boolean accepterReservation(long reservationId);
 
     /**
      * Refuse une réservation existante qui est actuellement en attente.
      * Met à jour le statut de la réservation à {@link StatutReservation#REFUSEE}.
+     * La transition est atomique, comme pour {@link #accepterReservation(long)}.
      *
      * @param reservationId L'identifiant de la réservation à refuser.
+     * @return true si cet appel a effectué la transition, false sinon (inconnue ou déjà traitée).
      */
-    void refuserReservation(long reservationId);
+    boolean refuserReservation(long reservationId);
     /**
      * Récupère toutes les réservations associées à un utilisateur donné.
      *
@@ -54,19 +101,114 @@ public interface ReservationService {
      * Récupère toutes les réservations enregistrées dans le système, quel que soit
      * leur statut ou l'utilisateur associé.
      * Principalement utile pour les opérations d'administration ou les vérifications internes.
+     * La liste retournée est une copie modifiable : pour une simple lecture, préférer {@link #getReservationsVue()}.
      *
      * @return Une {@code List} contenant toutes les {@link Reservation}. Peut-être vide.
      */
     List<Reservation> getAllReservations(); // Utile pour l'admin et la vérification des disponibilités/suppressions
+    /**
+     * Retourne un instantané non modifiable des réservations non archivées (en cours ou à venir,
+     * et celles terminées depuis peu), partagé entre les appels tant qu'aucune réservation n'est
+     * ajoutée ni archivée (pas de copie à chaque lecture). Les réservations archivées n'y figurent pas :
+     * voir {@link #getAllReservations()}. Le statut des réservations reste celui, courant, des objets.
+     *
+     * @return Une {@code List} non modifiable des {@link Reservation}. Peut-être vide.
+     */
+    List<Reservation> getReservationsVue();
     /**
      * Vérifie si une borne spécifique a des réservations futures.
      * Une réservation est considérée comme future si son statut est
      * {@link StatutReservation#ACCEPTEE} ou {@link StatutReservation#EN_ATTENTE}
-     * et si son heure de fin est postérieure à l'heure actuelle.
+     * et si son heure de fin est postérieure à l'heure actuelle (de même pour les occurrences des séries).
      * Utilisé par {@link BorneService#supprimerBorne(long)}.
      *
      * @param borneId L'identifiant de la borne à vérifier.
      * @return true si au moins une réservation future existe pour cette borne, false sinon.
      */
     boolean borneHasFutureReservations(long borneId); // Nécessaire pour BorneService.supprimerBorne
+    /**
+     * Exécute la suppression d'une borne si elle n'a aucune réservation future, sous le verrou qui protège
+     * les réservations de cette borne : aucune réservation ne peut être créée entre la vérification et la
+     * suppression. Une fois la suppression exécutée, la borne n'accepte plus de réservation ni de série.
+     * Utilisé par {@link BorneService#supprimerBorne(long)}.
+     *
+     * @param borneId L'identifiant de la borne à supprimer.
+     * @param suppression Le retrait de la borne, exécuté seulement si elle est libre.
+     * @return true si la borne n'avait aucune réservation future et que la suppression a été exécutée.
+     */
+    boolean supprimerBorneSiLibre(long borneId, Runnable suppression);
+    /**
+     * Parcourt, sans les copier, les réservations correspondant à une recherche par plage de temps
+     * (borne, lieu ou réseau, filtre de statuts), triées par date de début.
+     * Le flux est évalué au fur et à mesure : seules les réservations consommées sont lues.
+     *
+     * @param requete La {@link RequetePlage} décrivant la recherche.
+     * @return Un {@code Stream} paresseux des {@link Reservation} correspondantes.
+     */
+    Stream<Reservation> streamReservations(RequetePlage requete);
+    /**
+     * Retourne une page de résultats d'une recherche par plage de temps.
+     * Pour obtenir la page suivante, rappeler la méthode avec {@link PageReservations#getCurseurSuivant()}.
+     *
+     * @param requete La {@link RequetePlage} décrivant la recherche.
+     * @param curseur Le curseur renvoyé par la page précédente, ou null pour la première page.
+     * @param taillePage Le nombre maximal de réservations dans la page (strictement positif).
+     * @return La {@link PageReservations} demandée.
+     */
+    PageReservations getPageReservations(RequetePlage requete, String curseur, int taillePage);
+    /**
+     * Crée une réservation récurrente : le même créneau certains jours de la semaine, entre deux dates.
+     * La série est refusée si l'une de ses occurrences chevauche une réservation ou une série
+     * ACCEPTEE ou EN_ATTENTE de la même borne. Elle est créée avec le statut {@link StatutReservation#EN_ATTENTE}.
+     *
+     * @param utilisateur L'{@link Utilisateur} (doit être valide) effectuant la réservation.
+     * @param borne La {@link BorneRecharge} à réserver.
+     * @param du Le premier jour de la série (inclus).
+     * @param au Le dernier jour de la série (inclus).
+     * @param jours Les jours de la semaine concernés.
+     * @param heureDebut L'heure de début de chaque occurrence.
+     * @param duree La durée de chaque occurrence (au plus 24 heures).
+     * @return La {@link SerieReservation} créée, ou vide si les données sont invalides ou en conflit.
+     */
+    Optional<SerieReservation> creerSerie(Utilisateur utilisateur, BorneRecharge borne, LocalDate du, LocalDate au,
+                                          Set<DayOfWeek> jours, LocalTime heureDebut, Duration duree);
+    /**
+     * Accepte une série en attente (transition atomique, comme pour {@link #accepterReservation(long)}).
+     *
+     * @param serieId L'identifiant de la série.
+     * @return true si cet appel a effectué la transition, false sinon.
+     */
+    boolean accepterSerie(long serieId);
+    /**
+     * Refuse une série en attente (transition atomique), ce qui libère tous ses créneaux.
+     *
+     * @param serieId L'identifiant de la série.
+     * @return true si cet appel a effectué la transition, false sinon.
+     */
+    boolean refuserSerie(long serieId);
+    /**
+     * Annule une seule occurrence d'une série, qui libère ce créneau.
+     *
+     * @param serieId L'identifiant de la série.
+     * @param jour Le jour de l'occurrence à annuler.
+     * @return true si l'occurrence existait et a été annulée, false sinon.
+     */
+    boolean annulerOccurrence(long serieId, LocalDate jour);
+    /**
+     * Récupère les séries d'un utilisateur qui ne sont pas encore terminées.
+     * Une fois terminée, une série acceptée apparaît dans l'historique par ses occurrences
+     * (voir {@link #getReservationsUtilisateur(Utilisateur)}).
+     *
+     * @param utilisateur L'{@link Utilisateur}.
+     * @return Une {@code List} des {@link SerieReservation} de cet utilisateur. Peut-être vide.
+     */
+    List<SerieReservation> getSeriesUtilisateur(Utilisateur utilisateur);
+    /**
+     * Parcourt les séries ACCEPTEE ou EN_ATTENTE dont une occurrence chevauche le créneau [debut, fin[.
+     *
+     * @param debut Le début du créneau.
+     * @param fin La fin du créneau.
+     * @return Un {@code Stream} des {@link SerieReservation} concernées.
+     */
+    Stream<SerieReservation> streamSeries(LocalDateTime debut, LocalDateTime fin);
 }
\ No newline at end of file
@@ -0,0 +1,225 @@
+package Services;
+
+
+import Interfaces.AnalyseOccupationService;
+import Interfaces.EcouteurReservations;
+import model.RapportOccupation;
+import model.Reservation;
+import model.StatutReservation;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Implement de AnalyseOccupationService.
+ * Abonné aux événements des réservations ({@link EcouteurReservations}), il tient à jour des cumuls
+ * par borne, par lieu et pour le réseau, à deux granularités : par jour et par mois. Chaque cumul est un
+ * tableau d'entiers : minutes occupées et demandes par heure de la journée, nombre par statut.
+ * Un rapport additionne les mois entiers de la période puis les jours des mois partiels
+ * (au plus une soixantaine de jours) : son coût ne dépend pas du nombre de réservations.
+ */
+public class AnalyseOccupationServiceImplement implements AnalyseOccupationService, EcouteurReservations {
+
+    private static final int HEURES = 24;
+    private static final int MINUTES = 0; // Cases 0-23 : minutes occupées (ACCEPTEE) par heure
+    private static final int DEMANDES = HEURES; // Cases 24-47 : réservations par heure de début
+    private static final int STATUTS = 2 * HEURES; // Puis une case par statut
+    private static final int TAILLE_CUMUL = STATUTS + StatutReservation.values().length;
+
+    private final Map<Long, Cumuls> parBorne = new ConcurrentHashMap<>();
+    private final Map<Long, Cumuls> parLieu = new ConcurrentHashMap<>();
+    private final Cumuls reseau = new Cumuls();
+
+    /**
+     *Comptabilise des réservations existantes (démarrage avec un historique déjà chargé),
+     * dans leur statut actuel.
+     * @param existantes les réservations à comptabiliser
+     */
+    public void charger(Collection<Reservation> existantes) {
+        for (Reservation r : existantes) compter(r, 1, r.getStatut(), 1);
+    }
+
+    /**
+     *Compte une demande et une réservation EN_ATTENTE.
+     * @param reservation la réservation créée
+     */
+    @Override
+    public void reservationCreee(Reservation reservation) {
+        compter(reservation, 1, StatutReservation.EN_ATTENTE, 1);
+    }
+
+    /**
+     *Déplace la réservation d'un statut à l'autre ; les minutes ne comptent qu'une fois acceptée.
+     * @param reservation la réservation
+     * @param ancien statut précédent
+     * @param nouveau nouveau statut
+     */
+    @Override
+    public void statutModifie(Reservation reservation, StatutReservation ancien, StatutReservation nouveau) {
+        compter(reservation, 0, ancien, -1);
+        compter(reservation, 0, nouveau, 1);
+    }
+
+    /**
+     *Retire la demande et la réservation dans le statut qu'elle avait.
+     * @param reservation la réservation retirée
+     * @param statut son statut au retrait
+     */
+    @Override
+    public void reservationRetiree(Reservation reservation, StatutReservation statut) {
+        compter(reservation, -1, statut, -1);
+    }
+
+    /**
+     *Additionne les cumuls du réseau, puis ceux de chaque borne et de chaque lieu.
+     * @param du premier jour
+     * @param au dernier jour
+     * @return le rapport
+     */
+    @Override
+    public RapportOccupation getRapportReseau(LocalDate du, LocalDate au) {
+        if (!periodeValide(du, au)) return rapportVide(du, au);
+        long[] somme = new long[TAILLE_CUMUL];
+        reseau.cumuler(du, au, somme);
+        return rapport(du, au, somme, minutesPar(parBorne, du, au), minutesPar(parLieu, du, au));
+    }
+
+    /**
+     *Additionne les cumuls du lieu.
+     * @param lieuId id du lieu
+     * @param du premier jour
+     * @param au dernier jour
+     * @return le rapport
+     */
+    @Override
+    public RapportOccupation getRapportLieu(long lieuId, LocalDate du, LocalDate au) {
+        return rapportPerimetre(parLieu.get(lieuId), du, au);
+    }
+
+    /**
+     *Additionne les cumuls de la borne.
+     * @param borneId id de la borne
+     * @param du premier jour
+     * @param au dernier jour
+     * @return le rapport
+     */
+    @Override
+    public RapportOccupation getRapportBorne(long borneId, LocalDate du, LocalDate au) {
+        return rapportPerimetre(parBorne.get(borneId), du, au);
+    }
+
+    private RapportOccupation rapportPerimetre(Cumuls cumuls, LocalDate du, LocalDate au) {
+        if (!periodeValide(du, au)) return rapportVide(du, au);
+        long[] somme = new long[TAILLE_CUMUL];
+        if (cumuls != null) cumuls.cumuler(du, au, somme);
+        return rapport(du, au, somme, new HashMap<>(), new HashMap<>());
+    }
+
+    private static boolean periodeValide(LocalDate du, LocalDate au) {
+        if (du == null || au == null || au.isBefore(du)) {
+            System.err.println("Erreur: Période de rapport invalide.");
+            return false;
+        }
+        return true;
+    }
+
+    private static RapportOccupation rapportVide(LocalDate du, LocalDate au) {
+        LocalDate jour = du != null ? du : LocalDate.now();
+        return rapport(jour, jour, new long[TAILLE_CUMUL], new HashMap<>(), new HashMap<>());
+    }
+
+    private static RapportOccupation rapport(LocalDate du, LocalDate au, long[] somme,
+                                             Map<Long, Long> minutesParBorne, Map<Long, Long> minutesParLieu) {
+        return new RapportOccupation(du, au,
+                Arrays.copyOfRange(somme, MINUTES, MINUTES + HEURES),
+                Arrays.copyOfRange(somme, DEMANDES, DEMANDES + HEURES),
+                Arrays.copyOfRange(somme, STATUTS, TAILLE_CUMUL),
+                minutesParBorne, minutesParLieu);
+    }
+
+    private static Map<Long, Long> minutesPar(Map<Long, Cumuls> cumuls, LocalDate du, LocalDate au) {
+        Map<Long, Long> minutes = new HashMap<>();
+        long[] somme = new long[TAILLE_CUMUL];
+        for (Map.Entry<Long, Cumuls> e : cumuls.entrySet()) {
+            Arrays.fill(somme, 0);
+            e.getValue().cumuler(du, au, somme);
+            long total = 0;
+            for (int h = 0; h < HEURES; h++) total += somme[MINUTES + h];
+            if (total != 0) minutes.put(e.getKey(), total);
+        }
+        return minutes;
+    }
+
+    /**
+     * Ajoute (signe 1) ou retire (signe -1) la contribution d'une réservation dans un statut à ses trois cumuls :
+     * la demande si {@code signeDemande} n'est pas nul, le compte du statut, et les minutes si elle est ACCEPTEE.
+     */
+    private void compter(Reservation r, int signeDemande, StatutReservation statut, int signe) {
+        Cumuls borne = parBorne.computeIfAbsent(r.getBorne().getId(), k -> new Cumuls());
+        Cumuls lieu = parLieu.computeIfAbsent(r.getBorne().getLieuId(), k -> new Cumuls());
+        LocalDateTime debut = r.getDateDebut();
+        LocalDate jour = debut.toLocalDate();
+        for (Cumuls c : new Cumuls[]{borne, lieu, reseau}) {
+            synchronized (c) {
+                if (signeDemande != 0) c.ajouter(jour, DEMANDES + debut.getHour(), signeDemande);
+                c.ajouter(jour, STATUTS + statut.ordinal(), signe);
+            }
+        }
+        if (statut != StatutReservation.ACCEPTEE) return;
+        // Minutes réparties heure par heure sur le créneau
+        for (LocalDateTime t = debut; t.isBefore(r.getDateFin()); ) {
+            LocalDateTime heureSuivante = t.truncatedTo(ChronoUnit.HOURS).plusHours(1);
+            LocalDateTime finTranche = heureSuivante.isBefore(r.getDateFin()) ? heureSuivante : r.getDateFin();
+            int minutes = (int) ChronoUnit.MINUTES.between(t, finTranche);
+            for (Cumuls c : new Cumuls[]{borne, lieu, reseau}) {
+                synchronized (c) {
+                    c.ajouter(t.toLocalDate(), MINUTES + t.getHour(), signe * minutes);
+                }
+            }
+            t = finTranche;
+        }
+    }
+
+    /**
+     * Cumuls d'un périmètre (borne, lieu ou réseau), par jour et par mois. Accès synchronisé sur l'objet.
+     */
+    private static final class Cumuls {
+        private final TreeMap<Long, int[]> parJour = new TreeMap<>();
+        private final TreeMap<Integer, int[]> parMois = new TreeMap<>();
+
+        void ajouter(LocalDate jour, int indice, int delta) {
+            parJour.computeIfAbsent(jour.toEpochDay(), k -> new int[TAILLE_CUMUL])[indice] += delta;
+            parMois.computeIfAbsent(mois(jour), k -> new int[TAILLE_CUMUL])[indice] += delta;
+        }
+
+        /**
+         * Ajoute à {@code somme} les cumuls des jours de [du, au] : mois entiers, puis jours des mois partiels.
+         */
+        synchronized void cumuler(LocalDate du, LocalDate au, long[] somme) {
+            LocalDate debutMoisEntiers = du.getDayOfMonth() == 1 ? du : du.withDayOfMonth(1).plusMonths(1);
+            LocalDate finMoisEntiers = au.plusDays(1).withDayOfMonth(1); // Exclu
+            if (!debutMoisEntiers.isBefore(finMoisEntiers)) {
+                additionner(parJour.subMap(du.toEpochDay(), true, au.toEpochDay(), true).values(), somme);
+                return;
+            }
+            additionner(parJour.subMap(du.toEpochDay(), debutMoisEntiers.toEpochDay()).values(), somme);
+            additionner(parMois.subMap(mois(debutMoisEntiers), mois(finMoisEntiers)).values(), somme);
+            if (!finMoisEntiers.isAfter(au)) { // Sinon la période finit avec un mois entier
+                additionner(parJour.subMap(finMoisEntiers.toEpochDay(), true, au.toEpochDay(), true).values(), somme);
+            }
+        }
+
+        private static void additionner(Collection<int[]> cumuls, long[] somme) {
+            for (int[] c : cumuls) {
+                for (int i = 0; i < TAILLE_CUMUL; i++) somme[i] += c[i];
+            }
+        }
+
+        private static int mois(LocalDate jour) {
+            return jour.getYear() * 12 + jour.getMonthValue() - 1;
+        }
+    }
+}
@@ -0,0 +1,78 @@
+package Services;
+
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * Anneau de hachage cohérent : associe chaque clé (un id de borne) à un nœud.
+ * Chaque nœud occupe {@value #POINTS_PAR_NOEUD} points répartis sur l'anneau, ce qui équilibre la charge ;
+ * une clé appartient au premier point qui suit son empreinte. Ajouter ou retirer un nœud ne déplace
+ * que les clés des arcs concernés (environ 1/N des clés), les autres restent sur leur nœud.
+ * Accès synchronisé : le contenu change rarement, la recherche est en O(log(points)).
+ *
+ * @param <N> type des nœuds.
+ */
+public class AnneauHachage<N> {
+
+    private static final int POINTS_PAR_NOEUD = 160;
+
+    private final TreeMap<Long, N> points = new TreeMap<>();
+    private final Map<String, N> noeuds = new TreeMap<>();
+
+    /**
+     * Ajoute un nœud à l'anneau.
+     * @param nom nom unique et stable du nœud (ex : hôte:port), qui détermine ses points.
+     * @param noeud le nœud.
+     * @return false si un nœud de ce nom existe déjà.
+     */
+    public synchronized boolean ajouter(String nom, N noeud) {
+        if (noeuds.putIfAbsent(nom, noeud) != null) return false;
+        for (int i = 0; i < POINTS_PAR_NOEUD; i++) {
+            points.putIfAbsent(melanger(nom.hashCode() * 0x9E3779B97F4A7C15L + i), noeud);
+        }
+        return true;
+    }
+
+    /**
+     * Retire un nœud de l'anneau ; ses clés passent aux nœuds suivants.
+     * @param nom nom du nœud.
+     * @return false si le nœud n'existe pas.
+     */
+    public synchronized boolean retirer(String nom) {
+        N noeud = noeuds.remove(nom);
+        if (noeud == null) return false;
+        points.values().removeIf(n -> n == noeud);
+        return true;
+    }
+
+    /**
+     * Retourne le nœud qui possède une clé.
+     * @param cle la clé.
+     * @return le nœud, ou null si l'anneau est vide.
+     */
+    public synchronized N noeud(long cle) {
+        if (points.isEmpty()) return null;
+        Map.Entry<Long, N> point = points.ceilingEntry(melanger(cle));
+        return point != null ? point.getValue() : points.firstEntry().getValue(); // Tour de l'anneau
+    }
+
+    /**
+     * Retourne tous les nœuds.
+     * @return une copie de la liste des nœuds, par nom.
+     */
+    public synchronized List<N> getNoeuds() {
+        return new ArrayList<>(noeuds.values());
+    }
+
+    /**
+     * Finaliseur de SplitMix64 : des clés consécutives donnent des empreintes bien réparties.
+     */
+    private static long melanger(long x) {
+        x = (x ^ (x >>> 30)) * 0xBF58476D1CE4E5B9L;
+        x = (x ^ (x >>> 27)) * 0x94D049BB133111EBL;
+        return x ^ (x >>> 31);
+    }
+}
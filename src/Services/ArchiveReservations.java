@@ -0,0 +1,348 @@
+package Services;
+
+
+import model.BorneRecharge;
+import model.RequetePlage;
+import model.Reservation;
+import model.StatutReservation;
+import model.Utilisateur;
+
+import java.io.*;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.stream.Stream;
+import java.util.zip.DeflaterOutputStream;
+import java.util.zip.InflaterInputStream;
+
+/**
+ * Niveau froid du stockage des réservations : les réservations terminées, en ajout seul.
+ * <p>
+ * Les réservations sont d'abord accumulées dans un tampon, puis scellées par segments de
+ * {@value #TAILLE_SEGMENT} : chaque segment est trié par date de début, stocké par colonnes
+ * (ids, utilisateurs, bornes, dates en secondes avec début en delta, statut) et compressé (Deflate).
+ * Utilisateurs et bornes ne sont stockés qu'une fois, dans des dictionnaires.
+ * Les objets {@link Reservation} ne sont reconstruits qu'à la lecture, pour les lignes retenues.
+ * <p>
+ * Chaque segment garde son plus petit début et sa plus grande fin : une recherche ne décompresse
+ * que les segments qui touchent le créneau, et ne les ouvre qu'au moment où le parcours les atteint.
+ */
+public class ArchiveReservations {
+
+    private static final int TAILLE_SEGMENT = 4096;
+    private static final StatutReservation[] STATUTS = StatutReservation.values();
+
+    private final Map<Integer, Utilisateur> utilisateursParCode = new ConcurrentHashMap<>();
+    private final Map<Utilisateur, Integer> codesUtilisateurs = new ConcurrentHashMap<>();
+    private final Map<Long, BorneRecharge> bornes = new ConcurrentHashMap<>();
+    private final List<Segment> segments = new CopyOnWriteArrayList<>();
+    private final List<Reservation> tampon = new ArrayList<>(); // Accès synchronisé sur l'archive
+    private volatile long finMax = Long.MIN_VALUE;
+    private volatile long dureeMax;
+    private volatile int taille;
+
+    /**
+     * Ajoute une réservation terminée à l'archive.
+     * @param r la réservation (son statut ne doit plus changer).
+     */
+    public synchronized void ajouter(Reservation r) {
+        codesUtilisateurs.computeIfAbsent(r.getUtilisateur(), u -> {
+            int code = codesUtilisateurs.size();
+            utilisateursParCode.put(code, u);
+            return code;
+        });
+        bornes.putIfAbsent(r.getBorne().getId(), r.getBorne());
+        tampon.add(r);
+        long debut = secondes(r.getDateDebut());
+        long fin = secondes(r.getDateFin());
+        finMax = Math.max(finMax, fin);
+        dureeMax = Math.max(dureeMax, fin - debut);
+        taille++;
+        if (tampon.size() == TAILLE_SEGMENT) {
+            segments.add(Segment.sceller(colonnes(tampon)));
+            tampon.clear();
+        }
+    }
+
+    /**
+     * Retourne le nombre de réservations archivées.
+     * @return le nombre de réservations.
+     */
+    public int taille() { return taille; }
+
+    /**
+     * Parcourt, dans l'ordre de l'index temporel, les réservations archivées qui chevauchent le créneau
+     * de la requête et qui sont sur sa borne/son lieu. Le filtre de statut reste à appliquer.
+     * @param requete la recherche.
+     * @param apres clé de reprise (curseur), ou null.
+     * @return un itérateur trié par (début, id).
+     */
+    public Iterator<Map.Entry<IndexTemporelReservations.Cle, Reservation>> candidats(RequetePlage requete,
+                                                                                    IndexTemporelReservations.Cle apres) {
+        long debut = secondes(requete.getDebut());
+        long fin = secondes(requete.getFin());
+        if (debut >= finMax) return Collections.emptyIterator(); // Créneau futur : rien d'archivé ne le touche
+
+        List<Source> sources = new ArrayList<>();
+        for (Segment s : segments) {
+            if (s.finMax > debut && s.debutMin < fin) sources.add(s);
+        }
+        List<Reservation> copieTampon;
+        synchronized (this) {
+            copieTampon = new ArrayList<>(tampon);
+        }
+        if (!copieTampon.isEmpty()) {
+            Colonnes c = colonnes(copieTampon);
+            sources.add(new Source() {
+                public long debutMin() { return c.debuts[0]; }
+                public Colonnes ouvrir() { return c; }
+            });
+        }
+        sources.sort(Comparator.comparingLong(Source::debutMin));
+        return new Fusion(sources, new Filtre(requete, debut - dureeMax, debut, fin, apres));
+    }
+
+    /**
+     * Parcourt toutes les réservations archivées (ordre non garanti).
+     * @return un flux des réservations reconstruites.
+     */
+    public Stream<Reservation> toutes() {
+        return lignes(-1);
+    }
+
+    /**
+     * Parcourt les réservations archivées d'un utilisateur.
+     * Les lignes des autres utilisateurs sont écartées sans reconstruire d'objet.
+     * @param utilisateur l'utilisateur.
+     * @return un flux des réservations de l'utilisateur.
+     */
+    public Stream<Reservation> parUtilisateur(Utilisateur utilisateur) {
+        Integer code = codesUtilisateurs.get(utilisateur);
+        return code == null ? Stream.empty() : lignes(code);
+    }
+
+    private Stream<Reservation> lignes(int codeUtilisateur) {
+        List<Reservation> copieTampon;
+        synchronized (this) {
+            copieTampon = new ArrayList<>(tampon);
+        }
+        Stream<Colonnes> toutesColonnes = Stream.concat(
+                segments.stream().map(Segment::ouvrir),
+                copieTampon.isEmpty() ? Stream.empty() : Stream.of(colonnes(copieTampon)));
+        return toutesColonnes.flatMap(c -> {
+            List<Reservation> resultat = new ArrayList<>();
+            for (int i = 0; i < c.nb; i++) {
+                if (codeUtilisateur < 0 || c.utilisateurs[i] == codeUtilisateur) resultat.add(reconstruire(c, i));
+            }
+            return resultat.stream();
+        });
+    }
+
+    private Reservation reconstruire(Colonnes c, int i) {
+        return new Reservation(c.ids[i], utilisateursParCode.get(c.utilisateurs[i]), bornes.get(c.bornes[i]),
+                dateTime(c.debuts[i]), dateTime(c.fins[i]), STATUTS[c.statuts[i]]);
+    }
+
+    private Colonnes colonnes(List<Reservation> reservations) {
+        List<Reservation> triees = new ArrayList<>(reservations);
+        triees.sort(Comparator.comparing(Reservation::getDateDebut).thenComparingLong(Reservation::getId));
+        Colonnes c = new Colonnes(triees.size());
+        for (int i = 0; i < c.nb; i++) {
+            Reservation r = triees.get(i);
+            c.ids[i] = r.getId();
+            c.utilisateurs[i] = codesUtilisateurs.get(r.getUtilisateur());
+            c.bornes[i] = r.getBorne().getId();
+            c.debuts[i] = secondes(r.getDateDebut());
+            c.fins[i] = secondes(r.getDateFin());
+            c.statuts[i] = (byte) r.getStatut().ordinal();
+        }
+        return c;
+    }
+
+    private static long secondes(LocalDateTime dateTime) { return dateTime.toEpochSecond(ZoneOffset.UTC); }
+
+    private static LocalDateTime dateTime(long secondes) { return LocalDateTime.ofEpochSecond(secondes, 0, ZoneOffset.UTC); }
+
+    /**
+     * Source de lignes triées : segment scellé ou copie du tampon.
+     */
+    private interface Source {
+        long debutMin();
+        Colonnes ouvrir();
+    }
+
+    /**
+     * Données d'un segment, par colonnes, triées par (début, id).
+     */
+    private static final class Colonnes {
+        final int nb;
+        final long[] ids;
+        final int[] utilisateurs;
+        final long[] bornes;
+        final long[] debuts;
+        final long[] fins;
+        final byte[] statuts;
+
+        Colonnes(int nb) {
+            this.nb = nb;
+            this.ids = new long[nb];
+            this.utilisateurs = new int[nb];
+            this.bornes = new long[nb];
+            this.debuts = new long[nb];
+            this.fins = new long[nb];
+            this.statuts = new byte[nb];
+        }
+    }
+
+    /**
+     * Segment scellé : colonnes compressées et bornes temporelles.
+     */
+    private static final class Segment implements Source {
+        final long debutMin;
+        final long finMax;
+        final int nb;
+        final byte[] donnees;
+
+        private Segment(long debutMin, long finMax, int nb, byte[] donnees) {
+            this.debutMin = debutMin;
+            this.finMax = finMax;
+            this.nb = nb;
+            this.donnees = donnees;
+        }
+
+        static Segment sceller(Colonnes c) {
+            ByteArrayOutputStream octets = new ByteArrayOutputStream(c.nb * 8);
+            long finMax = Long.MIN_VALUE;
+            try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(new DeflaterOutputStream(octets)))) {
+                for (long id : c.ids) out.writeLong(id);
+                for (int u : c.utilisateurs) out.writeInt(u);
+                for (long b : c.bornes) out.writeLong(b);
+                long precedent = c.debuts[0];
+                for (long d : c.debuts) { out.writeLong(d - precedent); precedent = d; } // Débuts triés : petits deltas
+                for (int i = 0; i < c.nb; i++) {
+                    out.writeLong(c.fins[i] - c.debuts[i]); // Durée plutôt que date de fin
+                    finMax = Math.max(finMax, c.fins[i]);
+                }
+                out.write(c.statuts);
+            } catch (IOException e) {
+                throw new UncheckedIOException(e); // Écriture en mémoire : ne se produit pas
+            }
+            return new Segment(c.debuts[0], finMax, c.nb, octets.toByteArray());
+        }
+
+        @Override
+        public long debutMin() { return debutMin; }
+
+        @Override
+        public Colonnes ouvrir() {
+            Colonnes c = new Colonnes(nb);
+            try (DataInputStream in = new DataInputStream(new BufferedInputStream(new InflaterInputStream(new ByteArrayInputStream(donnees))))) {
+                for (int i = 0; i < nb; i++) c.ids[i] = in.readLong();
+                for (int i = 0; i < nb; i++) c.utilisateurs[i] = in.readInt();
+                for (int i = 0; i < nb; i++) c.bornes[i] = in.readLong();
+                long precedent = debutMin;
+                for (int i = 0; i < nb; i++) { precedent += in.readLong(); c.debuts[i] = precedent; }
+                for (int i = 0; i < nb; i++) c.fins[i] = c.debuts[i] + in.readLong();
+                in.readFully(c.statuts);
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+            return c;
+        }
+    }
+
+    /**
+     * Critères d'une recherche appliqués directement sur les colonnes.
+     */
+    private final class Filtre {
+        final Long borneId;
+        final Long lieuId;
+        final long debutMin;
+        final long debut;
+        final long fin;
+        final IndexTemporelReservations.Cle apres;
+        final long apresSecondes;
+
+        Filtre(RequetePlage requete, long debutMin, long debut, long fin, IndexTemporelReservations.Cle apres) {
+            this.borneId = requete.getBorneId();
+            this.lieuId = requete.getLieuId();
+            this.debutMin = debutMin;
+            this.debut = debut;
+            this.fin = fin;
+            this.apres = apres;
+            this.apresSecondes = apres == null ? Long.MIN_VALUE : secondes(apres.debut());
+        }
+
+        boolean retient(Colonnes c, int i) {
+            if (c.debuts[i] < debutMin || c.debuts[i] >= fin || c.fins[i] <= debut) return false;
+            if (apres != null && (c.debuts[i] < apresSecondes || (c.debuts[i] == apresSecondes && c.ids[i] <= apres.id()))) return false;
+            if (borneId != null && c.bornes[i] != borneId) return false;
+            return lieuId == null || bornes.get(c.bornes[i]).getLieuId() == lieuId;
+        }
+    }
+
+    /**
+     * Fusion triée des sources, qui ne sont décompressées qu'au moment où le parcours les atteint.
+     */
+    private final class Fusion implements Iterator<Map.Entry<IndexTemporelReservations.Cle, Reservation>> {
+        private final Deque<Source> aOuvrir;
+        private final Filtre filtre;
+        private final PriorityQueue<Curseur> ouverts = new PriorityQueue<>(
+                Comparator.comparingLong((Curseur cu) -> cu.colonnes.debuts[cu.position])
+                        .thenComparingLong(cu -> cu.colonnes.ids[cu.position]));
+
+        Fusion(List<Source> sources, Filtre filtre) {
+            this.aOuvrir = new ArrayDeque<>(sources);
+            this.filtre = filtre;
+        }
+
+        @Override
+        public boolean hasNext() {
+            ouvrirNecessaires();
+            return !ouverts.isEmpty();
+        }
+
+        @Override
+        public Map.Entry<IndexTemporelReservations.Cle, Reservation> next() {
+            if (!hasNext()) throw new NoSuchElementException();
+            Curseur cu = ouverts.poll();
+            Reservation r = reconstruire(cu.colonnes, cu.position);
+            if (cu.avancer(filtre)) ouverts.add(cu);
+            return Map.entry(IndexTemporelReservations.Cle.de(r), r);
+        }
+
+        /**
+         * Ouvre les sources dont le plus petit début précède la plus petite ligne en cours :
+         * elles peuvent contenir la prochaine ligne à retourner.
+         */
+        private void ouvrirNecessaires() {
+            while (!aOuvrir.isEmpty()) {
+                Curseur tete = ouverts.peek();
+                if (tete != null && aOuvrir.peek().debutMin() > tete.colonnes.debuts[tete.position]) return;
+                Curseur cu = new Curseur(aOuvrir.poll().ouvrir());
+                if (cu.avancer(filtre)) ouverts.add(cu);
+            }
+        }
+    }
+
+    /**
+     * Position courante dans une source ouverte.
+     */
+    private static final class Curseur {
+        final Colonnes colonnes;
+        int position = -1;
+
+        Curseur(Colonnes colonnes) { this.colonnes = colonnes; }
+
+        /** Avance jusqu'à la prochaine ligne retenue ; false si la source est épuisée. */
+        boolean avancer(Filtre filtre) {
+            while (++position < colonnes.nb) {
+                if (colonnes.debuts[position] >= filtre.fin) return false; // Lignes triées : plus rien à retenir
+                if (filtre.retient(colonnes, position)) return true;
+            }
+            return false;
+        }
+    }
+}
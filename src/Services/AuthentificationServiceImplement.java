@@ -2,20 +2,130 @@ package Services;
 
 
 import Interfaces.AuthentificationService;
+import Interfaces.Depot;
+import model.RapportImport;
+import model.SequencesIds;
 import model.Utilisateur;
 
-import java.util.HashMap;
+import javax.crypto.Mac;
+import javax.crypto.spec.SecretKeySpec;
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.Reader;
+import java.nio.charset.StandardCharsets;
+import java.security.GeneralSecurityException;
+import java.security.SecureRandom;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.List;
 import java.util.Map;
 import java.util.Optional;
-import java.util.UUID;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.regex.Pattern;
 
 /**
  * Implement d'authentificationService.
- * Données volatiles
+ * Données volatiles, sauf si un dépôt est utilisé ({@link #utiliserDepot(Depot)}).
+ * Les mots de passe sont stockés sous forme d'empreinte PBKDF2 (voir {@link HachageMotDePasse}).
+ * La vérification tourne sur un pool borné dédié pour ne pas affamer le reste de l'application,
+ * et les connexions réussies récentes sont mises en cache quelques secondes.
+ * Les codes de validation expirent et leurs tentatives sont limitées (voir {@link GestionnaireCodesValidation}).
  */
 public class AuthentificationServiceImplement implements AuthentificationService {
 
-    private final Map<String, Utilisateur> utilisateurs = new HashMap<>();
+    private static final int THREADS_VERIFICATION_PAR_DEFAUT = Math.max(1, Runtime.getRuntime().availableProcessors() / 2);
+    private static final int FILE_VERIFICATION_MAX = 256;
+    private static final long DUREE_CACHE_MS = 30_000;
+    private static final int TAILLE_CACHE_MAX = 10_000;
+    private static final Pattern FORMAT_EMAIL = Pattern.compile("^[^@\\s;]+@[^@\\s;]+\\.[^@\\s;]+$");
+    private static final int TAILLE_LOT_IMPORT = 2048;
+    private static final String EN_TETE_IMPORT = "email;motdepasse";
+
+    private final Map<String, Utilisateur> utilisateurs = new ConcurrentHashMap<>();
+    private final HachageMotDePasse hachage;
+    private final ExecutorService executeurVerification;
+    // Clé du cache (HMAC de email + mot de passe) -> instant d'expiration
+    private final Map<String, Long> cacheConnexions = new ConcurrentHashMap<>();
+    private final byte[] cleCache = new byte[32];
+    private final GestionnaireCodesValidation codesValidation = new GestionnaireCodesValidation();
+    private SequencesIds sequences = SequencesIds.GLOBALES; // Ids des utilisateurs inscrits ici
+    private int limiteUtilisateurs = Integer.MAX_VALUE; // Quota du locataire
+    private Depot<Utilisateur> depot; // Stockage, null si les données sont volatiles
+
+    /**
+     * Constructeur avec le coût et le nombre de threads de vérification par défaut.
+     */
+    public AuthentificationServiceImplement() {
+        this(HachageMotDePasse.ITERATIONS_PAR_DEFAUT, THREADS_VERIFICATION_PAR_DEFAUT);
+    }
+
+    /**
+     * Constructeur avec un coût de hachage et un pool de vérification configurables.
+     * @param iterations nombre d'itérations PBKDF2.
+     * @param threadsVerification nombre de threads dédiés à la vérification des mots de passe.
+     */
+    public AuthentificationServiceImplement(int iterations, int threadsVerification) {
+        this.hachage = new HachageMotDePasse(iterations);
+        AtomicInteger numero = new AtomicInteger();
+        this.executeurVerification = new ThreadPoolExecutor(threadsVerification, threadsVerification,
+                0L, TimeUnit.MILLISECONDS, new ArrayBlockingQueue<>(FILE_VERIFICATION_MAX),
+                r -> {
+                    Thread t = new Thread(r, "verification-mdp-" + numero.incrementAndGet());
+                    t.setDaemon(true); // N'empêche pas l'arrêt de l'application
+                    return t;
+                },
+                new ThreadPoolExecutor.AbortPolicy()); // File pleine : la connexion est refusée
+        new SecureRandom().nextBytes(cleCache);
+    }
+
+    /**
+     *
+     * @param sequences définit les séquences d'identifiants des utilisateurs inscrits (celles du locataire).
+     */
+    public void setSequences(SequencesIds sequences) {
+        this.sequences = sequences;
+    }
+
+    /**
+     *
+     * @param limiteUtilisateurs définit le nombre maximal de comptes (quota du locataire).
+     */
+    public void setLimiteUtilisateurs(int limiteUtilisateurs) {
+        this.limiteUtilisateurs = limiteUtilisateurs;
+    }
+
+    /**
+     * Arrête le pool de vérification des mots de passe : les vérifications en file se terminent,
+     * les connexions suivantes sont refusées. Ses threads ne s'arrêtent pas d'eux-mêmes.
+     */
+    public void fermer() {
+        executeurVerification.shutdown();
+    }
+
+    /**
+     * Charge les utilisateurs du dépôt, puis y enregistre chaque inscription ou validation faite ensuite.
+     * À appeler au démarrage, avant toute inscription : la séquence d'ids reprend après les ids chargés.
+     * @param depot dépôt des utilisateurs.
+     * @return le nombre d'utilisateurs chargés.
+     */
+    public long utiliserDepot(Depot<Utilisateur> depot) {
+        long charges = depot.charger(user -> {
+            sequences.depasserUtilisateur(user.getId());
+            utilisateurs.putIfAbsent(user.getEmail(), user);
+        });
+        this.depot = depot;
+        return charges;
+    }
+
+    /**
+     * Retourne l'utilisateur inscrit avec un email.
+     * @param email l'email du compte.
+     * @return l'utilisateur, ou vide si l'email est inconnu.
+     */
+    public Optional<Utilisateur> getUtilisateur(String email) {
+        return Optional.ofNullable(email == null ? null : utilisateurs.get(email));
+    }
 
     /**
      *
@@ -28,8 +138,16 @@ public class AuthentificationServiceImplement implements AuthentificationService
             System.err.println("Erreur: Email déjà utilisé.");
             return Optional.empty();
         }
-        Utilisateur user = new Utilisateur(email, motDePasse);
-        utilisateurs.put(email, user);
+        if (utilisateurs.size() >= limiteUtilisateurs) {
+            System.err.println("Erreur: Limite de " + limiteUtilisateurs + " comptes atteinte.");
+            return Optional.empty();
+        }
+        Utilisateur user = new Utilisateur(sequences, email, hachage.hacher(motDePasse));
+        if (utilisateurs.putIfAbsent(email, user) != null) {
+            System.err.println("Erreur: Email déjà utilisé.");
+            return Optional.empty();
+        }
+        if (depot != null) depot.enregistrer(user.getId(), user);
         System.out.println("Inscription réussie pour " + email + ".");
         return Optional.of(user);
     }
@@ -37,46 +155,249 @@ public class AuthentificationServiceImplement implements AuthentificationService
     /**
      *
      * @param utilisateur L'{@link Utilisateur} pour lequel générer et stocker le code.
-     * @return le code de validation
+     * @return le code de validation, ou null si trop de codes sont en attente
      */
     @Override
     public String genererEtStockerCodeValidation(Utilisateur utilisateur) {
-        String code = UUID.randomUUID().toString().substring(0, 6).toUpperCase();
-        utilisateur.setCodeValidation(code);
+        if (utilisateur == null || utilisateur.isEstValide()) return null;
+        String code = codesValidation.emettre(utilisateur.getEmail());
+        if (code == null) {
+            System.err.println("Erreur: Trop d'inscriptions en attente, réessayez plus tard.");
+        }
         // Pas d'affichage ici, le menu s'en chargera
         return code;
     }
 
+    /**
+     *
+     * @param email L'email du compte à valider.
+     * @return le code de validation, ou null en cas d'erreur
+     */
+    @Override
+    public String renvoyerCodeValidation(String email) {
+        Utilisateur user = email == null ? null : utilisateurs.get(email);
+        if (user == null || user.isEstValide()) {
+            System.err.println("Erreur: Aucun compte en attente de validation pour " + email + ".");
+            return null;
+        }
+        String code = codesValidation.renvoyer(email);
+        if (code == null) {
+            System.err.println("Erreur: Trop d'inscriptions en attente, réessayez plus tard.");
+        }
+        return code;
+    }
+
     /**
      *
      * @param email L'email de l'utilisateur tentant de valider son compte.
      * @param code Le code de validation fourni par l'utilisateur.
+     * @return true si le compte a été validé
      */
     @Override
-    public void validerCompte(String email, String code) {
+    public boolean validerCompte(String email, String code) {
         Utilisateur user = utilisateurs.get(email);
-        if (user != null && !user.isEstValide() && code != null && code.equals(user.getCodeValidation())) {
-            user.setEstValide(true);
-            user.setCodeValidation(null); // Code utilisé
-            System.out.println("Compte " + email + " validé.");
-            return;
+        if (user == null || user.isEstValide()) {
+            System.err.println("Erreur de validation pour " + email + ".");
+            return false;
         }
-        System.err.println("Erreur de validation pour " + email + ".");
+        switch (codesValidation.verifier(email, code == null ? null : code.trim().toUpperCase())) {
+            case VALIDE:
+                user.setEstValide(true); // Le code est consommé par le gestionnaire
+                if (depot != null) depot.enregistrer(user.getId(), user);
+                System.out.println("Compte " + email + " validé.");
+                return true;
+            case TROP_DE_TENTATIVES:
+                System.err.println("Erreur: Trop de tentatives de validation pour " + email + ", réessayez plus tard.");
+                break;
+            case INCONNU_OU_EXPIRE:
+                System.err.println("Erreur: Code de validation expiré pour " + email + ", demandez-en un nouveau.");
+                break;
+            default:
+                System.err.println("Erreur de validation pour " + email + ".");
+        }
+        return false;
     }
 
     /**
-     *
+     * Vérifie l'empreinte du mot de passe sur le pool dédié, sauf si la même
+     * connexion a réussi il y a peu (cache).
      * @param email L'email fourni pour la connexion.
      * @param motDePasse Le mot de passe fourni pour la connexion.
      */
     @Override
     public Optional<Utilisateur> connecter(String email, String motDePasse) {
         Utilisateur user = utilisateurs.get(email);
-        if (user != null && user.isEstValide() && user.getMotDePasse().equals(motDePasse)) {
+        if (user != null && user.isEstValide() && motDePasse != null && verifierMotDePasse(user, motDePasse)) {
             System.out.println("Connexion réussie: " + email);
             return Optional.of(user);
         }
         System.err.println("Echec connexion pour " + email + ".");
         return Optional.empty();
     }
-}
\ No newline at end of file
+
+    /**
+     * Lit le CSV par lots et traite les lots en parallèle. Le nombre de lots en cours est borné
+     * pour que la mémoire reste constante quelle que soit la taille du fichier.
+     * Les doublons (dans le système ou dans le fichier) sont détectés par l'insertion atomique dans la map.
+     * @param source Le flux CSV à lire.
+     * @param comptesValides true pour créer les comptes directement validés.
+     * @return le rapport d'import.
+     * @throws IOException si la lecture du flux échoue.
+     */
+    @Override
+    public RapportImport importerUtilisateurs(Reader source, boolean comptesValides) throws IOException {
+        RapportImport rapport = new RapportImport();
+        int nbThreads = Runtime.getRuntime().availableProcessors();
+        ExecutorService pool = Executors.newFixedThreadPool(nbThreads);
+        Semaphore lotsEnCours = new Semaphore(nbThreads * 2);
+        BufferedReader lecteur = source instanceof BufferedReader ? (BufferedReader) source : new BufferedReader(source);
+        try {
+            List<String> lot = new ArrayList<>(TAILLE_LOT_IMPORT);
+            long numeroPremiereLigne = 1;
+            long numeroLigne = 0;
+            String ligne;
+            while ((ligne = lecteur.readLine()) != null) {
+                numeroLigne++;
+                if (numeroLigne == 1 && ligne.trim().equalsIgnoreCase(EN_TETE_IMPORT)) {
+                    numeroPremiereLigne = 2; // En-tête ignoré
+                    continue;
+                }
+                lot.add(ligne);
+                if (lot.size() == TAILLE_LOT_IMPORT) {
+                    soumettreLot(pool, lotsEnCours, lot, numeroPremiereLigne, comptesValides, rapport);
+                    lot = new ArrayList<>(TAILLE_LOT_IMPORT);
+                    numeroPremiereLigne = numeroLigne + 1;
+                }
+            }
+            if (!lot.isEmpty()) {
+                soumettreLot(pool, lotsEnCours, lot, numeroPremiereLigne, comptesValides, rapport);
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IOException("Import interrompu.", e);
+        } finally {
+            pool.shutdown();
+        }
+        try {
+            pool.awaitTermination(Long.MAX_VALUE, TimeUnit.MILLISECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IOException("Import interrompu.", e);
+        }
+        System.out.println("Import utilisateurs terminé: " + rapport);
+        return rapport;
+    }
+
+    private void soumettreLot(ExecutorService pool, Semaphore lotsEnCours, List<String> lot, long numeroPremiereLigne,
+                              boolean comptesValides, RapportImport rapport) throws InterruptedException {
+        lotsEnCours.acquire();
+        pool.execute(() -> {
+            try {
+                for (int i = 0; i < lot.size(); i++) {
+                    importerLigne(lot.get(i), numeroPremiereLigne + i, comptesValides, rapport);
+                }
+            } finally {
+                lotsEnCours.release();
+            }
+        });
+    }
+
+    private void importerLigne(String ligne, long numeroLigne, boolean comptesValides, RapportImport rapport) {
+        int separateur = ligne.indexOf(';');
+        if (separateur <= 0 || separateur == ligne.length() - 1) {
+            rapport.rejeter(numeroLigne, "format attendu email;motDePasse");
+            return;
+        }
+        String email = ligne.substring(0, separateur).trim();
+        String motDePasse = ligne.substring(separateur + 1).trim();
+        if (!FORMAT_EMAIL.matcher(email).matches()) {
+            rapport.rejeter(numeroLigne, "email invalide");
+            return;
+        }
+        if (motDePasse.isEmpty()) {
+            rapport.rejeter(numeroLigne, "mot de passe vide");
+            return;
+        }
+        if (utilisateurs.containsKey(email)) { // Évite de hacher pour rien
+            rapport.rejeter(numeroLigne, "email déjà utilisé");
+            return;
+        }
+        if (utilisateurs.size() >= limiteUtilisateurs) {
+            rapport.rejeter(numeroLigne, "limite de comptes atteinte");
+            return;
+        }
+        String empreinte;
+        if (HachageMotDePasse.ressembleEmpreinte(motDePasse)) {
+            if (!hachage.estEmpreinteConforme(motDePasse)) {
+                rapport.rejeter(numeroLigne, "empreinte invalide (format ou nombre d'itérations différent de "
+                        + hachage.getIterations() + ")");
+                return;
+            }
+            empreinte = motDePasse;
+        } else {
+            empreinte = hachage.hacher(motDePasse);
+        }
+        Utilisateur user = new Utilisateur(sequences, email, empreinte);
+        user.setEstValide(comptesValides);
+        if (utilisateurs.putIfAbsent(email, user) != null) {
+            rapport.rejeter(numeroLigne, "email déjà utilisé");
+            return;
+        }
+        if (depot != null) depot.enregistrer(user.getId(), user);
+        rapport.accepter();
+    }
+
+    /**
+     * Vérifie le mot de passe en passant d'abord par le cache des connexions récentes.
+     * @param user l'utilisateur dont on vérifie le mot de passe.
+     * @param motDePasse le mot de passe fourni.
+     * @return true si le mot de passe correspond.
+     */
+    private boolean verifierMotDePasse(Utilisateur user, String motDePasse) {
+        String cle = cleCache(user.getEmail(), motDePasse);
+        long maintenant = System.currentTimeMillis();
+        Long expiration = cacheConnexions.get(cle);
+        if (expiration != null && expiration > maintenant) {
+            return true;
+        }
+
+        boolean valide;
+        try {
+            valide = executeurVerification.submit(() -> hachage.verifier(motDePasse, user.getMotDePasse())).get();
+        } catch (RejectedExecutionException e) {
+            System.err.println("Erreur: Trop de connexions simultanées, réessayez.");
+            return false;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return false;
+        } catch (ExecutionException e) {
+            System.err.println("Erreur vérification mot de passe: " + e.getCause().getMessage());
+            return false;
+        }
+
+        if (valide) {
+            if (cacheConnexions.size() >= TAILLE_CACHE_MAX) {
+                cacheConnexions.values().removeIf(exp -> exp <= maintenant);
+                if (cacheConnexions.size() >= TAILLE_CACHE_MAX) cacheConnexions.clear();
+            }
+            cacheConnexions.put(cle, maintenant + DUREE_CACHE_MS);
+        }
+        return valide;
+    }
+
+    /**
+     * Calcule la clé du cache : HMAC de l'email et du mot de passe avec une clé aléatoire
+     * propre à l'instance, pour ne jamais garder de mot de passe en clair en mémoire.
+     */
+    private String cleCache(String email, String motDePasse) {
+        try {
+            Mac mac = Mac.getInstance("HmacSHA256");
+            mac.init(new SecretKeySpec(cleCache, "HmacSHA256"));
+            mac.update(email.getBytes(StandardCharsets.UTF_8));
+            mac.update((byte) 0);
+            return Base64.getEncoder().encodeToString(mac.doFinal(motDePasse.getBytes(StandardCharsets.UTF_8)));
+        } catch (GeneralSecurityException e) {
+            throw new IllegalStateException("HmacSHA256 indisponible: " + e.getMessage(), e);
+        }
+    }
+}
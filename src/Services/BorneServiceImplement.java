@@ -2,11 +2,21 @@ package Services;
 
 
 import Interfaces.BorneService;
+import Interfaces.Depot;
+import Interfaces.EcouteurBornes;
 import Interfaces.ReservationService;
 import model.*;
 
+import java.io.*;
 import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
 import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
 import java.util.stream.Collectors;
 
 // For Bonus Persistence
@@ -17,9 +27,19 @@ import java.util.stream.Collectors;
  */
 public class BorneServiceImplement implements BorneService {
 
-    private final Map<Long, LieuRecharge> lieux = new HashMap<>();
-    private final Map<Long, BorneRecharge> bornes = new HashMap<>();
+    private final Map<Long, LieuRecharge> lieux = new ConcurrentHashMap<>();
+    private final Map<Long, BorneRecharge> bornes = new ConcurrentHashMap<>(); // Lue aussi par l'ingestion de télémétrie
+    private final InstantaneVersionne<LieuRecharge> vueLieux = new InstantaneVersionne<>(); // Reconstruit après un ajout
+    private final IndexEtatsBornes indexEtats = new IndexEtatsBornes(); // Bornes par état, tenu à jour ici
+    private final ReadWriteLock verrouEtats = new ReentrantReadWriteLock(); // Protège indexEtats et les états des bornes
+    private final Lock verrouDepots = new ReentrantLock(); // Écritures des dépôts, pris avant de rendre verrouEtats
     private ReservationService reservationService; // Pour injection
+    private MoteurTarifaire moteurTarifaire; // Optionnel : tarif horaire simple si absent
+    private SequencesIds sequences = SequencesIds.GLOBALES; // Ids des lieux et bornes créés ici
+    private int limiteBornes = Integer.MAX_VALUE; // Quota du locataire
+    private final List<EcouteurBornes> ecouteurs = new CopyOnWriteArrayList<>(); // Réplication de la topologie
+    private Depot<LieuRecharge> depotLieux; // Stockage, null si les données sont volatiles
+    private Depot<BorneRecharge> depotBornes;
 
     /**
      *
@@ -29,16 +49,58 @@ public class BorneServiceImplement implements BorneService {
         this.reservationService = reservationService;
     }
 
+    /**
+     *
+     * @param moteurTarifaire définit le moteur de tarification selon l'heure utilisé pour estimer les coûts.
+     */
+    public void setMoteurTarifaire(MoteurTarifaire moteurTarifaire) {
+        this.moteurTarifaire = moteurTarifaire;
+    }
+
+    /**
+     *
+     * @param sequences définit les séquences d'identifiants des lieux et bornes créés (celles du locataire).
+     */
+    public void setSequences(SequencesIds sequences) {
+        this.sequences = sequences;
+    }
+
+    /**
+     *
+     * @param limiteBornes définit le nombre maximal de bornes du service (quota du locataire).
+     */
+    public void setLimiteBornes(int limiteBornes) {
+        this.limiteBornes = limiteBornes;
+    }
+
+    /**
+     *
+     * @param ecouteur abonne un écouteur aux modifications des lieux et bornes faites ensuite.
+     */
+    public void ajouterEcouteur(EcouteurBornes ecouteur) {
+        ecouteurs.add(ecouteur);
+    }
+
     /**
      *
      * @param nom nom du lieu
      * @param adresse adresse du lieu
+     * Le lieu est publié et signalé sous le verrou d'écriture, comme les bornes : une borne ajoutée
+     * aussitôt au lieu est toujours signalée après lui.
      * @return le nom avec l'adresse du nouveau lieu.
      */
     @Override
     public LieuRecharge ajouterLieu(String nom, String adresse) {
-        LieuRecharge lieu = new LieuRecharge(nom, adresse);
-        lieux.put(lieu.getId(), lieu);
+        LieuRecharge lieu = new LieuRecharge(sequences, nom, adresse);
+        Modifications modifications = new Modifications();
+        verrouEtats.writeLock().lock();
+        try {
+            lieux.put(lieu.getId(), lieu);
+            modifications.signalerLieu(lieu);
+        } finally {
+            deverrouiller(modifications);
+        }
+        vueLieux.invalider();
         System.out.println("Lieu ajouté: " + lieu);
         return lieu;
     }
@@ -53,8 +115,15 @@ public class BorneServiceImplement implements BorneService {
     public void modifierLieu(long lieuId, String nouveauNom, String nouvelleAdresse) {
         LieuRecharge lieu = lieux.get(lieuId);
         if (lieu == null) return;
-        if (nouveauNom != null && !nouveauNom.isBlank()) lieu.setNom(nouveauNom);
-        if (nouvelleAdresse != null && !nouvelleAdresse.isBlank()) lieu.setAdresse(nouvelleAdresse);
+        Modifications modifications = new Modifications();
+        verrouEtats.writeLock().lock();
+        try { // Deux modifications concurrentes sont signalées dans l'ordre où elles sont faites
+            if (nouveauNom != null && !nouveauNom.isBlank()) lieu.setNom(nouveauNom);
+            if (nouvelleAdresse != null && !nouvelleAdresse.isBlank()) lieu.setAdresse(nouvelleAdresse);
+            modifications.signalerLieu(lieu);
+        } finally {
+            deverrouiller(modifications);
+        }
         System.out.println("Lieu modifié: " + lieu);
     }
 
@@ -77,6 +146,15 @@ public class BorneServiceImplement implements BorneService {
         return new ArrayList<>(lieux.values());
     }
 
+    /**
+     *Retourne l'instantané des lieux, reconstruit seulement après un ajout.
+     * @return une liste non modifiable de lieux.
+     */
+    @Override
+    public List<LieuRecharge> getLieuxVue() {
+        return vueLieux.lire(() -> List.copyOf(lieux.values()));
+    }
+
     /**
      *Vérifie l'existence du lieu et que le tarif n'est pas négatif puis ajoute une borne au lieu et dans la liste des bornes.
      * @param lieuId id du lieu auquel ajouter la borne.
@@ -93,9 +171,22 @@ public class BorneServiceImplement implements BorneService {
             System.err.println("Erreur: Tarif horaire négatif.");
             return;
         }
-        BorneRecharge borne = new BorneRecharge(tarifHoraire, lieuId);
-        bornes.put(borne.getId(), borne);
-        lieu.ajouterBorne(borne); // Ajoute à la liste du lieu aussi
+        BorneRecharge borne;
+        Modifications modifications = new Modifications();
+        verrouEtats.writeLock().lock();
+        try { // Publiée sous le verrou : une suppression concurrente ne peut pas passer entre l'ajout et le signal
+            if (bornes.size() >= limiteBornes) {
+                System.err.println("Erreur: Limite de " + limiteBornes + " bornes atteinte.");
+                return;
+            }
+            borne = new BorneRecharge(sequences, tarifHoraire, lieuId);
+            bornes.put(borne.getId(), borne);
+            indexEtats.ajouter(borne);
+            lieu.ajouterBorne(borne); // Ajoute à la liste du lieu aussi
+            modifications.signalerBorne(borne);
+        } finally {
+            deverrouiller(modifications);
+        }
         System.out.println("Borne ajoutée: " + borne + " au lieu " + lieu.getNom());
     }
 
@@ -107,10 +198,22 @@ public class BorneServiceImplement implements BorneService {
      */
     @Override
     public void modifierBorne(long borneId, EtatBorne nouvelEtat, Double nouveauTarif) {
-        BorneRecharge borne = bornes.get(borneId);
-        if (borne == null) return;
-        if (nouvelEtat != null) borne.setEtat(nouvelEtat);
-        if (nouveauTarif != null && nouveauTarif >= 0) borne.setTarifHoraire(nouveauTarif);
+        BorneRecharge borne;
+        Modifications modifications = new Modifications();
+        verrouEtats.writeLock().lock();
+        try { // Lue sous le verrou : une borne supprimée entre-temps n'est pas signalée à nouveau
+            borne = bornes.get(borneId);
+            if (borne == null) return;
+            if (nouvelEtat != null) {
+                EtatBorne ancien = borne.getEtat();
+                borne.setEtat(nouvelEtat);
+                indexEtats.etatModifie(borne, ancien);
+            }
+            if (nouveauTarif != null && nouveauTarif >= 0) borne.setTarifHoraire(nouveauTarif);
+            modifications.signalerBorne(borne);
+        } finally {
+            deverrouiller(modifications);
+        }
         System.out.println("Borne modifiée: " + borne);
     }
 
@@ -125,7 +228,9 @@ public class BorneServiceImplement implements BorneService {
     }
 
     /**
-     *Vérifie que la borne existe et n'est pas réservé puis Supprime la borne
+     *Vérifie que la borne existe et n'est pas réservé puis Supprime la borne.
+     * La vérification et la suppression se font sous le verrou de réservation de la borne
+     * (voir {@link ReservationService#supprimerBorneSiLibre}).
      * @param borneId l'id de la borne
      */
     @Override
@@ -140,21 +245,89 @@ public class BorneServiceImplement implements BorneService {
             return;
         }
 
-        if (reservationService.borneHasFutureReservations(borneId)) {
+        boolean supprimee = reservationService.supprimerBorneSiLibre(borneId, () -> {
+            Modifications modifications = new Modifications();
+            verrouEtats.writeLock().lock();
+            try {
+                if (!bornes.remove(borneId, borne)) return; // Déjà supprimée entre-temps
+                indexEtats.retirer(borne);
+                LieuRecharge lieu = lieux.get(borne.getLieuId());
+                if (lieu != null) {
+                    lieu.supprimerBorne(borne);
+                }
+                modifications.signalerSuppression(borne);
+            } finally {
+                deverrouiller(modifications);
+            }
+        });
+        if (!supprimee) {
             System.err.println("Erreur: Borne " + borneId + " a des réservations futures.");
             return;
         }
+        System.out.println("Borne " + borneId + " supprimée.");
+    }
 
-        bornes.remove(borneId);
-        LieuRecharge lieu = lieux.get(borne.getLieuId());
-        if (lieu != null) {
-            lieu.supprimerBorne(borne);
+    /**
+     *Retourne le nombre de bornes dans l'état donné, sans parcourir les bornes.
+     * @param etat état recherché
+     * @return nombre de bornes
+     */
+    @Override
+    public int getNombreBornes(EtatBorne etat) {
+        verrouEtats.readLock().lock();
+        try {
+            return indexEtats.nombre(etat);
+        } finally {
+            verrouEtats.readLock().unlock();
         }
-        System.out.println("Borne " + borneId + " supprimée.");
+    }
+
+    /**
+     *Applique un lot de changements d'état sous un seul verrou d'écriture : l'ingestion de télémétrie
+     * paie le verrou une fois par lot et non une fois par borne.
+     * @param borneIds identifiants des bornes
+     * @param etats nouveaux états
+     * @param nombre taille du lot
+     * @return nombre de bornes dont l'état a changé
+     */
+    @Override
+    public int appliquerEtats(long[] borneIds, EtatBorne[] etats, int nombre) {
+        int modifiees = 0;
+        Modifications modifications = new Modifications();
+        verrouEtats.writeLock().lock();
+        try {
+            for (int i = 0; i < nombre; i++) {
+                BorneRecharge borne = bornes.get(borneIds[i]);
+                if (borne == null) continue; // Borne supprimée ou inconnue
+                EtatBorne ancien = borne.getEtat();
+                if (ancien == etats[i]) continue;
+                borne.setEtat(etats[i]);
+                indexEtats.etatModifie(borne, ancien);
+                modifications.signalerBorne(borne);
+                modifiees++;
+            }
+        } finally {
+            deverrouiller(modifications);
+        }
+        return modifiees;
+    }
+
+    /**
+     *Utilise le moteur tarifaire s'il est configuré, sinon durée x tarif horaire.
+     * @param borne la borne
+     * @param debut date début
+     * @param fin date fin
+     * @return le coût estimé
+     */
+    @Override
+    public double estimerCout(BorneRecharge borne, LocalDateTime debut, LocalDateTime fin) {
+        if (moteurTarifaire != null) return moteurTarifaire.calculerCout(borne, debut, fin);
+        return ChronoUnit.MINUTES.between(debut, fin) / 60.0 * borne.getTarifHoraire();
     }
 
     /**
      *Récupère toutes les bornes disponibles et non réservé.
+     * Part directement de l'ensemble des bornes DISPONIBLE et des réservations du créneau (index temporel).
      * @param debut date début
      * @param fin date fin
      */
@@ -169,19 +342,269 @@ public class BorneServiceImplement implements BorneService {
             return new ArrayList<>();
         }
 
-        List<Reservation> reservationsConflictuelles = reservationService.getAllReservations().stream()
-                .filter(r -> r.getStatut() == StatutReservation.ACCEPTEE || r.getStatut() == StatutReservation.EN_ATTENTE)
-                .filter(r -> r.chevauche(debut, fin))
-                .toList();
-
-        List<Long> idsBornesReservees = reservationsConflictuelles.stream()
+        Set<Long> idsBornesReservees = reservationService.streamReservations(
+                        RequetePlage.reseau(debut, fin).avecStatuts(StatutReservation.ACCEPTEE, StatutReservation.EN_ATTENTE))
                 .map(r -> r.getBorne().getId())
-                .distinct()
-                .toList();
+                .collect(Collectors.toCollection(HashSet::new));
+        reservationService.streamSeries(debut, fin).forEach(serie -> idsBornesReservees.add(serie.getBorne().getId()));
+
+        List<BorneRecharge> disponibles = new ArrayList<>();
+        verrouEtats.readLock().lock();
+        try {
+            indexEtats.pourChaque(EtatBorne.DISPONIBLE, b -> { // Doit être initialement disponible
+                if (!idsBornesReservees.contains(b.getId())) disponibles.add(b); // Ne dois pas être réservée
+            });
+        } finally {
+            verrouEtats.readLock().unlock();
+        }
+        return disponibles;
+    }
+
+    /**
+     * Exporte les lieux et leurs bornes en CSV (voir {@link FormatTopologie}).
+     * @param sortie flux de destination.
+     * @throws IOException si l'écriture échoue.
+     */
+    @Override
+    public void exporterTopologieCsv(Writer sortie) throws IOException {
+        FormatTopologie.ecrireCsv(getLieuxVue(), sortie);
+    }
+
+    /**
+     * Exporte les lieux et leurs bornes en binaire (voir {@link FormatTopologie}).
+     * @param sortie flux de destination.
+     * @throws IOException si l'écriture échoue.
+     */
+    @Override
+    public void exporterTopologieBinaire(OutputStream sortie) throws IOException {
+        FormatTopologie.ecrireBinaire(getLieuxVue(), sortie);
+    }
+
+    /**
+     * Lit tout le CSV puis enregistre la topologie en une fois.
+     * @param source flux CSV.
+     * @return le nombre de bornes importées.
+     * @throws IOException si le contenu est invalide, rien n'est importé.
+     */
+    @Override
+    public int importerTopologieCsv(Reader source) throws IOException {
+        return enregistrerTopologie(FormatTopologie.lireCsv(source, sequences));
+    }
+
+    /**
+     * Lit tout le flux binaire puis enregistre la topologie en une fois.
+     * @param source flux binaire.
+     * @return le nombre de bornes importées.
+     * @throws IOException si le contenu est invalide, rien n'est importé.
+     */
+    @Override
+    public int importerTopologieBinaire(InputStream source) throws IOException {
+        return enregistrerTopologie(FormatTopologie.lireBinaire(source, sequences));
+    }
+
+    /**
+     * Reproduit l'ajout ou la modification d'un lieu fait sur un autre nœud (réplication), sans affichage.
+     * @param lieuId id du lieu.
+     * @param nom nom du lieu.
+     * @param adresse adresse du lieu.
+     */
+    public void appliquerLieu(long lieuId, String nom, String adresse) {
+        Modifications modifications = new Modifications();
+        verrouEtats.writeLock().lock();
+        try {
+            LieuRecharge lieu = lieux.computeIfAbsent(lieuId, id -> new LieuRecharge(id, nom, adresse));
+            lieu.setNom(nom);
+            lieu.setAdresse(adresse);
+            modifications.signalerLieu(lieu);
+        } finally {
+            deverrouiller(modifications);
+        }
+        vueLieux.invalider();
+    }
+
+    /**
+     * Reproduit l'ajout ou la modification d'une borne faite sur un autre nœud (réplication), sans affichage.
+     * @param borneId id de la borne.
+     * @param lieuId id de son lieu, qui doit déjà exister.
+     * @param tarifHoraire tarif horaire.
+     * @param etat état de la borne.
+     * @return false si le lieu est inconnu.
+     */
+    public boolean appliquerBorne(long borneId, long lieuId, double tarifHoraire, EtatBorne etat) {
+        Modifications modifications = new Modifications();
+        verrouEtats.writeLock().lock();
+        try {
+            BorneRecharge borne = bornes.get(borneId);
+            if (borne == null) {
+                LieuRecharge lieu = lieux.get(lieuId);
+                if (lieu == null) return false;
+                borne = new BorneRecharge(borneId, tarifHoraire, lieuId);
+                borne.setEtat(etat);
+                bornes.put(borneId, borne);
+                indexEtats.ajouter(borne);
+                lieu.ajouterBorne(borne);
+            } else {
+                EtatBorne ancien = borne.getEtat();
+                borne.setTarifHoraire(tarifHoraire);
+                if (ancien != etat) {
+                    borne.setEtat(etat);
+                    indexEtats.etatModifie(borne, ancien);
+                }
+            }
+            modifications.signalerBorne(borne);
+            return true;
+        } finally {
+            deverrouiller(modifications);
+        }
+    }
+
+    /**
+     * Reproduit la suppression d'une borne faite sur un autre nœud (réplication), sans vérifier ses réservations.
+     * @param borneId id de la borne.
+     */
+    public void appliquerSuppression(long borneId) {
+        Modifications modifications = new Modifications();
+        verrouEtats.writeLock().lock();
+        try {
+            BorneRecharge borne = bornes.remove(borneId);
+            if (borne == null) return;
+            indexEtats.retirer(borne);
+            LieuRecharge lieu = lieux.get(borne.getLieuId());
+            if (lieu != null) lieu.supprimerBorne(borne);
+            modifications.signalerSuppression(borne);
+        } finally {
+            deverrouiller(modifications);
+        }
+    }
 
-        return bornes.values().stream()
-                .filter(b -> b.getEtat() == EtatBorne.DISPONIBLE) // Doit être initialement disponible
-                .filter(b -> !idsBornesReservees.contains(b.getId())) // Ne dois pas être réservée
-                .collect(Collectors.toList());
+    /**
+     * Ajoute des lieux déjà construits, avec leurs ids et leurs bornes (ex : copie reçue d'un autre nœud).
+     * Un lieu déjà connu reçoit seulement les bornes qu'il n'a pas encore.
+     * @param nouveauxLieux les lieux à ajouter.
+     * @return le nombre de bornes ajoutées.
+     */
+    public int enregistrerLieux(Collection<LieuRecharge> nouveauxLieux) {
+        return enregistrerTopologie(nouveauxLieux);
+    }
+
+    /**
+     * Charge les lieux et les bornes des dépôts, puis y enregistre chaque modification faite ensuite.
+     * À appeler au démarrage, avant toute modification : les séquences d'ids reprennent après les ids chargés.
+     * Les bornes dont le lieu est absent du dépôt sont ignorées.
+     * @param depotLieux dépôt des lieux (sans leurs bornes).
+     * @param depotBornes dépôt des bornes.
+     * @return le nombre de bornes chargées.
+     */
+    public int utiliserDepots(Depot<LieuRecharge> depotLieux, Depot<BorneRecharge> depotBornes) {
+        Map<Long, LieuRecharge> lieuxCharges = new HashMap<>();
+        depotLieux.charger(lieu -> {
+            lieuxCharges.put(lieu.getId(), lieu);
+            sequences.depasserLieu(lieu.getId());
+        });
+        int[] sansLieu = {0};
+        depotBornes.charger(borne -> {
+            sequences.depasserBorne(borne.getId());
+            LieuRecharge lieu = lieuxCharges.get(borne.getLieuId());
+            if (lieu != null) lieu.ajouterBorne(borne);
+            else sansLieu[0]++;
+        });
+        if (sansLieu[0] > 0) System.err.println("Erreur: " + sansLieu[0] + " bornes du dépôt sans lieu ignorées.");
+        int chargees = lieuxCharges.isEmpty() ? 0 : enregistrerTopologie(lieuxCharges.values());
+        this.depotLieux = depotLieux;
+        this.depotBornes = depotBornes;
+        return chargees;
+    }
+
+    /**
+     * Ajoute d'un bloc des lieux déjà construits (et leurs bornes) aux index du service,
+     * sans passer par ajouterLieu/ajouterBorne ni afficher une ligne par élément.
+     * Le tri des bornes nouvelles, la vérification du quota et l'ajout se font sous le verrou d'écriture :
+     * un import concurrent ou un changement d'état ne voit jamais une borne sans son lieu ni son index.
+     * @param nouveauxLieux les lieux lus et validés.
+     * @return le nombre de bornes ajoutées.
+     */
+    private int enregistrerTopologie(Collection<LieuRecharge> nouveauxLieux) {
+        Map<Long, LieuRecharge> lieuxImportes = new HashMap<>();
+        Map<Long, BorneRecharge> bornesImportees = new HashMap<>();
+        Modifications modifications = new Modifications();
+        verrouEtats.writeLock().lock();
+        try {
+            for (LieuRecharge lieu : nouveauxLieux) {
+                lieuxImportes.put(lieu.getId(), lieu);
+                for (BorneRecharge borne : lieu.getBornesVue()) {
+                    if (!bornes.containsKey(borne.getId())) bornesImportees.put(borne.getId(), borne);
+                }
+            }
+            if ((long) bornes.size() + bornesImportees.size() > limiteBornes) {
+                System.err.println("Erreur: Import refusé, la limite de " + limiteBornes + " bornes serait dépassée.");
+                return 0;
+            }
+            bornes.putAll(bornesImportees);
+            for (LieuRecharge lieu : lieuxImportes.values()) {
+                LieuRecharge existant = lieux.putIfAbsent(lieu.getId(), lieu);
+                if (existant == null || existant == lieu) continue;
+                for (BorneRecharge borne : lieu.getBornesVue()) { // Lieu déjà connu : il reçoit les nouvelles bornes
+                    if (bornesImportees.containsKey(borne.getId())) existant.ajouterBorne(borne);
+                }
+            }
+            bornesImportees.values().forEach(indexEtats::ajouter);
+            lieuxImportes.values().forEach(modifications::signalerLieu);
+            bornesImportees.values().forEach(modifications::signalerBorne);
+        } finally {
+            deverrouiller(modifications);
+        }
+        vueLieux.invalider();
+        System.out.println("Topologie importée: " + lieuxImportes.size() + " lieux, " + bornesImportees.size() + " bornes.");
+        return bornesImportees.size();
+    }
+
+    /**
+     * Rend le verrou d'écriture des états, puis enregistre les modifications faites sous ce verrou dans les dépôts.
+     * Le verrou des dépôts est pris avant de rendre celui des états : les dépôts reçoivent les modifications
+     * dans le même ordre que les écouteurs, sans que les lectures et les changements d'état attendent le disque.
+     */
+    private void deverrouiller(Modifications modifications) {
+        if (depotBornes == null || modifications.estVide()) {
+            verrouEtats.writeLock().unlock();
+            return;
+        }
+        verrouDepots.lock();
+        try {
+            verrouEtats.writeLock().unlock();
+            for (LieuRecharge lieu : modifications.lieuxModifies) depotLieux.enregistrer(lieu.getId(), lieu);
+            for (BorneRecharge borne : modifications.bornesModifiees) depotBornes.enregistrer(borne.getId(), borne);
+            for (BorneRecharge borne : modifications.bornesSupprimees) depotBornes.supprimer(borne.getId());
+        } finally {
+            verrouDepots.unlock();
+        }
+    }
+
+    /**
+     * Modifications faites sous le verrou d'écriture des états : signalées aussitôt aux écouteurs,
+     * dans l'ordre du verrou, et gardées pour les dépôts s'il y en a (voir deverrouiller).
+     */
+    private final class Modifications {
+        final List<LieuRecharge> lieuxModifies = new ArrayList<>();
+        final List<BorneRecharge> bornesModifiees = new ArrayList<>();
+        final List<BorneRecharge> bornesSupprimees = new ArrayList<>();
+
+        void signalerLieu(LieuRecharge lieu) {
+            if (depotBornes != null) lieuxModifies.add(lieu);
+            for (EcouteurBornes e : ecouteurs) e.lieuModifie(lieu);
+        }
+
+        void signalerBorne(BorneRecharge borne) {
+            if (depotBornes != null) bornesModifiees.add(borne);
+            for (EcouteurBornes e : ecouteurs) e.borneModifiee(borne);
+        }
+
+        void signalerSuppression(BorneRecharge borne) {
+            if (depotBornes != null) bornesSupprimees.add(borne);
+            for (EcouteurBornes e : ecouteurs) e.borneSupprimee(borne);
+        }
+
+        boolean estVide() {
+            return lieuxModifies.isEmpty() && bornesModifiees.isEmpty() && bornesSupprimees.isEmpty();
+        }
     }
-}
\ No newline at end of file
+}
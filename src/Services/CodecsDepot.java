@@ -0,0 +1,141 @@
+package Services;
+
+
+import model.*;
+
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Function;
+import java.util.function.LongFunction;
+
+/**
+ * Encodages des objets du modèle pour {@link DepotFichier}, à passer à {@link DepotFichier#ouvrir(java.nio.file.Path, DepotFichier.Codec)}
+ * avec le fichier de chaque dépôt.
+ * <pre>
+ * LIEU         [nom : UTF] [adresse : UTF]                      (ses bornes sont stockées à part)
+ * BORNE        [lieuId] [tarif : double] [état : octet]
+ * UTILISATEUR  [email : UTF] [empreinte du mot de passe : UTF] [validé : booléen]
+ * RESERVATION  [utilisateurId] [email : UTF] [borneId] [début] [fin] [statut : octet]
+ * </pre>
+ * Les dates sont écrites en secondes (UTC) puis nanosecondes, comme dans le {@link JournalMutations}.
+ */
+public final class CodecsDepot {
+
+    private static final EtatBorne[] ETATS = EtatBorne.values();
+    private static final StatutReservation[] STATUTS = StatutReservation.values();
+
+    /** Encodage des lieux, sans leurs bornes. */
+    public static final DepotFichier.Codec<LieuRecharge> LIEUX = new DepotFichier.Codec<>() {
+        @Override
+        public void encoder(LieuRecharge lieu, DataOutput sortie) throws IOException {
+            sortie.writeUTF(lieu.getNom());
+            sortie.writeUTF(lieu.getAdresse());
+        }
+
+        @Override
+        public LieuRecharge decoder(long id, DataInput entree) throws IOException {
+            return new LieuRecharge(id, entree.readUTF(), entree.readUTF());
+        }
+    };
+
+    /** Encodage des bornes. */
+    public static final DepotFichier.Codec<BorneRecharge> BORNES = new DepotFichier.Codec<>() {
+        @Override
+        public void encoder(BorneRecharge borne, DataOutput sortie) throws IOException {
+            sortie.writeLong(borne.getLieuId());
+            sortie.writeDouble(borne.getTarifHoraire());
+            sortie.writeByte(borne.getEtat().ordinal());
+        }
+
+        @Override
+        public BorneRecharge decoder(long id, DataInput entree) throws IOException {
+            long lieuId = entree.readLong();
+            BorneRecharge borne = new BorneRecharge(id, entree.readDouble(), lieuId);
+            borne.setEtat(ETATS[lireIndice(entree, ETATS.length)]);
+            return borne;
+        }
+    };
+
+    /** Encodage des utilisateurs, avec l'empreinte de leur mot de passe. */
+    public static final DepotFichier.Codec<Utilisateur> UTILISATEURS = new DepotFichier.Codec<>() {
+        @Override
+        public void encoder(Utilisateur utilisateur, DataOutput sortie) throws IOException {
+            sortie.writeUTF(utilisateur.getEmail());
+            sortie.writeUTF(utilisateur.getMotDePasse());
+            sortie.writeBoolean(utilisateur.isEstValide());
+        }
+
+        @Override
+        public Utilisateur decoder(long id, DataInput entree) throws IOException {
+            Utilisateur utilisateur = new Utilisateur(id, entree.readUTF(), entree.readUTF());
+            utilisateur.setEstValide(entree.readBoolean());
+            return utilisateur;
+        }
+    };
+
+    private CodecsDepot() {
+    }
+
+    /**
+     * Encodage des réservations. Au décodage, la borne et l'utilisateur sont ceux des services déjà chargés :
+     * une réservation d'un utilisateur inconnu reçoit un utilisateur reconstruit à partir de son id et de son email
+     * (sans mot de passe), le même pour toutes ses réservations.
+     * @param bornes retourne la borne d'un id, ou null.
+     * @param utilisateurs retourne l'utilisateur d'un email, ou null.
+     * @return le codec.
+     */
+    public static DepotFichier.Codec<Reservation> reservations(LongFunction<BorneRecharge> bornes,
+                                                                Function<String, Utilisateur> utilisateurs) {
+        Map<Long, Utilisateur> reconstruits = new ConcurrentHashMap<>();
+        return new DepotFichier.Codec<>() {
+            @Override
+            public void encoder(Reservation r, DataOutput sortie) throws IOException {
+                sortie.writeLong(r.getUtilisateur().getId());
+                sortie.writeUTF(r.getUtilisateur().getEmail());
+                sortie.writeLong(r.getBorne().getId());
+                ecrireDate(r.getDateDebut(), sortie);
+                ecrireDate(r.getDateFin(), sortie);
+                sortie.writeByte(r.getStatut().ordinal());
+            }
+
+            @Override
+            public Reservation decoder(long id, DataInput entree) throws IOException {
+                long utilisateurId = entree.readLong();
+                String email = entree.readUTF();
+                long borneId = entree.readLong();
+                BorneRecharge borne = bornes.apply(borneId);
+                if (borne == null) throw new IOException("Borne inconnue pour la réservation " + id + ": " + borneId);
+                Utilisateur utilisateur = utilisateurs.apply(email);
+                if (utilisateur == null) {
+                    utilisateur = reconstruits.computeIfAbsent(utilisateurId, uid -> new Utilisateur(uid, email, ""));
+                }
+                LocalDateTime debut = lireDate(entree);
+                LocalDateTime fin = lireDate(entree);
+                return new Reservation(id, utilisateur, borne, debut, fin, STATUTS[lireIndice(entree, STATUTS.length)]);
+            }
+        };
+    }
+
+    private static void ecrireDate(LocalDateTime date, DataOutput sortie) throws IOException {
+        sortie.writeLong(date.toEpochSecond(ZoneOffset.UTC));
+        sortie.writeInt(date.getNano());
+    }
+
+    private static LocalDateTime lireDate(DataInput entree) throws IOException {
+        long secondes = entree.readLong();
+        int nanos = entree.readInt();
+        if (nanos < 0 || nanos > 999_999_999) throw new IOException("Date invalide.");
+        return LocalDateTime.ofEpochSecond(secondes, nanos, ZoneOffset.UTC);
+    }
+
+    private static int lireIndice(DataInput entree, int nombre) throws IOException {
+        int indice = entree.readUnsignedByte();
+        if (indice >= nombre) throw new IOException("Valeur inconnue: " + indice);
+        return indice;
+    }
+}
@@ -0,0 +1,82 @@
+package Services;
+
+
+import Interfaces.ComptageService;
+import model.AgregatMesures;
+import model.Reservation;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.List;
+import java.util.Optional;
+
+/**
+ * Implement de ComptageService.
+ * Les relevés sont conservés dans une {@link SerieTemporelleMesures}.
+ */
+public class ComptageServiceImplement implements ComptageService {
+
+    private final SerieTemporelleMesures mesures = new SerieTemporelleMesures();
+
+    /**
+     *Enregistre le relevé sans affichage : les bornes en envoient en continu.
+     * @param borneId id de la borne
+     * @param instant instant du relevé
+     * @param compteurWh index du compteur
+     * @param puissanceW puissance instantanée
+     * @return false si le relevé est refusé
+     */
+    @Override
+    public boolean enregistrerMesure(long borneId, LocalDateTime instant, long compteurWh, int puissanceW) {
+        if (instant == null) return false;
+        return mesures.ajouter(borneId, instant, compteurWh, puissanceW);
+    }
+
+    /**
+     *Vérifie la plage et le pas puis agrège les relevés.
+     * @param borneId id de la borne
+     * @param debut début de la plage
+     * @param fin fin de la plage
+     * @param pas durée d'un intervalle
+     * @return les agrégats, vide si la plage ou le pas est invalide
+     */
+    @Override
+    public List<AgregatMesures> getMesures(long borneId, LocalDateTime debut, LocalDateTime fin, Duration pas) {
+        if (debut == null || fin == null || pas == null || !fin.isAfter(debut) || pas.getSeconds() <= 0) {
+            System.err.println("Erreur: Plage ou pas de mesures invalide.");
+            return List.of();
+        }
+        try {
+            return mesures.agreger(borneId, debut, fin, pas);
+        } catch (IllegalArgumentException e) {
+            System.err.println("Erreur: " + e.getMessage());
+            return List.of();
+        }
+    }
+
+    /**
+     *Agrège en un seul intervalle les relevés de la borne sur le créneau de la réservation.
+     * @param reservation la réservation
+     * @return le résumé de la session, vide sans relevé
+     */
+    @Override
+    public Optional<AgregatMesures> getSessionRecharge(Reservation reservation) {
+        if (reservation == null) return Optional.empty();
+        LocalDateTime debut = reservation.getDateDebut().truncatedTo(ChronoUnit.SECONDS);
+        LocalDateTime fin = reservation.getDateFin();
+        if (!fin.isAfter(debut)) return Optional.empty();
+        List<AgregatMesures> session = mesures.agreger(reservation.getBorne().getId(), debut, fin,
+                Duration.between(debut, fin).plusSeconds(1)); // Un seul intervalle couvrant le créneau
+        return session.stream().findFirst();
+    }
+
+    /**
+     *Retourne le nombre de relevés enregistrés.
+     * @return le nombre de relevés
+     */
+    @Override
+    public long getNombreMesures() {
+        return mesures.taille();
+    }
+}
@@ -0,0 +1,718 @@
+package Services;
+
+
+import Interfaces.Depot;
+
+import java.io.*;
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.Consumer;
+import java.util.zip.CRC32C;
+
+/**
+ * Implement de Depot dans un fichier, sans dépendance externe.
+ * <p>
+ * Le fichier est un journal en ajout seul d'enregistrements :
+ * <pre>
+ * [taille du corps : 4 octets] [CRC32C du corps : 4 octets] [type : 1 octet] [id : 8 octets] [objet encodé]
+ * </pre>
+ * (type 1 : objet enregistré, 2 : suppression). Un index en mémoire donne, pour chaque id,
+ * la position et la taille de sa dernière version ; il est reconstruit en relisant le fichier à l'ouverture,
+ * qui s'arrête au premier enregistrement incomplet ou corrompu (fin d'écriture interrompue) et le tronque.
+ * <p>
+ * Les écritures sont groupées, comme un lot de requêtes préparées : chaque objet est encodé une fois par son
+ * {@link Codec} dans le lot en cours, qu'un thread écrit puis force sur le disque toutes les
+ * {@code delaiEcriture} (ou l'appelant, si le lot dépasse {@value #TAILLE_LOT} octets). Les lectures par id
+ * empruntent un descripteur de fichier à un pool de taille fixe. Quand plus de la moitié du fichier est faite
+ * de versions remplacées ou supprimées, le thread d'écriture le réécrit sans elles ({@link #compacter()}) ;
+ * les écritures attendent pendant ce temps.
+ * <p>
+ * Si l'écriture d'un lot échoue, le fichier est ramené à sa dernière fin valide et le dépôt passe en échec :
+ * les enregistrements suivants sont refusés, les objets déjà écrits restent lisibles. Chaque lecture par id
+ * vérifie le CRC et l'id de l'enregistrement lu. Un dépôt s'ouvre avec {@link #ouvrir(Path, Codec)}.
+ *
+ * @param <T> type des objets stockés.
+ */
+public class DepotFichier<T> implements Depot<T> {
+
+    /**
+     * Encodage binaire des objets d'un dépôt fichier.
+     * @param <T> type des objets.
+     */
+    public interface Codec<T> {
+        /**
+         * Écrit l'état d'un objet, sans son id.
+         * @param objet l'objet à écrire.
+         * @param sortie flux de destination.
+         * @throws IOException si l'écriture échoue.
+         */
+        void encoder(T objet, DataOutput sortie) throws IOException;
+
+        /**
+         * Reconstruit un objet écrit par {@link #encoder(Object, DataOutput)}.
+         * @param id id de l'objet.
+         * @param entree flux contenant l'objet encodé.
+         * @return l'objet reconstruit.
+         * @throws IOException si l'objet ne peut pas être lu.
+         */
+        T decoder(long id, DataInput entree) throws IOException;
+    }
+
+    private static final byte OBJET = 1;
+    private static final byte SUPPRESSION = 2;
+    private static final int ENTETE = 8; // Taille et CRC du corps
+    private static final int DEBUT_OBJET = ENTETE + 9; // Après le type et l'id
+    private static final int TAILLE_MAX = (1 << 24) - 1 - ENTETE; // Corps le plus grand : la taille tient sur 24 bits
+    private static final int TAILLE_LOT = 256 * 1024;
+    private static final long TAILLE_MIN_COMPACTAGE = 4L << 20;
+    private static final int LECTEURS_PAR_DEFAUT = 4;
+    private static final Duration DELAI_ECRITURE_PAR_DEFAUT = Duration.ofMillis(10);
+
+    private final Path fichier;
+    private final Codec<T> codec;
+    private final int nombreLecteurs;
+    private final BlockingQueue<RandomAccessFile> lecteurs;
+    // Ordre de prise des verrous : fichier, écrivain, puis l'objet
+    private final ReentrantReadWriteLock verrouFichier = new ReentrantReadWriteLock(); // Écriture : compactage
+    private final Object verrouEcrivain = new Object(); // Un seul lot écrit à la fois, dans l'ordre
+    private final ScheduledExecutorService ecrivain;
+    private RandomAccessFile ecriture; // Sous le verrou de l'écrivain
+    // Sous le verrou de l'objet
+    private Index index = new Index();
+    private Tampon lot = new Tampon();
+    private Tampon lotLibre = new Tampon();
+    private final Tampon encodage = new Tampon();
+    private final DataOutputStream sortieEncodage = new DataOutputStream(encodage);
+    private final CRC32C crc = new CRC32C();
+    private long fin; // Fin du fichier, lot en cours compris
+    private long octetsMorts; // Versions remplacées et suppressions
+    private boolean ferme;
+    private volatile IOException echec; // Première écriture impossible : le dépôt refuse ensuite les enregistrements
+    private volatile long ecrit; // Fin de ce qui est écrit dans le fichier
+
+    /**
+     * Ouvre (ou crée) un dépôt avec le nombre de descripteurs de lecture et le délai d'écriture par défaut.
+     * @param fichier chemin du fichier.
+     * @param codec encodage des objets.
+     * @param <T> type des objets stockés.
+     * @return le dépôt, dont le thread d'écriture est démarré.
+     * @throws IOException si le fichier ne peut pas être ouvert ou relu.
+     */
+    public static <T> DepotFichier<T> ouvrir(Path fichier, Codec<T> codec) throws IOException {
+        return ouvrir(fichier, codec, LECTEURS_PAR_DEFAUT, DELAI_ECRITURE_PAR_DEFAUT);
+    }
+
+    /**
+     * Ouvre (ou crée) un dépôt, relit son contenu puis démarre son thread d'écriture.
+     * @param fichier chemin du fichier.
+     * @param codec encodage des objets.
+     * @param nombreLecteurs nombre de descripteurs du pool de lecture.
+     * @param delaiEcriture intervalle entre deux écritures groupées : une écriture est durable au plus tard après ce délai.
+     * @param <T> type des objets stockés.
+     * @return le dépôt, dont le thread d'écriture est démarré.
+     * @throws IOException si le fichier ne peut pas être ouvert ou relu ; il est alors refermé.
+     */
+    public static <T> DepotFichier<T> ouvrir(Path fichier, Codec<T> codec, int nombreLecteurs, Duration delaiEcriture)
+            throws IOException {
+        DepotFichier<T> depot = new DepotFichier<>(fichier, codec, nombreLecteurs);
+        long delai = Math.max(1, delaiEcriture.toMillis());
+        depot.ecrivain.scheduleWithFixedDelay(depot::ecrireEnTacheDeFond, delai, delai, TimeUnit.MILLISECONDS);
+        return depot;
+    }
+
+    /**
+     * Ouvre le fichier et relit son contenu, sans démarrer le thread d'écriture (voir {@link #ouvrir}).
+     */
+    private DepotFichier(Path fichier, Codec<T> codec, int nombreLecteurs) throws IOException {
+        if (nombreLecteurs < 1) throw new IllegalArgumentException("Il faut au moins un descripteur de lecture.");
+        this.fichier = fichier;
+        this.codec = codec;
+        this.nombreLecteurs = nombreLecteurs;
+        this.lecteurs = new ArrayBlockingQueue<>(nombreLecteurs);
+        this.ecriture = new RandomAccessFile(fichier.toFile(), "rw");
+        try {
+            relire();
+            ouvrirLecteurs();
+        } catch (IOException | RuntimeException e) {
+            fermerDescripteurs(); // Aucun descripteur ne survit à une ouverture ratée
+            throw e;
+        }
+        this.ecrivain = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread t = new Thread(r, "depot-" + fichier.getFileName());
+            t.setDaemon(true);
+            return t;
+        });
+    }
+
+    private void fermerDescripteurs() {
+        fermerAuMieux(ecriture);
+        for (RandomAccessFile lecteur : lecteurs) fermerAuMieux(lecteur);
+        lecteurs.clear();
+    }
+
+    private static void fermerAuMieux(RandomAccessFile descripteur) {
+        try {
+            descripteur.close();
+        } catch (IOException ignored) {
+            // Fermeture au mieux
+        }
+    }
+
+    /**
+     * Reconstruit l'index en lisant le fichier et tronque une éventuelle fin incomplète ou corrompue.
+     */
+    private void relire() throws IOException {
+        long tailleFichier = ecriture.length();
+        try (InputStream in = new BufferedInputStream(Files.newInputStream(fichier), 1 << 20)) {
+            Parcours p = new Parcours(in);
+            while (p.suivant()) {
+                long ancienne = p.type == OBJET ? index.put(p.id, entree(p.position, p.taille)) : index.remove(p.id);
+                if (ancienne >= 0) octetsMorts += taille(ancienne);
+                if (p.type == SUPPRESSION) octetsMorts += p.taille;
+            }
+            fin = p.position;
+        }
+        if (fin < tailleFichier) {
+            System.err.println("Avertissement: Fin du dépôt " + fichier.getFileName() + " illisible, "
+                    + (tailleFichier - fin) + " octets ignorés.");
+            ecriture.setLength(fin);
+        }
+        ecriture.seek(fin);
+        ecrit = fin;
+    }
+
+    private void ouvrirLecteurs() throws IOException {
+        for (int i = 0; i < nombreLecteurs; i++) lecteurs.add(new RandomAccessFile(fichier.toFile(), "r"));
+    }
+
+    /**
+     *Encode l'objet dans le lot en cours.
+     * @param id id de l'objet
+     * @param objet l'objet
+     */
+    @Override
+    public void enregistrer(long id, T objet) {
+        boolean plein;
+        synchronized (this) {
+            verifierEcriture();
+            encodage.reset();
+            try {
+                sortieEncodage.writeByte(OBJET);
+                sortieEncodage.writeLong(id);
+                codec.encoder(objet, sortieEncodage);
+            } catch (IOException e) {
+                throw new UncheckedIOException(e); // Écriture en mémoire : n'arrive pas
+            }
+            plein = ajouterAuLot(id, true);
+        }
+        if (plein) ecrire(false);
+    }
+
+    /**
+     *Ajoute une suppression au lot en cours.
+     * @param id id de l'objet
+     */
+    @Override
+    public void supprimer(long id) {
+        boolean plein;
+        synchronized (this) {
+            verifierEcriture();
+            if (index.get(id) < 0) return;
+            encodage.reset();
+            encodage.write(SUPPRESSION);
+            encodage.ecrireLong(id);
+            plein = ajouterAuLot(id, false);
+        }
+        if (plein) ecrire(false);
+    }
+
+    /**
+     * Ajoute le corps encodé au lot avec son en-tête et met l'index à jour. Sous le verrou de l'objet.
+     * @return true si le lot est assez gros pour être écrit tout de suite.
+     */
+    private boolean ajouterAuLot(long id, boolean present) {
+        int corps = encodage.size();
+        if (corps > TAILLE_MAX) throw new IllegalArgumentException("Objet trop grand pour le dépôt: " + corps + " octets.");
+        crc.reset();
+        crc.update(encodage.tableau(), 0, corps);
+        lot.ecrireInt(corps);
+        lot.ecrireInt((int) crc.getValue());
+        lot.write(encodage.tableau(), 0, corps);
+        int taille = ENTETE + corps;
+        long ancienne = present ? index.put(id, entree(fin, taille)) : index.remove(id);
+        if (ancienne >= 0) octetsMorts += taille(ancienne);
+        if (!present) octetsMorts += taille;
+        fin += taille;
+        return lot.size() >= TAILLE_LOT;
+    }
+
+    /**
+     * Écrit le lot en cours à la fin du fichier, en le forçant sur le disque si demandé.
+     */
+    private void ecrire(boolean forcer) {
+        synchronized (verrouEcrivain) {
+            Tampon plein;
+            synchronized (this) {
+                if (ferme || echec != null) return;
+                plein = lot;
+                lot = lotLibre;
+            }
+            try {
+                ecriture.write(plein.tableau(), 0, plein.size());
+                if (forcer) ecriture.getFD().sync();
+                ecrit += plein.size();
+            } catch (IOException e) {
+                passerEnEchec(e);
+                throw new UncheckedIOException("Écriture du dépôt " + fichier.getFileName() + " impossible", e);
+            } finally {
+                plein.reset();
+                synchronized (this) {
+                    lotLibre = plein;
+                }
+            }
+        }
+    }
+
+    /**
+     * Le lot perdu a déjà été ajouté à l'index : plutôt que de servir des positions qui n'existent pas,
+     * le dépôt refuse les enregistrements suivants. Le fichier est ramené à sa dernière fin valide
+     * (une fin partielle serait de toute façon ignorée à la prochaine ouverture). Sous le verrou de l'écrivain.
+     */
+    private void passerEnEchec(IOException e) {
+        synchronized (this) {
+            if (echec == null) echec = e;
+        }
+        System.err.println("Erreur: Dépôt " + fichier.getFileName() + " en échec, enregistrements refusés: " + e.getMessage());
+        try {
+            ecriture.setLength(ecrit);
+            ecriture.seek(ecrit);
+        } catch (IOException ignored) {
+            // Le fichier est relu et tronqué à la prochaine ouverture
+        }
+    }
+
+    private void ecrireEnTacheDeFond() {
+        try {
+            boolean aEcrire;
+            boolean aCompacter;
+            synchronized (this) {
+                if (echec != null) return;
+                aEcrire = lot.size() > 0;
+                aCompacter = fin >= TAILLE_MIN_COMPACTAGE && octetsMorts * 2 > fin;
+            }
+            if (aEcrire) ecrire(true);
+            if (aCompacter) compacter();
+        } catch (IOException | RuntimeException e) {
+            System.err.println("Erreur dépôt " + fichier.getFileName() + ": " + e.getMessage());
+        }
+    }
+
+    /**
+     *Relit la dernière version de l'objet avec un descripteur du pool.
+     * @param id id de l'objet
+     * @return l'objet s'il est présent
+     */
+    @Override
+    public Optional<T> trouver(long id) {
+        verrouFichier.readLock().lock();
+        try {
+            long entree;
+            synchronized (this) {
+                verifierOuvert();
+                entree = index.get(id);
+            }
+            if (entree < 0) return Optional.empty();
+            if (position(entree) + taille(entree) > ecrit) {
+                ecrire(false); // Encore dans le lot en cours
+                if (position(entree) + taille(entree) > ecrit) verifierEcriture(); // Lot perdu : le dépôt est en échec
+            }
+            RandomAccessFile lecteur = lecteurs.take(); // Position propre à chaque lecteur : un seul thread à la fois
+            try {
+                byte[] enregistrement = new byte[taille(entree)];
+                lecteur.seek(position(entree));
+                lecteur.readFully(enregistrement);
+                verifier(id, enregistrement);
+                return Optional.of(decoder(id, enregistrement, enregistrement.length));
+            } finally {
+                lecteurs.add(lecteur);
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException("Lecture du dépôt " + fichier.getFileName() + " impossible", e);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return Optional.empty();
+        } finally {
+            verrouFichier.readLock().unlock();
+        }
+    }
+
+    /**
+     *Lit le fichier d'un bout à l'autre et décode la dernière version de chaque objet.
+     * Un objet qui ne peut pas être décodé est signalé puis ignoré.
+     * @param consommateur reçoit chaque objet
+     * @return le nombre d'objets
+     */
+    @Override
+    public long charger(Consumer<T> consommateur) {
+        ecrire(false);
+        verrouFichier.readLock().lock();
+        try (InputStream in = new BufferedInputStream(Files.newInputStream(fichier), 1 << 20)) {
+            long limite = ecrit;
+            long nombre = 0;
+            Parcours p = new Parcours(in);
+            while (p.suivante() < limite && p.suivant()) {
+                if (p.type != OBJET) continue;
+                long entree;
+                synchronized (this) {
+                    entree = index.get(p.id);
+                }
+                if (entree < 0 || position(entree) != p.position) continue; // Version remplacée ou supprimée
+                T objet;
+                try {
+                    objet = decoder(p.id, p.enregistrement, p.taille);
+                } catch (IOException e) {
+                    System.err.println("Erreur dépôt " + fichier.getFileName() + ", objet " + p.id
+                            + " ignoré: " + e.getMessage());
+                    continue;
+                }
+                consommateur.accept(objet);
+                nombre++;
+            }
+            return nombre;
+        } catch (IOException e) {
+            throw new UncheckedIOException("Lecture du dépôt " + fichier.getFileName() + " impossible", e);
+        } finally {
+            verrouFichier.readLock().unlock();
+        }
+    }
+
+    /**
+     * Vérifie qu'un enregistrement lu à la position de l'index est intact et porte bien l'objet demandé.
+     */
+    private void verifier(long id, byte[] enregistrement) throws IOException {
+        ByteBuffer octets = ByteBuffer.wrap(enregistrement);
+        int corps = octets.getInt(0);
+        CRC32C controle = new CRC32C();
+        controle.update(enregistrement, ENTETE, enregistrement.length - ENTETE);
+        if (corps != enregistrement.length - ENTETE || octets.getInt(4) != (int) controle.getValue()) {
+            throw new IOException("Enregistrement de l'objet " + id + " corrompu.");
+        }
+        if (enregistrement[ENTETE] != OBJET || octets.getLong(ENTETE + 1) != id) {
+            throw new IOException("Enregistrement inattendu à la position de l'objet " + id + ".");
+        }
+    }
+
+    private T decoder(long id, byte[] enregistrement, int taille) throws IOException {
+        return codec.decoder(id, new DataInputStream(
+                new ByteArrayInputStream(enregistrement, DEBUT_OBJET, taille - DEBUT_OBJET)));
+    }
+
+    /**
+     *
+     * @return le nombre d'objets
+     */
+    @Override
+    public synchronized long taille() {
+        return index.taille;
+    }
+
+    /**
+     * Retourne la taille du fichier, lot en cours compris.
+     * @return la taille en octets.
+     */
+    public synchronized long getTailleFichier() {
+        return fin;
+    }
+
+    /**
+     *Écrit le lot en cours et force le fichier sur le disque.
+     */
+    @Override
+    public void synchroniser() {
+        ecrire(true);
+    }
+
+    /**
+     * Réécrit le fichier avec la seule dernière version de chaque objet, puis le remplace.
+     * Les lectures et les écritures attendent la fin du compactage.
+     * <p>
+     * Le fichier compacté remplace l'original avant que ses descripteurs soient fermés : si la réécriture ou
+     * le remplacement échoue, le fichier temporaire est supprimé et le dépôt continue sur le fichier d'origine.
+     * Si le fichier compacté ne peut pas être rouvert, le dépôt passe en échec et ses anciens descripteurs
+     * servent encore les lectures.
+     * @throws IOException si la réécriture, le remplacement ou la réouverture échoue.
+     */
+    public void compacter() throws IOException {
+        verrouFichier.writeLock().lock();
+        try {
+            synchronized (verrouEcrivain) {
+                ecrire(false);
+                synchronized (this) {
+                    if (ferme || echec != null) return;
+                    Path temporaire = fichier.resolveSibling(fichier.getFileName() + ".compactage");
+                    Index nouvelIndex = new Index();
+                    long position = 0;
+                    try {
+                        try (InputStream in = new BufferedInputStream(Files.newInputStream(fichier), 1 << 20);
+                             FileOutputStream fos = new FileOutputStream(temporaire.toFile());
+                             OutputStream out = new BufferedOutputStream(fos, 1 << 20)) {
+                            Parcours p = new Parcours(in);
+                            while (p.suivante() < fin && p.suivant()) {
+                                if (p.type != OBJET || position(index.get(p.id)) != p.position) continue;
+                                out.write(p.enregistrement, 0, p.taille);
+                                nouvelIndex.put(p.id, entree(position, p.taille));
+                                position += p.taille;
+                            }
+                            out.flush();
+                            fos.getFD().sync();
+                        }
+                        // Les descripteurs ouverts gardent l'ancien contenu tant qu'ils ne sont pas fermés
+                        Files.move(temporaire, fichier, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+                    } catch (IOException | RuntimeException e) {
+                        try {
+                            Files.deleteIfExists(temporaire);
+                        } catch (IOException suppression) {
+                            e.addSuppressed(suppression);
+                        }
+                        throw e;
+                    }
+                    RandomAccessFile nouvelleEcriture = null;
+                    List<RandomAccessFile> nouveauxLecteurs = new ArrayList<>(nombreLecteurs);
+                    try {
+                        nouvelleEcriture = new RandomAccessFile(fichier.toFile(), "rw");
+                        nouvelleEcriture.seek(position);
+                        for (int i = 0; i < nombreLecteurs; i++) nouveauxLecteurs.add(new RandomAccessFile(fichier.toFile(), "r"));
+                    } catch (IOException e) {
+                        if (nouvelleEcriture != null) nouveauxLecteurs.add(nouvelleEcriture);
+                        for (RandomAccessFile descripteur : nouveauxLecteurs) fermerAuMieux(descripteur);
+                        passerEnEchec(e); // Des écritures par les anciens descripteurs seraient perdues
+                        throw e;
+                    }
+                    fermerAuMieux(ecriture);
+                    for (RandomAccessFile lecteur : lecteurs) fermerAuMieux(lecteur); // Tous rendus : aucune lecture en cours
+                    lecteurs.clear();
+                    lecteurs.addAll(nouveauxLecteurs);
+                    ecriture = nouvelleEcriture;
+                    index = nouvelIndex;
+                    fin = position;
+                    ecrit = position;
+                    octetsMorts = 0;
+                }
+            }
+        } finally {
+            verrouFichier.writeLock().unlock();
+        }
+    }
+
+    /**
+     *Arrête le thread d'écriture, écrit le lot en cours et ferme le fichier.
+     */
+    @Override
+    public void fermer() {
+        ecrivain.shutdown(); // Sans interrompre une écriture en cours
+        try {
+            ecrivain.awaitTermination(1, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        verrouFichier.writeLock().lock();
+        try {
+            synchronized (verrouEcrivain) {
+                ecrire(true);
+                synchronized (this) {
+                    if (ferme) return;
+                    ferme = true;
+                }
+                ecriture.close();
+                for (RandomAccessFile lecteur : lecteurs) lecteur.close();
+            }
+        } catch (IOException e) {
+            System.err.println("Erreur fermeture du dépôt " + fichier.getFileName() + ": " + e.getMessage());
+        } finally {
+            verrouFichier.writeLock().unlock();
+        }
+    }
+
+    private void verifierOuvert() {
+        if (ferme) throw new IllegalStateException("Dépôt fermé: " + fichier.getFileName());
+    }
+
+    private void verifierEcriture() {
+        verifierOuvert();
+        if (echec != null) {
+            throw new IllegalStateException("Dépôt " + fichier.getFileName() + " en échec: " + echec.getMessage());
+        }
+    }
+
+    // Entrée de l'index : position sur 40 bits, taille de l'enregistrement sur 24 bits
+    private static long entree(long position, int taille) { return position << 24 | taille; }
+    private static long position(long entree) { return entree >>> 24; }
+    private static int taille(long entree) { return (int) (entree & 0xFFFFFF); }
+
+    /**
+     * Lecture séquentielle des enregistrements, jusqu'au premier incomplet ou corrompu.
+     */
+    private static final class Parcours {
+        private final DataInputStream entree;
+        private final CRC32C crc = new CRC32C();
+        byte[] enregistrement = new byte[256]; // En-tête compris
+        long position; // Début de l'enregistrement courant, puis fin du dernier valide
+        int taille;
+        byte type;
+        long id;
+
+        Parcours(InputStream in) {
+            this.entree = new DataInputStream(in);
+        }
+
+        /** Début de l'enregistrement suivant. */
+        long suivante() { return position + taille; }
+
+        boolean suivant() throws IOException {
+            position += taille;
+            taille = 0;
+            int corps;
+            int attendu;
+            try {
+                corps = entree.readInt();
+                if (corps < DEBUT_OBJET - ENTETE || corps > TAILLE_MAX) return false;
+                attendu = entree.readInt();
+                if (enregistrement.length < ENTETE + corps) {
+                    enregistrement = Arrays.copyOf(enregistrement, Math.max(ENTETE + corps, enregistrement.length * 2));
+                }
+                entree.readFully(enregistrement, ENTETE, corps);
+            } catch (EOFException e) {
+                return false;
+            }
+            crc.reset();
+            crc.update(enregistrement, ENTETE, corps);
+            if ((int) crc.getValue() != attendu) return false;
+            ByteBuffer octets = ByteBuffer.wrap(enregistrement);
+            octets.putInt(0, corps).putInt(4, attendu);
+            type = enregistrement[ENTETE];
+            if (type != OBJET && type != SUPPRESSION) return false;
+            id = octets.getLong(ENTETE + 1);
+            taille = ENTETE + corps;
+            return true;
+        }
+    }
+
+    /**
+     * Tampon d'octets dont le contenu est accessible sans copie.
+     */
+    private static final class Tampon extends ByteArrayOutputStream {
+        Tampon() {
+            super(4096);
+        }
+
+        byte[] tableau() { return buf; }
+
+        void ecrireInt(int v) {
+            write(v >>> 24);
+            write(v >>> 16);
+            write(v >>> 8);
+            write(v);
+        }
+
+        void ecrireLong(long v) {
+            ecrireInt((int) (v >>> 32));
+            ecrireInt((int) v);
+        }
+    }
+
+    /**
+     * Table id vers entrée, à adressage ouvert (sondage linéaire) dans des tableaux de primitives.
+     * Sous le verrou du dépôt.
+     */
+    private static final class Index {
+        private static final long LIBRE = Long.MIN_VALUE;
+        private long[] cles = new long[1024];
+        private long[] valeurs = new long[1024];
+        int taille;
+
+        Index() {
+            Arrays.fill(cles, LIBRE);
+        }
+
+        private int caseDe(long cle) {
+            long z = cle * 0x9E3779B97F4A7C15L;
+            return (int) (z ^ (z >>> 32)) & (cles.length - 1);
+        }
+
+        /** @return l'entrée, ou -1 si l'id est absent. */
+        long get(long cle) {
+            int masque = cles.length - 1;
+            for (int i = caseDe(cle); ; i = (i + 1) & masque) {
+                if (cles[i] == cle) return valeurs[i];
+                if (cles[i] == LIBRE) return -1;
+            }
+        }
+
+        /** @return l'entrée remplacée, ou -1. */
+        long put(long cle, long valeur) {
+            if (cle == LIBRE) throw new IllegalArgumentException("Id invalide: " + cle);
+            if ((taille + 1) * 4L > cles.length * 3L) agrandir();
+            int masque = cles.length - 1;
+            for (int i = caseDe(cle); ; i = (i + 1) & masque) {
+                if (cles[i] == LIBRE) {
+                    cles[i] = cle;
+                    valeurs[i] = valeur;
+                    taille++;
+                    return -1;
+                }
+                if (cles[i] == cle) {
+                    long ancienne = valeurs[i];
+                    valeurs[i] = valeur;
+                    return ancienne;
+                }
+            }
+        }
+
+        /** @return l'entrée retirée, ou -1. Les suivantes sont recalées pour ne pas laisser de trou. */
+        long remove(long cle) {
+            int masque = cles.length - 1;
+            int i = caseDe(cle);
+            while (cles[i] != cle) {
+                if (cles[i] == LIBRE) return -1;
+                i = (i + 1) & masque;
+            }
+            long ancienne = valeurs[i];
+            for (int j = (i + 1) & masque; cles[j] != LIBRE; j = (j + 1) & masque) {
+                int k = caseDe(cles[j]);
+                boolean resteEnPlace = i <= j ? i < k && k <= j : i < k || k <= j;
+                if (resteEnPlace) continue;
+                cles[i] = cles[j];
+                valeurs[i] = valeurs[j];
+                i = j;
+            }
+            cles[i] = LIBRE;
+            taille--;
+            return ancienne;
+        }
+
+        private void agrandir() {
+            long[] anciennesCles = cles;
+            long[] anciennesValeurs = valeurs;
+            cles = new long[anciennesCles.length * 2];
+            valeurs = new long[anciennesCles.length * 2];
+            Arrays.fill(cles, LIBRE);
+            taille = 0;
+            for (int i = 0; i < anciennesCles.length; i++) {
+                if (anciennesCles[i] != LIBRE) put(anciennesCles[i], anciennesValeurs[i]);
+            }
+        }
+    }
+}
@@ -0,0 +1,89 @@
+package Services;
+
+
+import Interfaces.Depot;
+
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Consumer;
+
+/**
+ * Implement de Depot en mémoire.
+ * Données volatiles : le dépôt garde une référence vers chaque objet, il voit donc toujours leur état actuel.
+ * Sert à redémarrer un service à partir d'un autre dans le même processus, ou de référence pour comparer
+ * les autres dépôts.
+ *
+ * @param <T> type des objets stockés.
+ */
+public class DepotMemoire<T> implements Depot<T> {
+
+    private final Map<Long, T> objets = new ConcurrentHashMap<>();
+
+    /**
+     *
+     * @param id id de l'objet
+     * @param objet l'objet
+     */
+    @Override
+    public void enregistrer(long id, T objet) {
+        objets.put(id, objet);
+    }
+
+    /**
+     *
+     * @param id id de l'objet
+     */
+    @Override
+    public void supprimer(long id) {
+        objets.remove(id);
+    }
+
+    /**
+     *
+     * @param id id de l'objet
+     * @return l'objet s'il est présent
+     */
+    @Override
+    public Optional<T> trouver(long id) {
+        return Optional.ofNullable(objets.get(id));
+    }
+
+    /**
+     *
+     * @param consommateur reçoit chaque objet
+     * @return le nombre d'objets
+     */
+    @Override
+    public long charger(Consumer<T> consommateur) {
+        long nombre = 0;
+        for (T objet : objets.values()) {
+            consommateur.accept(objet);
+            nombre++;
+        }
+        return nombre;
+    }
+
+    /**
+     *
+     * @return le nombre d'objets
+     */
+    @Override
+    public long taille() {
+        return objets.size();
+    }
+
+    /**
+     * Sans effet : rien n'est écrit.
+     */
+    @Override
+    public void synchroniser() {
+    }
+
+    /**
+     * Sans effet : rien n'est écrit.
+     */
+    @Override
+    public void fermer() {
+    }
+}
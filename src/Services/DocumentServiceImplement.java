@@ -2,6 +2,8 @@ package Services;
 
 
 import Interfaces.BorneService;
+import Interfaces.ComptageService;
+import model.AgregatMesures;
 import Interfaces.DocumentService;
 import model.LieuRecharge;
 import model.Reservation;
@@ -26,10 +28,20 @@ public class DocumentServiceImplement implements DocumentService {
     private final String exportDirectory = "exports";
     private BorneService borneService; // Pour obtenir les infos du lieu
 
+    private ComptageService comptageService; // Optionnel : énergie mesurée sur le reçu
+
     public void setBorneService(BorneService borneService) {
         this.borneService = borneService;
     }
 
+    /**
+     *
+     * @param comptageService définit le service de comptage dont les relevés complètent le reçu (énergie réellement délivrée).
+     */
+    public void setComptageService(ComptageService comptageService) {
+        this.comptageService = comptageService;
+    }
+
     // Créer le dossier au besoin
     public DocumentServiceImplement() {
         try {
@@ -67,8 +79,10 @@ public class DocumentServiceImplement implements DocumentService {
         DateTimeFormatter formatterHeure = DateTimeFormatter.ofPattern("HH:mm");
 
         long dureeMinutes = ChronoUnit.MINUTES.between(reservation.getDateDebut(), reservation.getDateFin());
-        double dureeHeures = dureeMinutes / 60.0;
-        double coutEstime = dureeHeures * reservation.getBorne().getTarifHoraire();
+        double coutEstime = borneService.estimerCout(reservation.getBorne(), reservation.getDateDebut(), reservation.getDateFin());
+
+        Optional<AgregatMesures> session = comptageService == null
+                ? Optional.empty() : comptageService.getSessionRecharge(reservation);
 
         // Récupérer nom et adresse du lieu
         String nomLieu = "Lieu ID " + reservation.getBorne().getLieuId(); // Fallback
@@ -90,6 +104,15 @@ public class DocumentServiceImplement implements DocumentService {
             writer.write(String.format("Duree: %d min", dureeMinutes)); writer.newLine();
             writer.write(String.format("Tarif horaire: %.2f Eur", reservation.getBorne().getTarifHoraire())); writer.newLine();
             writer.write(String.format("Cout estime: %.2f Eur", coutEstime)); writer.newLine();
+            if (session.isPresent()) { // Relevés du compteur reçus pendant le créneau
+                AgregatMesures mesure = session.get();
+                writer.write(String.format("Energie mesuree: %.3f kWh", mesure.getEnergieKwh())); writer.newLine();
+                writer.write(String.format("Duree de charge mesuree: %d min", mesure.getDureeMesuree().toMinutes())); writer.newLine();
+                writer.write(String.format("Puissance max: %.2f kW", mesure.getPuissanceMaxKw())); writer.newLine();
+                if (mesure.getEnergieKwh() > 0) {
+                    writer.write(String.format("Cout au kWh: %.2f Eur", coutEstime / mesure.getEnergieKwh())); writer.newLine();
+                }
+            }
             writer.write("Statut: ACCEPTEE"); writer.newLine();
             writer.write("------------------------"); writer.newLine();
         }
@@ -0,0 +1,479 @@
+package Services;
+
+
+import model.*;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.util.Arrays;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+
+/**
+ * Écriture JSON en flux, directement en octets UTF-8 dans un tampon réutilisable.
+ * Les noms de champs et les valeurs d'énumérations sont encodés une fois pour toutes,
+ * les nombres et les dates sont écrits chiffre par chiffre (sans objet intermédiaire) :
+ * sérialiser une réservation ou une borne n'alloue rien, une fois le tampon à la bonne taille.
+ * <p>
+ * Les virgules sont placées automatiquement : {@code debutObjet().champ(NOM).valeur(x).finObjet()}.
+ * Les dates sont écrites au format ISO {@code 2025-06-01T08:00:00}, les décimaux avec au plus 6 décimales.
+ * Un écrivain n'est pas thread-safe : en emprunter un par requête ({@link #emprunter()}, {@link #rendre(EcrivainJson)}).
+ */
+public class EcrivainJson {
+
+    private static final int TAILLE_INITIALE = 1024;
+    private static final int TAILLE_MAX_CONSERVEE = 1 << 20; // Tampons plus gros non remis dans la réserve
+    private static final int RESERVE_MAX = 256;
+    private static final Queue<EcrivainJson> RESERVE = new ConcurrentLinkedQueue<>();
+
+    private static final byte[] CHAMP_ID = nomChamp("id");
+    private static final byte[] CHAMP_EMAIL = nomChamp("email");
+    private static final byte[] CHAMP_EST_VALIDE = nomChamp("estValide");
+    private static final byte[] CHAMP_BORNE_ID = nomChamp("borneId");
+    private static final byte[] CHAMP_LIEU_ID = nomChamp("lieuId");
+    private static final byte[] CHAMP_DEBUT = nomChamp("debut");
+    private static final byte[] CHAMP_FIN = nomChamp("fin");
+    private static final byte[] CHAMP_STATUT = nomChamp("statut");
+    private static final byte[] CHAMP_ETAT = nomChamp("etat");
+    private static final byte[] CHAMP_TARIF_HORAIRE = nomChamp("tarifHoraire");
+    private static final byte[] CHAMP_NOM = nomChamp("nom");
+    private static final byte[] CHAMP_ADRESSE = nomChamp("adresse");
+    private static final byte[] CHAMP_BORNES = nomChamp("bornes");
+    private static final byte[][] STATUTS = valeursEnum(StatutReservation.values());
+    private static final byte[][] ETATS = valeursEnum(EtatBorne.values());
+    private static final byte[] NULL = {'n', 'u', 'l', 'l'};
+    private static final byte[] TRUE = {'t', 'r', 'u', 'e'};
+    private static final byte[] FALSE = {'f', 'a', 'l', 's', 'e'};
+    private static final byte[] HEX = "0123456789abcdef".getBytes(StandardCharsets.US_ASCII);
+    private static final long[] PUISSANCES_10 = {1, 10, 100, 1_000, 10_000, 100_000, 1_000_000};
+    private static final int DECIMALES = 6;
+
+    private byte[] tampon = new byte[TAILLE_INITIALE];
+    private int taille;
+    private boolean virgule; // Une valeur vient d'être écrite : le prochain élément est précédé d'une virgule
+
+    /**
+     * Emprunte un écrivain vide à la réserve partagée (ou en crée un).
+     * @return un écrivain prêt à l'emploi.
+     */
+    public static EcrivainJson emprunter() {
+        EcrivainJson e = RESERVE.poll();
+        return e != null ? e : new EcrivainJson();
+    }
+
+    /**
+     * Rend un écrivain à la réserve pour réutiliser son tampon. Il ne doit plus être utilisé ensuite.
+     * @param ecrivain l'écrivain à rendre.
+     */
+    public static void rendre(EcrivainJson ecrivain) {
+        if (ecrivain.tampon.length > TAILLE_MAX_CONSERVEE || RESERVE.size() >= RESERVE_MAX) return;
+        ecrivain.reinitialiser();
+        RESERVE.offer(ecrivain);
+    }
+
+    /**
+     * Encode un nom de champ ({@code "nom":}) une fois pour toutes, pour {@link #champ(byte[])}.
+     * @param nom le nom du champ.
+     * @return les octets à écrire.
+     */
+    public static byte[] nomChamp(String nom) {
+        EcrivainJson e = new EcrivainJson();
+        e.chaine(nom);
+        e.octet((byte) ':');
+        return e.toByteArray();
+    }
+
+    /**
+     * Vide l'écrivain en conservant son tampon.
+     */
+    public void reinitialiser() {
+        taille = 0;
+        virgule = false;
+    }
+
+    /**
+     * Retourne le nombre d'octets écrits.
+     * @return la taille du JSON produit.
+     */
+    public int taille() { return taille; }
+
+    /**
+     * Copie le JSON produit.
+     * @return les octets UTF-8.
+     */
+    public byte[] toByteArray() { return Arrays.copyOf(tampon, taille); }
+
+    /**
+     * Écrit le JSON produit dans un flux, sans copie.
+     * @param sortie le flux de destination.
+     * @throws IOException si l'écriture échoue.
+     */
+    public void ecrireVers(OutputStream sortie) throws IOException { sortie.write(tampon, 0, taille); }
+
+    /**
+     * Retourne le JSON produit sous forme de chaîne.
+     * @return le JSON.
+     */
+    @Override
+    public String toString() { return new String(tampon, 0, taille, StandardCharsets.UTF_8); }
+
+    // --- Structure ---
+
+    /**
+     * Ouvre un objet.
+     * @return cet écrivain.
+     */
+    public EcrivainJson debutObjet() {
+        separer();
+        octet((byte) '{');
+        virgule = false;
+        return this;
+    }
+
+    /**
+     * Ferme l'objet en cours.
+     * @return cet écrivain.
+     */
+    public EcrivainJson finObjet() {
+        octet((byte) '}');
+        virgule = true;
+        return this;
+    }
+
+    /**
+     * Ouvre un tableau.
+     * @return cet écrivain.
+     */
+    public EcrivainJson debutTableau() {
+        separer();
+        octet((byte) '[');
+        virgule = false;
+        return this;
+    }
+
+    /**
+     * Ferme le tableau en cours.
+     * @return cet écrivain.
+     */
+    public EcrivainJson finTableau() {
+        octet((byte) ']');
+        virgule = true;
+        return this;
+    }
+
+    /**
+     * Écrit un nom de champ pré-encodé par {@link #nomChamp(String)}.
+     * @param nomEncode le nom encodé.
+     * @return cet écrivain.
+     */
+    public EcrivainJson champ(byte[] nomEncode) {
+        separer();
+        octets(nomEncode);
+        virgule = false;
+        return this;
+    }
+
+    /**
+     * Écrit un nom de champ (encodé à chaque appel : préférer {@link #champ(byte[])} dans les boucles).
+     * @param nom le nom du champ.
+     * @return cet écrivain.
+     */
+    public EcrivainJson champ(String nom) {
+        separer();
+        chaine(nom);
+        octet((byte) ':');
+        virgule = false;
+        return this;
+    }
+
+    // --- Valeurs simples ---
+
+    /**
+     * Écrit une chaîne (ou null).
+     * @param valeur la valeur.
+     * @return cet écrivain.
+     */
+    public EcrivainJson valeur(String valeur) {
+        separer();
+        if (valeur == null) octets(NULL);
+        else chaine(valeur);
+        virgule = true;
+        return this;
+    }
+
+    /**
+     * Écrit un entier.
+     * @param valeur la valeur.
+     * @return cet écrivain.
+     */
+    public EcrivainJson valeur(long valeur) {
+        separer();
+        entier(valeur);
+        virgule = true;
+        return this;
+    }
+
+    /**
+     * Écrit un décimal, arrondi à 6 décimales (null si NaN ou infini, non représentables en JSON).
+     * @param valeur la valeur.
+     * @return cet écrivain.
+     */
+    public EcrivainJson valeur(double valeur) {
+        separer();
+        decimal(valeur);
+        virgule = true;
+        return this;
+    }
+
+    /**
+     * Écrit un booléen.
+     * @param valeur la valeur.
+     * @return cet écrivain.
+     */
+    public EcrivainJson valeur(boolean valeur) {
+        separer();
+        octets(valeur ? TRUE : FALSE);
+        virgule = true;
+        return this;
+    }
+
+    /**
+     * Écrit une date au format ISO (ou null).
+     * @param valeur la valeur.
+     * @return cet écrivain.
+     */
+    public EcrivainJson valeur(LocalDateTime valeur) {
+        separer();
+        if (valeur == null) octets(NULL);
+        else date(valeur);
+        virgule = true;
+        return this;
+    }
+
+    // --- Objets du modèle ---
+
+    /**
+     * Écrit une réservation : id, email, borneId, lieuId, debut, fin, statut.
+     * @param r la réservation.
+     * @return cet écrivain.
+     */
+    public EcrivainJson valeur(Reservation r) {
+        debutObjet();
+        champ(CHAMP_ID).valeur(r.getId());
+        champ(CHAMP_EMAIL).valeur(r.getUtilisateur().getEmail());
+        champ(CHAMP_BORNE_ID).valeur(r.getBorne().getId());
+        champ(CHAMP_LIEU_ID).valeur(r.getBorne().getLieuId());
+        champ(CHAMP_DEBUT).valeur(r.getDateDebut());
+        champ(CHAMP_FIN).valeur(r.getDateFin());
+        champ(CHAMP_STATUT);
+        separer();
+        octets(STATUTS[r.getStatut().ordinal()]);
+        virgule = true;
+        return finObjet();
+    }
+
+    /**
+     * Écrit une borne : id, lieuId, etat, tarifHoraire.
+     * @param b la borne.
+     * @return cet écrivain.
+     */
+    public EcrivainJson valeur(BorneRecharge b) {
+        debutObjet();
+        champsBorne(b);
+        return finObjet();
+    }
+
+    /**
+     * Écrit les champs d'une borne dans l'objet en cours (pour y ajouter d'autres champs, ex : un coût).
+     * @param b la borne.
+     * @return cet écrivain.
+     */
+    public EcrivainJson champsBorne(BorneRecharge b) {
+        champ(CHAMP_ID).valeur(b.getId());
+        champ(CHAMP_LIEU_ID).valeur(b.getLieuId());
+        champ(CHAMP_ETAT);
+        separer();
+        octets(ETATS[b.getEtat().ordinal()]);
+        virgule = true;
+        return champ(CHAMP_TARIF_HORAIRE).valeur(b.getTarifHoraire());
+    }
+
+    /**
+     * Écrit un lieu et ses bornes : id, nom, adresse, bornes.
+     * @param l le lieu.
+     * @return cet écrivain.
+     */
+    public EcrivainJson valeur(LieuRecharge l) {
+        debutObjet();
+        champ(CHAMP_ID).valeur(l.getId());
+        champ(CHAMP_NOM).valeur(l.getNom());
+        champ(CHAMP_ADRESSE).valeur(l.getAdresse());
+        champ(CHAMP_BORNES).debutTableau();
+        for (BorneRecharge b : l.getBornesVue()) valeur(b);
+        finTableau();
+        return finObjet();
+    }
+
+    /**
+     * Écrit un utilisateur : email, estValide (jamais le mot de passe).
+     * @param u l'utilisateur.
+     * @return cet écrivain.
+     */
+    public EcrivainJson valeur(Utilisateur u) {
+        debutObjet();
+        champ(CHAMP_EMAIL).valeur(u.getEmail());
+        champ(CHAMP_EST_VALIDE).valeur(u.isEstValide());
+        return finObjet();
+    }
+
+    // --- Encodage ---
+
+    private void separer() {
+        if (virgule) octet((byte) ',');
+    }
+
+    private void entier(long v) {
+        if (v == Long.MIN_VALUE) { // Pas d'opposé représentable
+            octets(Long.toString(v).getBytes(StandardCharsets.US_ASCII));
+            return;
+        }
+        assurer(20);
+        if (v < 0) {
+            tampon[taille++] = '-';
+            v = -v;
+        }
+        int nbChiffres = 1;
+        for (long p = 10; nbChiffres < 19 && v >= p; p *= 10) nbChiffres++;
+        int fin = taille + nbChiffres;
+        for (int i = fin - 1; i >= taille; i--) {
+            tampon[i] = (byte) ('0' + v % 10);
+            v /= 10;
+        }
+        taille = fin;
+    }
+
+    private void decimal(double v) {
+        if (Double.isNaN(v) || Double.isInfinite(v)) {
+            octets(NULL);
+            return;
+        }
+        if (Math.abs(v) >= 1e12) { // Hors de la plage du calcul en virgule fixe
+            octets(Double.toString(v).getBytes(StandardCharsets.US_ASCII));
+            return;
+        }
+        long fixe = Math.round(v * PUISSANCES_10[DECIMALES]);
+        if (fixe < 0) {
+            octet((byte) '-');
+            fixe = -fixe;
+        }
+        entier(fixe / PUISSANCES_10[DECIMALES]);
+        long fraction = fixe % PUISSANCES_10[DECIMALES];
+        if (fraction == 0) return;
+        int decimales = DECIMALES;
+        while (fraction % 10 == 0) { // Zéros de fin retirés
+            fraction /= 10;
+            decimales--;
+        }
+        assurer(1 + decimales);
+        tampon[taille++] = '.';
+        for (int i = taille + decimales - 1; i >= taille; i--) {
+            tampon[i] = (byte) ('0' + fraction % 10);
+            fraction /= 10;
+        }
+        taille += decimales;
+    }
+
+    private void date(LocalDateTime d) {
+        if (d.getYear() < 0 || d.getYear() > 9999 || d.getNano() != 0) { // Cas rares : format ISO standard
+            chaine(d.toString());
+            return;
+        }
+        assurer(21);
+        tampon[taille++] = '"';
+        chiffres(d.getYear(), 4);
+        tampon[taille++] = '-';
+        chiffres(d.getMonthValue(), 2);
+        tampon[taille++] = '-';
+        chiffres(d.getDayOfMonth(), 2);
+        tampon[taille++] = 'T';
+        chiffres(d.getHour(), 2);
+        tampon[taille++] = ':';
+        chiffres(d.getMinute(), 2);
+        tampon[taille++] = ':';
+        chiffres(d.getSecond(), 2);
+        tampon[taille++] = '"';
+    }
+
+    private void chiffres(int v, int nb) {
+        for (int i = taille + nb - 1; i >= taille; i--) {
+            tampon[i] = (byte) ('0' + v % 10);
+            v /= 10;
+        }
+        taille += nb;
+    }
+
+    private void chaine(String s) {
+        assurer(s.length() + 2);
+        tampon[taille++] = '"';
+        for (int i = 0; i < s.length(); i++) {
+            char c = s.charAt(i);
+            if (c >= 0x20 && c < 0x80 && c != '"' && c != '\\') { // Cas courant : ASCII sans échappement
+                octet((byte) c);
+            } else if (c == '"' || c == '\\') {
+                octet((byte) '\\');
+                octet((byte) c);
+            } else if (c < 0x20) {
+                assurer(6);
+                tampon[taille++] = '\\';
+                tampon[taille++] = 'u';
+                tampon[taille++] = '0';
+                tampon[taille++] = '0';
+                tampon[taille++] = HEX[c >> 4];
+                tampon[taille++] = HEX[c & 0xF];
+            } else if (c < 0x800) {
+                assurer(2);
+                tampon[taille++] = (byte) (0xC0 | (c >> 6));
+                tampon[taille++] = (byte) (0x80 | (c & 0x3F));
+            } else if (Character.isHighSurrogate(c) && i + 1 < s.length() && Character.isLowSurrogate(s.charAt(i + 1))) {
+                int cp = Character.toCodePoint(c, s.charAt(++i));
+                assurer(4);
+                tampon[taille++] = (byte) (0xF0 | (cp >> 18));
+                tampon[taille++] = (byte) (0x80 | ((cp >> 12) & 0x3F));
+                tampon[taille++] = (byte) (0x80 | ((cp >> 6) & 0x3F));
+                tampon[taille++] = (byte) (0x80 | (cp & 0x3F));
+            } else {
+                if (Character.isSurrogate(c)) c = '\uFFFD'; // Surrogate isolé : non encodable
+                assurer(3);
+                tampon[taille++] = (byte) (0xE0 | (c >> 12));
+                tampon[taille++] = (byte) (0x80 | ((c >> 6) & 0x3F));
+                tampon[taille++] = (byte) (0x80 | (c & 0x3F));
+            }
+        }
+        octet((byte) '"');
+    }
+
+    private void octet(byte b) {
+        if (taille == tampon.length) assurer(1);
+        tampon[taille++] = b;
+    }
+
+    private void octets(byte[] b) {
+        assurer(b.length);
+        System.arraycopy(b, 0, tampon, taille, b.length);
+        taille += b.length;
+    }
+
+    private void assurer(int supplement) {
+        if (taille + supplement > tampon.length) {
+            tampon = Arrays.copyOf(tampon, Math.max(tampon.length * 2, taille + supplement));
+        }
+    }
+
+    private static byte[][] valeursEnum(Enum<?>[] valeurs) {
+        byte[][] encodees = new byte[valeurs.length][];
+        for (Enum<?> v : valeurs) encodees[v.ordinal()] = ('"' + v.name() + '"').getBytes(StandardCharsets.US_ASCII);
+        return encodees;
+    }
+}
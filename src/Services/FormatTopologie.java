@@ -0,0 +1,202 @@
+package Services;
+
+
+import model.BorneRecharge;
+import model.EtatBorne;
+import model.LieuRecharge;
+import model.SequencesIds;
+
+import java.io.*;
+import java.util.*;
+
+/**
+ * Lecture/écriture de la topologie du réseau (lieux, bornes, tarifs, états)
+ * en CSV ou en binaire compact.
+ * <p>
+ * CSV : une ligne par lieu puis une ligne par borne, les champs sont séparés par {@code ;}
+ * ({@code \;}, {@code \\} et {@code \n} pour les caractères spéciaux dans les noms/adresses) :
+ * <pre>
+ * L;&lt;ref lieu&gt;;&lt;nom&gt;;&lt;adresse&gt;
+ * B;&lt;ref lieu&gt;;&lt;tarif horaire&gt;;&lt;etat&gt;
+ * </pre>
+ * Binaire : en-tête puis, pour chaque lieu, nom, adresse, nombre de bornes et
+ * pour chaque borne son tarif (double) et son état (octet).
+ * <p>
+ * La lecture construit des objets neufs (nouveaux ids) sans toucher au service :
+ * c'est {@link BorneServiceImplement} qui les enregistre en une seule fois.
+ */
+public final class FormatTopologie {
+
+    private static final int MAGIQUE = 0x45425450; // "EBTP"
+    private static final int VERSION = 1;
+    private static final EtatBorne[] ETATS = EtatBorne.values();
+
+    private FormatTopologie() {}
+
+    /**
+     * Écrit la topologie en CSV.
+     * @param lieux les lieux à exporter (avec leurs bornes).
+     * @param sortie le flux de destination.
+     * @throws IOException si l'écriture échoue.
+     */
+    public static void ecrireCsv(Collection<LieuRecharge> lieux, Writer sortie) throws IOException {
+        BufferedWriter writer = sortie instanceof BufferedWriter ? (BufferedWriter) sortie : new BufferedWriter(sortie);
+        for (LieuRecharge lieu : lieux) {
+            writer.write("L;" + lieu.getId() + ";" + echapper(lieu.getNom()) + ";" + echapper(lieu.getAdresse()));
+            writer.newLine();
+            for (BorneRecharge borne : lieu.getBornesVue()) {
+                writer.write("B;" + lieu.getId() + ";" + borne.getTarifHoraire() + ";" + borne.getEtat().name());
+                writer.newLine();
+            }
+        }
+        writer.flush();
+    }
+
+    /**
+     * Lit une topologie CSV. Une ligne borne doit suivre la ligne de son lieu.
+     * @param source le flux CSV.
+     * @return les nouveaux lieux, avec leurs bornes, dans l'ordre du fichier.
+     * @throws IOException si la lecture échoue ou si une ligne est invalide (numéro de ligne dans le message).
+     */
+    public static List<LieuRecharge> lireCsv(Reader source) throws IOException {
+        return lireCsv(source, SequencesIds.GLOBALES);
+    }
+
+    /**
+     * Lit une topologie CSV en prenant les ids des lieux et bornes dans les séquences données.
+     * @param source le flux CSV.
+     * @param sequences les séquences d'identifiants (celles d'un locataire).
+     * @return les nouveaux lieux, avec leurs bornes, dans l'ordre du fichier.
+     * @throws IOException si la lecture échoue ou si une ligne est invalide (numéro de ligne dans le message).
+     */
+    public static List<LieuRecharge> lireCsv(Reader source, SequencesIds sequences) throws IOException {
+        BufferedReader lecteur = source instanceof BufferedReader ? (BufferedReader) source : new BufferedReader(source);
+        Map<String, LieuRecharge> lieuxParRef = new LinkedHashMap<>();
+        String ligne;
+        long numeroLigne = 0;
+        while ((ligne = lecteur.readLine()) != null) {
+            numeroLigne++;
+            if (ligne.isBlank()) continue;
+            List<String> champs = decouper(ligne);
+            try {
+                if (champs.size() == 4 && champs.get(0).equals("L")) {
+                    if (lieuxParRef.containsKey(champs.get(1))) throw new IllegalArgumentException("lieu en double");
+                    lieuxParRef.put(champs.get(1), new LieuRecharge(sequences, champs.get(2), champs.get(3)));
+                } else if (champs.size() == 4 && champs.get(0).equals("B")) {
+                    LieuRecharge lieu = lieuxParRef.get(champs.get(1));
+                    if (lieu == null) throw new IllegalArgumentException("lieu " + champs.get(1) + " non déclaré");
+                    lieu.ajouterBorne(creerBorne(sequences, lieu, Double.parseDouble(champs.get(2)), EtatBorne.valueOf(champs.get(3))));
+                } else {
+                    throw new IllegalArgumentException("ligne non reconnue");
+                }
+            } catch (IllegalArgumentException e) {
+                throw new IOException("Topologie invalide, ligne " + numeroLigne + ": " + e.getMessage(), e);
+            }
+        }
+        return new ArrayList<>(lieuxParRef.values());
+    }
+
+    /**
+     * Écrit la topologie au format binaire.
+     * @param lieux les lieux à exporter (avec leurs bornes).
+     * @param sortie le flux de destination.
+     * @throws IOException si l'écriture échoue.
+     */
+    public static void ecrireBinaire(Collection<LieuRecharge> lieux, OutputStream sortie) throws IOException {
+        DataOutputStream out = new DataOutputStream(new BufferedOutputStream(sortie));
+        out.writeInt(MAGIQUE);
+        out.writeByte(VERSION);
+        out.writeInt(lieux.size());
+        for (LieuRecharge lieu : lieux) {
+            out.writeUTF(lieu.getNom());
+            out.writeUTF(lieu.getAdresse());
+            List<BorneRecharge> bornesLieu = lieu.getBornesVue();
+            out.writeInt(bornesLieu.size());
+            for (BorneRecharge borne : bornesLieu) {
+                out.writeDouble(borne.getTarifHoraire());
+                out.writeByte(borne.getEtat().ordinal());
+            }
+        }
+        out.flush();
+    }
+
+    /**
+     * Lit une topologie au format binaire.
+     * @param source le flux binaire.
+     * @return les nouveaux lieux, avec leurs bornes.
+     * @throws IOException si la lecture échoue ou si le contenu est invalide.
+     */
+    public static List<LieuRecharge> lireBinaire(InputStream source) throws IOException {
+        return lireBinaire(source, SequencesIds.GLOBALES);
+    }
+
+    /**
+     * Lit une topologie au format binaire en prenant les ids des lieux et bornes dans les séquences données.
+     * @param source le flux binaire.
+     * @param sequences les séquences d'identifiants (celles d'un locataire).
+     * @return les nouveaux lieux, avec leurs bornes.
+     * @throws IOException si la lecture échoue ou si le contenu est invalide.
+     */
+    public static List<LieuRecharge> lireBinaire(InputStream source, SequencesIds sequences) throws IOException {
+        DataInputStream in = new DataInputStream(new BufferedInputStream(source));
+        if (in.readInt() != MAGIQUE || in.readUnsignedByte() != VERSION) {
+            throw new IOException("Topologie binaire invalide (en-tête).");
+        }
+        int nbLieux = in.readInt();
+        if (nbLieux < 0) throw new IOException("Topologie binaire invalide (nombre de lieux).");
+        List<LieuRecharge> resultat = new ArrayList<>(Math.min(nbLieux, 1 << 16));
+        for (int i = 0; i < nbLieux; i++) {
+            LieuRecharge lieu = new LieuRecharge(sequences, in.readUTF(), in.readUTF());
+            int nbBornes = in.readInt();
+            if (nbBornes < 0) throw new IOException("Topologie binaire invalide (nombre de bornes).");
+            for (int j = 0; j < nbBornes; j++) {
+                double tarif = in.readDouble();
+                int etat = in.readUnsignedByte();
+                if (etat >= ETATS.length || tarif < 0 || Double.isNaN(tarif)) throw new IOException("Topologie binaire invalide (borne).");
+                lieu.ajouterBorne(creerBorne(sequences, lieu, tarif, ETATS[etat]));
+            }
+            resultat.add(lieu);
+        }
+        return resultat;
+    }
+
+    private static BorneRecharge creerBorne(SequencesIds sequences, LieuRecharge lieu, double tarif, EtatBorne etat) {
+        if (tarif < 0 || Double.isNaN(tarif)) throw new IllegalArgumentException("tarif horaire invalide");
+        BorneRecharge borne = new BorneRecharge(sequences, tarif, lieu.getId());
+        borne.setEtat(etat);
+        return borne;
+    }
+
+    private static String echapper(String valeur) {
+        StringBuilder sb = new StringBuilder(valeur.length());
+        for (int i = 0; i < valeur.length(); i++) {
+            char c = valeur.charAt(i);
+            switch (c) {
+                case '\\' -> sb.append("\\\\");
+                case ';' -> sb.append("\\;");
+                case '\n' -> sb.append("\\n");
+                default -> sb.append(c);
+            }
+        }
+        return sb.toString();
+    }
+
+    private static List<String> decouper(String ligne) {
+        List<String> champs = new ArrayList<>(4);
+        StringBuilder courant = new StringBuilder();
+        for (int i = 0; i < ligne.length(); i++) {
+            char c = ligne.charAt(i);
+            if (c == '\\' && i + 1 < ligne.length()) {
+                char suivant = ligne.charAt(++i);
+                courant.append(suivant == 'n' ? '\n' : suivant);
+            } else if (c == ';') {
+                champs.add(courant.toString());
+                courant.setLength(0);
+            } else {
+                courant.append(c);
+            }
+        }
+        champs.add(courant.toString());
+        return champs;
+    }
+}
@@ -0,0 +1,259 @@
+package Services;
+
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.SecureRandom;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Émission et vérification des codes de validation de compte.
+ * Les codes expirent : ils sont rangés dans une roue temporelle (un seau par tranche de temps)
+ * qui est balayée au fil des appels, donc la mémoire reste proportionnelle aux codes encore valides.
+ * Le nombre de codes en attente est plafonné, et chaque email dispose d'un seau de jetons
+ * limitant les tentatives de validation. Le seau survit à l'expiration et à la réémission des codes :
+ * la roue ne l'oublie qu'une fois rechargé, quand il ne se distingue plus d'un seau neuf.
+ */
+public class GestionnaireCodesValidation {
+
+    private static final char[] ALPHABET = "ABCDEFGHJKLMNPQRSTUVWXYZ23456789".toCharArray();
+    private static final int LONGUEUR_CODE = 6;
+    private static final long GRANULARITE_MS = 10_000;
+
+    /** Durée de vie par défaut d'un code (15 minutes). */
+    public static final long DUREE_VALIDITE_PAR_DEFAUT_MS = 15 * 60_000;
+    /** Nombre maximal par défaut de codes en attente simultanément. */
+    public static final int CAPACITE_PAR_DEFAUT = 1_000_000;
+
+    private static final int JETONS_MAX = 5;
+    private static final long RECHARGE_JETON_MS = 30_000;
+
+    // Un générateur par thread : pas de contention sur un SecureRandom partagé
+    private static final ThreadLocal<SecureRandom> GENERATEUR = ThreadLocal.withInitial(SecureRandom::new);
+
+    private final long dureeValiditeMs;
+    private final int capacite;
+    private final Map<String, CodeEnAttente> codes = new ConcurrentHashMap<>();
+    private final Map<String, SeauJetons> seaux = new ConcurrentHashMap<>();
+    private final AtomicInteger nbCodes = new AtomicInteger();
+    private final List<Set<String>> roue;
+    private long dernierTickBalaye;
+
+    /**
+     * Constructeur avec la durée de validité et la capacité par défaut.
+     */
+    public GestionnaireCodesValidation() {
+        this(DUREE_VALIDITE_PAR_DEFAUT_MS, CAPACITE_PAR_DEFAUT);
+    }
+
+    /**
+     * Constructeur.
+     * @param dureeValiditeMs durée de vie d'un code en millisecondes.
+     * @param capacite nombre maximal de codes en attente.
+     */
+    public GestionnaireCodesValidation(long dureeValiditeMs, int capacite) {
+        if (dureeValiditeMs <= 0 || capacite <= 0) {
+            throw new IllegalArgumentException("Durée de validité et capacité doivent être positives.");
+        }
+        this.dureeValiditeMs = dureeValiditeMs;
+        this.capacite = capacite;
+        int nbSeaux = (int) (dureeValiditeMs / GRANULARITE_MS) + 2; // La roue couvre toute la durée de vie
+        this.roue = new ArrayList<>(nbSeaux);
+        for (int i = 0; i < nbSeaux; i++) roue.add(ConcurrentHashMap.newKeySet());
+        this.dernierTickBalaye = System.currentTimeMillis() / GRANULARITE_MS;
+    }
+
+    /**
+     * Génère un nouveau code pour l'email (remplace l'éventuel code précédent).
+     * @param email l'email du compte à valider.
+     * @return le code généré, ou null si la capacité maximale est atteinte.
+     */
+    public String emettre(String email) {
+        long maintenant = System.currentTimeMillis();
+        balayer(maintenant);
+
+        CodeEnAttente ancien = codes.get(email);
+        if (ancien == null && nbCodes.get() >= capacite) {
+            return null;
+        }
+        String code = genererCode();
+        long expiration = maintenant + dureeValiditeMs;
+        CodeEnAttente nouveau = new CodeEnAttente(code, expiration);
+        if (codes.put(email, nouveau) == null) {
+            nbCodes.incrementAndGet();
+        }
+        roue.get(indexSeau(expiration)).add(email);
+        return code;
+    }
+
+    /**
+     * Renvoie le code en attente de l'email s'il est encore valide, sinon en émet un nouveau.
+     * Renvoyer un code encore valide ne touche pas à ses tentatives restantes.
+     * @param email l'email du compte à valider.
+     * @return le code à transmettre, ou null si la capacité maximale est atteinte.
+     */
+    public String renvoyer(String email) {
+        long maintenant = System.currentTimeMillis();
+        balayer(maintenant);
+
+        CodeEnAttente enAttente = codes.get(email);
+        if (enAttente != null && enAttente.expiration > maintenant) {
+            return enAttente.code;
+        }
+        return emettre(email);
+    }
+
+    /**
+     * Vérifie un code et le consomme en cas de succès.
+     * Chaque appel consomme un jeton du seau de l'email ; sans jeton, la tentative est refusée.
+     * @param email l'email du compte.
+     * @param code le code saisi.
+     * @return le résultat de la vérification.
+     */
+    public ResultatVerification verifier(String email, String code) {
+        long maintenant = System.currentTimeMillis();
+        balayer(maintenant);
+
+        CodeEnAttente enAttente = codes.get(email);
+        if (enAttente == null || enAttente.expiration <= maintenant) {
+            return ResultatVerification.INCONNU_OU_EXPIRE;
+        }
+        SeauJetons seau = seaux.computeIfAbsent(email, e -> {
+            roue.get(indexSeau(enAttente.expiration)).add(email); // Le seau est oublié par la roue, comme le code
+            return new SeauJetons(maintenant);
+        });
+        if (!seau.consommerJeton(maintenant)) {
+            return ResultatVerification.TROP_DE_TENTATIVES;
+        }
+        if (code == null || !MessageDigest.isEqual(
+                enAttente.code.getBytes(StandardCharsets.UTF_8), code.getBytes(StandardCharsets.UTF_8))) {
+            return ResultatVerification.CODE_INCORRECT;
+        }
+        if (codes.remove(email, enAttente)) {
+            nbCodes.decrementAndGet();
+        }
+        seaux.remove(email, seau);
+        return ResultatVerification.VALIDE;
+    }
+
+    /**
+     * Retourne le nombre de codes actuellement en attente.
+     * @return le nombre de codes non expirés (à la granularité de la roue près).
+     */
+    public int getNombreCodesEnAttente() { return nbCodes.get(); }
+
+    /**
+     * Vide les seaux de la roue dont la tranche de temps est passée et
+     * supprime les codes expirés qu'ils référencent. Le seau de jetons d'un email sans code en attente
+     * est supprimé s'il est plein, sinon l'email est replacé dans la roue à l'instant où il le sera.
+     */
+    private void balayer(long maintenant) {
+        long tickCourant = maintenant / GRANULARITE_MS;
+        long debut;
+        synchronized (this) {
+            if (tickCourant <= dernierTickBalaye) return;
+            debut = dernierTickBalaye;
+            dernierTickBalaye = tickCourant;
+        }
+        // Au-delà d'un tour complet, tous les seaux sont à balayer une seule fois
+        long fin = Math.min(tickCourant, debut + roue.size());
+        for (long tick = debut; tick < fin; tick++) {
+            Set<String> seau = roue.get((int) (tick % roue.size()));
+            for (String email : seau) {
+                CodeEnAttente c = codes.get(email);
+                if (c != null && c.expiration <= maintenant && codes.remove(email, c)) {
+                    nbCodes.decrementAndGet();
+                }
+                // Un code réémis plus tard est référencé par un autre seau
+                if (c == null || c.expiration <= maintenant || indexSeau(c.expiration) != (int) (tick % roue.size())) {
+                    seau.remove(email);
+                }
+                if (c == null || c.expiration <= maintenant) oublierJetons(email, maintenant);
+            }
+        }
+    }
+
+    private void oublierJetons(String email, long maintenant) {
+        SeauJetons jetons = seaux.get(email);
+        if (jetons == null) return;
+        long plein = jetons.pleinA(maintenant);
+        if (plein <= maintenant) {
+            seaux.remove(email, jetons);
+        } else {
+            // Au plus un tour de roue plus tard : l'email est réexaminé à ce moment-là
+            long revue = Math.max(maintenant + GRANULARITE_MS, Math.min(plein, maintenant + (roue.size() - 1) * GRANULARITE_MS));
+            roue.get(indexSeau(revue)).add(email);
+        }
+    }
+
+    private int indexSeau(long expiration) {
+        return (int) ((expiration / GRANULARITE_MS) % roue.size());
+    }
+
+    private static String genererCode() {
+        SecureRandom random = GENERATEUR.get();
+        char[] code = new char[LONGUEUR_CODE];
+        for (int i = 0; i < LONGUEUR_CODE; i++) {
+            code[i] = ALPHABET[random.nextInt(ALPHABET.length)];
+        }
+        return new String(code);
+    }
+
+    /**
+     * Résultat d'une tentative de validation.
+     */
+    public enum ResultatVerification {
+        VALIDE,
+        CODE_INCORRECT,
+        INCONNU_OU_EXPIRE,
+        TROP_DE_TENTATIVES
+    }
+
+    /**
+     * Code en attente.
+     */
+    private static final class CodeEnAttente {
+        private final String code;
+        private final long expiration;
+
+        private CodeEnAttente(String code, long expiration) {
+            this.code = code;
+            this.expiration = expiration;
+        }
+    }
+
+    /**
+     * Seau de jetons des tentatives de validation d'un email.
+     */
+    private static final class SeauJetons {
+        private double jetons = JETONS_MAX;
+        private long derniereRecharge;
+
+        private SeauJetons(long maintenant) {
+            this.derniereRecharge = maintenant;
+        }
+
+        private synchronized boolean consommerJeton(long maintenant) {
+            recharger(maintenant);
+            if (jetons < 1) return false;
+            jetons -= 1;
+            return true;
+        }
+
+        /** Instant où le seau sera de nouveau plein. */
+        private synchronized long pleinA(long maintenant) {
+            recharger(maintenant);
+            return maintenant + (long) Math.ceil((JETONS_MAX - jetons) * RECHARGE_JETON_MS);
+        }
+
+        private void recharger(long maintenant) {
+            jetons = Math.min(JETONS_MAX, jetons + (maintenant - derniereRecharge) / (double) RECHARGE_JETON_MS);
+            derniereRecharge = maintenant;
+        }
+    }
+}
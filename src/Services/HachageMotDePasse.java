@@ -0,0 +1,118 @@
+package Services;
+
+
+import javax.crypto.SecretKeyFactory;
+import javax.crypto.spec.PBEKeySpec;
+import java.security.GeneralSecurityException;
+import java.security.MessageDigest;
+import java.security.SecureRandom;
+import java.util.Base64;
+
+/**
+ * Hachage salé et adaptatif des mots de passe (PBKDF2 du JDK).
+ * L'empreinte stockée contient le nombre d'itérations et le sel :
+ * {@code pbkdf2$<iterations>$<sel base64>$<hash base64>}.
+ */
+public class HachageMotDePasse {
+
+    private static final String ALGORITHME = "PBKDF2WithHmacSHA256";
+    private static final String PREFIXE = "pbkdf2";
+    private static final int TAILLE_SEL = 16;
+    private static final int TAILLE_HASH_BITS = 256;
+
+    /** Coût par défaut, à augmenter avec la puissance des machines. */
+    public static final int ITERATIONS_PAR_DEFAUT = 120_000;
+
+    private final int iterations;
+    private final SecureRandom random = new SecureRandom();
+
+    /**
+     * Constructeur.
+     * @param iterations nombre d'itérations PBKDF2 (coût du hachage), strictement positif.
+     */
+    public HachageMotDePasse(int iterations) {
+        if (iterations <= 0) {
+            throw new IllegalArgumentException("Nombre d'itérations invalide: " + iterations);
+        }
+        this.iterations = iterations;
+    }
+
+    /**
+     * Retourne le coût utilisé pour les nouvelles empreintes.
+     * @return le nombre d'itérations.
+     */
+    public int getIterations() { return iterations; }
+
+    /**
+     * Calcule l'empreinte d'un mot de passe avec un sel aléatoire.
+     * @param motDePasse le mot de passe en clair.
+     * @return l'empreinte encodée à stocker.
+     */
+    public String hacher(String motDePasse) {
+        byte[] sel = new byte[TAILLE_SEL];
+        random.nextBytes(sel);
+        byte[] hash = pbkdf2(motDePasse.toCharArray(), sel, iterations);
+        Base64.Encoder encoder = Base64.getEncoder();
+        return PREFIXE + "$" + iterations + "$" + encoder.encodeToString(sel) + "$" + encoder.encodeToString(hash);
+    }
+
+    /**
+     * Vérifie un mot de passe contre une empreinte.
+     * Le coût de l'empreinte est relu, donc un changement de coût reste compatible.
+     * @param motDePasse le mot de passe en clair à vérifier.
+     * @param empreinte l'empreinte stockée.
+     * @return true si le mot de passe correspond, false sinon (ou si l'empreinte est invalide).
+     */
+    public boolean verifier(String motDePasse, String empreinte) {
+        if (motDePasse == null || empreinte == null) return false;
+        String[] parties = empreinte.split("\\$");
+        if (parties.length != 4 || !PREFIXE.equals(parties[0])) return false;
+        try {
+            int iterationsEmpreinte = Integer.parseInt(parties[1]);
+            byte[] sel = Base64.getDecoder().decode(parties[2]);
+            byte[] attendu = Base64.getDecoder().decode(parties[3]);
+            byte[] calcule = pbkdf2(motDePasse.toCharArray(), sel, iterationsEmpreinte);
+            return MessageDigest.isEqual(attendu, calcule); // Comparaison en temps constant
+        } catch (IllegalArgumentException e) {
+            return false;
+        }
+    }
+
+    /**
+     * Indique si une valeur commence comme une empreinte ({@code pbkdf2$...}).
+     * @param valeur la valeur à tester.
+     * @return true si la valeur se présente comme une empreinte PBKDF2, conforme ou non.
+     */
+    public static boolean ressembleEmpreinte(String valeur) {
+        return valeur != null && valeur.startsWith(PREFIXE + "$");
+    }
+
+    /**
+     * Indique si une valeur est une empreinte complète produite avec le coût configuré :
+     * préfixe, exactement {@link #getIterations()} itérations, sel et hash base64 de la bonne taille.
+     * @param valeur la valeur à tester.
+     * @return true si l'empreinte peut être stockée telle quelle.
+     */
+    public boolean estEmpreinteConforme(String valeur) {
+        if (!ressembleEmpreinte(valeur)) return false;
+        String[] parties = valeur.split("\\$", -1);
+        if (parties.length != 4 || !parties[1].equals(Integer.toString(iterations))) return false;
+        try {
+            return Base64.getDecoder().decode(parties[2]).length == TAILLE_SEL
+                    && Base64.getDecoder().decode(parties[3]).length == TAILLE_HASH_BITS / 8;
+        } catch (IllegalArgumentException e) {
+            return false;
+        }
+    }
+
+    private static byte[] pbkdf2(char[] motDePasse, byte[] sel, int iterations) {
+        PBEKeySpec spec = new PBEKeySpec(motDePasse, sel, iterations, TAILLE_HASH_BITS);
+        try {
+            return SecretKeyFactory.getInstance(ALGORITHME).generateSecret(spec).getEncoded();
+        } catch (GeneralSecurityException e) {
+            throw new IllegalStateException("PBKDF2 indisponible: " + e.getMessage(), e);
+        } finally {
+            spec.clearPassword();
+        }
+    }
+}
@@ -0,0 +1,112 @@
+package Services;
+
+
+import model.BorneRecharge;
+import model.EtatBorne;
+
+import java.util.*;
+import java.util.function.Consumer;
+
+/**
+ * Appartenance des bornes à chaque {@link EtatBorne}, tenue à jour par {@link BorneServiceImplement}.
+ * Chaque borne reçoit un indice dense dans l'ordre d'ajout (les résultats de recherche gardent
+ * donc cet ordre) et chaque état a son {@link BitSet} : une recherche parcourt directement
+ * les bornes de l'état voulu, et le nombre de bornes par état est disponible en temps constant.
+ * Une borne retirée laisse un emplacement vide ; quand les emplacements vides dépassent la moitié
+ * des indices, l'index est compacté (dans l'ordre), pour un coût amorti constant par retrait.
+ */
+public class IndexEtatsBornes {
+
+    private final List<BorneRecharge> bornesParIndice = new ArrayList<>();
+    private final Map<Long, Integer> indiceParBorne = new HashMap<>();
+    private final EnumMap<EtatBorne, BitSet> membres = new EnumMap<>(EtatBorne.class);
+    private final int[] nbParEtat = new int[EtatBorne.values().length];
+    private int nbVides;
+
+    private static final int VIDES_MIN_COMPACTAGE = 1024;
+
+    /**
+     * Constructeur.
+     */
+    public IndexEtatsBornes() {
+        for (EtatBorne etat : EtatBorne.values()) membres.put(etat, new BitSet());
+    }
+
+    /**
+     * Ajoute une borne dans l'ensemble de son état courant.
+     * @param borne la borne.
+     */
+    public void ajouter(BorneRecharge borne) {
+        if (indiceParBorne.containsKey(borne.getId())) return;
+        int indice = bornesParIndice.size();
+        bornesParIndice.add(borne);
+        indiceParBorne.put(borne.getId(), indice);
+        membres.get(borne.getEtat()).set(indice);
+        nbParEtat[borne.getEtat().ordinal()]++;
+    }
+
+    /**
+     * Retire une borne de l'index.
+     * @param borne la borne.
+     */
+    public void retirer(BorneRecharge borne) {
+        Integer indice = indiceParBorne.remove(borne.getId());
+        if (indice == null) return;
+        membres.get(borne.getEtat()).clear(indice);
+        nbParEtat[borne.getEtat().ordinal()]--;
+        bornesParIndice.set(indice, null); // Emplacement laissé vide pour conserver l'ordre
+        nbVides++;
+        if (nbVides >= VIDES_MIN_COMPACTAGE && nbVides * 2 > bornesParIndice.size()) compacter();
+    }
+
+    /**
+     * Retire les emplacements vides en gardant l'ordre d'ajout, puis renumérote les bornes.
+     */
+    private void compacter() {
+        for (BitSet ensemble : membres.values()) ensemble.clear();
+        int suivant = 0;
+        for (int i = 0; i < bornesParIndice.size(); i++) {
+            BorneRecharge borne = bornesParIndice.get(i);
+            if (borne == null) continue;
+            bornesParIndice.set(suivant, borne);
+            indiceParBorne.put(borne.getId(), suivant);
+            membres.get(borne.getEtat()).set(suivant);
+            suivant++;
+        }
+        bornesParIndice.subList(suivant, bornesParIndice.size()).clear();
+        nbVides = 0;
+    }
+
+    /**
+     * Déplace une borne d'un état à l'autre. À appeler juste après le changement d'état.
+     * @param borne la borne (déjà dans son nouvel état).
+     * @param ancien l'état précédent.
+     */
+    public void etatModifie(BorneRecharge borne, EtatBorne ancien) {
+        Integer indice = indiceParBorne.get(borne.getId());
+        if (indice == null || ancien == borne.getEtat()) return;
+        membres.get(ancien).clear(indice);
+        nbParEtat[ancien.ordinal()]--;
+        membres.get(borne.getEtat()).set(indice);
+        nbParEtat[borne.getEtat().ordinal()]++;
+    }
+
+    /**
+     * Retourne le nombre de bornes dans un état, en temps constant.
+     * @param etat l'état.
+     * @return le nombre de bornes.
+     */
+    public int nombre(EtatBorne etat) { return nbParEtat[etat.ordinal()]; }
+
+    /**
+     * Parcourt les bornes d'un état, sans copie.
+     * @param etat l'état.
+     * @param action l'action à appliquer à chaque borne.
+     */
+    public void pourChaque(EtatBorne etat, Consumer<BorneRecharge> action) {
+        BitSet ensemble = membres.get(etat);
+        for (int i = ensemble.nextSetBit(0); i >= 0; i = ensemble.nextSetBit(i + 1)) {
+            action.accept(bornesParIndice.get(i));
+        }
+    }
+}
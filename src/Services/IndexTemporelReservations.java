@@ -0,0 +1,187 @@
+package Services;
+
+
+import model.Reservation;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentNavigableMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+
+/**
+ * Index des réservations triées par date de début (puis id) : un index global,
+ * un par borne et un par lieu. Les itérateurs parcourent directement l'index,
+ * sans copie, et tolèrent les ajouts concurrents.
+ * <p>
+ * Pour retrouver les réservations qui chevauchent un créneau, on part de
+ * {@code debut - dureeMax} (la plus longue réservation indexée), ce qui borne le parcours.
+ * Les durées sont comptées par tranche d'une minute : quand la plus longue réservation est retirée,
+ * la borne redescend à la suivante.
+ */
+public class IndexTemporelReservations {
+
+    /**
+     * Clé d'ordre d'une réservation dans l'index.
+     * @param debut date de début de la réservation.
+     * @param id id de la réservation (départage les débuts identiques).
+     */
+    public record Cle(LocalDateTime debut, long id) implements Comparable<Cle> {
+        @Override
+        public int compareTo(Cle o) {
+            int c = debut.compareTo(o.debut);
+            return c != 0 ? c : Long.compare(id, o.id);
+        }
+
+        /**
+         * Encode la clé en curseur opaque.
+         * @return le curseur.
+         */
+        public String versCurseur() { return debut + "|" + id; }
+
+        /**
+         * Décode un curseur produit par {@link #versCurseur()}.
+         * @param curseur le curseur.
+         * @return la clé correspondante.
+         */
+        public static Cle depuisCurseur(String curseur) {
+            int separateur = curseur.lastIndexOf('|');
+            if (separateur < 0) throw new IllegalArgumentException("Curseur invalide: " + curseur);
+            return new Cle(LocalDateTime.parse(curseur.substring(0, separateur)), Long.parseLong(curseur.substring(separateur + 1)));
+        }
+
+        static Cle de(Reservation r) { return new Cle(r.getDateDebut(), r.getId()); }
+    }
+
+    private final ConcurrentNavigableMap<Cle, Reservation> global = new ConcurrentSkipListMap<>();
+    private final Map<Long, ConcurrentNavigableMap<Cle, Reservation>> parBorne = new ConcurrentHashMap<>();
+    private final Map<Long, ConcurrentNavigableMap<Cle, Reservation>> parLieu = new ConcurrentHashMap<>();
+    private static final long TRANCHE_DUREE_SECONDES = 60;
+
+    // Durée arrondie à la tranche supérieure -> nombre de réservations indexées de cette durée
+    private final ConcurrentSkipListMap<Long, Integer> durees = new ConcurrentSkipListMap<>();
+
+    /**
+     * Ajoute une réservation aux index.
+     * @param r la réservation.
+     */
+    public void ajouter(Reservation r) {
+        Cle cle = Cle.de(r);
+        boolean nouvelle = global.put(cle, r) == null;
+        parBorne.computeIfAbsent(r.getBorne().getId(), k -> new ConcurrentSkipListMap<>()).put(cle, r);
+        parLieu.computeIfAbsent(r.getBorne().getLieuId(), k -> new ConcurrentSkipListMap<>()).put(cle, r);
+        if (nouvelle) durees.merge(tranche(r), 1, Integer::sum);
+    }
+
+    /**
+     * Retire une réservation des index.
+     * @param r la réservation.
+     */
+    public void retirer(Reservation r) {
+        Cle cle = Cle.de(r);
+        if (global.remove(cle) != null) {
+            durees.computeIfPresent(tranche(r), (d, n) -> n == 1 ? null : n - 1);
+        }
+        ConcurrentNavigableMap<Cle, Reservation> borne = parBorne.get(r.getBorne().getId());
+        if (borne != null) borne.remove(cle);
+        ConcurrentNavigableMap<Cle, Reservation> lieu = parLieu.get(r.getBorne().getLieuId());
+        if (lieu != null) lieu.remove(cle);
+    }
+
+    /**
+     * Retourne la durée maximale des réservations indexées, arrondie à la minute supérieure.
+     * @return la durée en secondes (0 si l'index est vide).
+     */
+    public long getDureeMaxSecondes() {
+        Map.Entry<Long, Integer> max = durees.lastEntry();
+        return max == null ? 0 : max.getKey();
+    }
+
+    private static long tranche(Reservation r) {
+        long duree = Duration.between(r.getDateDebut(), r.getDateFin()).getSeconds();
+        return Math.ceilDiv(Math.max(duree, 0), TRANCHE_DUREE_SECONDES) * TRANCHE_DUREE_SECONDES;
+    }
+
+    /**
+     * Retourne l'index (vue vivante) de tout le réseau.
+     * @return l'index global.
+     */
+    public ConcurrentNavigableMap<Cle, Reservation> global() { return global; }
+
+    /**
+     * Retourne l'index d'une borne.
+     * @param borneId l'id de la borne.
+     * @return l'index de la borne (vide si aucune réservation).
+     */
+    public NavigableMap<Cle, Reservation> borne(long borneId) {
+        NavigableMap<Cle, Reservation> index = parBorne.get(borneId);
+        return index != null ? index : Collections.emptyNavigableMap();
+    }
+
+    /**
+     * Retourne l'index d'un lieu.
+     * @param lieuId l'id du lieu.
+     * @return l'index du lieu (vide si aucune réservation).
+     */
+    public NavigableMap<Cle, Reservation> lieu(long lieuId) {
+        NavigableMap<Cle, Reservation> index = parLieu.get(lieuId);
+        return index != null ? index : Collections.emptyNavigableMap();
+    }
+
+    /**
+     * Fusionne, dans l'ordre des clés et sans copie, deux parcours triés et disjoints.
+     * @param itA premier parcours.
+     * @param itB second parcours.
+     * @return un itérateur sur les entrées des deux parcours, triées.
+     */
+    public static Iterator<Map.Entry<Cle, Reservation>> fusionner(Iterator<Map.Entry<Cle, Reservation>> itA,
+                                                                  Iterator<Map.Entry<Cle, Reservation>> itB) {
+        if (!itB.hasNext()) return itA;
+        if (!itA.hasNext()) return itB;
+        return new Iterator<>() {
+            private Map.Entry<Cle, Reservation> teteA = itA.hasNext() ? itA.next() : null;
+            private Map.Entry<Cle, Reservation> teteB = itB.hasNext() ? itB.next() : null;
+
+            @Override
+            public boolean hasNext() { return teteA != null || teteB != null; }
+
+            @Override
+            public Map.Entry<Cle, Reservation> next() {
+                if (!hasNext()) throw new NoSuchElementException();
+                Map.Entry<Cle, Reservation> suivant;
+                if (teteB == null || (teteA != null && teteA.getKey().compareTo(teteB.getKey()) <= 0)) {
+                    suivant = teteA;
+                    teteA = itA.hasNext() ? itA.next() : null;
+                } else {
+                    suivant = teteB;
+                    teteB = itB.hasNext() ? itB.next() : null;
+                }
+                return suivant;
+            }
+        };
+    }
+
+    /**
+     * Retourne la portion d'un index pouvant contenir des réservations chevauchant [debut, fin[,
+     * en commençant strictement après {@code apres} si elle est fournie.
+     * Les éléments restent à filtrer avec {@link Reservation#chevauche}.
+     * @param index l'index à parcourir.
+     * @param debut début du créneau.
+     * @param fin fin du créneau.
+     * @param apres clé de reprise (curseur), ou null.
+     * @return une vue (sans copie) de l'index.
+     */
+    public NavigableMap<Cle, Reservation> candidats(NavigableMap<Cle, Reservation> index, LocalDateTime debut,
+                                                    LocalDateTime fin, Cle apres) {
+        Cle borneBasse = new Cle(debut.minusSeconds(getDureeMaxSecondes()), Long.MIN_VALUE);
+        boolean inclus = true;
+        if (apres != null && apres.compareTo(borneBasse) >= 0) {
+            borneBasse = apres;
+            inclus = false;
+        }
+        Cle borneHaute = new Cle(fin, Long.MIN_VALUE); // Début strictement avant la fin du créneau
+        if (borneBasse.compareTo(borneHaute) >= 0) return Collections.emptyNavigableMap();
+        return index.subMap(borneBasse, inclus, borneHaute, false);
+    }
+}
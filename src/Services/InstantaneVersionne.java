@@ -0,0 +1,42 @@
+package Services;
+
+
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
+
+/**
+ * Instantané non modifiable d'une collection, reconstruit à la première lecture après une modification.
+ * Chaque modification incrémente une version (après avoir modifié la collection) ; l'instantané publié
+ * porte la version lue avant sa construction. Un instantané construit pendant une modification porte
+ * donc une version dépassée et n'est jamais resservi : il sera reconstruit à la lecture suivante.
+ * @param <T> type des éléments.
+ */
+final class InstantaneVersionne<T> {
+
+    private record Instantane<T>(long version, List<T> liste) {}
+
+    private final AtomicLong version = new AtomicLong();
+    private volatile Instantane<T> courant;
+
+    /**
+     * Signale une modification de la collection (à appeler une fois la modification faite).
+     */
+    void invalider() {
+        version.incrementAndGet();
+    }
+
+    /**
+     * Retourne l'instantané courant, ou en construit un nouveau s'il est dépassé.
+     * @param construire construit la copie de la collection.
+     * @return la liste non modifiable.
+     */
+    List<T> lire(Supplier<List<T>> construire) {
+        long versionLue = version.get();
+        Instantane<T> instantane = courant;
+        if (instantane != null && instantane.version() == versionLue) return instantane.liste();
+        List<T> liste = construire.get();
+        courant = new Instantane<>(versionLue, liste);
+        return liste;
+    }
+}
@@ -0,0 +1,414 @@
+package Services;
+
+
+import Interfaces.BorneService;
+import Interfaces.EcouteurBornes;
+import Interfaces.EcouteurReservations;
+import Interfaces.ReservationService;
+import model.*;
+
+import java.io.*;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+
+/**
+ * Journal des mutations d'un nœud principal, à reproduire sur ses répliques en lecture seule.
+ * Abonné aux services des bornes ({@link EcouteurBornes}) et des réservations ({@link EcouteurReservations}),
+ * il encode chaque modification en une entrée binaire numérotée à partir de 1, dans l'ordre où elle est signalée.
+ * <p>
+ * Une entrée : [type : 1 octet] [horodatage : 8 octets, ms] puis selon le type :
+ * <pre>
+ * LIEU         [id] [nom : UTF] [adresse : UTF]
+ * BORNE        [id] [lieuId] [tarif : double] [état : octet]       (ajout ou modification)
+ * SUPPRESSION  [borneId]
+ * RESERVATION  [id] [utilisateurId] [email : UTF] [borneId] [début] [fin] [statut : octet]
+ * STATUT       [id] [statut : octet]
+ * RETRAIT      [id]
+ * </pre>
+ * Les dates sont écrites en secondes (UTC) puis nanosecondes. Seules les dernières entrées sont gardées en mémoire,
+ * dans une fenêtre circulaire de taille fixe : une réplique reprend après son dernier numéro appliqué s'il est
+ * encore dans la fenêtre, sinon elle repart d'un instantané ({@link #capturer()}) de l'état des services.
+ * Les séries de réservations ne sont pas journalisées.
+ * <p>
+ * L'archivage des réservations terminées n'est pas journalisé : une réplique garde toutes les réservations
+ * reçues, comme le nœud principal les sert en fusionnant actives et archivées. L'instantané contient donc
+ * aussi les réservations archivées, pour qu'une réplique serve le même historique qu'elle ait rejoué
+ * le journal ou repris d'un instantané.
+ */
+public class JournalMutations implements EcouteurBornes, EcouteurReservations {
+
+    /** Type d'entrée : lieu ajouté ou modifié. */
+    public static final byte LIEU = 1;
+    /** Type d'entrée : borne ajoutée ou modifiée. */
+    public static final byte BORNE = 2;
+    /** Type d'entrée : borne supprimée. */
+    public static final byte SUPPRESSION = 3;
+    /** Type d'entrée : réservation créée. */
+    public static final byte RESERVATION = 4;
+    /** Type d'entrée : statut de réservation modifié. */
+    public static final byte STATUT = 5;
+    /** Type d'entrée : réservation retirée. */
+    public static final byte RETRAIT = 6;
+
+    /** Nombre d'entrées gardées par défaut. */
+    public static final int CAPACITE_PAR_DEFAUT = 1 << 18;
+
+    private static final EtatBorne[] ETATS = EtatBorne.values();
+    private static final StatutReservation[] STATUTS = StatutReservation.values();
+
+    private final byte[][] fenetre; // Entrée de numéro n : case (n - 1) % capacité, tant qu'elle n'est pas écrasée
+    private long dernier;
+    private final ByteArrayOutputStream tampon = new ByteArrayOutputStream(128);
+    private final DataOutputStream out = new DataOutputStream(tampon);
+    private BorneService borneService;
+    private ReservationService reservationService;
+
+    /**
+     * Instantané de l'état des services, sous forme d'entrées à rejouer (lieux, puis bornes, puis réservations,
+     * voir {@link #capturer()}).
+     * Il est pris après l'entrée {@code numero} et peut contenir une partie des suivantes : les entrées
+     * étant idempotentes, une réplique l'applique puis reprend le journal au numéro suivant.
+     * @param numero dernier numéro du journal au début de la capture.
+     * @param horodatage instant du début de la capture, en ms.
+     * @param entrees les entrées de l'instantané.
+     */
+    public record Instantane(long numero, long horodatage, List<byte[]> entrees) {}
+
+    /**
+     * Journal gardant les {@link #CAPACITE_PAR_DEFAUT} dernières entrées.
+     */
+    public JournalMutations() {
+        this(CAPACITE_PAR_DEFAUT);
+    }
+
+    /**
+     * Constructeur.
+     * @param capacite nombre d'entrées gardées en mémoire.
+     */
+    public JournalMutations(int capacite) {
+        if (capacite < 1) throw new IllegalArgumentException("Capacité invalide: " + capacite);
+        this.fenetre = new byte[capacite][];
+    }
+
+    /**
+     *
+     * @param borneService définit le service des bornes dont les lieux et bornes forment les instantanés.
+     */
+    public void setBorneService(BorneService borneService) {
+        this.borneService = borneService;
+    }
+
+    /**
+     *
+     * @param reservationService définit le service de réservation dont les réservations actives forment les instantanés.
+     */
+    public void setReservationService(ReservationService reservationService) {
+        this.reservationService = reservationService;
+    }
+
+    /**
+     * Retourne le numéro de la dernière entrée.
+     * @return le numéro, 0 si le journal est vide.
+     */
+    public synchronized long getDernierNumero() {
+        return dernier;
+    }
+
+    /**
+     * Retourne le numéro de la plus ancienne entrée encore gardée.
+     * @return le numéro, {@code getDernierNumero() + 1} si le journal est vide.
+     */
+    public synchronized long getPremierNumero() {
+        return Math.max(1, dernier - fenetre.length + 1);
+    }
+
+    /**
+     * Retourne les entrées qui suivent un numéro, en attendant qu'il y en ait.
+     * @param apres dernier numéro déjà reçu.
+     * @param max nombre maximal d'entrées retournées.
+     * @param attenteMs attente maximale s'il n'y a pas encore d'entrée.
+     * @return les entrées de numéros {@code apres + 1} et suivants (liste vide si l'attente a expiré),
+     * ou vide si certaines de ces entrées ont déjà quitté la fenêtre : il faut alors repartir d'un instantané.
+     * @throws InterruptedException si le thread est interrompu pendant l'attente.
+     */
+    public synchronized Optional<List<byte[]>> lire(long apres, int max, long attenteMs) throws InterruptedException {
+        if (apres > dernier) throw new IllegalArgumentException("Numéro hors du journal: " + apres);
+        long limite = System.currentTimeMillis() + attenteMs;
+        long reste = attenteMs;
+        while (dernier == apres && reste > 0) {
+            wait(reste);
+            reste = limite - System.currentTimeMillis();
+        }
+        if (apres < getPremierNumero() - 1) return Optional.empty(); // Écrasées, y compris pendant l'attente
+        int nombre = (int) Math.min(dernier - apres, max);
+        List<byte[]> lues = new ArrayList<>(nombre);
+        for (long numero = apres + 1; numero <= apres + nombre; numero++) {
+            lues.add(fenetre[(int) ((numero - 1) % fenetre.length)]);
+        }
+        return Optional.of(lues);
+    }
+
+    /**
+     * Capture l'état actuel des services, sans bloquer leurs modifications (voir {@link Instantane}).
+     * Toutes les réservations y sont, archivées comprises. Une borne supprimée qui porte encore des réservations
+     * y est recréée avant elles puis supprimée à la fin, comme la réplique l'aurait vu en rejouant le journal.
+     * @return l'instantané.
+     * @throws IllegalStateException si les services ne sont pas injectés.
+     */
+    public Instantane capturer() {
+        if (borneService == null || reservationService == null) {
+            throw new IllegalStateException("Services non injectés dans le journal des mutations.");
+        }
+        long numero = getDernierNumero(); // Avant la lecture : tout ce qui précède est déjà visible
+        long horodatage = System.currentTimeMillis();
+        ByteArrayOutputStream tamponInstantane = new ByteArrayOutputStream(128);
+        DataOutputStream sortie = new DataOutputStream(tamponInstantane);
+        List<byte[]> entrees = new ArrayList<>();
+        try {
+            List<LieuRecharge> lieux = borneService.getLieuxVue();
+            for (LieuRecharge lieu : lieux) {
+                ecrireLieu(debut(tamponInstantane, sortie, LIEU), lieu);
+                entrees.add(tamponInstantane.toByteArray());
+            }
+            for (LieuRecharge lieu : lieux) {
+                for (BorneRecharge borne : lieu.getBornesVue()) {
+                    ecrireBorne(debut(tamponInstantane, sortie, BORNE), borne);
+                    entrees.add(tamponInstantane.toByteArray());
+                }
+            }
+            Map<Long, BorneRecharge> bornesSupprimees = new HashMap<>();
+            for (Reservation r : reservationService.getAllReservations()) {
+                BorneRecharge borne = r.getBorne();
+                if (!bornesSupprimees.containsKey(borne.getId()) && borneService.getBorneById(borne.getId()).isEmpty()) {
+                    bornesSupprimees.put(borne.getId(), borne);
+                    ecrireBorne(debut(tamponInstantane, sortie, BORNE), borne);
+                    entrees.add(tamponInstantane.toByteArray());
+                }
+                ecrireReservation(debut(tamponInstantane, sortie, RESERVATION), r);
+                entrees.add(tamponInstantane.toByteArray());
+            }
+            for (long borneId : bornesSupprimees.keySet()) {
+                debut(tamponInstantane, sortie, SUPPRESSION).writeLong(borneId);
+                entrees.add(tamponInstantane.toByteArray());
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e); // Écriture en mémoire : n'arrive pas
+        }
+        return new Instantane(numero, horodatage, entrees);
+    }
+
+    /**
+     *Journalise le lieu (ajout ou modification).
+     * @param lieu le lieu
+     */
+    @Override
+    public void lieuModifie(LieuRecharge lieu) {
+        synchronized (this) {
+            try {
+                ecrireLieu(debut(tampon, out, LIEU), lieu);
+                fin();
+            } catch (IOException e) {
+                throw new UncheckedIOException(e); // Écriture en mémoire : n'arrive pas
+            }
+        }
+    }
+
+    /**
+     *Journalise la borne avec son état et son tarif actuels.
+     * @param borne la borne
+     */
+    @Override
+    public void borneModifiee(BorneRecharge borne) {
+        synchronized (this) {
+            try {
+                ecrireBorne(debut(tampon, out, BORNE), borne);
+                fin();
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }
+    }
+
+    /**
+     *Journalise la suppression de la borne.
+     * @param borne la borne supprimée
+     */
+    @Override
+    public void borneSupprimee(BorneRecharge borne) {
+        synchronized (this) {
+            try {
+                debut(tampon, out, SUPPRESSION).writeLong(borne.getId());
+                fin();
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }
+    }
+
+    /**
+     *Journalise la réservation avec son utilisateur (id et email).
+     * @param r la réservation créée
+     */
+    @Override
+    public void reservationCreee(Reservation r) {
+        synchronized (this) {
+            try {
+                ecrireReservation(debut(tampon, out, RESERVATION), r);
+                fin();
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }
+    }
+
+    /**
+     *Journalise le nouveau statut.
+     * @param r la réservation
+     * @param ancien statut précédent
+     * @param nouveau nouveau statut
+     */
+    @Override
+    public void statutModifie(Reservation r, StatutReservation ancien, StatutReservation nouveau) {
+        synchronized (this) {
+            try {
+                debut(tampon, out, STATUT).writeLong(r.getId());
+                out.writeByte(nouveau.ordinal());
+                fin();
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }
+    }
+
+    /**
+     *Journalise le retrait.
+     * @param r la réservation retirée
+     * @param statut son statut au retrait
+     */
+    @Override
+    public void reservationRetiree(Reservation r, StatutReservation statut) {
+        synchronized (this) {
+            try {
+                debut(tampon, out, RETRAIT).writeLong(r.getId());
+                fin();
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }
+    }
+
+    private static DataOutputStream debut(ByteArrayOutputStream tampon, DataOutputStream out, byte type) throws IOException {
+        tampon.reset();
+        out.writeByte(type);
+        out.writeLong(System.currentTimeMillis());
+        return out;
+    }
+
+    private void fin() {
+        dernier++;
+        fenetre[(int) ((dernier - 1) % fenetre.length)] = tampon.toByteArray(); // Écrase la plus ancienne entrée
+        notifyAll();
+    }
+
+    private static void ecrireLieu(DataOutputStream out, LieuRecharge lieu) throws IOException {
+        out.writeLong(lieu.getId());
+        out.writeUTF(lieu.getNom());
+        out.writeUTF(lieu.getAdresse());
+    }
+
+    private static void ecrireBorne(DataOutputStream out, BorneRecharge borne) throws IOException {
+        out.writeLong(borne.getId());
+        out.writeLong(borne.getLieuId());
+        out.writeDouble(borne.getTarifHoraire());
+        out.writeByte(borne.getEtat().ordinal());
+    }
+
+    private static void ecrireReservation(DataOutputStream out, Reservation r) throws IOException {
+        out.writeLong(r.getId());
+        out.writeLong(r.getUtilisateur().getId());
+        out.writeUTF(r.getUtilisateur().getEmail());
+        out.writeLong(r.getBorne().getId());
+        ecrireDate(out, r.getDateDebut());
+        ecrireDate(out, r.getDateFin());
+        out.writeByte(r.getStatut().ordinal());
+    }
+
+    private static void ecrireDate(DataOutputStream out, LocalDateTime date) throws IOException {
+        out.writeLong(date.toEpochSecond(ZoneOffset.UTC));
+        out.writeInt(date.getNano());
+    }
+
+    /**
+     * Reproduit une entrée sur les services d'une réplique.
+     * @param entree l'entrée encodée.
+     * @param borneService service des bornes de la réplique.
+     * @param reservationService service de réservation de la réplique.
+     * @param utilisateurs copies des utilisateurs de la réplique, complétées au besoin (id et email).
+     * @return l'horodatage de l'entrée, en ms.
+     * @throws IOException si l'entrée est invalide.
+     */
+    public static long rejouer(byte[] entree, BorneServiceImplement borneService,
+                               ReservationServiceImplement reservationService, Map<Long, Utilisateur> utilisateurs) throws IOException {
+        DataInputStream in = new DataInputStream(new ByteArrayInputStream(entree));
+        byte type = in.readByte();
+        long horodatage = in.readLong();
+        switch (type) {
+            case LIEU:
+                borneService.appliquerLieu(in.readLong(), in.readUTF(), in.readUTF());
+                break;
+            case BORNE:
+                long borneId = in.readLong();
+                long lieuId = in.readLong();
+                double tarif = in.readDouble();
+                if (!borneService.appliquerBorne(borneId, lieuId, tarif, lire(ETATS, in.readUnsignedByte()))) {
+                    throw new IOException("Lieu " + lieuId + " inconnu pour la borne " + borneId + ".");
+                }
+                break;
+            case SUPPRESSION:
+                borneService.appliquerSuppression(in.readLong());
+                break;
+            case RESERVATION:
+                long id = in.readLong();
+                long utilisateurId = in.readLong();
+                String email = in.readUTF();
+                BorneRecharge borne = borneService.getBorneById(in.readLong())
+                        .orElseThrow(() -> new IOException("Borne inconnue pour la réservation " + id + "."));
+                LocalDateTime debut = lireDate(in);
+                LocalDateTime fin = lireDate(in);
+                Utilisateur u = utilisateurs.computeIfAbsent(utilisateurId, uid -> {
+                    Utilisateur copie = new Utilisateur(uid, email, "");
+                    copie.setEstValide(true);
+                    return copie;
+                });
+                reservationService.appliquerCreation(new Reservation(id, u, borne, debut, fin,
+                        lire(STATUTS, in.readUnsignedByte())));
+                break;
+            case STATUT:
+                reservationService.appliquerStatut(in.readLong(), lire(STATUTS, in.readUnsignedByte()));
+                break;
+            case RETRAIT:
+                reservationService.appliquerRetrait(in.readLong());
+                break;
+            default:
+                throw new IOException("Type d'entrée inconnu: " + type);
+        }
+        return horodatage;
+    }
+
+    private static <T> T lire(T[] valeurs, int ordinal) throws IOException {
+        if (ordinal >= valeurs.length) throw new IOException("Valeur inconnue: " + ordinal);
+        return valeurs[ordinal];
+    }
+
+    private static LocalDateTime lireDate(DataInputStream in) throws IOException {
+        long secondes = in.readLong();
+        int nanos = in.readInt();
+        if (nanos < 0 || nanos > 999_999_999) throw new IOException("Date invalide.");
+        return LocalDateTime.ofEpochSecond(secondes, nanos, ZoneOffset.UTC);
+    }
+}
@@ -0,0 +1,448 @@
+package Services;
+
+
+import model.BorneRecharge;
+import model.Reservation;
+import model.StatutReservation;
+import model.Utilisateur;
+
+import java.nio.charset.StandardCharsets;
+import java.time.DateTimeException;
+import java.time.LocalDateTime;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.function.Function;
+import java.util.function.LongFunction;
+
+/**
+ * Lecture JSON en flux (pull), directement depuis des octets UTF-8 : l'appelant demande
+ * les champs et les valeurs dans l'ordre où il les attend, sans arbre intermédiaire.
+ * Les nombres et les dates sont décodés directement depuis les octets, et les chaînes ASCII sans échappement
+ * (le cas courant) sont copiées d'un bloc.
+ * <p>
+ * Exemple : {@code debutObjet(); while ((nom = champSuivant()) != null) switch (nom) { ... lireLong() ... }}.
+ * Un contenu invalide lève une {@link IllegalArgumentException} indiquant la position, de même qu'une
+ * imbrication ignorée de plus de {@value #PROFONDEUR_MAX} niveaux (pas de débordement de pile).
+ */
+public class LecteurJson {
+
+    private static final double[] PUISSANCES_10 = {
+            1e0, 1e1, 1e2, 1e3, 1e4, 1e5, 1e6, 1e7, 1e8, 1e9, 1e10, 1e11,
+            1e12, 1e13, 1e14, 1e15, 1e16, 1e17, 1e18, 1e19, 1e20, 1e21, 1e22};
+    private static final StatutReservation[] STATUTS = StatutReservation.values();
+    private static final int PROFONDEUR_MAX = 64;
+
+    private final byte[] donnees;
+    private final int fin;
+    private int pos;
+    private boolean premierElement; // Juste après '{' ou '[' : pas de virgule attendue
+
+    /**
+     * Constructeur.
+     * @param donnees le JSON en UTF-8.
+     */
+    public LecteurJson(byte[] donnees) {
+        this(donnees, 0, donnees.length);
+    }
+
+    /**
+     * Constructeur sur une portion de tableau.
+     * @param donnees le tampon.
+     * @param debut position du premier octet.
+     * @param longueur nombre d'octets.
+     */
+    public LecteurJson(byte[] donnees, int debut, int longueur) {
+        this.donnees = donnees;
+        this.pos = debut;
+        this.fin = debut + longueur;
+    }
+
+    // --- Structure ---
+
+    /**
+     * Lit le début d'un objet.
+     */
+    public void debutObjet() {
+        attendre('{');
+        premierElement = true;
+    }
+
+    /**
+     * Passe au champ suivant de l'objet en cours.
+     * @return le nom du champ, ou null si l'objet est terminé (l'accolade fermante est consommée).
+     */
+    public String champSuivant() {
+        espaces();
+        if (pos < fin && donnees[pos] == '}') {
+            pos++;
+            premierElement = false;
+            return null;
+        }
+        if (!premierElement) attendre(',');
+        premierElement = false;
+        String nom = lireChaine();
+        attendre(':');
+        return nom;
+    }
+
+    /**
+     * Lit le début d'un tableau.
+     */
+    public void debutTableau() {
+        attendre('[');
+        premierElement = true;
+    }
+
+    /**
+     * Passe à l'élément suivant du tableau en cours.
+     * @return true s'il reste un élément à lire, false si le tableau est terminé (crochet fermant consommé).
+     */
+    public boolean elementSuivant() {
+        espaces();
+        if (pos < fin && donnees[pos] == ']') {
+            pos++;
+            premierElement = false;
+            return false;
+        }
+        if (!premierElement) attendre(',');
+        premierElement = false;
+        return true;
+    }
+
+    /**
+     * Vérifie qu'il ne reste rien après la valeur lue.
+     */
+    public void verifierFin() {
+        espaces();
+        if (pos != fin) throw erreur("contenu inattendu après la fin");
+    }
+
+    // --- Valeurs ---
+
+    /**
+     * Consomme la valeur null si c'est la suivante.
+     * @return true si la valeur était null.
+     */
+    public boolean estNull() {
+        espaces();
+        if (fin - pos >= 4 && donnees[pos] == 'n' && donnees[pos + 1] == 'u' && donnees[pos + 2] == 'l' && donnees[pos + 3] == 'l') {
+            pos += 4;
+            return true;
+        }
+        return false;
+    }
+
+    /**
+     * Lit une chaîne.
+     * @return la chaîne.
+     */
+    public String lireChaine() {
+        attendre('"');
+        int debut = pos;
+        while (pos < fin) { // Cas courant : ASCII sans échappement, copié d'un bloc
+            byte b = donnees[pos];
+            if (b == '"') {
+                pos++;
+                return new String(donnees, debut, pos - 1 - debut, StandardCharsets.ISO_8859_1);
+            }
+            if (b == '\\' || b < 0x20) break; // Octet >= 0x80 : négatif en Java
+            pos++;
+        }
+        pos = debut;
+        return lireChaineComplexe();
+    }
+
+    /**
+     * Lit un entier.
+     * @return la valeur.
+     */
+    public long lireLong() {
+        espaces();
+        boolean negatif = pos < fin && donnees[pos] == '-';
+        if (negatif) pos++;
+        int debut = pos;
+        long v = 0;
+        while (pos < fin && donnees[pos] >= '0' && donnees[pos] <= '9') {
+            int chiffre = donnees[pos++] - '0';
+            if (v > (Long.MAX_VALUE - chiffre) / 10) throw erreur("entier trop grand");
+            v = v * 10 + chiffre;
+        }
+        if (pos == debut) throw erreur("entier attendu");
+        return negatif ? -v : v;
+    }
+
+    /**
+     * Lit un nombre décimal.
+     * @return la valeur.
+     */
+    public double lireDouble() {
+        espaces();
+        int debut = pos;
+        boolean negatif = pos < fin && donnees[pos] == '-';
+        if (negatif) pos++;
+        long mantisse = 0;
+        int nbChiffres = 0;
+        int decimales = 0;
+        boolean exact = true;
+        int debutChiffres = pos;
+        while (pos < fin && donnees[pos] >= '0' && donnees[pos] <= '9') {
+            mantisse = mantisse * 10 + (donnees[pos++] - '0');
+            nbChiffres++;
+        }
+        if (pos == debutChiffres) throw erreur("nombre attendu");
+        if (pos < fin && donnees[pos] == '.') {
+            pos++;
+            while (pos < fin && donnees[pos] >= '0' && donnees[pos] <= '9') {
+                mantisse = mantisse * 10 + (donnees[pos++] - '0');
+                nbChiffres++;
+                decimales++;
+            }
+        }
+        if (pos < fin && (donnees[pos] == 'e' || donnees[pos] == 'E')) {
+            exact = false;
+            pos++;
+            if (pos < fin && (donnees[pos] == '+' || donnees[pos] == '-')) pos++;
+            while (pos < fin && donnees[pos] >= '0' && donnees[pos] <= '9') pos++;
+        }
+        // Mantisse exacte sur 53 bits et puissance de 10 exacte : une seule division, correctement arrondie
+        if (exact && nbChiffres <= 15 && decimales < PUISSANCES_10.length) {
+            double v = mantisse / PUISSANCES_10[decimales];
+            return negatif ? -v : v;
+        }
+        try {
+            return Double.parseDouble(new String(donnees, debut, pos - debut, StandardCharsets.ISO_8859_1));
+        } catch (NumberFormatException e) {
+            throw erreur("nombre invalide");
+        }
+    }
+
+    /**
+     * Lit un booléen.
+     * @return la valeur.
+     */
+    public boolean lireBooleen() {
+        espaces();
+        if (fin - pos >= 4 && donnees[pos] == 't' && donnees[pos + 1] == 'r' && donnees[pos + 2] == 'u' && donnees[pos + 3] == 'e') {
+            pos += 4;
+            return true;
+        }
+        if (fin - pos >= 5 && donnees[pos] == 'f' && donnees[pos + 1] == 'a' && donnees[pos + 2] == 'l'
+                && donnees[pos + 3] == 's' && donnees[pos + 4] == 'e') {
+            pos += 5;
+            return false;
+        }
+        throw erreur("booléen attendu");
+    }
+
+    /**
+     * Lit une date au format ISO ({@code 2025-06-01T08:00} ou {@code 2025-06-01T08:00:00}).
+     * @return la date.
+     */
+    public LocalDateTime lireDate() {
+        espaces();
+        int debut = pos;
+        try {
+            // Forme courante décodée sur place, les autres (fractions de seconde...) par LocalDateTime.parse
+            if (fin - pos >= 18 && donnees[pos] == '"' && donnees[pos + 5] == '-' && donnees[pos + 8] == '-'
+                    && donnees[pos + 11] == 'T' && donnees[pos + 14] == ':') {
+                int annee = chiffres(pos + 1, 4);
+                int mois = chiffres(pos + 6, 2);
+                int jour = chiffres(pos + 9, 2);
+                int heure = chiffres(pos + 12, 2);
+                int minute = chiffres(pos + 15, 2);
+                if (annee >= 0 && mois >= 0 && jour >= 0 && heure >= 0 && minute >= 0) {
+                    if (donnees[pos + 17] == '"') {
+                        pos += 18;
+                        return LocalDateTime.of(annee, mois, jour, heure, minute);
+                    }
+                    if (fin - pos >= 21 && donnees[pos + 17] == ':' && donnees[pos + 20] == '"') {
+                        int seconde = chiffres(pos + 18, 2);
+                        if (seconde >= 0) {
+                            pos += 21;
+                            return LocalDateTime.of(annee, mois, jour, heure, minute, seconde);
+                        }
+                    }
+                }
+            }
+            return LocalDateTime.parse(lireChaine());
+        } catch (DateTimeException e) {
+            pos = debut;
+            throw erreur("date invalide");
+        }
+    }
+
+    /**
+     * Ignore la valeur suivante, quelle qu'elle soit (objet et tableau compris).
+     */
+    public void ignorerValeur() {
+        ignorerValeur(0);
+    }
+
+    private void ignorerValeur(int profondeur) {
+        if (profondeur >= PROFONDEUR_MAX) throw erreur("imbrication trop profonde (plus de " + PROFONDEUR_MAX + " niveaux)");
+        espaces();
+        if (pos >= fin) throw erreur("valeur attendue");
+        switch (donnees[pos]) {
+            case '"': lireChaine(); break;
+            case '{':
+                debutObjet();
+                while (champSuivant() != null) ignorerValeur(profondeur + 1);
+                break;
+            case '[':
+                debutTableau();
+                while (elementSuivant()) ignorerValeur(profondeur + 1);
+                break;
+            case 't': case 'f': lireBooleen(); break;
+            case 'n':
+                if (!estNull()) throw erreur("valeur attendue");
+                break;
+            default: lireDouble();
+        }
+    }
+
+    // --- Objets ---
+
+    /**
+     * Lit un objet à un niveau : chaque valeur simple est rendue sous forme de texte (null pour null).
+     * Les valeurs objet ou tableau sont ignorées.
+     * @return les champs lus.
+     */
+    public Map<String, String> lireObjetPlat() {
+        Map<String, String> valeurs = new HashMap<>();
+        debutObjet();
+        String nom;
+        while ((nom = champSuivant()) != null) {
+            espaces();
+            if (pos >= fin) throw erreur("valeur attendue");
+            byte b = donnees[pos];
+            if (b == '"') {
+                valeurs.put(nom, lireChaine());
+            } else if (b == '{' || b == '[') {
+                ignorerValeur();
+            } else if (estNull()) {
+                valeurs.put(nom, null);
+            } else {
+                int debut = pos;
+                if (b == 't' || b == 'f') lireBooleen();
+                else lireDouble();
+                valeurs.put(nom, new String(donnees, debut, pos - debut, StandardCharsets.ISO_8859_1));
+            }
+        }
+        return valeurs;
+    }
+
+    /**
+     * Lit une réservation écrite par {@link EcrivainJson#valeur(Reservation)}. Les champs inconnus sont ignorés.
+     * L'utilisateur et la borne sont retrouvés par les fonctions fournies (ex : depuis les services).
+     * @param utilisateurs retrouve un utilisateur par son email (null si inconnu).
+     * @param bornes retrouve une borne par son id (null si inconnue).
+     * @return la réservation reconstruite, avec son id et son statut.
+     */
+    public Reservation lireReservation(Function<String, Utilisateur> utilisateurs, LongFunction<BorneRecharge> bornes) {
+        long id = -1;
+        long borneId = -1;
+        String email = null;
+        LocalDateTime debut = null;
+        LocalDateTime finResa = null;
+        StatutReservation statut = null;
+        debutObjet();
+        String nom;
+        while ((nom = champSuivant()) != null) {
+            switch (nom) {
+                case "id": id = lireLong(); break;
+                case "email": email = lireChaine(); break;
+                case "borneId": borneId = lireLong(); break;
+                case "debut": debut = lireDate(); break;
+                case "fin": finResa = lireDate(); break;
+                case "statut": statut = statut(lireChaine()); break;
+                default: ignorerValeur();
+            }
+        }
+        Utilisateur utilisateur = email == null ? null : utilisateurs.apply(email);
+        BorneRecharge borne = borneId < 0 ? null : bornes.apply(borneId);
+        if (id < 0 || utilisateur == null || borne == null || debut == null || finResa == null || statut == null) {
+            throw erreur("réservation incomplète ou inconnue");
+        }
+        return new Reservation(id, utilisateur, borne, debut, finResa, statut);
+    }
+
+    // --- Décodage ---
+
+    private StatutReservation statut(String nom) {
+        for (StatutReservation s : STATUTS) {
+            if (s.name().equals(nom)) return s;
+        }
+        throw erreur("statut inconnu: " + nom);
+    }
+
+    private String lireChaineComplexe() {
+        StringBuilder sb = new StringBuilder();
+        int debutSegment = pos;
+        while (pos < fin) {
+            byte b = donnees[pos];
+            if (b == '"' || b == '\\') {
+                sb.append(new String(donnees, debutSegment, pos - debutSegment, StandardCharsets.UTF_8));
+                pos++;
+                if (b == '"') return sb.toString();
+                if (pos >= fin) break;
+                byte e = donnees[pos++];
+                switch (e) {
+                    case 'n': sb.append('\n'); break;
+                    case 'r': sb.append('\r'); break;
+                    case 't': sb.append('\t'); break;
+                    case 'b': sb.append('\b'); break;
+                    case 'f': sb.append('\f'); break;
+                    case '"': case '\\': case '/': sb.append((char) e); break;
+                    case 'u':
+                        int code = fin - pos >= 4 ? hexa(pos, 4) : -1;
+                        if (code < 0) throw erreur("échappement \\u invalide");
+                        sb.append((char) code);
+                        pos += 4;
+                        break;
+                    default: throw erreur("échappement invalide");
+                }
+                debutSegment = pos;
+            } else if (b >= 0 && b < 0x20) {
+                throw erreur("caractère de contrôle dans une chaîne");
+            } else {
+                pos++;
+            }
+        }
+        throw erreur("chaîne non terminée");
+    }
+
+    /** Lit {@code nb} chiffres décimaux, ou -1 si l'un n'est pas un chiffre. */
+    private int chiffres(int depuis, int nb) {
+        int v = 0;
+        for (int i = depuis; i < depuis + nb; i++) {
+            int c = donnees[i] - '0';
+            if (c < 0 || c > 9) return -1;
+            v = v * 10 + c;
+        }
+        return v;
+    }
+
+    private int hexa(int depuis, int nb) {
+        int v = 0;
+        for (int i = depuis; i < depuis + nb; i++) {
+            int c = Character.digit(donnees[i], 16);
+            if (c < 0) return -1;
+            v = v * 16 + c;
+        }
+        return v;
+    }
+
+    private void espaces() {
+        while (pos < fin && (donnees[pos] == ' ' || donnees[pos] == '\n' || donnees[pos] == '\r' || donnees[pos] == '\t')) pos++;
+    }
+
+    private void attendre(char c) {
+        espaces();
+        if (pos >= fin || donnees[pos] != c) throw erreur("'" + c + "' attendu");
+        pos++;
+    }
+
+    private IllegalArgumentException erreur(String message) {
+        return new IllegalArgumentException("JSON invalide à la position " + pos + " : " + message);
+    }
+}
@@ -0,0 +1,159 @@
+package Services;
+
+
+import model.LimitesLocataire;
+import model.SequencesIds;
+
+import java.time.Duration;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Un locataire (une enseigne) d'un déploiement partagé : ses propres instances de services, reliées entre elles
+ * comme dans le Main, avec leurs maps, index et séquences d'identifiants. Rien n'est partagé avec
+ * les autres locataires, hormis le processeur.
+ * <p>
+ * Les requêtes passent par {@link RouteurLocataires#executer}, qui prend une place parmi
+ * {@link LimitesLocataire#getRequetesSimultanees()} : au-delà, la requête attend un court instant puis est refusée.
+ */
+public class Locataire {
+
+    private final String id;
+    private final LimitesLocataire limites;
+    private final SequencesIds sequences = new SequencesIds();
+    private final AuthentificationServiceImplement authService;
+    private final BorneServiceImplement borneService = new BorneServiceImplement();
+    private final ReservationServiceImplement reservationService = new ReservationServiceImplement();
+    private final DocumentServiceImplement documentService = new DocumentServiceImplement();
+    private final ComptageServiceImplement comptageService = new ComptageServiceImplement();
+    private final AnalyseOccupationServiceImplement analyseService = new AnalyseOccupationServiceImplement();
+    private final Semaphore places;
+    private final LongAdder nbRequetes = new LongAdder();
+    private final LongAdder nbRefus = new LongAdder();
+
+    /**
+     * Crée et relie les services du locataire.
+     * @param id identifiant du locataire.
+     * @param limites ses limites de ressources.
+     */
+    Locataire(String id, LimitesLocataire limites) {
+        this.id = id;
+        this.limites = limites;
+        this.places = new Semaphore(limites.getRequetesSimultanees(), true);
+        this.authService = new AuthentificationServiceImplement(HachageMotDePasse.ITERATIONS_PAR_DEFAUT,
+                limites.getThreadsVerification());
+
+        authService.setSequences(sequences);
+        authService.setLimiteUtilisateurs(limites.getMaxUtilisateurs());
+        borneService.setSequences(sequences);
+        borneService.setLimiteBornes(limites.getMaxBornes());
+        borneService.setReservationService(reservationService);
+        borneService.setMoteurTarifaire(new MoteurTarifaire());
+        reservationService.setSequences(sequences);
+        reservationService.setDocumentService(documentService);
+        documentService.setBorneService(borneService);
+        documentService.setComptageService(comptageService);
+        reservationService.ajouterEcouteur(analyseService);
+    }
+
+    /**
+     * Prend une place de requête, en attendant au plus {@code attente}.
+     * @return false si le locataire est saturé.
+     */
+    boolean entrer(Duration attente) throws InterruptedException {
+        nbRequetes.increment();
+        if (places.tryAcquire(attente.toNanos(), TimeUnit.NANOSECONDS)) return true;
+        nbRefus.increment();
+        return false;
+    }
+
+    /**
+     * Rend la place prise par {@link #entrer(Duration)}.
+     */
+    void sortir() {
+        places.release();
+    }
+
+    /**
+     * Lance le balayage des réservations du locataire.
+     * @param periode intervalle entre deux balayages.
+     */
+    void demarrer(Duration periode) {
+        reservationService.demarrerBalayage(periode);
+    }
+
+    /**
+     * Arrête les tâches de fond du locataire et les threads de vérification de ses mots de passe.
+     */
+    void arreter() {
+        reservationService.arreterBalayage();
+        authService.fermer();
+    }
+
+    /**
+     * Retourne l'identifiant du locataire.
+     * @return l'identifiant.
+     */
+    public String getId() { return id; }
+    /**
+     * Retourne les limites de ressources du locataire.
+     * @return les limites.
+     */
+    public LimitesLocataire getLimites() { return limites; }
+    /**
+     * Retourne les séquences d'identifiants du locataire.
+     * @return les séquences.
+     */
+    public SequencesIds getSequences() { return sequences; }
+    /**
+     * Retourne le service d'authentification du locataire.
+     * @return le service.
+     */
+    public AuthentificationServiceImplement getAuthService() { return authService; }
+    /**
+     * Retourne le service des lieux et bornes du locataire.
+     * @return le service.
+     */
+    public BorneServiceImplement getBorneService() { return borneService; }
+    /**
+     * Retourne le service de réservation du locataire.
+     * @return le service.
+     */
+    public ReservationServiceImplement getReservationService() { return reservationService; }
+    /**
+     * Retourne le service de documents du locataire.
+     * @return le service.
+     */
+    public DocumentServiceImplement getDocumentService() { return documentService; }
+    /**
+     * Retourne le service de comptage du locataire.
+     * @return le service.
+     */
+    public ComptageServiceImplement getComptageService() { return comptageService; }
+    /**
+     * Retourne le service d'analyse d'occupation du locataire.
+     * @return le service.
+     */
+    public AnalyseOccupationServiceImplement getAnalyseService() { return analyseService; }
+    /**
+     * Retourne le nombre de requêtes reçues par le locataire.
+     * @return le nombre de requêtes.
+     */
+    public long getNombreRequetes() { return nbRequetes.sum(); }
+    /**
+     * Retourne le nombre de requêtes refusées faute de place.
+     * @return le nombre de refus.
+     */
+    public long getNombreRefus() { return nbRefus.sum(); }
+
+    /**
+     * Retourne une représentation textuelle du locataire.
+     * @return Une chaîne de caractères résumant le locataire.
+     */
+    @Override
+    public String toString() {
+        return "Locataire{id='" + id + "', " + limites + ", requetes=" + getNombreRequetes() +
+                ", refus=" + getNombreRefus() + "}";
+    }
+}
@@ -0,0 +1,136 @@
+package Services;
+
+
+import model.BorneRecharge;
+import model.RegleTarifaire;
+
+import java.time.DayOfWeek;
+import java.time.LocalDateTime;
+import java.time.LocalTime;
+import java.time.temporal.ChronoUnit;
+import java.util.*;
+
+/**
+ * Tarification selon l'heure d'utilisation.
+ * Les {@link RegleTarifaire} sont compilées en tables hebdomadaires par tranches de 15 minutes :
+ * pour chaque tranche, le coefficient appliqué au tarif horaire de la borne, et les sommes cumulées
+ * de ces coefficients. Le coût d'un créneau est alors une différence de deux sommes cumulées
+ * (temps constant, quelle que soit sa durée), multipliée par le tarif horaire de la borne.
+ * Une table n'est construite que pour les lieux ayant des règles propres, les autres partagent la table générale.
+ */
+public class MoteurTarifaire {
+
+    private static final int MINUTES_TRANCHE = 15;
+    private static final long SECONDES_TRANCHE = MINUTES_TRANCHE * 60L;
+    private static final LocalDateTime ORIGINE = LocalDateTime.of(2024, 1, 1, 0, 0); // Un lundi
+    private static final int TRANCHES_PAR_JOUR = 24 * 60 / MINUTES_TRANCHE;
+    private static final int TRANCHES_PAR_SEMAINE = 7 * TRANCHES_PAR_JOUR;
+
+    private final List<RegleTarifaire> regles = new ArrayList<>();
+    // Tables compilées : remplacées d'un bloc à chaque compilation
+    private volatile Tables tables = new Tables(compilerTable(List.of()), Map.of());
+
+    /**
+     * Ajoute une règle et recompile les tables.
+     * Parmi les règles de même portée (générale ou lieu), la dernière ajoutée l'emporte.
+     * @param regle la règle à ajouter.
+     */
+    public synchronized void ajouterRegle(RegleTarifaire regle) {
+        regles.add(regle);
+        compiler();
+    }
+
+    /**
+     * Supprime toutes les règles (retour au tarif horaire simple).
+     */
+    public synchronized void viderRegles() {
+        regles.clear();
+        compiler();
+    }
+
+    /**
+     * Calcule le coût d'un créneau sur une borne.
+     * @param borne la borne.
+     * @param debut début du créneau.
+     * @param fin fin du créneau (postérieure au début).
+     * @return le coût du créneau.
+     */
+    public double calculerCout(BorneRecharge borne, LocalDateTime debut, LocalDateTime fin) {
+        double[] cumul = tables.pour(borne.getLieuId());
+        double tranches = cumulJusqua(cumul, fin) - cumulJusqua(cumul, debut);
+        return tranches * borne.getTarifHoraire() * MINUTES_TRANCHE / 60.0;
+    }
+
+    /**
+     * Retourne le tarif horaire effectif d'une borne à un instant donné.
+     * @param borne la borne.
+     * @param instant l'instant.
+     * @return le tarif horaire appliqué à cet instant.
+     */
+    public double getTarifHoraire(BorneRecharge borne, LocalDateTime instant) {
+        double[] cumul = tables.pour(borne.getLieuId());
+        int tranche = indiceTranche(instant);
+        return (cumul[tranche + 1] - cumul[tranche]) * borne.getTarifHoraire();
+    }
+
+    /**
+     * Somme des coefficients depuis une origine fixe (lundi 01/01/2024 00:00) jusqu'à l'instant,
+     * une tranche entamée comptant au prorata.
+     */
+    private static double cumulJusqua(double[] cumul, LocalDateTime instant) {
+        long secondes = ChronoUnit.SECONDS.between(ORIGINE, instant);
+        long tranchesTotales = Math.floorDiv(secondes, SECONDES_TRANCHE);
+        long semaines = Math.floorDiv(tranchesTotales, TRANCHES_PAR_SEMAINE);
+        int tranche = Math.floorMod(tranchesTotales, TRANCHES_PAR_SEMAINE);
+        double fraction = Math.floorMod(secondes, SECONDES_TRANCHE) / (double) SECONDES_TRANCHE;
+        return semaines * cumul[TRANCHES_PAR_SEMAINE]
+                + cumul[tranche]
+                + fraction * (cumul[tranche + 1] - cumul[tranche]);
+    }
+
+    private static int indiceTranche(LocalDateTime instant) {
+        return (instant.getDayOfWeek().getValue() - 1) * TRANCHES_PAR_JOUR
+                + (instant.getHour() * 60 + instant.getMinute()) / MINUTES_TRANCHE;
+    }
+
+    private void compiler() {
+        List<RegleTarifaire> generales = new ArrayList<>();
+        Map<Long, List<RegleTarifaire>> parLieu = new HashMap<>();
+        for (RegleTarifaire r : regles) {
+            if (r.getLieuId() == null) generales.add(r);
+            else parLieu.computeIfAbsent(r.getLieuId(), k -> new ArrayList<>()).add(r);
+        }
+        Map<Long, double[]> tablesLieux = new HashMap<>();
+        for (Map.Entry<Long, List<RegleTarifaire>> e : parLieu.entrySet()) {
+            List<RegleTarifaire> applicables = new ArrayList<>(generales);
+            applicables.addAll(e.getValue()); // Appliquées après : prioritaires
+            tablesLieux.put(e.getKey(), compilerTable(applicables));
+        }
+        tables = new Tables(compilerTable(generales), tablesLieux);
+    }
+
+    /**
+     * Construit les sommes cumulées des coefficients sur une semaine (taille TRANCHES_PAR_SEMAINE + 1).
+     */
+    private static double[] compilerTable(List<RegleTarifaire> applicables) {
+        double[] cumul = new double[TRANCHES_PAR_SEMAINE + 1];
+        DayOfWeek[] jours = DayOfWeek.values();
+        for (int i = 0; i < TRANCHES_PAR_SEMAINE; i++) {
+            DayOfWeek jour = jours[i / TRANCHES_PAR_JOUR];
+            LocalTime heure = LocalTime.of(0, 0).plusMinutes((long) (i % TRANCHES_PAR_JOUR) * MINUTES_TRANCHE);
+            double coefficient = 1.0;
+            for (RegleTarifaire r : applicables) {
+                if (r.couvre(jour, heure)) coefficient = r.getMultiplicateur();
+            }
+            cumul[i + 1] = cumul[i] + coefficient;
+        }
+        return cumul;
+    }
+
+    private record Tables(double[] generale, Map<Long, double[]> parLieu) {
+        double[] pour(long lieuId) {
+            double[] t = parLieu.get(lieuId);
+            return t != null ? t : generale;
+        }
+    }
+}
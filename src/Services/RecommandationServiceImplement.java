@@ -0,0 +1,275 @@
+package Services;
+
+
+import Interfaces.BorneService;
+import Interfaces.EcouteurReservations;
+import Interfaces.RecommandationService;
+import Interfaces.ReservationService;
+import model.*;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.stream.Collectors;
+
+/**
+ * Implement de RecommandationService.
+ * <p>
+ * La demande est comptée au fil des réservations ({@link EcouteurReservations}) : pour chaque lieu,
+ * les minutes réservées par heure de la semaine (168 cases), toutes réservations créées confondues,
+ * refusées comprises, puisqu'elles traduisent aussi la demande.
+ * <p>
+ * Un modèle est recalculé en tâche de fond à partir de ces compteurs et de la topologie : pour chaque lieu,
+ * l'occupation habituelle de chaque heure de la semaine (minutes demandées rapportées au nombre de bornes
+ * et de semaines observées), en cumuls. Une recommandation évalue donc chaque couple (lieu, créneau décalé)
+ * en temps constant, puis ne vérifie les bornes réellement libres que pour les meilleurs lieux.
+ */
+public class RecommandationServiceImplement implements RecommandationService, EcouteurReservations {
+
+    private static final int HEURES_SEMAINE = 7 * 24;
+    private static final int DECALAGES = 6; // Créneaux décalés de ±30 min à ±3 h
+    private static final long PAS_DECALAGE_MINUTES = 30;
+    private static final double PENALITE_DECALAGE = 0.02; // Par pas : à demande égale, le créneau le plus proche
+    private static final int VERIFICATIONS_PAR_SUGGESTION = 4; // Borne le nombre de lieux vérifiés
+
+    private final Map<Long, AtomicLongArray> demandeParLieu = new ConcurrentHashMap<>();
+    private final AtomicLong premierJour = new AtomicLong(Long.MAX_VALUE);
+    private final AtomicLong dernierJour = new AtomicLong(Long.MIN_VALUE);
+    private volatile Modele modele; // Null tant qu'il n'a pas été calculé
+    private BorneService borneService;
+    private ReservationService reservationService;
+    private ScheduledExecutorService rafraichisseur;
+
+    /**
+     *
+     * @param borneService définit le service des bornes, pour les lieux et leurs bornes.
+     */
+    public void setBorneService(BorneService borneService) {
+        this.borneService = borneService;
+    }
+
+    /**
+     *
+     * @param reservationService définit le service de réservation, pour vérifier les bornes libres des créneaux proposés.
+     */
+    public void setReservationService(ReservationService reservationService) {
+        this.reservationService = reservationService;
+    }
+
+    /**
+     *Compte la demande de réservations existantes (démarrage avec un historique déjà chargé).
+     * @param existantes les réservations à comptabiliser
+     */
+    public void charger(Collection<Reservation> existantes) {
+        for (Reservation r : existantes) compter(r, 1);
+    }
+
+    /**
+     *Ajoute les minutes demandées aux heures de la semaine du créneau.
+     * @param reservation la réservation créée
+     */
+    @Override
+    public void reservationCreee(Reservation reservation) {
+        compter(reservation, 1);
+    }
+
+    /**
+     *Sans effet : une réservation refusée reste une demande.
+     * @param reservation la réservation
+     * @param ancien statut précédent
+     * @param nouveau nouveau statut
+     */
+    @Override
+    public void statutModifie(Reservation reservation, StatutReservation ancien, StatutReservation nouveau) {
+    }
+
+    /**
+     *Retire les minutes d'une réservation annulée comme si elle n'avait jamais existé.
+     * @param reservation la réservation retirée
+     * @param statut son statut au retrait
+     */
+    @Override
+    public void reservationRetiree(Reservation reservation, StatutReservation statut) {
+        compter(reservation, -1);
+    }
+
+    private void compter(Reservation r, int signe) {
+        AtomicLongArray demande = demandeParLieu.computeIfAbsent(r.getBorne().getLieuId(), k -> new AtomicLongArray(HEURES_SEMAINE));
+        long jour = r.getDateDebut().toLocalDate().toEpochDay();
+        premierJour.accumulateAndGet(jour, Math::min);
+        dernierJour.accumulateAndGet(jour, Math::max);
+        for (LocalDateTime t = r.getDateDebut(); t.isBefore(r.getDateFin()); ) {
+            LocalDateTime heureSuivante = t.truncatedTo(ChronoUnit.HOURS).plusHours(1);
+            LocalDateTime finTranche = heureSuivante.isBefore(r.getDateFin()) ? heureSuivante : r.getDateFin();
+            demande.addAndGet(heureSemaine(t), signe * ChronoUnit.MINUTES.between(t, finTranche));
+            t = finTranche;
+        }
+    }
+
+    /**
+     * Recalcule le modèle à partir des compteurs et des lieux actuels, puis le publie.
+     */
+    public void rafraichir() {
+        if (borneService == null) {
+            System.err.println("Erreur critique: BorneService non défini pour les recommandations.");
+            return;
+        }
+        long premier = premierJour.get();
+        double semaines = premier == Long.MAX_VALUE ? 1 : Math.max(1, (dernierJour.get() - premier + 1) / 7.0);
+        List<LieuRecharge> lieux = borneService.getLieuxVue().stream()
+                .filter(l -> l.getNombreBornes() > 0).collect(Collectors.toList());
+        double[][] cumuls = new double[lieux.size()][];
+        for (int i = 0; i < lieux.size(); i++) {
+            AtomicLongArray demande = demandeParLieu.get(lieux.get(i).getId());
+            double capacite = 60.0 * lieux.get(i).getNombreBornes() * semaines; // Minutes disponibles par heure de la semaine
+            double[] c = new double[2 * HEURES_SEMAINE + 1]; // Deux semaines : un créneau peut chevaucher dimanche-lundi
+            for (int h = 0; h < 2 * HEURES_SEMAINE; h++) {
+                double occupation = demande == null ? 0 : Math.min(1, demande.get(h % HEURES_SEMAINE) / capacite);
+                c[h + 1] = c[h] + occupation;
+            }
+            cumuls[i] = c;
+        }
+        modele = new Modele(lieux.toArray(new LieuRecharge[0]), cumuls);
+    }
+
+    /**
+     * Recalcule le modèle périodiquement en tâche de fond (thread démon).
+     * @param periode intervalle entre deux recalculs.
+     */
+    public synchronized void demarrerRafraichissement(Duration periode) {
+        if (rafraichisseur != null) return;
+        rafraichisseur = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread t = new Thread(r, "recommandations");
+            t.setDaemon(true);
+            return t;
+        });
+        rafraichisseur.scheduleWithFixedDelay(() -> {
+            try {
+                rafraichir();
+            } catch (RuntimeException ex) {
+                System.err.println("Erreur recalcul recommandations: " + ex.getMessage());
+            }
+        }, 0, periode.toMillis(), TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Arrête le recalcul périodique.
+     */
+    public synchronized void arreterRafraichissement() {
+        if (rafraichisseur != null) {
+            rafraichisseur.shutdownNow();
+            rafraichisseur = null;
+        }
+    }
+
+    /**
+     *Évalue chaque lieu sur les créneaux décalés, garde son meilleur créneau, puis vérifie
+     * les bornes libres des meilleurs lieux jusqu'à avoir {@code nombre} suggestions.
+     * @param debut début du créneau recherché
+     * @param fin fin du créneau recherché
+     * @param nombre nombre maximal de suggestions
+     * @return les suggestions
+     */
+    @Override
+    public List<SuggestionCreneau> recommander(LocalDateTime debut, LocalDateTime fin, int nombre) {
+        if (debut == null || fin == null || !fin.isAfter(debut) || nombre <= 0) {
+            System.err.println("Erreur: Créneau de recommandation invalide.");
+            return new ArrayList<>();
+        }
+        if (reservationService == null) {
+            System.err.println("Erreur critique: ReservationService non défini pour les recommandations.");
+            return new ArrayList<>();
+        }
+        Modele m = modele;
+        if (m == null) { // Premier appel avant le premier recalcul
+            rafraichir();
+            m = modele;
+            if (m == null) return new ArrayList<>();
+        }
+
+        LocalDateTime maintenant = LocalDateTime.now();
+        int nbLieux = m.lieux.length;
+        double[] meilleurScore = new double[nbLieux];
+        double[] meilleureOccupation = new double[nbLieux];
+        int[] meilleurDecalage = new int[nbLieux];
+        Arrays.fill(meilleurScore, Double.MAX_VALUE);
+        for (int k = -DECALAGES; k <= DECALAGES; k++) {
+            LocalDateTime d = debut.plusMinutes(k * PAS_DECALAGE_MINUTES);
+            if (d.isBefore(maintenant)) continue;
+            LocalDateTime f = fin.plusMinutes(k * PAS_DECALAGE_MINUTES);
+            int premiere = heureSemaine(d);
+            // Heures de la semaine touchées par le créneau, au plus une semaine
+            int nbHeures = (int) Math.min(HEURES_SEMAINE,
+                    ChronoUnit.HOURS.between(d.truncatedTo(ChronoUnit.HOURS), f.minusNanos(1).truncatedTo(ChronoUnit.HOURS)) + 1);
+            for (int i = 0; i < nbLieux; i++) {
+                double[] c = m.cumuls[i];
+                double occupation = (c[premiere + nbHeures] - c[premiere]) / nbHeures;
+                double score = occupation + Math.abs(k) * PENALITE_DECALAGE;
+                if (score < meilleurScore[i]) {
+                    meilleurScore[i] = score;
+                    meilleureOccupation[i] = occupation;
+                    meilleurDecalage[i] = k;
+                }
+            }
+        }
+
+        Integer[] ordre = new Integer[nbLieux];
+        for (int i = 0; i < nbLieux; i++) ordre[i] = i;
+        Arrays.sort(ordre, Comparator.comparingDouble(i -> meilleurScore[i]));
+        List<SuggestionCreneau> suggestions = new ArrayList<>();
+        int verifications = nombre * VERIFICATIONS_PAR_SUGGESTION;
+        for (int n = 0; n < nbLieux && suggestions.size() < nombre && verifications > 0; n++) {
+            int i = ordre[n];
+            if (meilleurScore[i] == Double.MAX_VALUE) break; // Tous les créneaux décalés sont passés
+            verifications--;
+            LocalDateTime d = debut.plusMinutes(meilleurDecalage[i] * PAS_DECALAGE_MINUTES);
+            LocalDateTime f = fin.plusMinutes(meilleurDecalage[i] * PAS_DECALAGE_MINUTES);
+            int libres = bornesLibres(m.lieux[i], d, f);
+            if (libres > 0) suggestions.add(new SuggestionCreneau(m.lieux[i], d, f, meilleureOccupation[i], libres));
+        }
+        return suggestions;
+    }
+
+    /**
+     * Bornes DISPONIBLE du lieu sans réservation active ni série sur le créneau.
+     */
+    private int bornesLibres(LieuRecharge lieu, LocalDateTime debut, LocalDateTime fin) {
+        Set<Long> reservees = reservationService.streamReservations(RequetePlage.parLieu(lieu.getId(), debut, fin)
+                        .avecStatuts(StatutReservation.ACCEPTEE, StatutReservation.EN_ATTENTE))
+                .map(r -> r.getBorne().getId())
+                .collect(Collectors.toCollection(HashSet::new));
+        reservationService.streamSeries(debut, fin)
+                .filter(s -> s.getBorne().getLieuId() == lieu.getId())
+                .forEach(s -> reservees.add(s.getBorne().getId()));
+        int libres = 0;
+        for (BorneRecharge b : lieu.getBornesVue()) {
+            if (b.getEtat() == EtatBorne.DISPONIBLE && !reservees.contains(b.getId())) libres++;
+        }
+        return libres;
+    }
+
+    private static int heureSemaine(LocalDateTime t) {
+        return (t.getDayOfWeek().getValue() - 1) * 24 + t.getHour();
+    }
+
+    /**
+     * Instantané publié par {@link #rafraichir()} : les lieux ayant des bornes et, pour chacun,
+     * les cumuls de l'occupation habituelle heure par heure sur deux semaines.
+     */
+    private static final class Modele {
+        final LieuRecharge[] lieux;
+        final double[][] cumuls;
+
+        Modele(LieuRecharge[] lieux, double[][] cumuls) {
+            this.lieux = lieux;
+            this.cumuls = cumuls;
+        }
+    }
+}
@@ -1,28 +1,64 @@
 package Services;
 
 
+import Interfaces.Depot;
 import Interfaces.DocumentService;
+import Interfaces.EcouteurReservations;
 import Interfaces.ReservationService;
-import model.BorneRecharge;
-import model.Reservation;
-import model.Utilisateur;
-import model.StatutReservation;
+import model.*;
 
 import java.io.IOException;
-import java.time.LocalDateTime;
+import java.time.*;
 import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentNavigableMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.ReentrantLock;
 import java.util.stream.Collectors;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
 
 // For Bonus Persistence
 // import java.io.*;
 
 /**
  * Implement de ReservationService.
+ * Les réservations EN_ATTENTE dont le début est passé sont refusées automatiquement, et les réservations
+ * terminées sont déplacées dans les archives ({@link ArchiveReservations}, compactes et compressées) :
+ * les structures actives (map, index) ne contiennent que les réservations en cours ou à venir.
+ * Voir {@link #balayerEcheances(LocalDateTime, int)}.
  */
 public class ReservationServiceImplement implements ReservationService {
 
-    private final Map<Long, Reservation> reservations = new HashMap<>();
+    private static final int TAILLE_LOT_BALAYAGE = 500;
+
+    private final Map<Long, Reservation> reservations = new ConcurrentHashMap<>();
+    private final IndexTemporelReservations index = new IndexTemporelReservations();
+    // Réservations terminées : niveau froid compressé, toujours visible dans les recherches
+    private final ArchiveReservations archives = new ArchiveReservations();
+    // Par borne : réservations actives (ACCEPTEE ou EN_ATTENTE) non archivées, pour borneHasFutureReservations
+    private final Map<Long, ActiviteBorne> activiteBornes = new ConcurrentHashMap<>();
+    // Réservations récurrentes : une règle par série, occurrences calculées à la demande
+    private final Map<Long, SerieReservation> series = new ConcurrentHashMap<>();
+    private final Map<Long, List<SerieReservation>> seriesParBorne = new ConcurrentHashMap<>();
+    // Séries triées par fin maximale : une recherche ne parcourt que les séries qui ne sont pas finies avant le créneau
+    private final ConcurrentNavigableMap<IndexTemporelReservations.Cle, SerieReservation> seriesParFin = new ConcurrentSkipListMap<>();
+    // Un verrou par borne : vérification de conflit et enregistrement atomiques, sans verrou global
+    private final Map<Long, ReentrantLock> verrousBornes = new ConcurrentHashMap<>();
+    // Bornes supprimées : refusées sous leur verrou aux réservations qui attendaient la suppression
+    private final Set<Long> bornesSupprimees = ConcurrentHashMap.newKeySet();
+    // Échéances à traiter, la plus proche en tête (accès synchronisé sur la file)
+    private final PriorityQueue<Echeance> echeances = new PriorityQueue<>();
+    private ScheduledExecutorService balayeur;
+    private final InstantaneVersionne<Reservation> vueReservations = new InstantaneVersionne<>(); // Réservations non archivées
     private DocumentService documentService; // Pour injection
+    private SequencesIds sequences = SequencesIds.GLOBALES; // Ids des réservations et séries créées ici
+    private final List<EcouteurReservations> ecouteurs = new CopyOnWriteArrayList<>(); // Agrégats tenus hors du service
+    private Depot<Reservation> depot; // Stockage, null si les données sont volatiles
 
     /**
      *Définit le service de document à utiliser pour les reçus.
@@ -32,6 +68,23 @@ public class ReservationServiceImplement implements ReservationService {
         this.documentService = documentService;
     }
 
+    /**
+     *Définit les séquences d'identifiants des réservations et séries créées (celles du locataire).
+     * @param sequences les séquences à utiliser
+     */
+    public void setSequences(SequencesIds sequences) {
+        this.sequences = sequences;
+    }
+
+    /**
+     *Abonne un écouteur aux créations et changements de statut des réservations.
+     * Les réservations déjà présentes ne lui sont pas signalées.
+     * @param ecouteur l'écouteur à ajouter
+     */
+    public void ajouterEcouteur(EcouteurReservations ecouteur) {
+        ecouteurs.add(ecouteur);
+    }
+
     /**
      *Vérifie la validité de l'utilisateur et des données puis créer la réservation.
      * @param utilisateur identifiant de l'utilisateur.
@@ -41,35 +94,375 @@ public class ReservationServiceImplement implements ReservationService {
      */
     @Override
     public void creerReservation(Utilisateur utilisateur, BorneRecharge borne, LocalDateTime debut, LocalDateTime fin) {
+        creer(utilisateur, borne, debut, fin);
+    }
+
+    /**
+     *Vérifie que la borne est DISPONIBLE puis crée la réservation comme creerReservation.
+     * @param utilisateur identifiant de l'utilisateur.
+     * @param borne identifiant de la borne.
+     * @param debut heure de début de la réservation.
+     * @param fin heure de fin de la réservation.
+     * @return la réservation créée
+     */
+    @Override
+    public Optional<Reservation> reserver(Utilisateur utilisateur, BorneRecharge borne, LocalDateTime debut, LocalDateTime fin) {
+        if (borne != null && borne.getEtat() != EtatBorne.DISPONIBLE) {
+            System.err.println("Erreur: Borne " + borne.getId() + " non disponible (" + borne.getEtat() + ").");
+            return Optional.empty();
+        }
+        return creer(utilisateur, borne, debut, fin);
+    }
+
+    private Optional<Reservation> creer(Utilisateur utilisateur, BorneRecharge borne, LocalDateTime debut, LocalDateTime fin) {
         if (utilisateur == null || !utilisateur.isEstValide() || borne == null || debut == null || fin == null || !fin.isAfter(debut)) {
             System.err.println("Erreur: Données de réservation invalides ou utilisateur non validé.");
-            return;
+            return Optional.empty();
+        }
+        Reservation resa;
+        ReentrantLock verrou = verrou(borne.getId());
+        verrou.lock();
+        try {
+            if (estEnConflit(borne.getId(), debut, fin)) {
+                System.err.println("Erreur: Conflit détecté lors de la création de la réservation.");
+                return Optional.empty();
+            }
+            resa = new Reservation(sequences, utilisateur, borne, debut, fin);
+            enregistrer(resa);
+        } finally {
+            verrou.unlock();
         }
-        boolean conflit = reservations.values().stream()
-                .filter(r -> r.getBorne().equals(borne))
-                .filter(r -> r.getStatut() == StatutReservation.ACCEPTEE || r.getStatut() == StatutReservation.EN_ATTENTE)
-                .anyMatch(r -> r.chevauche(debut, fin));
+        System.out.println("Réservation créée (EN_ATTENTE): " + resa);
+        return Optional.of(resa);
+    }
 
-        if (conflit) {
-            System.err.println("Erreur: Conflit détecté lors de la création de la réservation.");
-            return;
+    /**
+     * Parcourt les candidates par id croissant : chaque borne est verrouillée, vérifiée, et gardée
+     * verrouillée si elle est libre (sinon relâchée aussitôt). L'ordre des verrous étant le même
+     * pour tous, deux réservations de groupe ne peuvent pas s'interbloquer.
+     * Les réservations ne sont créées qu'une fois toutes les bornes retenues ; en cas d'échec
+     * en cours de création, celles déjà créées sont annulées.
+     * @param utilisateur identifiant de l'utilisateur.
+     * @param candidates bornes parmi lesquelles choisir.
+     * @param nombre nombre de bornes à réserver.
+     * @param debut heure de début des réservations.
+     * @param fin heure de fin des réservations.
+     */
+    @Override
+    public Optional<List<Reservation>> reserverGroupe(Utilisateur utilisateur, Collection<BorneRecharge> candidates, int nombre,
+                                                      LocalDateTime debut, LocalDateTime fin) {
+        if (utilisateur == null || !utilisateur.isEstValide() || candidates == null || nombre <= 0
+                || debut == null || fin == null || !fin.isAfter(debut)) {
+            System.err.println("Erreur: Données de réservation de groupe invalides ou utilisateur non validé.");
+            return Optional.empty();
+        }
+        TreeMap<Long, BorneRecharge> parId = new TreeMap<>(); // Ordre global des verrous, sans doublon
+        for (BorneRecharge b : candidates) {
+            if (b != null) parId.putIfAbsent(b.getId(), b);
+        }
+        List<ReentrantLock> tenus = new ArrayList<>(nombre);
+        List<BorneRecharge> retenues = new ArrayList<>(nombre);
+        List<Reservation> creees = new ArrayList<>(nombre);
+        try {
+            int restantes = parId.size();
+            for (BorneRecharge b : parId.values()) {
+                if (retenues.size() == nombre || retenues.size() + restantes < nombre) break;
+                restantes--;
+                ReentrantLock verrou = verrou(b.getId());
+                verrou.lock();
+                if (estEnConflit(b.getId(), debut, fin)) {
+                    verrou.unlock();
+                    continue;
+                }
+                tenus.add(verrou);
+                retenues.add(b);
+            }
+            if (retenues.size() < nombre) {
+                System.err.println("Erreur: Seulement " + retenues.size() + " borne(s) libre(s) sur " + nombre + " demandée(s).");
+                return Optional.empty();
+            }
+            try {
+                for (BorneRecharge b : retenues) {
+                    Reservation resa = new Reservation(sequences, utilisateur, b, debut, fin);
+                    enregistrer(resa);
+                    creees.add(resa);
+                }
+            } catch (RuntimeException e) {
+                creees.forEach(this::annulerEnregistrement);
+                System.err.println("Erreur: Réservation de groupe annulée: " + e.getMessage());
+                return Optional.empty();
+            }
+        } finally {
+            tenus.forEach(ReentrantLock::unlock);
         }
+        System.out.println(creees.size() + " réservation(s) de groupe créée(s) (EN_ATTENTE): "
+                + creees.stream().map(r -> String.valueOf(r.getBorne().getId())).collect(Collectors.joining(", ", "bornes [", "]")));
+        return Optional.of(creees);
+    }
 
+    /**
+     * Les candidates sont les bornes DISPONIBLE du lieu.
+     * @param utilisateur identifiant de l'utilisateur.
+     * @param lieu lieu dont les bornes sont candidates.
+     * @param nombre nombre de bornes à réserver.
+     * @param debut heure de début des réservations.
+     * @param fin heure de fin des réservations.
+     */
+    @Override
+    public Optional<List<Reservation>> reserverGroupe(Utilisateur utilisateur, LieuRecharge lieu, int nombre,
+                                                      LocalDateTime debut, LocalDateTime fin) {
+        if (lieu == null) {
+            System.err.println("Erreur: Lieu introuvable.");
+            return Optional.empty();
+        }
+        List<BorneRecharge> candidates = lieu.getBornesVue().stream()
+                .filter(b -> b.getEtat() == EtatBorne.DISPONIBLE)
+                .collect(Collectors.toList());
+        return reserverGroupe(utilisateur, candidates, nombre, debut, fin);
+    }
 
-        Reservation resa = new Reservation(utilisateur, borne, debut, fin);
+    /**
+     * Vérifie si une réservation ou une série active de la borne chevauche le créneau.
+     * À appeler en tenant le verrou de la borne pour que le résultat reste valable jusqu'à l'enregistrement.
+     */
+    private boolean estEnConflit(long borneId, LocalDateTime debut, LocalDateTime fin) {
+        return bornesSupprimees.contains(borneId)
+                || index.candidats(index.borne(borneId), debut, fin, null).values().stream()
+                .filter(r -> estActif(r.getStatut()))
+                .anyMatch(r -> r.chevauche(debut, fin))
+                || seriesActives(borneId).anyMatch(s -> s.chevauche(debut, fin));
+    }
+
+    private ReentrantLock verrou(long borneId) {
+        return verrousBornes.computeIfAbsent(borneId, k -> new ReentrantLock());
+    }
+
+    /**
+     * Ajoute une nouvelle réservation aux structures actives et planifie ses échéances.
+     */
+    private void enregistrer(Reservation resa) {
+        // Signalée avant d'être visible : aucun changement de statut ne peut être signalé avant la création
+        if (depot != null) depot.enregistrer(resa.getId(), resa);
+        for (EcouteurReservations e : ecouteurs) e.reservationCreee(resa);
         reservations.put(resa.getId(), resa);
-        System.out.println("Réservation créée (EN_ATTENTE): " + resa);
+        index.ajouter(resa);
+        activiteBornes.computeIfAbsent(resa.getBorne().getId(), k -> new ActiviteBorne()).ajouter(resa);
+        vueReservations.invalider();
+        synchronized (echeances) {
+            echeances.add(new Echeance(resa.getDateDebut(), false, resa, null)); // Refus automatique si toujours en attente
+            echeances.add(new Echeance(resa.getDateFin(), true, resa, null));    // Archivage une fois terminée
+        }
+    }
+
+    /**
+     * Charge les réservations du dépôt, puis y enregistre chaque création, changement de statut ou retrait.
+     * À appeler au démarrage, une fois les bornes et les utilisateurs chargés (voir {@link CodecsDepot#reservations}),
+     * avant toute réservation : la séquence d'ids reprend après les ids chargés.
+     * Les écouteurs déjà abonnés reçoivent les réservations chargées comme des créations ;
+     * le balayage refuse ou archive ensuite celles dont l'échéance est passée. Les séries ne sont pas stockées.
+     * @param depot dépôt des réservations.
+     * @return le nombre de réservations chargées.
+     */
+    public long utiliserDepot(Depot<Reservation> depot) {
+        long chargees = depot.charger(resa -> {
+            sequences.depasserReservation(resa.getId());
+            appliquerCreation(resa);
+        });
+        this.depot = depot;
+        return chargees;
+    }
+
+    /**
+     * Reproduit une réservation créée sur un autre nœud (réplication), avec son id et son statut,
+     * sans vérification de conflit ni affichage : le nœud d'origine a déjà tranché.
+     * @param resa la réservation reconstruite.
+     */
+    public void appliquerCreation(Reservation resa) {
+        if (reservations.containsKey(resa.getId())) return; // Déjà reçue
+        ReentrantLock verrou = verrou(resa.getBorne().getId());
+        verrou.lock();
+        try {
+            enregistrer(resa);
+            if (!estActif(resa.getStatut())) desactiver(resa);
+        } finally {
+            verrou.unlock();
+        }
+    }
+
+    /**
+     * Reproduit un changement de statut fait sur un autre nœud (réplication), sans reçu ni affichage.
+     * @param reservationId id de la réservation.
+     * @param nouveau nouveau statut.
+     * @return false si la réservation est inconnue ou déjà dans ce statut.
+     */
+    public boolean appliquerStatut(long reservationId, StatutReservation nouveau) {
+        Reservation resa = reservations.get(reservationId);
+        if (resa == null) return false;
+        StatutReservation ancien = resa.getStatut();
+        if (ancien == nouveau || !resa.changerStatut(ancien, nouveau)) return false;
+        if (estActif(ancien) && !estActif(nouveau)) desactiver(resa);
+        statutModifie(resa, ancien, nouveau);
+        return true;
+    }
+
+    /**
+     * Reproduit le retrait d'une réservation fait sur un autre nœud (réplication).
+     * @param reservationId id de la réservation.
+     */
+    public void appliquerRetrait(long reservationId) {
+        Reservation resa = reservations.get(reservationId);
+        if (resa != null) annulerEnregistrement(resa);
+    }
+
+    /**
+     * Défait {@link #enregistrer(Reservation)}. Les échéances restent dans la file mais sont sans effet :
+     * la réservation n'est plus EN_ATTENTE ni dans les structures actives.
+     */
+    private void annulerEnregistrement(Reservation resa) {
+        StatutReservation statut = StatutReservation.EN_ATTENTE;
+        if (resa.changerStatut(StatutReservation.EN_ATTENTE, StatutReservation.REFUSEE)) desactiver(resa);
+        else statut = resa.getStatut(); // Déjà traitée entre-temps : les écouteurs ont vu la transition
+        reservations.remove(resa.getId());
+        index.retirer(resa);
+        vueReservations.invalider();
+        if (depot != null) depot.supprimer(resa.getId());
+        for (EcouteurReservations e : ecouteurs) e.reservationRetiree(resa, statut);
+    }
+
+    /**
+     * Traite les échéances passées, au plus {@code tailleLot} à la fois :
+     * refuse les réservations encore EN_ATTENTE dont le début est passé,
+     * et archive les réservations terminées, dont le reçu est alors régénéré avec l'énergie mesurée si elles
+     * ont été acceptées. Les séries ont les mêmes échéances (voir traiterEcheanceSerie).
+     * @param maintenant l'instant de référence.
+     * @param tailleLot nombre maximal d'échéances traitées par cet appel.
+     * @return le nombre d'échéances traitées.
+     */
+    public int balayerEcheances(LocalDateTime maintenant, int tailleLot) {
+        int traitees = 0;
+        while (traitees < tailleLot) {
+            Echeance e;
+            synchronized (echeances) {
+                e = echeances.peek();
+                if (e == null || e.instant().isAfter(maintenant)) break;
+                echeances.poll();
+            }
+            traitees++;
+            if (e.serie() != null) {
+                traiterEcheanceSerie(e.serie(), e.archivage());
+                continue;
+            }
+            Reservation r = e.reservation();
+            if (!e.archivage()) {
+                if (r.changerStatut(StatutReservation.EN_ATTENTE, StatutReservation.REFUSEE)) {
+                    desactiver(r);
+                    statutModifie(r, StatutReservation.EN_ATTENTE, StatutReservation.REFUSEE);
+                    System.out.println("Réservation " + r.getId() + " refusée automatiquement (début dépassé).");
+                }
+            } else if (reservations.get(r.getId()) == r) {
+                // Une réservation encore en attente est refusée : seul le gagnant du compare-and-set la décompte
+                if (r.getStatut() == StatutReservation.ACCEPTEE) {
+                    desactiver(r);
+                } else if (r.changerStatut(StatutReservation.EN_ATTENTE, StatutReservation.REFUSEE)) {
+                    desactiver(r);
+                    statutModifie(r, StatutReservation.EN_ATTENTE, StatutReservation.REFUSEE);
+                }
+                // Archivée avant d'être retirée : elle reste visible des recherches pendant le transfert
+                archives.ajouter(r);
+                reservations.remove(r.getId());
+                index.retirer(r);
+                vueReservations.invalider();
+                if (r.getStatut() == StatutReservation.ACCEPTEE) regenererRecu(r);
+            }
+        }
+        return traitees;
+    }
+
+    /**
+     * Régénère le reçu d'une réservation terminée : les relevés du compteur reçus pendant le créneau
+     * n'existaient pas encore lors de l'acceptation et complètent maintenant le reçu.
+     */
+    private void regenererRecu(Reservation r) {
+        if (documentService == null) return;
+        try {
+            documentService.genererRecuTxt(r);
+        } catch (IOException | RuntimeException ex) {
+            System.err.println("Erreur génération reçu final pour " + r.getId() + ": " + ex.getMessage());
+        }
+    }
+
+    /**
+     * Échéances d'une série : au début de la première occurrence, refus si elle est toujours en attente ;
+     * après la dernière, retrait des structures actives. Les occurrences d'une série acceptée
+     * passent alors dans l'archive, comme des réservations terminées, et restent dans l'historique.
+     */
+    private void traiterEcheanceSerie(SerieReservation serie, boolean archivage) {
+        if (!archivage) {
+            if (serie.changerStatut(StatutReservation.EN_ATTENTE, StatutReservation.REFUSEE)) {
+                System.out.println("Série " + serie.getId() + " refusée automatiquement (première occurrence dépassée).");
+            }
+            return;
+        }
+        if (!series.remove(serie.getId(), serie)) return;
+        serie.changerStatut(StatutReservation.EN_ATTENTE, StatutReservation.REFUSEE);
+        if (serie.getStatut() == StatutReservation.ACCEPTEE) {
+            serie.debutsOccurrences(serie.getPremierJour(), serie.getDernierJour()).forEach(debut -> archives.ajouter(
+                    new Reservation(sequences.prochaineReservation(), serie.getUtilisateur(), serie.getBorne(),
+                            debut, debut.plus(serie.getDuree()), StatutReservation.ACCEPTEE)));
+        }
+        List<SerieReservation> deLaBorne = seriesParBorne.get(serie.getBorne().getId());
+        if (deLaBorne != null) deLaBorne.remove(serie);
+        seriesParFin.remove(cleFin(serie));
+    }
+
+    private static IndexTemporelReservations.Cle cleFin(SerieReservation serie) {
+        return new IndexTemporelReservations.Cle(serie.getFinMax(), serie.getId());
+    }
+
+    /**
+     * Démarre le balayage périodique des échéances en tâche de fond (thread démon),
+     * par petits lots pour ne pas bloquer le reste de l'application.
+     * @param periode intervalle entre deux balayages.
+     */
+    public synchronized void demarrerBalayage(Duration periode) {
+        if (balayeur != null) return;
+        balayeur = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread t = new Thread(r, "balayage-reservations");
+            t.setDaemon(true);
+            return t;
+        });
+        balayeur.scheduleWithFixedDelay(() -> {
+            try {
+                // Lots successifs jusqu'à épuisement des échéances passées
+                while (balayerEcheances(LocalDateTime.now(), TAILLE_LOT_BALAYAGE) == TAILLE_LOT_BALAYAGE) {
+                    Thread.yield();
+                }
+            } catch (RuntimeException ex) {
+                System.err.println("Erreur balayage réservations: " + ex.getMessage());
+            }
+        }, 0, periode.toMillis(), TimeUnit.MILLISECONDS);
     }
 
     /**
-     * Vérifie le statut de la réservation et lui change d'état en ACCEPTEE si c'est le cas.
+     * Arrête le balayage périodique.
+     */
+    public synchronized void arreterBalayage() {
+        if (balayeur != null) {
+            balayeur.shutdownNow();
+            balayeur = null;
+        }
+    }
+
+    /**
+     * Passe la réservation de EN_ATTENTE à ACCEPTEE par compare-and-set : seul l'appel gagnant génère le reçu.
      * @param reservationId l'id de la réservation
+     * @return true si la transition a été faite par cet appel
      */
     @Override
-    public void accepterReservation(long reservationId) {
+    public boolean accepterReservation(long reservationId) {
         Reservation resa = reservations.get(reservationId);
-        if (resa != null && resa.getStatut() == StatutReservation.EN_ATTENTE) {
-            resa.setStatut(StatutReservation.ACCEPTEE);
+        if (resa != null && resa.changerStatut(StatutReservation.EN_ATTENTE, StatutReservation.ACCEPTEE)) {
+            statutModifie(resa, StatutReservation.EN_ATTENTE, StatutReservation.ACCEPTEE);
             System.out.println("Réservation " + reservationId + " acceptée.");
             if (documentService != null) {
                 try {
@@ -80,24 +473,28 @@ public class ReservationServiceImplement implements ReservationService {
             } else {
                 System.err.println("Avertissement: DocumentService non configuré, reçu non généré.");
             }
-            return;
+            return true;
         }
         System.err.println("Erreur: Impossible d'accepter réservation " + reservationId);
+        return false;
     }
 
     /**
-     * Vérifie le statut et le change en REFUSEE si c'est le cas.
+     * Passe la réservation de EN_ATTENTE à REFUSEE par compare-and-set.
      * @param reservationId l'id de la réservation
+     * @return true si la transition a été faite par cet appel
      */
     @Override
-    public void refuserReservation(long reservationId) {
+    public boolean refuserReservation(long reservationId) {
         Reservation resa = reservations.get(reservationId);
-        if (resa != null && resa.getStatut() == StatutReservation.EN_ATTENTE) {
-            resa.setStatut(StatutReservation.REFUSEE);
+        if (resa != null && resa.changerStatut(StatutReservation.EN_ATTENTE, StatutReservation.REFUSEE)) {
+            desactiver(resa);
+            statutModifie(resa, StatutReservation.EN_ATTENTE, StatutReservation.REFUSEE);
             System.out.println("Réservation " + reservationId + " refusée.");
-            return;
+            return true;
         }
         System.err.println("Erreur: Impossible de refuser réservation " + reservationId);
+        return false;
     }
 
     /**
@@ -107,31 +504,324 @@ public class ReservationServiceImplement implements ReservationService {
     @Override
     public List<Reservation> getReservationsUtilisateur(Utilisateur utilisateur) {
         if (utilisateur == null) return new ArrayList<>();
-        return reservations.values().stream()
-                .filter(r -> r.getUtilisateur().equals(utilisateur))
+        return Stream.concat(
+                        reservations.values().stream().filter(r -> r.getUtilisateur().equals(utilisateur)),
+                        archives.parUtilisateur(utilisateur))
                 .collect(Collectors.toList());
     }
 
     /**
-     * Retourne une nouvelle liste avec toutes les réservations
+     * Retourne une nouvelle liste avec toutes les réservations (actives et archivées)
      * @return nouvelle liste de réservations
      */
     @Override
     public List<Reservation> getAllReservations() {
-        return new ArrayList<>(reservations.values());
+        List<Reservation> toutes = new ArrayList<>(reservations.size() + archives.taille());
+        toutes.addAll(reservations.values());
+        archives.toutes().forEach(toutes::add);
+        return toutes;
     }
 
     /**
-     * Récupère les réservations pour la borne donnée qui sont ACCEPTEE ou EN ATTENTE.
-     * Avec une date postérieure à maintenant.
+     * Retourne l'instantané des réservations non archivées, reconstruit seulement après un ajout ou un retrait.
+     * L'archive n'est pas décompressée.
+     * @return liste non modifiable de réservations
+     */
+    @Override
+    public List<Reservation> getReservationsVue() {
+        return vueReservations.lire(() -> List.copyOf(reservations.values()));
+    }
+
+    /**
+     * Vérifie si la borne a une réservation ACCEPTEE ou EN ATTENTE qui se termine après maintenant.
+     * Temps constant : lit le nombre de réservations actives de la borne et leur plus grande date de fin.
      * @param borneId l'id de la borne
      */
     @Override
     public boolean borneHasFutureReservations(long borneId) {
         LocalDateTime maintenant = LocalDateTime.now();
-        return reservations.values().stream()
-                .filter(r -> r.getBorne().getId() == borneId)
-                .filter(r -> r.getStatut() == StatutReservation.ACCEPTEE || r.getStatut() == StatutReservation.EN_ATTENTE)
-                .anyMatch(r -> r.getDateFin().isAfter(maintenant));
+        ActiviteBorne activite = activiteBornes.get(borneId);
+        if (activite != null && activite.finApres(maintenant, index.borne(borneId).values())) return true;
+        return seriesActives(borneId).anyMatch(s -> {
+            LocalDateTime finSerie = s.getFinDerniereOccurrence();
+            return finSerie != null && finSerie.isAfter(maintenant);
+        });
+    }
+
+    /**
+     * Prend le verrou de la borne, celui des créations de réservations et de séries, pendant la vérification
+     * et la suppression.
+     * @param borneId l'id de la borne
+     * @param suppression le retrait de la borne
+     * @return true si la suppression a été exécutée
+     */
+    @Override
+    public boolean supprimerBorneSiLibre(long borneId, Runnable suppression) {
+        ReentrantLock verrou = verrou(borneId);
+        verrou.lock();
+        try {
+            if (borneHasFutureReservations(borneId)) return false;
+            bornesSupprimees.add(borneId);
+            suppression.run();
+            return true;
+        } finally {
+            verrou.unlock();
+        }
+    }
+
+    /**
+     * Vérifie la série contre la borne en un seul passage sur l'index de la borne
+     * (réservations entre le début et la fin de la série), puis contre les autres séries de la borne.
+     * @param utilisateur identifiant de l'utilisateur.
+     * @param borne identifiant de la borne.
+     * @param du premier jour de la série.
+     * @param au dernier jour de la série.
+     * @param jours jours de la semaine concernés.
+     * @param heureDebut heure de début des occurrences.
+     * @param duree durée des occurrences.
+     */
+    @Override
+    public Optional<SerieReservation> creerSerie(Utilisateur utilisateur, BorneRecharge borne, LocalDate du, LocalDate au,
+                                                 Set<DayOfWeek> jours, LocalTime heureDebut, Duration duree) {
+        if (utilisateur == null || !utilisateur.isEstValide()) {
+            System.err.println("Erreur: Utilisateur non validé.");
+            return Optional.empty();
+        }
+        SerieReservation serie;
+        try {
+            serie = new SerieReservation(sequences, utilisateur, borne, du, au, jours, heureDebut, duree);
+        } catch (IllegalArgumentException e) {
+            System.err.println("Erreur: " + e.getMessage());
+            return Optional.empty();
+        }
+        ReentrantLock verrou = verrou(borne.getId());
+        verrou.lock();
+        try {
+            boolean conflit = bornesSupprimees.contains(borne.getId())
+                    || index.candidats(index.borne(borne.getId()), du.atTime(heureDebut), au.atTime(heureDebut).plus(duree), null)
+                    .values().stream()
+                    .filter(r -> estActif(r.getStatut()))
+                    .anyMatch(r -> serie.chevauche(r.getDateDebut(), r.getDateFin()))
+                    || seriesActives(borne.getId()).anyMatch(s -> s.chevauche(serie));
+            if (conflit) {
+                System.err.println("Erreur: Conflit détecté lors de la création de la série.");
+                return Optional.empty();
+            }
+            series.put(serie.getId(), serie);
+            seriesParBorne.computeIfAbsent(borne.getId(), k -> new CopyOnWriteArrayList<>()).add(serie);
+            seriesParFin.put(cleFin(serie), serie);
+        } finally {
+            verrou.unlock();
+        }
+        LocalDateTime premierDebut = serie.debutsOccurrences(du, au).findFirst().orElse(du.atTime(heureDebut));
+        synchronized (echeances) {
+            echeances.add(new Echeance(premierDebut, false, null, serie));   // Refus automatique si toujours en attente
+            echeances.add(new Echeance(serie.getFinMax(), true, null, serie)); // Retrait une fois terminée
+        }
+        System.out.println("Série créée (EN_ATTENTE): " + serie);
+        return Optional.of(serie);
+    }
+
+    /**
+     * Passe la série de EN_ATTENTE à ACCEPTEE par compare-and-set.
+     * @param serieId l'id de la série
+     * @return true si la transition a été faite par cet appel
+     */
+    @Override
+    public boolean accepterSerie(long serieId) {
+        SerieReservation serie = series.get(serieId);
+        if (serie != null && serie.changerStatut(StatutReservation.EN_ATTENTE, StatutReservation.ACCEPTEE)) {
+            System.out.println("Série " + serieId + " acceptée.");
+            return true;
+        }
+        System.err.println("Erreur: Impossible d'accepter la série " + serieId);
+        return false;
+    }
+
+    /**
+     * Passe la série de EN_ATTENTE à REFUSEE par compare-and-set.
+     * @param serieId l'id de la série
+     * @return true si la transition a été faite par cet appel
+     */
+    @Override
+    public boolean refuserSerie(long serieId) {
+        SerieReservation serie = series.get(serieId);
+        if (serie != null && serie.changerStatut(StatutReservation.EN_ATTENTE, StatutReservation.REFUSEE)) {
+            System.out.println("Série " + serieId + " refusée.");
+            return true;
+        }
+        System.err.println("Erreur: Impossible de refuser la série " + serieId);
+        return false;
+    }
+
+    /**
+     * Ajoute le jour aux exceptions de la série.
+     * @param serieId l'id de la série
+     * @param jour le jour de l'occurrence
+     * @return true si l'occurrence a été annulée
+     */
+    @Override
+    public boolean annulerOccurrence(long serieId, LocalDate jour) {
+        SerieReservation serie = series.get(serieId);
+        if (serie != null && jour != null && serie.ajouterException(jour)) {
+            System.out.println("Occurrence du " + jour + " de la série " + serieId + " annulée.");
+            return true;
+        }
+        System.err.println("Erreur: Aucune occurrence à annuler le " + jour + " pour la série " + serieId);
+        return false;
+    }
+
+    /**
+     * Filtre les séries pour l'utilisateur donné.
+     * @param utilisateur identifiant de l'utilisateur. Si null, retourne une liste vide.
+     */
+    @Override
+    public List<SerieReservation> getSeriesUtilisateur(Utilisateur utilisateur) {
+        if (utilisateur == null) return new ArrayList<>();
+        return series.values().stream()
+                .filter(s -> s.getUtilisateur().equals(utilisateur))
+                .collect(Collectors.toList());
+    }
+
+    /**
+     * Séries actives dont une occurrence chevauche le créneau, en partant des séries qui finissent après son début.
+     * @param debut début du créneau
+     * @param fin fin du créneau
+     */
+    @Override
+    public Stream<SerieReservation> streamSeries(LocalDateTime debut, LocalDateTime fin) {
+        return seriesParFin.tailMap(new IndexTemporelReservations.Cle(debut, Long.MAX_VALUE), false).values().stream()
+                .filter(s -> estActif(s.getStatut()))
+                .filter(s -> s.chevauche(debut, fin));
+    }
+
+    private Stream<SerieReservation> seriesActives(long borneId) {
+        return seriesParBorne.getOrDefault(borneId, List.of()).stream().filter(s -> estActif(s.getStatut()));
+    }
+
+    private static boolean estActif(StatutReservation statut) {
+        return statut == StatutReservation.ACCEPTEE || statut == StatutReservation.EN_ATTENTE;
+    }
+
+    /**
+     * Signale aux écouteurs une transition déjà faite par compare-and-set (donc une seule fois).
+     */
+    private void statutModifie(Reservation r, StatutReservation ancien, StatutReservation nouveau) {
+        if (depot != null) depot.enregistrer(r.getId(), r);
+        for (EcouteurReservations e : ecouteurs) e.statutModifie(r, ancien, nouveau);
+    }
+
+    /**
+     * Retire une réservation qui n'est plus active (refusée ou archivée) des agrégats de sa borne.
+     */
+    private void desactiver(Reservation r) {
+        ActiviteBorne activite = activiteBornes.get(r.getBorne().getId());
+        if (activite != null) activite.retirer(r);
+    }
+
+    /**
+     * Parcourt l'index temporel correspondant à la portée de la requête (borne, lieu ou réseau).
+     * @param requete la recherche.
+     * @return un flux paresseux des réservations correspondantes.
+     */
+    @Override
+    public Stream<Reservation> streamReservations(RequetePlage requete) {
+        Iterator<Map.Entry<IndexTemporelReservations.Cle, Reservation>> candidats = candidats(requete, null);
+        return StreamSupport.stream(Spliterators.spliteratorUnknownSize(candidats, Spliterator.ORDERED), false)
+                .map(Map.Entry::getValue)
+                .filter(requete::correspond);
+    }
+
+    /**
+     * Remplit une page en reprenant l'index juste après le curseur.
+     * @param requete la recherche.
+     * @param curseur curseur de la page précédente, ou null.
+     * @param taillePage nombre maximal de résultats.
+     * @return la page.
+     */
+    @Override
+    public PageReservations getPageReservations(RequetePlage requete, String curseur, int taillePage) {
+        if (taillePage <= 0) throw new IllegalArgumentException("Taille de page invalide: " + taillePage);
+        IndexTemporelReservations.Cle apres = curseur == null ? null : IndexTemporelReservations.Cle.depuisCurseur(curseur);
+        List<Reservation> page = new ArrayList<>(Math.min(taillePage, 256));
+        IndexTemporelReservations.Cle derniere = null;
+        boolean suite = false;
+        Iterator<Map.Entry<IndexTemporelReservations.Cle, Reservation>> candidats = candidats(requete, apres);
+        while (candidats.hasNext()) {
+            Map.Entry<IndexTemporelReservations.Cle, Reservation> e = candidats.next();
+            if (!requete.correspond(e.getValue())) continue;
+            if (page.size() == taillePage) { suite = true; break; } // Il reste au moins un résultat
+            page.add(e.getValue());
+            derniere = e.getKey();
+        }
+        return new PageReservations(page, suite ? derniere.versCurseur() : null);
+    }
+
+    /**
+     * Candidats d'une recherche par plage : réservations actives et archivées, fusionnées dans l'ordre.
+     * Les archives ne sont pas lues si le créneau commence après la dernière fin archivée.
+     */
+    private Iterator<Map.Entry<IndexTemporelReservations.Cle, Reservation>> candidats(RequetePlage requete,
+                                                                                     IndexTemporelReservations.Cle apres) {
+        return IndexTemporelReservations.fusionner(
+                index.candidats(indexPour(index, requete), requete.getDebut(), requete.getFin(), apres).entrySet().iterator(),
+                archives.candidats(requete, apres));
+    }
+
+    private static NavigableMap<IndexTemporelReservations.Cle, Reservation> indexPour(IndexTemporelReservations index,
+                                                                                      RequetePlage requete) {
+        if (requete.getBorneId() != null) return index.borne(requete.getBorneId());
+        if (requete.getLieuId() != null) return index.lieu(requete.getLieuId());
+        return index.global();
+    }
+
+    /**
+     * Agrégats d'une borne sur ses réservations actives (ACCEPTEE ou EN_ATTENTE) non archivées :
+     * leur nombre et leur plus grande date de fin. Celle-ci n'est recalculée, à partir de l'index
+     * de la borne, que si la réservation qui la portait a été retirée.
+     */
+    private static final class ActiviteBorne {
+        private int nbActives;
+        private LocalDateTime finMax;
+        private boolean finMaxARecalculer;
+
+        synchronized void ajouter(Reservation r) {
+            nbActives++;
+            if (!finMaxARecalculer && (finMax == null || r.getDateFin().isAfter(finMax))) finMax = r.getDateFin();
+        }
+
+        synchronized void retirer(Reservation r) {
+            if (--nbActives == 0) {
+                finMax = null;
+                finMaxARecalculer = false;
+            } else if (r.getDateFin().equals(finMax)) {
+                finMaxARecalculer = true;
+            }
+        }
+
+        synchronized boolean finApres(LocalDateTime instant, Collection<Reservation> reservationsBorne) {
+            if (nbActives == 0) return false;
+            if (finMaxARecalculer) {
+                finMax = null;
+                for (Reservation r : reservationsBorne) {
+                    if (estActif(r.getStatut()) && (finMax == null || r.getDateFin().isAfter(finMax))) finMax = r.getDateFin();
+                }
+                finMaxARecalculer = false;
+            }
+            return finMax != null && finMax.isAfter(instant);
+        }
+    }
+
+    /**
+     * Échéance d'une réservation ou d'une série : début (refus automatique si toujours en attente) ou fin (archivage).
+     * @param instant moment de l'échéance.
+     * @param archivage true pour l'archivage, false pour le refus automatique.
+     * @param reservation la réservation concernée, ou null pour une série.
+     * @param serie la série concernée, ou null pour une réservation.
+     */
+    private record Echeance(LocalDateTime instant, boolean archivage, Reservation reservation, SerieReservation serie)
+            implements Comparable<Echeance> {
+        @Override
+        public int compareTo(Echeance o) { return instant.compareTo(o.instant); }
     }
 }
@@ -0,0 +1,126 @@
+package Services;
+
+
+import model.LimitesLocataire;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Function;
+
+/**
+ * Routeur d'un déploiement partagé entre plusieurs enseignes : chaque locataire a ses propres services
+ * ({@link Locataire}), et chaque requête est dirigée vers ceux de son locataire.
+ * <p>
+ * Les requêtes d'un locataire sont limitées en nombre simultané (voir {@link LimitesLocataire}) :
+ * un locataire saturé voit ses requêtes supplémentaires attendre puis être refusées,
+ * sans occuper davantage de threads ni de processeur au détriment des autres.
+ */
+public class RouteurLocataires {
+
+    private final Map<String, Locataire> locataires = new ConcurrentHashMap<>();
+    private Duration attenteMax = Duration.ofMillis(50);
+    private Duration periodeBalayage; // Null : pas de balayage des réservations
+
+    /**
+     *
+     * @param attenteMax définit l'attente maximale d'une place avant de refuser une requête.
+     */
+    public void setAttenteMax(Duration attenteMax) {
+        this.attenteMax = attenteMax;
+    }
+
+    /**
+     *
+     * @param periodeBalayage définit la période du balayage des réservations des locataires créés ensuite.
+     */
+    public void setPeriodeBalayage(Duration periodeBalayage) {
+        this.periodeBalayage = periodeBalayage;
+    }
+
+    /**
+     * Crée un locataire avec ses services.
+     * @param id identifiant du locataire.
+     * @param limites ses limites de ressources.
+     * @return le locataire créé, vide si l'identifiant est invalide ou déjà utilisé.
+     */
+    public Optional<Locataire> creerLocataire(String id, LimitesLocataire limites) {
+        if (id == null || id.isBlank() || limites == null) {
+            System.err.println("Erreur: Identifiant ou limites de locataire invalides.");
+            return Optional.empty();
+        }
+        Locataire nouveau = new Locataire(id, limites);
+        if (locataires.putIfAbsent(id, nouveau) != null) {
+            System.err.println("Erreur: Locataire " + id + " déjà existant.");
+            return Optional.empty();
+        }
+        if (periodeBalayage != null) nouveau.demarrer(periodeBalayage);
+        System.out.println("Locataire créé: " + id);
+        return Optional.of(nouveau);
+    }
+
+    /**
+     * Supprime un locataire et arrête ses tâches de fond.
+     * @param id identifiant du locataire.
+     * @return true si le locataire existait.
+     */
+    public boolean supprimerLocataire(String id) {
+        Locataire locataire = locataires.remove(id);
+        if (locataire == null) {
+            System.err.println("Erreur: Locataire " + id + " introuvable.");
+            return false;
+        }
+        locataire.arreter();
+        System.out.println("Locataire supprimé: " + id);
+        return true;
+    }
+
+    /**
+     * Récupère un locataire.
+     * @param id identifiant du locataire.
+     * @return le locataire, ou vide s'il n'existe pas.
+     */
+    public Optional<Locataire> getLocataire(String id) {
+        return Optional.ofNullable(locataires.get(id));
+    }
+
+    /**
+     * Retourne tous les locataires.
+     * @return une copie de la liste des locataires.
+     */
+    public List<Locataire> getAllLocataires() {
+        return new ArrayList<>(locataires.values());
+    }
+
+    /**
+     * Exécute une requête sur les services d'un locataire, dans la limite de ses requêtes simultanées.
+     * @param id identifiant du locataire.
+     * @param requete la requête, appelée avec le locataire.
+     * @param <T> type du résultat.
+     * @return le résultat, ou vide si le locataire n'existe pas, est saturé, ou si la requête ne retourne rien.
+     */
+    public <T> Optional<T> executer(String id, Function<Locataire, T> requete) {
+        Locataire locataire = locataires.get(id);
+        if (locataire == null) {
+            System.err.println("Erreur: Locataire " + id + " introuvable.");
+            return Optional.empty();
+        }
+        try {
+            if (!locataire.entrer(attenteMax)) {
+                System.err.println("Erreur: Locataire " + id + " saturé, requête refusée.");
+                return Optional.empty();
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return Optional.empty();
+        }
+        try {
+            return Optional.ofNullable(requete.apply(locataire));
+        } finally {
+            locataire.sortir();
+        }
+    }
+}
@@ -0,0 +1,258 @@
+package Services;
+
+
+import model.AgregatMesures;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Stockage en ajout seul des relevés de compteur des bornes (instant, index du compteur en Wh, puissance en W).
+ * <p>
+ * Chaque borne a sa série, découpée en blocs de {@value #TAILLE_BLOC} relevés. Un bloc garde le premier
+ * instant et le premier index en clair, puis pour chaque relevé l'écart avec le précédent, dans des tableaux
+ * de primitives (12 octets par relevé, aucun objet). Chaque bloc tient aussi son résumé (bornes de temps,
+ * dernier index, somme et maximum des puissances) : une requête sous-échantillonnée utilise le résumé
+ * des blocs entièrement contenus dans un intervalle et ne décode que les autres.
+ * <p>
+ * Les relevés d'une borne doivent arriver dans l'ordre : un instant qui ne suit pas le précédent,
+ * un index qui diminue ou une puissance négative sont refusés. Les bornes sont indépendantes :
+ * des relevés de bornes différentes peuvent être ajoutés en parallèle.
+ */
+public class SerieTemporelleMesures {
+
+    private static final int TAILLE_BLOC = 1024;
+    private static final int MAX_INTERVALLES = 100_000;
+
+    private final Map<Long, Serie> series = new ConcurrentHashMap<>();
+    private final LongAdder taille = new LongAdder();
+
+    /**
+     * Ajoute un relevé à la série d'une borne.
+     * @param borneId id de la borne.
+     * @param instant instant du relevé.
+     * @param compteurWh index du compteur, en Wh.
+     * @param puissanceW puissance instantanée, en W.
+     * @return false si le relevé est refusé (hors ordre, index en baisse ou puissance négative).
+     */
+    public boolean ajouter(long borneId, LocalDateTime instant, long compteurWh, int puissanceW) {
+        if (puissanceW < 0 || compteurWh < 0) return false;
+        Serie serie = series.computeIfAbsent(borneId, id -> new Serie());
+        boolean ajoute;
+        synchronized (serie) {
+            ajoute = serie.ajouter(secondes(instant), compteurWh, puissanceW);
+        }
+        if (ajoute) taille.increment();
+        return ajoute;
+    }
+
+    /**
+     * Retourne le nombre total de relevés stockés.
+     * @return le nombre de relevés.
+     */
+    public long taille() { return taille.sum(); }
+
+    /**
+     * Agrège les relevés d'une borne par intervalles de durée {@code pas}, à partir de {@code debut}.
+     * @param borneId id de la borne.
+     * @param debut début de la plage (inclus).
+     * @param fin fin de la plage (exclue).
+     * @param pas durée d'un intervalle, au moins une seconde.
+     * @return les agrégats des intervalles contenant au moins un relevé, dans l'ordre.
+     */
+    public List<AgregatMesures> agreger(long borneId, LocalDateTime debut, LocalDateTime fin, Duration pas) {
+        long d = secondes(debut);
+        long f = secondes(fin);
+        long p = pas.getSeconds();
+        if (f <= d || p <= 0) throw new IllegalArgumentException("Plage ou pas invalide.");
+        if ((f - d + p - 1) / p > MAX_INTERVALLES) throw new IllegalArgumentException("Pas trop fin pour la plage demandée.");
+        Serie serie = series.get(borneId);
+        if (serie == null) return new ArrayList<>();
+        Intervalles intervalles = new Intervalles(d, p, (int) ((f - d + p - 1) / p));
+        synchronized (serie) {
+            serie.parcourir(d, f, intervalles);
+        }
+        return intervalles.resultat();
+    }
+
+    /**
+     * Série d'une borne. Accès synchronisé sur l'objet.
+     */
+    private static final class Serie {
+        private final List<Bloc> blocs = new ArrayList<>();
+
+        boolean ajouter(long temps, long compteur, int puissance) {
+            Bloc dernier = blocs.isEmpty() ? null : blocs.get(blocs.size() - 1);
+            if (dernier != null) {
+                if (temps <= dernier.tempsDernier || compteur < dernier.compteurDernier) return false;
+                long ecartTemps = temps - dernier.tempsDernier;
+                long ecartCompteur = compteur - dernier.compteurDernier;
+                if (dernier.nb < TAILLE_BLOC && ecartTemps <= Integer.MAX_VALUE && ecartCompteur <= Integer.MAX_VALUE) {
+                    dernier.ajouter((int) ecartTemps, (int) ecartCompteur, puissance);
+                    return true;
+                }
+            }
+            blocs.add(new Bloc(temps, compteur, puissance));
+            return true;
+        }
+
+        /**
+         * Passe les relevés de [debut, fin[ aux intervalles, en partant du premier bloc qui peut en contenir.
+         */
+        void parcourir(long debut, long fin, Intervalles intervalles) {
+            int i = premierBloc(debut);
+            long compteurPrecedent = i > 0 ? blocs.get(i - 1).compteurDernier : -1; // -1 : aucun relevé avant
+            for (; i < blocs.size(); i++) {
+                Bloc bloc = blocs.get(i);
+                if (bloc.tempsBase >= fin) break;
+                if (bloc.tempsBase >= debut && bloc.tempsDernier < fin
+                        && intervalles.indice(bloc.tempsBase) == intervalles.indice(bloc.tempsDernier)) {
+                    // Bloc entier dans un seul intervalle : son résumé suffit
+                    long energie = bloc.compteurDernier - (compteurPrecedent < 0 ? bloc.compteurBase : compteurPrecedent);
+                    intervalles.ajouterBloc(bloc, energie);
+                } else {
+                    bloc.decoder(debut, fin, compteurPrecedent, intervalles);
+                }
+                compteurPrecedent = bloc.compteurDernier;
+            }
+        }
+
+        /** Premier bloc dont le dernier relevé est à partir de {@code debut} (recherche dichotomique). */
+        private int premierBloc(long debut) {
+            int bas = 0;
+            int haut = blocs.size();
+            while (bas < haut) {
+                int milieu = (bas + haut) >>> 1;
+                if (blocs.get(milieu).tempsDernier < debut) bas = milieu + 1;
+                else haut = milieu;
+            }
+            return bas;
+        }
+    }
+
+    /**
+     * Bloc de relevés encodés en écarts. Le premier relevé a des écarts nuls.
+     */
+    private static final class Bloc {
+        final long tempsBase;
+        final long compteurBase;
+        int[] ecartsTemps = new int[16];
+        int[] ecartsCompteur = new int[16];
+        int[] puissances = new int[16];
+        int nb;
+        long tempsDernier;
+        long compteurDernier;
+        long sommePuissances;
+        int puissanceMax;
+
+        Bloc(long temps, long compteur, int puissance) {
+            this.tempsBase = temps;
+            this.compteurBase = compteur;
+            this.tempsDernier = temps;
+            this.compteurDernier = compteur;
+            ajouter(0, 0, puissance);
+        }
+
+        void ajouter(int ecartTemps, int ecartCompteur, int puissance) {
+            if (nb == ecartsTemps.length) { // Croissance jusqu'à TAILLE_BLOC : une borne peu active reste petite
+                int capacite = Math.min(nb * 2, TAILLE_BLOC);
+                ecartsTemps = Arrays.copyOf(ecartsTemps, capacite);
+                ecartsCompteur = Arrays.copyOf(ecartsCompteur, capacite);
+                puissances = Arrays.copyOf(puissances, capacite);
+            }
+            ecartsTemps[nb] = ecartTemps;
+            ecartsCompteur[nb] = ecartCompteur;
+            puissances[nb] = puissance;
+            nb++;
+            tempsDernier += ecartTemps;
+            compteurDernier += ecartCompteur;
+            sommePuissances += puissance;
+            puissanceMax = Math.max(puissanceMax, puissance);
+        }
+
+        void decoder(long debut, long fin, long compteurPrecedent, Intervalles intervalles) {
+            long temps = tempsBase;
+            long compteur = compteurBase;
+            for (int i = 0; i < nb; i++) {
+                temps += ecartsTemps[i];
+                compteur += ecartsCompteur[i];
+                if (temps >= fin) return;
+                if (temps >= debut) {
+                    intervalles.ajouter(temps, compteurPrecedent < 0 ? 0 : compteur - compteurPrecedent, puissances[i]);
+                }
+                compteurPrecedent = compteur;
+            }
+        }
+    }
+
+    /**
+     * Accumulateurs des intervalles d'une requête, en tableaux de primitives.
+     */
+    private static final class Intervalles {
+        final long debut;
+        final long pas;
+        final int[] nb;
+        final long[] premier;
+        final long[] dernier;
+        final long[] energie;
+        final long[] sommePuissances;
+        final int[] puissanceMax;
+
+        Intervalles(long debut, long pas, int taille) {
+            this.debut = debut;
+            this.pas = pas;
+            this.nb = new int[taille];
+            this.premier = new long[taille];
+            this.dernier = new long[taille];
+            this.energie = new long[taille];
+            this.sommePuissances = new long[taille];
+            this.puissanceMax = new int[taille];
+        }
+
+        int indice(long temps) { return (int) ((temps - debut) / pas); }
+
+        void ajouter(long temps, long energieWh, int puissance) {
+            int k = indice(temps);
+            if (nb[k]++ == 0) premier[k] = temps;
+            dernier[k] = temps;
+            energie[k] += energieWh;
+            sommePuissances[k] += puissance;
+            puissanceMax[k] = Math.max(puissanceMax[k], puissance);
+        }
+
+        void ajouterBloc(Bloc bloc, long energieWh) {
+            int k = indice(bloc.tempsBase);
+            if (nb[k] == 0) premier[k] = bloc.tempsBase;
+            nb[k] += bloc.nb;
+            dernier[k] = bloc.tempsDernier;
+            energie[k] += energieWh;
+            sommePuissances[k] += bloc.sommePuissances;
+            puissanceMax[k] = Math.max(puissanceMax[k], bloc.puissanceMax);
+        }
+
+        List<AgregatMesures> resultat() {
+            List<AgregatMesures> resultat = new ArrayList<>();
+            for (int k = 0; k < nb.length; k++) {
+                if (nb[k] == 0) continue;
+                resultat.add(new AgregatMesures(date(debut + k * pas), nb[k], date(premier[k]), date(dernier[k]),
+                        energie[k], sommePuissances[k], puissanceMax[k]));
+            }
+            return resultat;
+        }
+    }
+
+    private static long secondes(LocalDateTime date) {
+        return date.toEpochSecond(ZoneOffset.UTC);
+    }
+
+    private static LocalDateTime date(long secondes) {
+        return LocalDateTime.ofEpochSecond(secondes, 0, ZoneOffset.UTC);
+    }
+}
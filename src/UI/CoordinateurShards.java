@@ -0,0 +1,508 @@
+package UI;
+
+import Services.AnneauHachage;
+import model.*;
+
+import java.io.*;
+import java.net.InetSocketAddress;
+import java.net.Socket;
+import java.time.LocalDateTime;
+import java.util.*;
+import java.util.concurrent.*;
+
+/**
+ * Coordinateur d'un réseau partitionné en {@link NoeudShard} : les bornes, et donc leurs réservations,
+ * sont réparties entre les nœuds par hachage cohérent de leur id ({@link AnneauHachage}).
+ * <p>
+ * Le coordinateur attribue les ids des lieux et bornes et garde le catalogue (lieux, bornes, tarifs) ;
+ * chaque nœud reçoit une copie des bornes qu'il possède. Une recherche de disponibilités est envoyée à tous
+ * les nœuds en parallèle et les résultats sont fusionnés ; une réservation est envoyée au seul nœud de sa borne,
+ * et une décision (accepter, refuser) au nœud dont le numéro est inscrit dans l'id de réservation.
+ * <p>
+ * Un nœud injoignable est signalé sur la sortie d'erreur : ses bornes ne sont pas proposées,
+ * et les réservations qui le concernent sont refusées.
+ */
+public class CoordinateurShards {
+
+    private static final int DELAI_MS = 5_000;
+
+    private final AnneauHachage<Noeud> anneau = new AnneauHachage<>();
+    private final Map<Integer, Noeud> noeudsParNumero = new ConcurrentHashMap<>();
+    private final Map<Long, LieuRecharge> lieux = new ConcurrentHashMap<>();
+    private final Map<Long, BorneRecharge> bornes = new ConcurrentHashMap<>();
+    private volatile boolean bornesPlacees; // Levé avant le premier placement : l'anneau est alors figé
+    private final SequencesIds sequences;
+    private final ExecutorService executeur = Executors.newVirtualThreadPerTaskExecutor();
+
+    /**
+     * Coordinateur dont les ids de lieux et de bornes viennent des séquences globales.
+     */
+    public CoordinateurShards() {
+        this(SequencesIds.GLOBALES);
+    }
+
+    /**
+     * Constructeur.
+     * @param sequences séquences d'identifiants des lieux et bornes du réseau.
+     */
+    public CoordinateurShards(SequencesIds sequences) {
+        this.sequences = sequences;
+    }
+
+    /**
+     * Ajoute un nœud au réseau. Les nœuds sont à ajouter avant les bornes : les bornes déjà placées
+     * ne seraient pas déplacées vers un nœud ajouté ensuite, qui recevrait pourtant leurs requêtes.
+     * Un nœud est donc refusé dès qu'une borne a été placée.
+     * @param hote hôte du nœud.
+     * @param port port du nœud.
+     * @return false si le nœud est injoignable ou déjà ajouté, ou si des bornes sont déjà placées.
+     */
+    public boolean ajouterNoeud(String hote, int port) {
+        if (bornesPlacees) {
+            System.err.println("Erreur: Nœud " + hote + ":" + port + " refusé, des bornes sont déjà placées.");
+            return false;
+        }
+        Noeud noeud = new Noeud(hote, port);
+        try {
+            int numero = noeud.appeler(out -> out.writeByte(ProtocoleShard.INFO), DataInputStream::readInt);
+            if (noeudsParNumero.putIfAbsent(numero, noeud) != null) {
+                System.err.println("Erreur: Nœud numéro " + numero + " déjà présent.");
+                noeud.fermer();
+                return false;
+            }
+            if (!anneau.ajouter(hote + ":" + port, noeud)) {
+                noeudsParNumero.remove(numero);
+                noeud.fermer();
+                return false;
+            }
+            if (bornesPlacees) { // Une borne a été placée pendant l'ajout, peut-être avec l'ancien anneau
+                anneau.retirer(hote + ":" + port);
+                noeudsParNumero.remove(numero);
+                noeud.fermer();
+                System.err.println("Erreur: Nœud " + hote + ":" + port + " refusé, des bornes sont déjà placées.");
+                return false;
+            }
+            noeud.numero = numero;
+            System.out.println("Nœud " + numero + " ajouté (" + hote + ":" + port + ").");
+            return true;
+        } catch (IOException e) {
+            System.err.println("Erreur: Nœud " + hote + ":" + port + " injoignable: " + e.getMessage());
+            noeud.fermer();
+            return false;
+        }
+    }
+
+    /**
+     * Ajoute un lieu (sans borne) au catalogue. Il n'est envoyé aux nœuds qu'avec ses bornes.
+     * @param nom nom du lieu.
+     * @param adresse adresse du lieu.
+     * @return le lieu créé.
+     */
+    public LieuRecharge ajouterLieu(String nom, String adresse) {
+        LieuRecharge lieu = new LieuRecharge(sequences, nom, adresse);
+        lieux.put(lieu.getId(), lieu);
+        return lieu;
+    }
+
+    /**
+     * Ajoute une borne à un lieu et l'envoie au nœud qui la possède.
+     * @param lieuId id du lieu.
+     * @param tarifHoraire tarif horaire de la borne.
+     * @return la borne, ou vide si le lieu est inconnu, le tarif négatif ou le nœud injoignable.
+     */
+    public Optional<BorneRecharge> ajouterBorne(long lieuId, double tarifHoraire) {
+        LieuRecharge lieu = lieux.get(lieuId);
+        if (lieu == null || tarifHoraire < 0) {
+            System.err.println("Erreur: Lieu " + lieuId + " non trouvé ou tarif négatif.");
+            return Optional.empty();
+        }
+        bornesPlacees = true;
+        BorneRecharge borne = new BorneRecharge(sequences, tarifHoraire, lieuId);
+        Map<Noeud, List<BorneRecharge>> parNoeud = Map.of(proprietaire(borne.getId()), List.of(borne));
+        if (envoyerTopologie(parNoeud) < 1) return Optional.empty();
+        lieu.ajouterBorne(borne);
+        bornes.put(borne.getId(), borne);
+        return Optional.of(borne);
+    }
+
+    /**
+     * Ajoute d'un bloc des lieux et leurs bornes, construits avec leurs ids : chaque nœud reçoit
+     * en une requête toutes les bornes qu'il possède.
+     * @param nouveauxLieux les lieux à répartir.
+     * @return le nombre de bornes placées sur les nœuds.
+     */
+    public int placerLieux(Collection<LieuRecharge> nouveauxLieux) {
+        bornesPlacees = true;
+        Map<Noeud, List<BorneRecharge>> parNoeud = new HashMap<>();
+        for (LieuRecharge lieu : nouveauxLieux) {
+            lieux.put(lieu.getId(), lieu);
+            for (BorneRecharge borne : lieu.getBornesVue()) {
+                parNoeud.computeIfAbsent(proprietaire(borne.getId()), n -> new ArrayList<>()).add(borne);
+                bornes.put(borne.getId(), borne);
+            }
+        }
+        int placees = envoyerTopologie(parNoeud);
+        System.out.println("Topologie répartie: " + placees + " bornes sur " + parNoeud.size() + " nœud(s).");
+        return placees;
+    }
+
+    /**
+     * Recherche les bornes disponibles sur tous les nœuds en parallèle.
+     * @param debut début du créneau.
+     * @param fin fin du créneau.
+     * @return les bornes disponibles, par id croissant.
+     */
+    public List<BorneRecharge> rechercherBornesDisponibles(LocalDateTime debut, LocalDateTime fin) {
+        if (debut == null || fin == null || !fin.isAfter(debut)) {
+            System.err.println("Erreur: Créneau invalide.");
+            return new ArrayList<>();
+        }
+        List<long[]> parties = surTousLesNoeuds(noeud -> noeud.appeler(out -> {
+            out.writeByte(ProtocoleShard.RECHERCHE);
+            ProtocoleShard.ecrireDate(out, debut);
+            ProtocoleShard.ecrireDate(out, fin);
+        }, in -> {
+            long[] ids = new long[in.readInt()];
+            for (int i = 0; i < ids.length; i++) ids[i] = in.readLong();
+            return ids;
+        }));
+        long[] tous = fusionner(parties);
+        List<BorneRecharge> disponibles = new ArrayList<>(tous.length);
+        for (long id : tous) {
+            BorneRecharge borne = bornes.get(id);
+            if (borne != null) disponibles.add(borne);
+        }
+        return disponibles;
+    }
+
+    /**
+     * Réserve une borne sur le nœud qui la possède. L'utilisateur doit avoir été authentifié et validé.
+     * @param utilisateur l'utilisateur qui réserve.
+     * @param borneId id de la borne.
+     * @param debut début du créneau.
+     * @param fin fin du créneau.
+     * @return la réservation EN_ATTENTE, ou vide si la borne est inconnue, déjà réservée ou son nœud injoignable.
+     */
+    public Optional<Reservation> reserver(Utilisateur utilisateur, long borneId, LocalDateTime debut, LocalDateTime fin) {
+        BorneRecharge borne = bornes.get(borneId);
+        if (utilisateur == null || !utilisateur.isEstValide() || borne == null
+                || debut == null || fin == null || !fin.isAfter(debut)) {
+            System.err.println("Erreur: Données de réservation invalides ou utilisateur non validé.");
+            return Optional.empty();
+        }
+        Noeud noeud = proprietaire(borneId);
+        try {
+            long id = noeud.appeler(out -> {
+                out.writeByte(ProtocoleShard.RESERVER);
+                out.writeLong(utilisateur.getId());
+                out.writeUTF(utilisateur.getEmail());
+                out.writeLong(borneId);
+                ProtocoleShard.ecrireDate(out, debut);
+                ProtocoleShard.ecrireDate(out, fin);
+            }, DataInputStream::readLong);
+            return Optional.of(new Reservation(id, utilisateur, borne, debut, fin, StatutReservation.EN_ATTENTE));
+        } catch (RefusNoeud e) {
+            System.err.println("Erreur: Borne " + borneId + " déjà réservée sur ce créneau.");
+        } catch (IOException e) {
+            System.err.println("Erreur: Nœud " + noeud + " injoignable: " + e.getMessage());
+        }
+        return Optional.empty();
+    }
+
+    /**
+     * Retourne les réservations d'un utilisateur, rassemblées depuis tous les nœuds.
+     * @param utilisateur l'utilisateur.
+     * @return ses réservations, par date de début.
+     */
+    public List<Reservation> getReservationsUtilisateur(Utilisateur utilisateur) {
+        if (utilisateur == null) return new ArrayList<>();
+        List<List<Reservation>> parties = surTousLesNoeuds(noeud -> noeud.appeler(out -> {
+            out.writeByte(ProtocoleShard.RESERVATIONS);
+            out.writeLong(utilisateur.getId());
+        }, in -> {
+            int nb = in.readInt();
+            List<Reservation> resas = new ArrayList<>(nb);
+            for (int i = 0; i < nb; i++) {
+                long id = in.readLong();
+                BorneRecharge borne = bornes.get(in.readLong());
+                LocalDateTime debut = ProtocoleShard.lireDate(in);
+                LocalDateTime fin = ProtocoleShard.lireDate(in);
+                int statut = in.readUnsignedByte();
+                if (statut >= ProtocoleShard.STATUTS.length) throw new IOException("Statut invalide.");
+                if (borne != null) resas.add(new Reservation(id, utilisateur, borne, debut, fin, ProtocoleShard.STATUTS[statut]));
+            }
+            return resas;
+        }));
+        List<Reservation> toutes = new ArrayList<>();
+        parties.forEach(toutes::addAll);
+        toutes.sort(Comparator.comparing(Reservation::getDateDebut));
+        return toutes;
+    }
+
+    /**
+     * Accepte une réservation EN_ATTENTE sur le nœud qui l'a créée.
+     * @param reservationId id de la réservation.
+     * @return true si la réservation a été acceptée.
+     */
+    public boolean accepterReservation(long reservationId) {
+        return decider(reservationId, true);
+    }
+
+    /**
+     * Refuse une réservation EN_ATTENTE sur le nœud qui l'a créée.
+     * @param reservationId id de la réservation.
+     * @return true si la réservation a été refusée.
+     */
+    public boolean refuserReservation(long reservationId) {
+        return decider(reservationId, false);
+    }
+
+    /**
+     * Retourne le catalogue des lieux.
+     * @return une copie de la liste des lieux.
+     */
+    public List<LieuRecharge> getAllLieux() {
+        return new ArrayList<>(lieux.values());
+    }
+
+    /**
+     * Retourne le nombre de nœuds du réseau.
+     * @return le nombre de nœuds.
+     */
+    public int getNombreNoeuds() {
+        return noeudsParNumero.size();
+    }
+
+    /**
+     * Ferme les connexions aux nœuds (les nœuds continuent de tourner).
+     */
+    public void fermer() {
+        executeur.shutdownNow();
+        for (Noeud noeud : noeudsParNumero.values()) noeud.fermer();
+    }
+
+    private boolean decider(long reservationId, boolean accepter) {
+        Noeud noeud = reservationId > 0 ? noeudsParNumero.get(ProtocoleShard.numeroNoeud(reservationId)) : null;
+        if (noeud == null) {
+            System.err.println("Erreur: Réservation " + reservationId + " introuvable.");
+            return false;
+        }
+        try {
+            noeud.appeler(out -> {
+                out.writeByte(ProtocoleShard.STATUT);
+                out.writeLong(reservationId);
+                out.writeBoolean(accepter);
+            }, in -> null);
+            return true;
+        } catch (RefusNoeud e) {
+            System.err.println("Erreur: Réservation " + reservationId + " introuvable ou déjà traitée.");
+        } catch (IOException e) {
+            System.err.println("Erreur: Nœud " + noeud + " injoignable: " + e.getMessage());
+        }
+        return false;
+    }
+
+    /**
+     * Fusionne des listes d'ids croissants deux à deux, en O(n log k) pour k listes.
+     */
+    private static long[] fusionner(List<long[]> parties) {
+        if (parties.isEmpty()) return new long[0];
+        List<long[]> restantes = new ArrayList<>(parties);
+        while (restantes.size() > 1) {
+            List<long[]> suivantes = new ArrayList<>((restantes.size() + 1) / 2);
+            for (int i = 0; i + 1 < restantes.size(); i += 2) {
+                long[] a = restantes.get(i);
+                long[] b = restantes.get(i + 1);
+                long[] fusion = new long[a.length + b.length];
+                int x = 0;
+                int y = 0;
+                int k = 0;
+                while (x < a.length && y < b.length) fusion[k++] = a[x] <= b[y] ? a[x++] : b[y++];
+                while (x < a.length) fusion[k++] = a[x++];
+                while (y < b.length) fusion[k++] = b[y++];
+                suivantes.add(fusion);
+            }
+            if (restantes.size() % 2 == 1) suivantes.add(restantes.get(restantes.size() - 1));
+            restantes = suivantes;
+        }
+        return restantes.get(0);
+    }
+
+    private Noeud proprietaire(long borneId) {
+        Noeud noeud = anneau.noeud(borneId);
+        if (noeud == null) throw new IllegalStateException("Aucun nœud dans le réseau.");
+        return noeud;
+    }
+
+    /**
+     * Envoie à chaque nœud ses bornes, regroupées par lieu, en parallèle.
+     * @return le nombre de bornes ajoutées sur les nœuds.
+     */
+    private int envoyerTopologie(Map<Noeud, List<BorneRecharge>> parNoeud) {
+        List<Callable<Integer>> envois = new ArrayList<>();
+        for (Map.Entry<Noeud, List<BorneRecharge>> e : parNoeud.entrySet()) {
+            Map<Long, List<BorneRecharge>> parLieu = new LinkedHashMap<>();
+            for (BorneRecharge b : e.getValue()) parLieu.computeIfAbsent(b.getLieuId(), k -> new ArrayList<>()).add(b);
+            envois.add(() -> e.getKey().appeler(out -> {
+                out.writeByte(ProtocoleShard.TOPOLOGIE);
+                out.writeInt(parLieu.size());
+                for (Map.Entry<Long, List<BorneRecharge>> lieu : parLieu.entrySet()) {
+                    LieuRecharge l = lieux.get(lieu.getKey());
+                    out.writeLong(l.getId());
+                    out.writeUTF(l.getNom());
+                    out.writeUTF(l.getAdresse());
+                    out.writeInt(lieu.getValue().size());
+                    for (BorneRecharge b : lieu.getValue()) {
+                        out.writeLong(b.getId());
+                        out.writeDouble(b.getTarifHoraire());
+                        out.writeByte(b.getEtat().ordinal());
+                    }
+                }
+            }, DataInputStream::readInt));
+        }
+        int placees = 0;
+        for (Integer n : executer(envois)) placees += n;
+        return placees;
+    }
+
+    private <T> List<T> surTousLesNoeuds(Appel<T> appel) {
+        List<Callable<T>> appels = new ArrayList<>();
+        for (Noeud noeud : anneau.getNoeuds()) appels.add(() -> appel.sur(noeud));
+        return executer(appels);
+    }
+
+    /**
+     * Exécute les appels en parallèle et retourne les résultats de ceux qui ont réussi.
+     */
+    private <T> List<T> executer(List<Callable<T>> appels) {
+        List<T> resultats = new ArrayList<>(appels.size());
+        if (appels.size() == 1) { // Pas de changement de thread pour un seul nœud
+            try {
+                resultats.add(appels.get(0).call());
+            } catch (Exception e) {
+                System.err.println("Erreur: Appel de nœud échoué: " + e.getMessage());
+            }
+            return resultats;
+        }
+        try {
+            for (Future<T> f : executeur.invokeAll(appels)) {
+                try {
+                    resultats.add(f.get());
+                } catch (ExecutionException e) {
+                    System.err.println("Erreur: Appel de nœud échoué: " + e.getCause().getMessage());
+                }
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        return resultats;
+    }
+
+    /**
+     * Appel d'un nœud.
+     */
+    private interface Appel<T> {
+        T sur(Noeud noeud) throws IOException;
+    }
+
+    /**
+     * Écriture d'une requête.
+     */
+    private interface Requete {
+        void ecrire(DataOutputStream out) throws IOException;
+    }
+
+    /**
+     * Lecture d'une réponse OK.
+     */
+    private interface Reponse<T> {
+        T lire(DataInputStream in) throws IOException;
+    }
+
+    /**
+     * Réponse REFUS d'un nœud (conflit, réservation déjà traitée).
+     */
+    private static final class RefusNoeud extends IOException {
+        private static final long serialVersionUID = 1L;
+
+        RefusNoeud() {
+            super("Refusé par le nœud.");
+        }
+    }
+
+    /**
+     * Nœud distant et ses connexions libres, réutilisées d'un appel à l'autre.
+     */
+    private static final class Noeud {
+        final String hote;
+        final int port;
+        volatile int numero;
+        private final Queue<Connexion> libres = new ConcurrentLinkedQueue<>();
+
+        Noeud(String hote, int port) {
+            this.hote = hote;
+            this.port = port;
+        }
+
+        <T> T appeler(Requete requete, Reponse<T> reponse) throws IOException {
+            Connexion c = libres.poll();
+            if (c == null) c = new Connexion(hote, port);
+            try {
+                requete.ecrire(c.out);
+                c.out.flush();
+                byte resultat = c.in.readByte();
+                T valeur;
+                switch (resultat) {
+                    case ProtocoleShard.OK: valeur = reponse.lire(c.in); break;
+                    case ProtocoleShard.REFUS: valeur = null; break;
+                    case ProtocoleShard.ERREUR: throw new IOException(c.in.readUTF());
+                    default: throw new IOException("Réponse inconnue: " + resultat);
+                }
+                libres.add(c); // Réponse lue en entier : la connexion est réutilisable
+                if (resultat == ProtocoleShard.REFUS) throw new RefusNoeud();
+                return valeur;
+            } catch (RefusNoeud e) {
+                throw e;
+            } catch (IOException e) {
+                c.fermer(); // État du flux inconnu
+                throw e;
+            }
+        }
+
+        void fermer() {
+            Connexion c;
+            while ((c = libres.poll()) != null) c.fermer();
+        }
+
+        @Override
+        public String toString() {
+            return numero + " (" + hote + ":" + port + ")";
+        }
+    }
+
+    /**
+     * Connexion TCP vers un nœud.
+     */
+    private static final class Connexion {
+        final Socket socket;
+        final DataInputStream in;
+        final DataOutputStream out;
+
+        Connexion(String hote, int port) throws IOException {
+            socket = new Socket();
+            socket.connect(new InetSocketAddress(hote, port), DELAI_MS);
+            socket.setTcpNoDelay(true);
+            socket.setSoTimeout(DELAI_MS);
+            in = new DataInputStream(new BufferedInputStream(socket.getInputStream()));
+            out = new DataOutputStream(new BufferedOutputStream(socket.getOutputStream()));
+        }
+
+        void fermer() {
+            try {
+                socket.close();
+            } catch (IOException e) {
+                // Déjà fermée
+            }
+        }
+    }
+}
@@ -2,9 +2,17 @@ package UI;
 
 
 import Interfaces.BorneService;
+import Interfaces.Depot;
 import Services.*;
 import model.*;
 
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+
 
 
 /**
@@ -14,6 +22,11 @@ import model.*;
 public class Main {
     /**
      * Méthode principale de l'application.
+     * Avec {@code --http [port]}, lance l'API HTTP (port 8080 par défaut) au lieu du menu console,
+     * ainsi que la télémétrie binaire des bornes (port 9090) et la réplication vers les répliques
+     * en lecture seule (port 9091, voir {@link ReplicaLecture}).
+     * Avec {@code --donnees <dossier>}, les lieux, bornes, utilisateurs et réservations sont stockés dans des fichiers
+     * du dossier ({@link DepotFichier}) et rechargés au démarrage suivant.
      * @param args argument de la ligne de commande
      */
     public static void main(String[] args) {
@@ -24,22 +37,134 @@ public class Main {
         BorneServiceImplement borneService = new BorneServiceImplement(); // Besoin de type concret pour setter
         ReservationServiceImplement reservationService = new ReservationServiceImplement(); // Besoin de type concret pour setter
         DocumentServiceImplement documentService = new DocumentServiceImplement(); // Besoin de type concret pour setter
+        MoteurTarifaire moteurTarifaire = new MoteurTarifaire(); // Sans règle : tarif horaire simple
+        ComptageServiceImplement comptageService = new ComptageServiceImplement(); // Relevés des compteurs
+        AnalyseOccupationServiceImplement analyseService = new AnalyseOccupationServiceImplement(); // Statistiques
+        RecommandationServiceImplement recommandationService = new RecommandationServiceImplement(); // Créneaux proposés
 
         // 2. Injection des dépendances (via setters)
         borneService.setReservationService(reservationService);
+        borneService.setMoteurTarifaire(moteurTarifaire);
         reservationService.setDocumentService(documentService);
         documentService.setBorneService(borneService); // Important pour le reçu
+        documentService.setComptageService(comptageService); // Énergie mesurée sur le reçu
+        recommandationService.setBorneService(borneService);
+        recommandationService.setReservationService(reservationService);
+
+        // Journal des mutations pour les répliques, abonné avant le chargement et l'ajout des premières données
+        boolean http = args.length > 0 && args[0].equals("--http");
+        JournalMutations journal = new JournalMutations();
+        if (http) {
+            borneService.ajouterEcouteur(journal);
+            reservationService.ajouterEcouteur(journal);
+            journal.setBorneService(borneService); // Instantanés pour les répliques trop en retard
+            journal.setReservationService(reservationService);
+        }
+
+        // 3. Chargement des données stockées (optionnel)
+        boolean donneesChargees = false;
+        String dossier = valeurOption(args, "--donnees");
+        if (dossier != null) {
+            donneesChargees = chargerDonnees(Path.of(dossier), authService, borneService, reservationService) > 0;
+        }
 
-        // 3. Ajout de données initiales (optionnel)
-        ajouterDonneesTest(borneService);
+        // Statistiques et demande : abonnés après le chargement, ils comptent d'abord les réservations existantes
+        analyseService.charger(reservationService.getAllReservations());
+        reservationService.ajouterEcouteur(analyseService); // Cumuls d'occupation tenus au fil des réservations
+        recommandationService.charger(reservationService.getAllReservations());
+        reservationService.ajouterEcouteur(recommandationService); // Demande par lieu et heure de la semaine
 
-        // 4. Création et lancement du menu
+        // Refus des demandes périmées et archivage des réservations terminées, en tâche de fond
+        reservationService.demarrerBalayage(Duration.ofMinutes(1));
+        // Modèle de recommandation recalculé en tâche de fond
+        recommandationService.demarrerRafraichissement(Duration.ofMinutes(5));
+
+        // Ajout de données initiales (optionnel), sauf si des lieux ont été chargés
+        if (!donneesChargees) ajouterDonneesTest(borneService);
+
+        // 4. Lancement de l'API HTTP, ou du menu console
+        if (http) {
+            int port = args.length > 1 && !args[1].startsWith("--") ? Integer.parseInt(args[1]) : 8080;
+            try {
+                new ServeurHttp(authService, borneService, reservationService).demarrer(port);
+            } catch (IOException e) {
+                System.err.println("Erreur: Impossible de démarrer le serveur HTTP: " + e.getMessage());
+            }
+            try {
+                ServeurTelemetrie telemetrie = new ServeurTelemetrie(borneService);
+                telemetrie.setComptageService(comptageService); // Relevés des compteurs, repris sur les reçus
+                telemetrie.demarrer(9090);
+            } catch (IOException e) {
+                System.err.println("Erreur: Impossible de démarrer la télémétrie des bornes: " + e.getMessage());
+            }
+            try {
+                new ServeurReplication(journal).demarrer(9091);
+            } catch (IOException e) {
+                System.err.println("Erreur: Impossible de démarrer la réplication: " + e.getMessage());
+            }
+            return; // Le serveur continue de tourner après la fin de main
+        }
         MenuPrincipal menu = new MenuPrincipal(authService, borneService, reservationService);
+        menu.setAnalyseService(analyseService);
+        menu.setRecommandationService(recommandationService);
         menu.demarrer();
 
         System.out.println("Arrêt Electricity Business.");
     }
 
+    /**
+     * Ouvre les dépôts fichiers du dossier et y charge les services, dans l'ordre : bornes et utilisateurs,
+     * puis réservations qui y font référence. Les dépôts sont fermés à l'arrêt de l'application.
+     * @param dossier dossier des fichiers, créé au besoin.
+     * @param authService service des utilisateurs à charger.
+     * @param borneService service des bornes à charger.
+     * @param reservationService service des réservations à charger.
+     * @return le nombre de lieux chargés, 0 si le dossier ne peut pas être ouvert.
+     */
+    private static long chargerDonnees(Path dossier, AuthentificationServiceImplement authService,
+                                       BorneServiceImplement borneService, ReservationServiceImplement reservationService) {
+        List<Depot<?>> depots = new ArrayList<>();
+        try {
+            Files.createDirectories(dossier);
+            DepotFichier<LieuRecharge> lieux = DepotFichier.ouvrir(dossier.resolve("lieux.db"), CodecsDepot.LIEUX);
+            depots.add(lieux);
+            DepotFichier<BorneRecharge> bornes = DepotFichier.ouvrir(dossier.resolve("bornes.db"), CodecsDepot.BORNES);
+            depots.add(bornes);
+            DepotFichier<Utilisateur> utilisateurs =
+                    DepotFichier.ouvrir(dossier.resolve("utilisateurs.db"), CodecsDepot.UTILISATEURS);
+            depots.add(utilisateurs);
+            DepotFichier<Reservation> reservations = DepotFichier.ouvrir(dossier.resolve("reservations.db"),
+                    CodecsDepot.reservations(id -> borneService.getBorneById(id).orElse(null),
+                            email -> authService.getUtilisateur(email).orElse(null)));
+            depots.add(reservations);
+
+            borneService.utiliserDepots(lieux, bornes);
+            long nbUtilisateurs = authService.utiliserDepot(utilisateurs);
+            long nbReservations = reservationService.utiliserDepot(reservations);
+            System.out.println("Données chargées depuis " + dossier + ": " + lieux.taille() + " lieux, " + bornes.taille()
+                    + " bornes, " + nbUtilisateurs + " utilisateurs, " + nbReservations + " réservations.");
+            Runtime.getRuntime().addShutdownHook(new Thread(() -> depots.forEach(Depot::fermer)));
+            return lieux.taille();
+        } catch (IOException e) {
+            System.err.println("Erreur: Impossible d'ouvrir les données dans " + dossier + ": " + e.getMessage());
+            depots.forEach(Depot::fermer);
+            return 0;
+        }
+    }
+
+    /**
+     * Retourne la valeur qui suit une option de la ligne de commande.
+     * @param args arguments de la ligne de commande.
+     * @param option nom de l'option.
+     * @return la valeur, ou null si l'option est absente ou sans valeur.
+     */
+    private static String valeurOption(String[] args, String option) {
+        for (int i = 0; i + 1 < args.length; i++) {
+            if (args[i].equals(option)) return args[i + 1];
+        }
+        return null;
+    }
+
     /**
      * Permet les tests de l'application.
      * @param borne service borne à peupler
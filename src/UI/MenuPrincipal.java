@@ -1,10 +1,13 @@
 package UI;
 
+import Interfaces.AnalyseOccupationService;
+import Interfaces.RecommandationService;
 import Interfaces.ReservationService;
 import Services.AuthentificationServiceImplement;
 import Services.BorneServiceImplement;
 import model.*;
 
+import java.time.LocalDate;
 import java.time.LocalDateTime;
 import java.util.Comparator;
 import java.util.List;
@@ -19,6 +22,8 @@ public class MenuPrincipal {
     private final BorneServiceImplement borneService;
     private final ReservationService reservationService;
     // DocumentService est utilisé par ReservationService
+    private AnalyseOccupationService analyseService; // Optionnel : rapport d'occupation dans l'administration
+    private RecommandationService recommandationService; // Optionnel : créneaux proposés si peu de bornes
 
     private Utilisateur utilisateurConnecte = null;
     // Le "mode opérateur" est simulé par l'accès au menu d'administration (6)
@@ -36,6 +41,22 @@ public class MenuPrincipal {
         this.reservationService = resa;
     }
 
+    /**
+     *
+     * @param analyseService définit le service de statistiques proposé dans le menu d'administration.
+     */
+    public void setAnalyseService(AnalyseOccupationService analyseService) {
+        this.analyseService = analyseService;
+    }
+
+    /**
+     *
+     * @param recommandationService définit le service proposant d'autres créneaux quand une recherche donne peu de bornes.
+     */
+    public void setRecommandationService(RecommandationService recommandationService) {
+        this.recommandationService = recommandationService;
+    }
+
     /**
      * lance la boucle principal du menu principal.
      */
@@ -100,6 +121,7 @@ public class MenuPrincipal {
         Optional<Utilisateur> userOpt = authService.inscrire(email, mdp);
         if (userOpt.isPresent()) {
             String code = authService.genererEtStockerCodeValidation(userOpt.get());
+            if (code == null) return; // Erreur gérée dans le service
             ConsoleMain.afficher(">>> CODE DE VALIDATION A NOTER: " + code + " <<<"); // Affichage obligatoire
             ConsoleMain.afficher("Utilisez l'option 2 pour valider.");
         } // Erreur gérée dans le service
@@ -112,7 +134,13 @@ public class MenuPrincipal {
         if (utilisateurConnecte != null) { ConsoleMain.afficherErreur("Déjà connecté."); return; }
         ConsoleMain.afficher("--- Validation Compte ---");
         String email = ConsoleMain.lireStringNonVide("Email du compte à valider:");
-        String code = ConsoleMain.lireStringNonVide("Code de validation:");
+        String code = ConsoleMain.lireString("Code de validation (vide pour recevoir le code):").trim();
+        if (code.isEmpty()) {
+            code = authService.renvoyerCodeValidation(email);
+            if (code == null) return; // Erreur gérée dans le service
+            ConsoleMain.afficher(">>> CODE DE VALIDATION A NOTER: " + code + " <<<");
+            return;
+        }
         authService.validerCompte(email, code); // Message succès/erreur dans le service
     }
 
@@ -145,6 +173,7 @@ public class MenuPrincipal {
         if (debut.isBefore(LocalDateTime.now())) { ConsoleMain.afficherErreur("Début dans le passé."); return; }
 
         List<BorneRecharge> disponibles = borneService.rechercherBornesDisponibles(debut, fin);
+        if (disponibles.size() < 3) afficherSuggestions(debut, fin);
         if (disponibles.isEmpty()) { ConsoleMain.afficher("Aucune borne disponible."); return; }
 
         ConsoleMain.afficher("Bornes DISPONIBLES:");
@@ -152,7 +181,8 @@ public class MenuPrincipal {
             BorneRecharge b = disponibles.get(i);
             Optional<LieuRecharge> lieuOpt = borneService.getLieuById(b.getLieuId());
             String lieuNom = lieuOpt.map(LieuRecharge::getNom).orElse("Lieu ID " + b.getLieuId());
-            ConsoleMain.afficher((i + 1) + ". Borne " + b.getId() + " [" + lieuNom + "] (" + String.format("%.2f", b.getTarifHoraire()) + " Eur/h)");
+            ConsoleMain.afficher((i + 1) + ". Borne " + b.getId() + " [" + lieuNom + "] (" + String.format("%.2f", b.getTarifHoraire()) + " Eur/h, "
+                    + String.format("%.2f", borneService.estimerCout(b, debut, fin)) + " Eur pour le créneau)");
         }
         ConsoleMain.separer();
         int choix = ConsoleMain.lireIntDansPlage("Choisir borne (ou 0 pour annuler)", 0, disponibles.size());
@@ -167,6 +197,23 @@ public class MenuPrincipal {
         }
     }
 
+    /**
+     * Affiche, si le service est configuré, des créneaux proches et peu demandés.
+     * @param debut début du créneau recherché
+     * @param fin fin du créneau recherché
+     */
+    private void afficherSuggestions(LocalDateTime debut, LocalDateTime fin) {
+        if (recommandationService == null) return;
+        List<SuggestionCreneau> suggestions = recommandationService.recommander(debut, fin, 3);
+        if (suggestions.isEmpty()) return;
+        ConsoleMain.afficher("Créneaux moins demandés à proximité:");
+        for (SuggestionCreneau s : suggestions) {
+            ConsoleMain.afficher("- " + s.getLieu().getNom() + " du " + ConsoleMain.formatDateTime(s.getDebut())
+                    + " au " + ConsoleMain.formatDateTime(s.getFin()) + " (" + s.getBornesLibres() + " borne(s) libre(s), "
+                    + String.format("%.0f", s.getOccupationPrevue() * 100) + " % d'occupation habituelle)");
+        }
+    }
+
     /**
      * Affiche-les reservations de l'utilisateur connecté
      */
@@ -201,19 +248,51 @@ public class MenuPrincipal {
         ConsoleMain.afficher("1. Gérer Lieux");
         ConsoleMain.afficher("2. Gérer Bornes");
         ConsoleMain.afficher("3. Approuver Réservations");
+        if (analyseService != null) ConsoleMain.afficher("4. Rapport d'occupation");
         ConsoleMain.afficher("0. Retour");
         ConsoleMain.separer();
-        int choix = ConsoleMain.lireIntDansPlage("Choix admin:", 0, 3);
+        int choix = ConsoleMain.lireIntDansPlage("Choix admin:", 0, analyseService != null ? 4 : 3);
         ConsoleMain.separer();
 
         switch (choix) {
             case 1: adminGererLieux(); break;
             case 2: adminGererBornes(); break;
             case 3: adminGererReservations(); break;
+            case 4: adminRapportOccupation(); break;
             case 0: break; // Retour
         }
     }
 
+    /**
+     * Affiche le rapport d'occupation du réseau sur une période : utilisation par heure,
+     * heure de pointe, taux de refus et lieux les plus occupés.
+     */
+    private void adminRapportOccupation() {
+        LocalDate du = ConsoleMain.lireDateTime("Début période").toLocalDate();
+        LocalDate au = ConsoleMain.lireDateTime("Fin période").toLocalDate();
+        if (au.isBefore(du)) { ConsoleMain.afficherErreur("Fin doit être après début."); return; }
+
+        RapportOccupation rapport = analyseService.getRapportReseau(du, au);
+        ConsoleMain.afficher("--- Occupation du " + du + " au " + au + " ---");
+        ConsoleMain.afficher("Réservations: " + rapport.getNombreReservations()
+                + " (acceptées " + rapport.getNombre(StatutReservation.ACCEPTEE)
+                + ", en attente " + rapport.getNombre(StatutReservation.EN_ATTENTE)
+                + ", refusées " + rapport.getNombre(StatutReservation.REFUSEE) + ")");
+        ConsoleMain.afficher(String.format("Taux de refus: %.1f %%", rapport.getTauxRefus() * 100));
+        int pointe = rapport.getHeurePointe();
+        ConsoleMain.afficher("Heure de pointe: " + (pointe < 0 ? "aucune" : pointe + "h-" + (pointe + 1) + "h"));
+        long[] minutes = rapport.getMinutesParHeure();
+        for (int h = 0; h < minutes.length; h++) {
+            if (minutes[h] > 0) ConsoleMain.afficher(String.format("  %02dh: %d min occupées", h, minutes[h]));
+        }
+        for (LieuRecharge lieu : borneService.getLieuxVue()) {
+            long minutesLieu = rapport.getMinutesParLieu().getOrDefault(lieu.getId(), 0L);
+            int nbBornes = lieu.getBornesVue().size();
+            ConsoleMain.afficher(String.format("%s: %d min, utilisation %.1f %%", lieu.getNom(), minutesLieu,
+                    nbBornes == 0 ? 0.0 : minutesLieu / (nbBornes * rapport.getNbJours() * 1440.0) * 100));
+        }
+    }
+
     /**
      * Gère les opérations CRUD pour les lieux de recharge (Ajouter, Modifier, Lister).
      */
@@ -241,7 +320,7 @@ public class MenuPrincipal {
                 borneService.modifierLieu(idMod, nNom, nAdr);
                 break;
             case 3:
-                List<LieuRecharge> lieux = borneService.getAllLieux();
+                List<LieuRecharge> lieux = borneService.getLieuxVue();
                 if (lieux.isEmpty()) ConsoleMain.afficher("Aucun lieu.");
                 else lieux.forEach(l -> ConsoleMain.afficher(l.toString()));
                 break;
@@ -297,12 +376,12 @@ public class MenuPrincipal {
                 } else { ConsoleMain.afficher("Annulé."); }
                 break;
             case 4:
-                List<LieuRecharge> lieux = borneService.getAllLieux();
+                List<LieuRecharge> lieux = borneService.getLieuxVue();
                 if (lieux.isEmpty()) ConsoleMain.afficher("Aucun lieu (donc aucune borne).");
                 else {
                     lieux.forEach(l -> {
                         ConsoleMain.afficher("--- Lieu: " + l.getNom() + " (ID:" + l.getId() + ") ---");
-                        List<BorneRecharge> bornesLieu = l.getBornes(); // Utilise la liste du lieu
+                        List<BorneRecharge> bornesLieu = l.getBornesVue(); // Utilise la liste du lieu, sans copie
                         if (bornesLieu.isEmpty()) ConsoleMain.afficher("  (aucune borne)");
                         else bornesLieu.forEach(b -> ConsoleMain.afficher("  -> " + b));
                     });
@@ -318,7 +397,7 @@ public class MenuPrincipal {
      */
     private void adminGererReservations() {
         ConsoleMain.afficher("--- Admin: Approuver Réservations ---");
-        List<Reservation> enAttente = reservationService.getAllReservations().stream()
+        List<Reservation> enAttente = reservationService.getReservationsVue().stream()
                 .filter(r -> r.getStatut() == StatutReservation.EN_ATTENTE)
                 .sorted(Comparator.comparing(Reservation::getDateDebut))
                 .toList();
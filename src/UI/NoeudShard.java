@@ -0,0 +1,253 @@
+package UI;
+
+import Services.BorneServiceImplement;
+import Services.ReservationServiceImplement;
+import model.*;
+
+import java.io.*;
+import java.net.InetSocketAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.net.SocketException;
+import java.time.DateTimeException;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * Nœud d'un réseau partitionné : il détient une partie des bornes (celles que l'anneau de hachage
+ * de {@link CoordinateurShards} lui attribue) et toutes leurs réservations, dans ses propres services.
+ * Il répond aux requêtes du coordinateur selon {@link ProtocoleShard}, une connexion par thread virtuel.
+ * <p>
+ * Les ids de réservation sont entrelacés entre nœuds (numéro du nœud, pas {@link ProtocoleShard#PAS_IDS}) :
+ * ils sont uniques sur tout le réseau et désignent leur nœud. Les utilisateurs sont authentifiés par le
+ * coordinateur ; le nœud n'en garde qu'une copie (id et email) pour rattacher les réservations.
+ * <p>
+ * Lancé seul ({@code java UI.NoeudShard <port> <numéro>}), il sert de nœud dans un processus séparé.
+ */
+public class NoeudShard {
+
+    private final int numero;
+    private final BorneServiceImplement borneService = new BorneServiceImplement();
+    private final ReservationServiceImplement reservationService = new ReservationServiceImplement();
+    private final Map<Long, Utilisateur> utilisateurs = new ConcurrentHashMap<>();
+    private ServerSocket serveur;
+    private ExecutorService executeur;
+
+    /**
+     * Constructeur.
+     * @param numero numéro du nœud, entre 1 et {@link ProtocoleShard#PAS_IDS}, unique sur le réseau.
+     */
+    public NoeudShard(int numero) {
+        if (numero < 1 || numero > ProtocoleShard.PAS_IDS) throw new IllegalArgumentException("Numéro de nœud invalide.");
+        this.numero = numero;
+        reservationService.setSequences(new SequencesIds(numero, ProtocoleShard.PAS_IDS));
+        borneService.setReservationService(reservationService);
+    }
+
+    /**
+     * Démarre l'écoute.
+     * @param port port d'écoute, 0 pour un port libre.
+     * @throws IOException si le port ne peut pas être ouvert.
+     */
+    public synchronized void demarrer(int port) throws IOException {
+        if (serveur != null) return;
+        serveur = new ServerSocket();
+        serveur.bind(new InetSocketAddress(port), 256);
+        executeur = Executors.newVirtualThreadPerTaskExecutor();
+        ServerSocket ecoute = serveur;
+        Thread accueil = new Thread(() -> accueillir(ecoute), "shard-" + numero);
+        accueil.setDaemon(true);
+        accueil.start();
+        System.out.println("Nœud " + numero + " démarré sur le port " + getPort() + ".");
+    }
+
+    /**
+     * Arrête l'écoute et ferme les connexions en cours.
+     */
+    public synchronized void arreter() {
+        if (serveur == null) return;
+        try {
+            serveur.close();
+        } catch (IOException e) {
+            System.err.println("Erreur fermeture nœud " + numero + ": " + e.getMessage());
+        }
+        executeur.shutdownNow();
+        serveur = null;
+        executeur = null;
+    }
+
+    /**
+     * Retourne le port d'écoute.
+     * @return le port, ou -1 si le nœud est arrêté.
+     */
+    public synchronized int getPort() {
+        return serveur == null ? -1 : serveur.getLocalPort();
+    }
+
+    /**
+     * Retourne le service des bornes du nœud.
+     * @return le service.
+     */
+    public BorneServiceImplement getBorneService() { return borneService; }
+    /**
+     * Retourne le service de réservation du nœud.
+     * @return le service.
+     */
+    public ReservationServiceImplement getReservationService() { return reservationService; }
+
+    private void accueillir(ServerSocket ecoute) {
+        while (!ecoute.isClosed()) {
+            try {
+                Socket socket = ecoute.accept();
+                socket.setTcpNoDelay(true);
+                executeur.execute(() -> servir(socket));
+            } catch (IOException e) {
+                if (!ecoute.isClosed()) System.err.println("Erreur nœud " + numero + ": " + e.getMessage());
+            } catch (RuntimeException e) { // Exécuteur arrêté pendant l'arrêt du nœud
+                return;
+            }
+        }
+    }
+
+    /**
+     * Boucle d'une connexion : une requête, une réponse, jusqu'à la fermeture par le coordinateur.
+     */
+    private void servir(Socket socket) {
+        try (socket) {
+            DataInputStream in = new DataInputStream(new BufferedInputStream(socket.getInputStream()));
+            DataOutputStream out = new DataOutputStream(new BufferedOutputStream(socket.getOutputStream()));
+            while (true) {
+                int type = in.read();
+                if (type < 0) return; // Connexion fermée
+                try {
+                    traiter((byte) type, in, out);
+                } catch (IllegalArgumentException | DateTimeException e) { // Requête lue en entier mais invalide
+                    out.writeByte(ProtocoleShard.ERREUR);
+                    out.writeUTF(String.valueOf(e.getMessage()));
+                }
+                out.flush();
+            }
+        } catch (EOFException | SocketException e) {
+            // Coordinateur parti ou nœud arrêté
+        } catch (IOException e) {
+            System.err.println("Erreur connexion nœud " + numero + ": " + e.getMessage());
+        }
+    }
+
+    private void traiter(byte type, DataInputStream in, DataOutputStream out) throws IOException {
+        switch (type) {
+            case ProtocoleShard.INFO:
+                out.writeByte(ProtocoleShard.OK);
+                out.writeInt(numero);
+                break;
+            case ProtocoleShard.TOPOLOGIE:
+                int ajoutees = borneService.enregistrerLieux(lireLieux(in));
+                out.writeByte(ProtocoleShard.OK);
+                out.writeInt(ajoutees);
+                break;
+            case ProtocoleShard.RECHERCHE:
+                List<BorneRecharge> disponibles = borneService.rechercherBornesDisponibles(
+                        ProtocoleShard.lireDate(in), ProtocoleShard.lireDate(in));
+                long[] ids = new long[disponibles.size()];
+                for (int i = 0; i < ids.length; i++) ids[i] = disponibles.get(i).getId();
+                Arrays.sort(ids); // Tri fait par chaque nœud : le coordinateur n'a plus qu'à fusionner
+                out.writeByte(ProtocoleShard.OK);
+                out.writeInt(ids.length);
+                for (long id : ids) out.writeLong(id);
+                break;
+            case ProtocoleShard.RESERVER:
+                reserver(in, out);
+                break;
+            case ProtocoleShard.RESERVATIONS:
+                Utilisateur u = utilisateurs.get(in.readLong());
+                List<Reservation> resas = u == null ? new ArrayList<>() : reservationService.getReservationsUtilisateur(u);
+                out.writeByte(ProtocoleShard.OK);
+                out.writeInt(resas.size());
+                for (Reservation r : resas) {
+                    out.writeLong(r.getId());
+                    out.writeLong(r.getBorne().getId());
+                    ProtocoleShard.ecrireDate(out, r.getDateDebut());
+                    ProtocoleShard.ecrireDate(out, r.getDateFin());
+                    out.writeByte(r.getStatut().ordinal());
+                }
+                break;
+            case ProtocoleShard.STATUT:
+                long reservationId = in.readLong();
+                boolean fait = in.readBoolean()
+                        ? reservationService.accepterReservation(reservationId)
+                        : reservationService.refuserReservation(reservationId);
+                out.writeByte(fait ? ProtocoleShard.OK : ProtocoleShard.REFUS);
+                break;
+            default:
+                throw new IOException("Type de requête inconnu: " + type);
+        }
+    }
+
+    private void reserver(DataInputStream in, DataOutputStream out) throws IOException {
+        long utilisateurId = in.readLong();
+        String email = in.readUTF();
+        long borneId = in.readLong();
+        LocalDateTime debut = ProtocoleShard.lireDate(in);
+        LocalDateTime fin = ProtocoleShard.lireDate(in);
+        Utilisateur u = utilisateurs.computeIfAbsent(utilisateurId, id -> {
+            Utilisateur copie = new Utilisateur(id, email, "");
+            copie.setEstValide(true); // Déjà vérifié par le coordinateur
+            return copie;
+        });
+        Optional<BorneRecharge> borne = borneService.getBorneById(borneId);
+        Optional<Reservation> creee = borne.flatMap(b -> reservationService.reserver(u, b, debut, fin));
+        if (creee.isPresent()) {
+            out.writeByte(ProtocoleShard.OK);
+            out.writeLong(creee.get().getId());
+        } else {
+            out.writeByte(ProtocoleShard.REFUS);
+        }
+    }
+
+    private static List<LieuRecharge> lireLieux(DataInputStream in) throws IOException {
+        int nbLieux = in.readInt();
+        if (nbLieux < 0) throw new IOException("Topologie invalide (nombre de lieux).");
+        List<LieuRecharge> lieux = new ArrayList<>(Math.min(nbLieux, 1 << 16));
+        for (int i = 0; i < nbLieux; i++) {
+            LieuRecharge lieu = new LieuRecharge(in.readLong(), in.readUTF(), in.readUTF());
+            int nbBornes = in.readInt();
+            if (nbBornes < 0) throw new IOException("Topologie invalide (nombre de bornes).");
+            for (int j = 0; j < nbBornes; j++) {
+                BorneRecharge borne = new BorneRecharge(in.readLong(), in.readDouble(), lieu.getId());
+                int etat = in.readUnsignedByte();
+                if (etat >= EtatBorne.values().length) throw new IOException("Topologie invalide (état).");
+                borne.setEtat(EtatBorne.values()[etat]);
+                lieu.ajouterBorne(borne);
+            }
+            lieux.add(lieu);
+        }
+        return lieux;
+    }
+
+    /**
+     * Lance un nœud dans ce processus, jusqu'à son arrêt.
+     * @param args port d'écoute et numéro du nœud (1 par défaut).
+     * @throws IOException si le port ne peut pas être ouvert.
+     */
+    public static void main(String[] args) throws IOException {
+        if (args.length < 1) {
+            System.err.println("Usage: java UI.NoeudShard <port> [numéro]");
+            return;
+        }
+        NoeudShard noeud = new NoeudShard(args.length > 1 ? Integer.parseInt(args[1]) : 1);
+        noeud.demarrer(Integer.parseInt(args[0]));
+        Runtime.getRuntime().addShutdownHook(new Thread(noeud::arreter));
+        try {
+            Thread.currentThread().join(); // Le nœud tourne jusqu'à l'arrêt du processus
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
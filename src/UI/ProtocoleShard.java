@@ -0,0 +1,65 @@
+package UI;
+
+import model.StatutReservation;
+
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+
+/**
+ * Protocole binaire entre {@link CoordinateurShards} et {@link NoeudShard}, sur une connexion TCP.
+ * Chaque requête commence par un octet de type ; chaque réponse par un octet de résultat
+ * ({@link #OK}, {@link #REFUS}, ou {@link #ERREUR} suivi d'un message). Les dates sont écrites en secondes
+ * (UTC) puis nanosecondes, comme dans le reste des formats binaires de l'application.
+ * <pre>
+ * INFO          -> OK [numéro du nœud : int]
+ * TOPOLOGIE     [nbLieux : int] nbLieux x ([id : long] [nom : UTF] [adresse : UTF] [nbBornes : int]
+ *                  nbBornes x ([id : long] [tarif : double] [état : octet]))  -> OK [bornes ajoutées : int]
+ * RECHERCHE     [début] [fin]                              -> OK [n : int] n x [borneId : long] (ids croissants)
+ * RESERVER      [utilisateurId : long] [email : UTF] [borneId : long] [début] [fin]
+ *                                                                           -> OK [reservationId : long] | REFUS
+ * RESERVATIONS  [utilisateurId : long] -> OK [n : int] n x ([id : long] [borneId : long] [début] [fin] [statut : octet])
+ * STATUT        [reservationId : long] [accepter : booléen]                 -> OK | REFUS
+ * </pre>
+ */
+final class ProtocoleShard {
+
+    static final byte INFO = 1;
+    static final byte TOPOLOGIE = 2;
+    static final byte RECHERCHE = 3;
+    static final byte RESERVER = 4;
+    static final byte RESERVATIONS = 5;
+    static final byte STATUT = 6;
+
+    static final byte OK = 0;
+    static final byte REFUS = 1;
+    static final byte ERREUR = 2;
+
+    /** Écart entre deux ids de réservation d'un même nœud : au plus autant de nœuds. */
+    static final int PAS_IDS = 1024;
+
+    static final StatutReservation[] STATUTS = StatutReservation.values();
+
+    private ProtocoleShard() {}
+
+    static void ecrireDate(DataOutputStream out, LocalDateTime date) throws IOException {
+        out.writeLong(date.toEpochSecond(ZoneOffset.UTC));
+        out.writeInt(date.getNano());
+    }
+
+    static LocalDateTime lireDate(DataInputStream in) throws IOException {
+        long secondes = in.readLong();
+        int nanos = in.readInt();
+        if (nanos < 0 || nanos > 999_999_999) throw new IOException("Date invalide.");
+        return LocalDateTime.ofEpochSecond(secondes, nanos, ZoneOffset.UTC);
+    }
+
+    /**
+     * Numéro du nœud qui a attribué un id de réservation (ids entrelacés de pas {@link #PAS_IDS}).
+     */
+    static int numeroNoeud(long reservationId) {
+        return (int) ((reservationId - 1) % PAS_IDS) + 1;
+    }
+}
@@ -0,0 +1,304 @@
+package UI;
+
+import Services.BorneServiceImplement;
+import Services.JournalMutations;
+import Services.ReservationServiceImplement;
+import model.*;
+
+import java.io.*;
+import java.net.InetSocketAddress;
+import java.net.Socket;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.stream.Collectors;
+
+/**
+ * Réplique en lecture seule d'un nœud principal : elle reçoit son {@link JournalMutations}
+ * via {@link ServeurReplication}, le rejoue sur ses propres services, et répond aux lectures
+ * (recherche de bornes disponibles, réservations d'un utilisateur, recherche par plage).
+ * <p>
+ * L'obsolescence est le temps écoulé depuis le dernier instant où la réplique était à jour :
+ * horodatage de la dernière entrée appliquée, ou du dernier battement reçu alors qu'elle avait tout appliqué.
+ * C'est une borne supérieure de son retard sur le nœud principal (les deux horloges étant supposées synchronisées).
+ * Au-delà de {@link #setObsolescenceMax(Duration)}, les lectures sont refusées plutôt que de servir
+ * des données trop anciennes. Une connexion perdue est rétablie en reprenant après le dernier numéro appliqué.
+ * <p>
+ * Un instantané reçu du nœud principal est appliqué sur des services neufs, qui remplacent les précédents d'un bloc.
+ * Une entrée qui ne peut pas être rejouée (état divergent) n'est pas sautée : la réplique se reconnecte
+ * en demandant un instantané.
+ */
+public class ReplicaLecture {
+
+    private static final long ATTENTE_RECONNEXION_MS = 500;
+
+    private final String hote;
+    private final int port;
+    private volatile Etat etat = Etat.vide();
+    private volatile long applique;
+    private volatile boolean resynchroniser; // Demander un instantané à la prochaine connexion
+    private volatile long nbInstantanes;
+    private volatile long numeroPrincipal; // Dernier numéro connu du nœud principal
+    private volatile long aJourA; // Horodatage (ms) du dernier instant où la réplique était à jour, 0 si jamais
+    private volatile long nbReconnexions;
+    private Duration obsolescenceMax = Duration.ofSeconds(5);
+    private volatile Socket socket;
+    private Thread boucle;
+    private volatile boolean active;
+
+    /**
+     * Constructeur.
+     * @param hote hôte du nœud principal.
+     * @param port port de réplication du nœud principal.
+     */
+    public ReplicaLecture(String hote, int port) {
+        this.hote = hote;
+        this.port = port;
+    }
+
+    /**
+     *
+     * @param obsolescenceMax définit l'obsolescence au-delà de laquelle les lectures sont refusées.
+     */
+    public void setObsolescenceMax(Duration obsolescenceMax) {
+        this.obsolescenceMax = obsolescenceMax;
+    }
+
+    /**
+     * Démarre la réception du journal sur un thread dédié.
+     */
+    public synchronized void demarrer() {
+        if (boucle != null) return;
+        active = true;
+        boucle = new Thread(this::recevoir, "replique-" + hote + ":" + port);
+        boucle.setDaemon(true);
+        boucle.start();
+    }
+
+    /**
+     * Arrête la réception. Les données déjà appliquées restent lisibles.
+     */
+    public synchronized void arreter() {
+        active = false;
+        Socket s = socket;
+        if (s != null) {
+            try {
+                s.close();
+            } catch (IOException e) {
+                // Déjà fermée
+            }
+        }
+        boucle = null;
+    }
+
+    /**
+     * Recherche les bornes disponibles sur le créneau.
+     * @param debut début du créneau.
+     * @param fin fin du créneau.
+     * @return les bornes disponibles, ou vide si la réplique est trop en retard.
+     */
+    public Optional<List<BorneRecharge>> rechercherBornesDisponibles(LocalDateTime debut, LocalDateTime fin) {
+        if (!assezRecente()) return Optional.empty();
+        return Optional.of(etat.borneService().rechercherBornesDisponibles(debut, fin));
+    }
+
+    /**
+     * Retourne les réservations d'un utilisateur.
+     * @param utilisateurId id de l'utilisateur.
+     * @return ses réservations, ou vide si la réplique est trop en retard.
+     */
+    public Optional<List<Reservation>> getReservationsUtilisateur(long utilisateurId) {
+        if (!assezRecente()) return Optional.empty();
+        Etat courant = etat;
+        Utilisateur u = courant.utilisateurs().get(utilisateurId);
+        return Optional.of(u == null ? new ArrayList<>() : courant.reservationService().getReservationsUtilisateur(u));
+    }
+
+    /**
+     * Recherche les réservations d'une plage (voir {@link RequetePlage}).
+     * @param requete la recherche.
+     * @return les réservations dans l'ordre de l'index, ou vide si la réplique est trop en retard.
+     */
+    public Optional<List<Reservation>> rechercherReservations(RequetePlage requete) {
+        if (!assezRecente()) return Optional.empty();
+        return Optional.of(etat.reservationService().streamReservations(requete).collect(Collectors.toList()));
+    }
+
+    /**
+     * Retourne le dernier numéro d'entrée appliqué.
+     * @return le numéro, 0 si rien n'a été appliqué.
+     */
+    public long getNumeroApplique() { return applique; }
+    /**
+     * Retourne le retard connu, en nombre d'entrées reçues ou annoncées mais pas encore appliquées.
+     * @return le nombre d'entrées.
+     */
+    public long getRetardEntrees() { return Math.max(0, numeroPrincipal - applique); }
+    /**
+     * Retourne l'obsolescence de la réplique (voir la description de la classe).
+     * @return la durée, ou null si la réplique n'a jamais été à jour.
+     */
+    public Duration getObsolescence() {
+        long a = aJourA;
+        return a == 0 ? null : Duration.ofMillis(Math.max(0, System.currentTimeMillis() - a));
+    }
+    /**
+     * Retourne le nombre de reconnexions au nœud principal.
+     * @return le nombre de reconnexions.
+     */
+    public long getNombreReconnexions() { return nbReconnexions; }
+    /**
+     * Retourne le nombre d'instantanés appliqués.
+     * @return le nombre d'instantanés.
+     */
+    public long getNombreInstantanes() { return nbInstantanes; }
+
+    private boolean assezRecente() {
+        Duration obsolescence = getObsolescence();
+        if (obsolescence == null || obsolescence.compareTo(obsolescenceMax) > 0) {
+            System.err.println("Erreur: Réplique trop en retard (" + (obsolescence == null ? "jamais à jour" : obsolescence.toMillis() + " ms")
+                    + "), lecture refusée.");
+            return false;
+        }
+        return true;
+    }
+
+    /**
+     * Boucle de réception : connexion, rejeu des trames, confirmation ; reconnexion en cas de coupure.
+     */
+    private void recevoir() {
+        while (active) {
+            try (Socket s = new Socket()) {
+                socket = s;
+                s.connect(new InetSocketAddress(hote, port), 5_000);
+                s.setTcpNoDelay(true);
+                s.setSoTimeout((int) (ServeurReplication.PERIODE_BATTEMENT_MS * 50)); // Nœud principal muet : reconnexion
+                DataInputStream in = new DataInputStream(new BufferedInputStream(s.getInputStream(), 64 * 1024));
+                DataOutputStream out = new DataOutputStream(new BufferedOutputStream(s.getOutputStream()));
+                out.writeLong(resynchroniser ? -1 : applique);
+                out.flush();
+                while (active) {
+                    lireTrame(in);
+                    out.writeLong(applique);
+                    out.flush();
+                }
+            } catch (IOException e) {
+                if (!active) return;
+                System.err.println("Erreur réplique: " + (e.getMessage() != null ? e.getMessage() : e.getClass().getSimpleName()) + ", reconnexion.");
+            }
+            nbReconnexions++;
+            try {
+                Thread.sleep(ATTENTE_RECONNEXION_MS);
+            } catch (InterruptedException e) {
+                return;
+            }
+        }
+    }
+
+    private void lireTrame(DataInputStream in) throws IOException {
+        byte type = in.readByte();
+        switch (type) {
+            case ServeurReplication.ENTREES:
+                long premier = in.readLong();
+                int nb = in.readInt();
+                if (premier != applique + 1 || nb < 0) throw new IOException("Trame d'entrées inattendue (" + premier + ").");
+                numeroPrincipal = Math.max(numeroPrincipal, premier + nb - 1);
+                for (int i = 0; i < nb; i++) {
+                    int taille = in.readInt();
+                    if (taille <= 0 || taille > 1 << 20) throw new IOException("Entrée invalide.");
+                    byte[] entree = new byte[taille];
+                    in.readFully(entree);
+                    long horodatage;
+                    try {
+                        horodatage = JournalMutations.rejouer(entree, etat.borneService(), etat.reservationService(), etat.utilisateurs());
+                    } catch (IOException e) {
+                        resynchroniser = true; // Réessayer la même entrée échouerait à chaque reconnexion
+                        throw new IOException("Entrée " + (premier + i) + " non applicable (" + e.getMessage() + "), resynchronisation.");
+                    }
+                    applique = premier + i;
+                    aJourA = Math.max(aJourA, horodatage); // À jour au moins jusqu'à l'écriture de cette entrée
+                }
+                break;
+            case ServeurReplication.BATTEMENT:
+                long dernier = in.readLong();
+                long horodatage = in.readLong();
+                numeroPrincipal = Math.max(numeroPrincipal, dernier);
+                if (applique >= dernier) aJourA = Math.max(aJourA, horodatage);
+                break;
+            case ServeurReplication.INSTANTANE:
+                appliquerInstantane(in);
+                break;
+            case ServeurReplication.ERREUR:
+                throw new IOException(in.readUTF());
+            default:
+                throw new IOException("Trame inconnue: " + type);
+        }
+    }
+
+    /**
+     * Applique un instantané sur des services neufs puis les publie : les lectures voient l'ancien état
+     * jusqu'au remplacement. Une entrée non applicable (ex : réservation d'une borne supprimée pendant
+     * la capture) est ignorée, les entrées suivantes du journal corrigeant l'état.
+     */
+    private void appliquerInstantane(DataInputStream in) throws IOException {
+        long numero = in.readLong();
+        long horodatage = in.readLong();
+        int nb = in.readInt();
+        if (numero < 0 || nb < 0) throw new IOException("Instantané invalide.");
+        Etat nouveau = Etat.vide();
+        int ignorees = 0;
+        for (int i = 0; i < nb; i++) {
+            int taille = in.readInt();
+            if (taille <= 0 || taille > 1 << 20) throw new IOException("Entrée invalide.");
+            byte[] entree = new byte[taille];
+            in.readFully(entree);
+            try {
+                JournalMutations.rejouer(entree, nouveau.borneService(), nouveau.reservationService(), nouveau.utilisateurs());
+            } catch (IOException e) {
+                ignorees++;
+            }
+        }
+        etat = nouveau;
+        applique = numero;
+        numeroPrincipal = Math.max(numeroPrincipal, numero);
+        aJourA = Math.max(aJourA, horodatage);
+        resynchroniser = false;
+        nbInstantanes++;
+        System.out.println("Instantané appliqué: " + (nb - ignorees) + " entrées (numéro " + numero + ")"
+                + (ignorees > 0 ? ", " + ignorees + " ignorées." : "."));
+    }
+
+    /**
+     * Services de la réplique et copies des utilisateurs, remplacés ensemble par un instantané.
+     */
+    private record Etat(BorneServiceImplement borneService, ReservationServiceImplement reservationService,
+                        Map<Long, Utilisateur> utilisateurs) {
+        static Etat vide() {
+            BorneServiceImplement borneService = new BorneServiceImplement();
+            ReservationServiceImplement reservationService = new ReservationServiceImplement();
+            borneService.setReservationService(reservationService);
+            return new Etat(borneService, reservationService, new ConcurrentHashMap<>());
+        }
+    }
+
+    /**
+     * Lance une réplique dans ce processus et affiche son retard toutes les secondes.
+     * @param args hôte et port de réplication du nœud principal (localhost 9091 par défaut).
+     * @throws InterruptedException si le processus est interrompu.
+     */
+    public static void main(String[] args) throws InterruptedException {
+        ReplicaLecture replique = new ReplicaLecture(args.length > 0 ? args[0] : "localhost",
+                args.length > 1 ? Integer.parseInt(args[1]) : 9091);
+        replique.demarrer();
+        while (true) {
+            Thread.sleep(1000);
+            Duration obsolescence = replique.getObsolescence();
+            System.out.println("Appliqué: " + replique.getNumeroApplique() + ", retard: " + replique.getRetardEntrees()
+                    + " entrées, obsolescence: " + (obsolescence == null ? "-" : obsolescence.toMillis() + " ms"));
+        }
+    }
+}
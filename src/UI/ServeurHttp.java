@@ -0,0 +1,416 @@
+package UI;
+
+import Interfaces.AuthentificationService;
+import Interfaces.BorneService;
+import Interfaces.ReservationService;
+import Services.EcrivainJson;
+import Services.LecteurJson;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import model.*;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.net.URLDecoder;
+import java.nio.charset.StandardCharsets;
+import java.security.SecureRandom;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeParseException;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * API HTTP/JSON de l'application, au-dessus des mêmes services que le menu console.
+ * Chaque requête est traitée sur son propre thread virtuel : un client lent ou une vérification
+ * de mot de passe n'immobilise pas de thread système, et des milliers de clients peuvent être servis en même temps.
+ * <p>
+ * Routes (dates au format ISO, ex : {@code 2025-06-01T08:00}) :
+ * <ul>
+ *     <li>{@code POST /api/inscription} {@code {"email", "motDePasse"}} : retourne le code de validation</li>
+ *     <li>{@code POST /api/validation} {@code {"email", "code"}}</li>
+ *     <li>{@code POST /api/code} {@code {"email"}} : renvoie le code de validation (nouveau code s'il a expiré)</li>
+ *     <li>{@code POST /api/connexion} {@code {"email", "motDePasse"}} : retourne un jeton de session</li>
+ *     <li>{@code POST /api/deconnexion} : invalide le jeton de session</li>
+ *     <li>{@code GET /api/bornes?debut=..&fin=..} : bornes disponibles et coût estimé</li>
+ *     <li>{@code POST /api/reservations} {@code {"borneId", "debut", "fin"}}</li>
+ *     <li>{@code GET /api/reservations} : réservations de l'utilisateur connecté</li>
+ *     <li>{@code GET /api/admin/reservations?curseur=..&taille=..} : réservations EN_ATTENTE par date de début,
+ *     une page à la fois ({@code {"reservations": [..], "curseur": ..}}, curseur null à la dernière page)</li>
+ *     <li>{@code POST /api/admin/reservations/{id}/accepter} et {@code .../refuser}</li>
+ * </ul>
+ * Sauf inscription, validation, code, connexion et recherche, les routes demandent l'en-tête
+ * {@code Authorization: Bearer <jeton>}. Un jeton expire après {@link #DUREE_SESSION_PAR_DEFAUT_MS} sans requête
+ * (durée réglable). Comme dans le menu console, tout utilisateur connecté a accès à l'administration
+ * (mode opérateur simulé).
+ */
+public class ServeurHttp {
+
+    private static final int TAILLE_MAX_CORPS = 64 * 1024;
+    /** Durée par défaut d'une session sans requête (30 minutes). */
+    public static final long DUREE_SESSION_PAR_DEFAUT_MS = 30 * 60_000;
+    private static final int TAILLE_PAGE_PAR_DEFAUT = 50;
+    private static final int TAILLE_PAGE_MAX = 500;
+    private static final long HORIZON_ADMIN_ANNEES = 10; // Fin de la plage des réservations en attente
+    private static final byte[] CHAMP_ERREUR = EcrivainJson.nomChamp("erreur");
+    private static final byte[] CHAMP_EMAIL = EcrivainJson.nomChamp("email");
+    private static final byte[] CHAMP_CODE_VALIDATION = EcrivainJson.nomChamp("codeValidation");
+    private static final byte[] CHAMP_VALIDE = EcrivainJson.nomChamp("valide");
+    private static final byte[] CHAMP_JETON = EcrivainJson.nomChamp("jeton");
+    private static final byte[] CHAMP_COUT_ESTIME = EcrivainJson.nomChamp("coutEstime");
+    private static final byte[] CHAMP_ID = EcrivainJson.nomChamp("id");
+    private static final byte[] CHAMP_TRAITEE = EcrivainJson.nomChamp("traitee");
+    private static final byte[] CHAMP_RESERVATIONS = EcrivainJson.nomChamp("reservations");
+    private static final byte[] CHAMP_CURSEUR = EcrivainJson.nomChamp("curseur");
+
+    private final AuthentificationService authService;
+    private final BorneService borneService;
+    private final ReservationService reservationService;
+    private final Map<String, Session> sessions = new ConcurrentHashMap<>();
+    private final SecureRandom aleatoire = new SecureRandom();
+    private volatile long dureeSessionMs = DUREE_SESSION_PAR_DEFAUT_MS;
+    private volatile long prochainePurge; // Instant de la prochaine purge des sessions expirées
+    private HttpServer serveur;
+    private ExecutorService executeur;
+
+    /**
+     * Constructeur.
+     * @param auth Service d'authentification.
+     * @param borne Service de gestion des bornes.
+     * @param resa Service de réservation.
+     */
+    public ServeurHttp(AuthentificationService auth, BorneService borne, ReservationService resa) {
+        this.authService = auth;
+        this.borneService = borne;
+        this.reservationService = resa;
+    }
+
+    /**
+     *
+     * @param dureeSessionMs définit la durée de vie d'une session sans requête, en millisecondes.
+     */
+    public void setDureeSessionMs(long dureeSessionMs) {
+        if (dureeSessionMs <= 0) throw new IllegalArgumentException("Durée de session invalide: " + dureeSessionMs);
+        this.dureeSessionMs = dureeSessionMs;
+    }
+
+    /**
+     * Retourne le nombre de sessions ouvertes (y compris celles expirées pas encore purgées).
+     * @return le nombre de sessions.
+     */
+    public int getNombreSessions() { return sessions.size(); }
+
+    /**
+     * Démarre le serveur.
+     * @param port le port d'écoute (0 pour un port libre quelconque).
+     * @throws IOException si le port ne peut pas être ouvert.
+     */
+    public synchronized void demarrer(int port) throws IOException {
+        if (serveur != null) return;
+        serveur = HttpServer.create(new InetSocketAddress(port), 4096); // File d'attente large pour les pics de connexions
+        serveur.createContext("/api/", this::traiter);
+        executeur = Executors.newVirtualThreadPerTaskExecutor();
+        serveur.setExecutor(executeur);
+        serveur.start();
+        System.out.println("Serveur HTTP démarré sur le port " + getPort() + ".");
+    }
+
+    /**
+     * Arrête le serveur.
+     */
+    public synchronized void arreter() {
+        if (serveur == null) return;
+        serveur.stop(0);
+        executeur.shutdown();
+        serveur = null;
+        executeur = null;
+    }
+
+    /**
+     * Retourne le port d'écoute.
+     * @return le port, ou -1 si le serveur est arrêté.
+     */
+    public synchronized int getPort() {
+        return serveur == null ? -1 : serveur.getAddress().getPort();
+    }
+
+    private void traiter(HttpExchange echange) throws IOException {
+        EcrivainJson json = EcrivainJson.emprunter(); // Tampon réutilisé d'une requête à l'autre
+        try (echange) {
+            int statut;
+            try {
+                statut = router(echange, json);
+            } catch (ErreurHttp e) {
+                statut = erreur(json, e.statut, e.getMessage());
+            } catch (IllegalArgumentException e) { // JSON invalide
+                statut = erreur(json, 400, e.getMessage());
+            } catch (RuntimeException e) {
+                statut = erreur(json, 500, "Erreur interne.");
+                System.err.println("Erreur serveur HTTP: " + e);
+            }
+            echange.getResponseHeaders().set("Content-Type", "application/json; charset=utf-8");
+            echange.sendResponseHeaders(statut, json.taille());
+            try (OutputStream out = echange.getResponseBody()) {
+                json.ecrireVers(out);
+            }
+        } finally {
+            EcrivainJson.rendre(json);
+        }
+    }
+
+    private static int erreur(EcrivainJson json, int statut, String message) {
+        json.reinitialiser();
+        json.debutObjet().champ(CHAMP_ERREUR).valeur(message).finObjet();
+        return statut;
+    }
+
+    /**
+     * Traite la requête en écrivant la réponse dans {@code json}.
+     * @return le code HTTP de la réponse.
+     */
+    private int router(HttpExchange echange, EcrivainJson json) throws IOException {
+        String methode = echange.getRequestMethod();
+        String[] chemin = echange.getRequestURI().getPath().split("/"); // "", "api", ...
+        String route = chemin.length > 2 ? chemin[2] : "";
+        switch (methode + " " + route) {
+            case "POST inscription": inscrire(lireCorps(echange), json); return 201;
+            case "POST validation": valider(lireCorps(echange), json); return 200;
+            case "POST code": renvoyerCode(lireCorps(echange), json); return 200;
+            case "POST connexion": connecter(lireCorps(echange), json); return 200;
+            case "POST deconnexion":
+                String jeton = jeton(echange);
+                if (jeton != null) sessions.remove(jeton);
+                json.debutObjet().finObjet();
+                return 200;
+            case "GET bornes": rechercher(parametres(echange.getRequestURI().getRawQuery()), json); return 200;
+            case "POST reservations": reserver(utilisateur(echange), lireCorps(echange), echange, json); return 201;
+            case "GET reservations": mesReservations(utilisateur(echange), json); return 200;
+            case "GET admin":
+                utilisateur(echange);
+                if (chemin.length == 4 && chemin[3].equals("reservations")) {
+                    enAttente(parametres(echange.getRequestURI().getRawQuery()), json);
+                    return 200;
+                }
+                break;
+            case "POST admin":
+                utilisateur(echange);
+                if (chemin.length == 6 && chemin[3].equals("reservations")) {
+                    traiterDemande(chemin[4], chemin[5], json);
+                    return 200;
+                }
+                break;
+            default:
+        }
+        throw new ErreurHttp(404, "Route inconnue: " + methode + " " + echange.getRequestURI().getPath());
+    }
+
+    private void inscrire(Map<String, String> corps, EcrivainJson json) {
+        Utilisateur u = authService.inscrire(requis(corps, "email"), requis(corps, "motDePasse"))
+                .orElseThrow(() -> new ErreurHttp(409, "Inscription impossible (email invalide ou déjà utilisé)."));
+        String code = authService.genererEtStockerCodeValidation(u);
+        if (code == null) throw new ErreurHttp(503, "Trop d'inscriptions en attente, réessayez plus tard.");
+        json.debutObjet().champ(CHAMP_EMAIL).valeur(u.getEmail()).champ(CHAMP_CODE_VALIDATION).valeur(code).finObjet();
+    }
+
+    private void renvoyerCode(Map<String, String> corps, EcrivainJson json) {
+        String email = requis(corps, "email");
+        String code = authService.renvoyerCodeValidation(email);
+        if (code == null) throw new ErreurHttp(409, "Aucun code à renvoyer (compte inconnu, déjà validé ou trop de codes en attente).");
+        json.debutObjet().champ(CHAMP_EMAIL).valeur(email).champ(CHAMP_CODE_VALIDATION).valeur(code).finObjet();
+    }
+
+    private void valider(Map<String, String> corps, EcrivainJson json) {
+        if (!authService.validerCompte(requis(corps, "email"), requis(corps, "code"))) {
+            throw new ErreurHttp(400, "Validation impossible (code incorrect ou expiré).");
+        }
+        json.debutObjet().champ(CHAMP_VALIDE).valeur(true).finObjet();
+    }
+
+    private void connecter(Map<String, String> corps, EcrivainJson json) {
+        Utilisateur u = authService.connecter(requis(corps, "email"), requis(corps, "motDePasse"))
+                .orElseThrow(() -> new ErreurHttp(401, "Identifiants invalides ou compte non validé."));
+        byte[] octets = new byte[24];
+        aleatoire.nextBytes(octets);
+        String jeton = Base64.getUrlEncoder().withoutPadding().encodeToString(octets);
+        long maintenant = System.currentTimeMillis();
+        purgerSessions(maintenant);
+        sessions.put(jeton, new Session(u, maintenant + dureeSessionMs));
+        json.debutObjet().champ(CHAMP_JETON).valeur(jeton).finObjet();
+    }
+
+    private void rechercher(Map<String, String> parametres, EcrivainJson json) {
+        LocalDateTime debut = date(parametres, "debut");
+        LocalDateTime fin = date(parametres, "fin");
+        if (!fin.isAfter(debut)) throw new ErreurHttp(400, "Fin doit être après début.");
+        json.debutTableau();
+        for (BorneRecharge b : borneService.rechercherBornesDisponibles(debut, fin)) {
+            json.debutObjet().champsBorne(b).champ(CHAMP_COUT_ESTIME).valeur(borneService.estimerCout(b, debut, fin)).finObjet();
+        }
+        json.finTableau();
+    }
+
+    private void reserver(Utilisateur u, Map<String, String> corps, HttpExchange echange, EcrivainJson json) {
+        long borneId = entier(requis(corps, "borneId"));
+        LocalDateTime debut = date(corps, "debut");
+        LocalDateTime fin = date(corps, "fin");
+        if (!fin.isAfter(debut)) throw new ErreurHttp(400, "Fin doit être après début.");
+        if (debut.isBefore(LocalDateTime.now())) throw new ErreurHttp(400, "Début dans le passé.");
+        BorneRecharge borne = borneService.getBorneById(borneId)
+                .orElseThrow(() -> new ErreurHttp(404, "Borne " + borneId + " introuvable."));
+        Reservation r = reservationService.reserver(u, borne, debut, fin)
+                .orElseThrow(() -> new ErreurHttp(409, "Borne non disponible ou déjà réservée sur ce créneau."));
+        echange.getResponseHeaders().set("Location", "/api/reservations/" + r.getId());
+        json.valeur(r);
+    }
+
+    private void mesReservations(Utilisateur u, EcrivainJson json) {
+        List<Reservation> resas = reservationService.getReservationsUtilisateur(u);
+        resas.sort(Comparator.comparing(Reservation::getDateDebut));
+        liste(resas, json);
+    }
+
+    /**
+     * Page des réservations en attente qui ne sont pas encore terminées, par le curseur de l'index temporel :
+     * seule la page demandée est lue.
+     */
+    private void enAttente(Map<String, String> parametres, EcrivainJson json) {
+        int taille = parametres.containsKey("taille") ? (int) entier(parametres.get("taille")) : TAILLE_PAGE_PAR_DEFAUT;
+        if (taille <= 0 || taille > TAILLE_PAGE_MAX) throw new ErreurHttp(400, "Taille de page entre 1 et " + TAILLE_PAGE_MAX + ".");
+        LocalDateTime maintenant = LocalDateTime.now();
+        RequetePlage requete = RequetePlage.reseau(maintenant, maintenant.plusYears(HORIZON_ADMIN_ANNEES))
+                .avecStatuts(StatutReservation.EN_ATTENTE);
+        PageReservations page;
+        try {
+            page = reservationService.getPageReservations(requete, parametres.get("curseur"), taille);
+        } catch (DateTimeParseException e) {
+            throw new ErreurHttp(400, "Curseur invalide.");
+        }
+        json.debutObjet().champ(CHAMP_RESERVATIONS);
+        liste(page.getReservations(), json);
+        json.champ(CHAMP_CURSEUR).valeur(page.getCurseurSuivant()).finObjet();
+    }
+
+    private void traiterDemande(String id, String action, EcrivainJson json) {
+        long reservationId = entier(id);
+        boolean fait;
+        switch (action) {
+            case "accepter": fait = reservationService.accepterReservation(reservationId); break;
+            case "refuser": fait = reservationService.refuserReservation(reservationId); break;
+            default: throw new ErreurHttp(404, "Action inconnue: " + action);
+        }
+        if (!fait) throw new ErreurHttp(409, "Réservation " + reservationId + " introuvable ou déjà traitée.");
+        json.debutObjet().champ(CHAMP_ID).valeur(reservationId).champ(CHAMP_TRAITEE).valeur(true).finObjet();
+    }
+
+    /**
+     * Retourne l'utilisateur de la session et prolonge celle-ci ; une session expirée est supprimée.
+     */
+    private Utilisateur utilisateur(HttpExchange echange) {
+        String jeton = jeton(echange);
+        Session session = jeton == null ? null : sessions.get(jeton);
+        long maintenant = System.currentTimeMillis();
+        if (session != null && session.expiration <= maintenant) {
+            sessions.remove(jeton, session);
+            throw new ErreurHttp(401, "Session expirée, reconnectez-vous.");
+        }
+        if (session == null) throw new ErreurHttp(401, "Connexion requise.");
+        session.expiration = maintenant + dureeSessionMs;
+        return session.utilisateur;
+    }
+
+    /**
+     * Supprime les sessions expirées jamais réutilisées, au plus une fois par durée de session.
+     */
+    private void purgerSessions(long maintenant) {
+        if (maintenant < prochainePurge) return;
+        prochainePurge = maintenant + dureeSessionMs;
+        sessions.values().removeIf(s -> s.expiration <= maintenant);
+    }
+
+    private static String jeton(HttpExchange echange) {
+        String entete = echange.getRequestHeaders().getFirst("Authorization");
+        return entete != null && entete.startsWith("Bearer ") ? entete.substring(7).trim() : null;
+    }
+
+    private static void liste(List<Reservation> resas, EcrivainJson json) {
+        json.debutTableau();
+        for (Reservation r : resas) json.valeur(r);
+        json.finTableau();
+    }
+
+    private static String requis(Map<String, String> valeurs, String nom) {
+        String v = valeurs.get(nom);
+        if (v == null || v.isBlank()) throw new ErreurHttp(400, "Champ obligatoire: " + nom);
+        return v;
+    }
+
+    private static LocalDateTime date(Map<String, String> valeurs, String nom) {
+        try {
+            return LocalDateTime.parse(requis(valeurs, nom));
+        } catch (DateTimeParseException e) {
+            throw new ErreurHttp(400, "Date invalide pour " + nom + " (format attendu : 2025-06-01T08:00).");
+        }
+    }
+
+    private static long entier(String valeur) {
+        try {
+            return Long.parseLong(valeur.trim());
+        } catch (NumberFormatException e) {
+            throw new ErreurHttp(400, "Nombre invalide: " + valeur);
+        }
+    }
+
+    private static Map<String, String> parametres(String requete) {
+        Map<String, String> valeurs = new HashMap<>();
+        if (requete == null) return valeurs;
+        for (String paire : requete.split("&")) {
+            int egal = paire.indexOf('=');
+            if (egal > 0) {
+                valeurs.put(URLDecoder.decode(paire.substring(0, egal), StandardCharsets.UTF_8),
+                        URLDecoder.decode(paire.substring(egal + 1), StandardCharsets.UTF_8));
+            }
+        }
+        return valeurs;
+    }
+
+    private static Map<String, String> lireCorps(HttpExchange echange) throws IOException {
+        byte[] octets;
+        try (InputStream in = echange.getRequestBody()) {
+            octets = in.readNBytes(TAILLE_MAX_CORPS + 1);
+        }
+        if (octets.length > TAILLE_MAX_CORPS) throw new ErreurHttp(413, "Corps de requête trop volumineux.");
+        LecteurJson lecteur = new LecteurJson(octets);
+        Map<String, String> corps = lecteur.lireObjetPlat();
+        lecteur.verifierFin();
+        return corps;
+    }
+
+    /**
+     * Session ouverte par une connexion, prolongée à chaque requête.
+     */
+    private static final class Session {
+        private final Utilisateur utilisateur;
+        private volatile long expiration;
+
+        private Session(Utilisateur utilisateur, long expiration) {
+            this.utilisateur = utilisateur;
+            this.expiration = expiration;
+        }
+    }
+
+    /**
+     * Erreur retournée au client avec un code HTTP.
+     */
+    private static final class ErreurHttp extends RuntimeException {
+        private static final long serialVersionUID = 1L;
+        private final int statut;
+
+        ErreurHttp(int statut, String message) {
+            super(message);
+            this.statut = statut;
+        }
+    }
+}
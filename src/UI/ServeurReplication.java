@@ -0,0 +1,239 @@
+package UI;
+
+import Services.JournalMutations;
+
+import java.io.*;
+import java.net.InetSocketAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.net.SocketException;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Côté nœud principal de la réplication : envoie le {@link JournalMutations} aux répliques
+ * ({@link ReplicaLecture}) connectées en TCP, chacune sur son thread virtuel.
+ * <p>
+ * À la connexion, la réplique envoie le dernier numéro qu'elle a appliqué (8 octets, -1 pour demander un instantané) ;
+ * le serveur lui envoie ensuite en continu, sans attendre de réponse, des trames (gros-boutiste) :
+ * <pre>
+ * ENTREES    [type = 1] [premier numéro : 8 octets] [n : 4 octets] n x ([taille : 4 octets] [entrée])
+ * BATTEMENT  [type = 2] [dernier numéro : 8 octets] [horodatage : 8 octets, ms]   (journal sans nouveauté)
+ * ERREUR     [type = 3] [message : UTF]                                           (puis fermeture)
+ * INSTANTANE [type = 4] [numéro : 8 octets] [horodatage : 8 octets, ms] [n : 4 octets] n x ([taille : 4 octets] [entrée])
+ * </pre>
+ * Un instantané ({@link JournalMutations#capturer()}) remplace tout l'état de la réplique ; il est envoyé quand
+ * le numéro demandé n'est plus (ou pas) dans la fenêtre du journal, y compris pour une réplique restée trop en retard.
+ * La réplique confirme en retour le dernier numéro appliqué (8 octets) après chaque trame :
+ * le serveur en tire le retard de chaque réplique.
+ */
+public class ServeurReplication {
+
+    /** Type de trame : entrées du journal. */
+    public static final byte ENTREES = 1;
+    /** Type de trame : battement, sans nouvelle entrée. */
+    public static final byte BATTEMENT = 2;
+    /** Type de trame : erreur, la connexion est ensuite fermée. */
+    public static final byte ERREUR = 3;
+    /** Type de trame : instantané de l'état, suivi des entrées qui le suivent. */
+    public static final byte INSTANTANE = 4;
+    /** Intervalle maximal entre deux trames. */
+    public static final long PERIODE_BATTEMENT_MS = 100;
+
+    private static final int ENTREES_PAR_TRAME = 4096;
+
+    private final JournalMutations journal;
+    private final Map<Integer, Suivi> repliques = new ConcurrentHashMap<>();
+    private final AtomicInteger numeroConnexion = new AtomicInteger();
+    private final AtomicInteger nbInstantanes = new AtomicInteger();
+    private ServerSocket serveur;
+    private ExecutorService executeur;
+
+    /**
+     * Constructeur.
+     * @param journal Journal des mutations à diffuser.
+     */
+    public ServeurReplication(JournalMutations journal) {
+        this.journal = journal;
+    }
+
+    /**
+     * Démarre l'écoute.
+     * @param port port d'écoute, 0 pour un port libre.
+     * @throws IOException si le port ne peut pas être ouvert.
+     */
+    public synchronized void demarrer(int port) throws IOException {
+        if (serveur != null) return;
+        serveur = new ServerSocket();
+        serveur.bind(new InetSocketAddress(port), 64);
+        executeur = Executors.newVirtualThreadPerTaskExecutor();
+        ServerSocket ecoute = serveur;
+        Thread accueil = new Thread(() -> accueillir(ecoute), "replication");
+        accueil.setDaemon(true);
+        accueil.start();
+        System.out.println("Réplication démarrée sur le port " + getPort() + ".");
+    }
+
+    /**
+     * Arrête l'écoute et ferme les connexions des répliques.
+     */
+    public synchronized void arreter() {
+        if (serveur == null) return;
+        try {
+            serveur.close();
+        } catch (IOException e) {
+            System.err.println("Erreur fermeture réplication: " + e.getMessage());
+        }
+        executeur.shutdownNow();
+        serveur = null;
+        executeur = null;
+    }
+
+    /**
+     * Retourne le port d'écoute.
+     * @return le port, ou -1 si le serveur est arrêté.
+     */
+    public synchronized int getPort() {
+        return serveur == null ? -1 : serveur.getLocalPort();
+    }
+
+    /**
+     * Retourne le retard de chaque réplique connectée, en nombre d'entrées non confirmées.
+     * @return une map adresse de la réplique vers retard, triée par adresse.
+     */
+    public Map<String, Long> getRetards() {
+        long dernier = journal.getDernierNumero();
+        Map<String, Long> retards = new TreeMap<>();
+        for (Suivi s : repliques.values()) retards.put(s.adresse, Math.max(0, dernier - s.confirme));
+        return retards;
+    }
+
+    /**
+     * Retourne le nombre d'instantanés envoyés aux répliques.
+     * @return le nombre d'instantanés.
+     */
+    public int getNombreInstantanes() { return nbInstantanes.get(); }
+
+    private void accueillir(ServerSocket ecoute) {
+        while (!ecoute.isClosed()) {
+            try {
+                Socket socket = ecoute.accept();
+                socket.setTcpNoDelay(true);
+                executeur.execute(() -> servir(socket));
+            } catch (IOException e) {
+                if (!ecoute.isClosed()) System.err.println("Erreur réplication: " + e.getMessage());
+            } catch (RuntimeException e) { // Exécuteur arrêté pendant l'arrêt du serveur
+                return;
+            }
+        }
+    }
+
+    /**
+     * Envoie le journal à une réplique à partir du numéro qu'elle annonce ; ses confirmations
+     * sont lues sur un second thread virtuel.
+     */
+    private void servir(Socket socket) {
+        int numero = numeroConnexion.incrementAndGet();
+        try (socket) {
+            DataInputStream in = new DataInputStream(new BufferedInputStream(socket.getInputStream()));
+            DataOutputStream out = new DataOutputStream(new BufferedOutputStream(socket.getOutputStream(), 64 * 1024));
+            long demande = in.readLong();
+            Suivi suivi = new Suivi(socket.getRemoteSocketAddress().toString(), Math.max(0, demande));
+            repliques.put(numero, suivi);
+            System.out.println("Réplique connectée: " + suivi.adresse + " (depuis " + demande + ").");
+            long envoye = demande;
+            if (demande < journal.getPremierNumero() - 1 || demande > journal.getDernierNumero()) {
+                envoye = envoyerInstantane(out, suivi); // Hors de la fenêtre, ou journal d'une autre exécution
+            }
+            executeur.execute(() -> lireConfirmations(in, suivi));
+            while (!socket.isClosed()) {
+                Optional<List<byte[]>> lues = journal.lire(envoye, ENTREES_PAR_TRAME, PERIODE_BATTEMENT_MS);
+                if (lues.isEmpty()) { // Réplique dépassée par la fenêtre du journal
+                    envoye = envoyerInstantane(out, suivi);
+                    out.flush();
+                    continue;
+                }
+                List<byte[]> entrees = lues.get();
+                if (entrees.isEmpty()) {
+                    out.writeByte(BATTEMENT);
+                    out.writeLong(envoye);
+                    out.writeLong(System.currentTimeMillis());
+                } else {
+                    out.writeByte(ENTREES);
+                    out.writeLong(envoye + 1);
+                    out.writeInt(entrees.size());
+                    for (byte[] entree : entrees) {
+                        out.writeInt(entree.length);
+                        out.write(entree);
+                    }
+                    envoye += entrees.size();
+                }
+                out.flush();
+            }
+        } catch (EOFException | SocketException e) {
+            // Réplique partie ou serveur arrêté
+        } catch (IOException e) {
+            System.err.println("Erreur connexion réplique: " + e.getMessage());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } finally {
+            Suivi suivi = repliques.remove(numero);
+            if (suivi != null) System.out.println("Réplique déconnectée: " + suivi.adresse + ".");
+        }
+    }
+
+    /**
+     * Envoie un instantané de l'état ; la réplique reprend ensuite le journal après son numéro.
+     * @return le numéro de l'instantané.
+     */
+    private long envoyerInstantane(DataOutputStream out, Suivi suivi) throws IOException {
+        JournalMutations.Instantane instantane;
+        try {
+            instantane = journal.capturer();
+        } catch (IllegalStateException e) { // Services non injectés dans le journal
+            out.writeByte(ERREUR);
+            out.writeUTF(e.getMessage());
+            out.flush();
+            throw new IOException(e.getMessage());
+        }
+        out.writeByte(INSTANTANE);
+        out.writeLong(instantane.numero());
+        out.writeLong(instantane.horodatage());
+        out.writeInt(instantane.entrees().size());
+        for (byte[] entree : instantane.entrees()) {
+            out.writeInt(entree.length);
+            out.write(entree);
+        }
+        nbInstantanes.incrementAndGet();
+        System.out.println("Instantané envoyé à " + suivi.adresse + " (" + instantane.entrees().size()
+                + " entrées, numéro " + instantane.numero() + ").");
+        return instantane.numero();
+    }
+
+    private static void lireConfirmations(DataInputStream in, Suivi suivi) {
+        try {
+            while (true) suivi.confirme = in.readLong();
+        } catch (IOException e) {
+            // Connexion fermée : la boucle d'envoi s'arrête aussi
+        }
+    }
+
+    /**
+     * Suivi d'une réplique connectée.
+     */
+    private static final class Suivi {
+        final String adresse;
+        volatile long confirme;
+
+        Suivi(String adresse, long confirme) {
+            this.adresse = adresse;
+            this.confirme = confirme;
+        }
+    }
+}
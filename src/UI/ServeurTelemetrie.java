@@ -0,0 +1,346 @@
+package UI;
+
+import Interfaces.BorneService;
+import Interfaces.ComptageService;
+import model.EtatBorne;
+
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.net.StandardSocketOptions;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.Selector;
+import java.nio.channels.ServerSocketChannel;
+import java.nio.channels.SocketChannel;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.Iterator;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Point d'entrée TCP binaire où les bornes remontent leurs changements d'état ({@link EtatBorne})
+ * et les relevés de leur compteur d'énergie.
+ * Un seul thread gère toutes les connexions via un {@link Selector} non bloquant ; chaque connexion
+ * a son tampon direct et peut envoyer ses trames à la suite sans attendre de réponse (pipeline).
+ * Les changements décodés sont cumulés puis appliqués par lots avec {@link BorneService#appliquerEtats}.
+ * <p>
+ * Les relevés sont transmis au {@link ComptageService} dès leur décodage.
+ * <p>
+ * Format d'une trame (gros-boutiste) :
+ * <pre>
+ * [type : 1 octet = 1] [nombre : 2 octets non signés, au plus 4096] nombre x [borneId : 8 octets] [état : 1 octet (ordinal)]
+ * [type : 1 octet = 2] [nombre : 2 octets non signés, au plus 2048] nombre x [borneId : 8 octets]
+ *     [instant : 8 octets, secondes UTC] [compteurWh : 8 octets] [puissanceW : 4 octets]
+ * </pre>
+ * Une trame invalide (type inconnu, nombre trop grand, état inconnu, relevés sans service de comptage,
+ * instant à plus de {@value #RETARD_MAX_MESURE_S} s dans le passé ou {@value #AVANCE_MAX_MESURE_S} s dans le futur)
+ * ferme la connexion qui l'a envoyée. Un relevé refusé par le service (hors ordre, index en baisse) est seulement décompté.
+ */
+public class ServeurTelemetrie {
+
+    /** Type de trame : lot de changements d'état. */
+    public static final byte TYPE_ETATS = 1;
+    /** Type de trame : lot de relevés de compteur. */
+    public static final byte TYPE_MESURES = 2;
+    /** Nombre maximal de changements dans une trame. */
+    public static final int MAX_PAR_TRAME = 4096;
+    /** Taille de l'en-tête d'une trame. */
+    public static final int TAILLE_ENTETE = 3;
+    /** Taille d'un changement d'état dans une trame. */
+    public static final int TAILLE_CHANGEMENT = 9;
+    /** Nombre maximal de relevés dans une trame. */
+    public static final int MAX_MESURES_PAR_TRAME = 2048;
+    /** Taille d'un relevé dans une trame. */
+    public static final int TAILLE_MESURE = 28;
+    /** Ancienneté maximale de l'instant d'un relevé, en secondes (relevés gardés par une borne déconnectée). */
+    public static final long RETARD_MAX_MESURE_S = 30L * 24 * 3600;
+    /** Avance maximale de l'instant d'un relevé sur l'horloge du serveur, en secondes. */
+    public static final long AVANCE_MAX_MESURE_S = 24L * 3600;
+
+    private static final int TAILLE_TAMPON = 64 * 1024; // Contient toujours au moins une trame complète
+    private static final int TAILLE_LOT = 16 * 1024; // Changements cumulés avant application forcée
+    private static final long ATTENTE_MAX_MS = 5; // Délai maximal avant application d'un lot partiel
+    private static final EtatBorne[] ETATS = EtatBorne.values();
+
+    private final BorneService borneService;
+    private volatile ComptageService comptageService;
+    private final long[] lotIds = new long[TAILLE_LOT];
+    private final EtatBorne[] lotEtats = new EtatBorne[TAILLE_LOT];
+    private int tailleLot;
+    private final AtomicLong nbChangements = new AtomicLong();
+    private final AtomicLong nbTrames = new AtomicLong();
+    private final AtomicLong nbLots = new AtomicLong();
+    private final AtomicLong nbRejets = new AtomicLong();
+    private final AtomicLong nbMesures = new AtomicLong();
+    private final AtomicLong nbMesuresRefusees = new AtomicLong();
+    private Selector selecteur;
+    private ServerSocketChannel canalServeur;
+    private Thread boucle;
+    private volatile boolean actif;
+
+    /**
+     * Constructeur.
+     * @param borneService Service de gestion des bornes, qui reçoit les lots.
+     */
+    public ServeurTelemetrie(BorneService borneService) {
+        this.borneService = borneService;
+    }
+
+    /**
+     *
+     * @param comptageService définit le service de comptage qui reçoit les relevés (sans lui, les trames de relevés sont rejetées).
+     */
+    public void setComptageService(ComptageService comptageService) {
+        this.comptageService = comptageService;
+    }
+
+    /**
+     * Démarre l'écoute sur un thread dédié.
+     * @param port port d'écoute, 0 pour un port libre.
+     * @throws IOException si le port ne peut pas être ouvert.
+     */
+    public synchronized void demarrer(int port) throws IOException {
+        if (canalServeur != null) return;
+        selecteur = Selector.open();
+        canalServeur = ServerSocketChannel.open();
+        canalServeur.bind(new InetSocketAddress(port), 1024);
+        canalServeur.configureBlocking(false);
+        canalServeur.register(selecteur, SelectionKey.OP_ACCEPT);
+        actif = true;
+        boucle = new Thread(this::boucler, "telemetrie-bornes");
+        boucle.setDaemon(true);
+        boucle.start();
+        System.out.println("Télémétrie des bornes en écoute sur le port " + getPort() + ".");
+    }
+
+    /**
+     * Arrête l'écoute ; le lot en cours est appliqué avant la fermeture.
+     */
+    public synchronized void arreter() {
+        if (canalServeur == null) return;
+        actif = false;
+        selecteur.wakeup();
+        try {
+            boucle.join();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        canalServeur = null;
+        selecteur = null;
+        boucle = null;
+    }
+
+    /**
+     * Retourne le port d'écoute.
+     * @return le port, ou -1 si le serveur est arrêté.
+     */
+    public synchronized int getPort() {
+        return canalServeur == null ? -1 : canalServeur.socket().getLocalPort();
+    }
+
+    /**
+     * Retourne le nombre de changements d'état reçus et appliqués depuis le démarrage.
+     * @return le nombre de changements.
+     */
+    public long getNombreChangements() { return nbChangements.get(); }
+    /**
+     * Retourne le nombre de trames reçues.
+     * @return le nombre de trames.
+     */
+    public long getNombreTrames() { return nbTrames.get(); }
+    /**
+     * Retourne le nombre de lots appliqués au service.
+     * @return le nombre de lots.
+     */
+    public long getNombreLots() { return nbLots.get(); }
+    /**
+     * Retourne le nombre de connexions fermées pour trame invalide.
+     * @return le nombre de rejets.
+     */
+    public long getNombreRejets() { return nbRejets.get(); }
+    /**
+     * Retourne le nombre de relevés de compteur enregistrés.
+     * @return le nombre de relevés.
+     */
+    public long getNombreMesures() { return nbMesures.get(); }
+    /**
+     * Retourne le nombre de relevés refusés par le service de comptage.
+     * @return le nombre de relevés refusés.
+     */
+    public long getNombreMesuresRefusees() { return nbMesuresRefusees.get(); }
+
+    /**
+     * Écrit une trame dans un tampon (utilisé par les clients, dont {@link SimulateurBornes}).
+     * @param tampon destination, avec au moins {@code TAILLE_ENTETE + nombre * TAILLE_CHANGEMENT} octets libres.
+     * @param borneIds identifiants des bornes.
+     * @param etats nouveaux états.
+     * @param debut position du premier changement à écrire.
+     * @param nombre nombre de changements, au plus {@link #MAX_PAR_TRAME}.
+     */
+    public static void ecrireTrame(ByteBuffer tampon, long[] borneIds, EtatBorne[] etats, int debut, int nombre) {
+        if (nombre < 0 || nombre > MAX_PAR_TRAME) throw new IllegalArgumentException("Trame de " + nombre + " changements.");
+        tampon.put(TYPE_ETATS).putShort((short) nombre);
+        for (int i = debut; i < debut + nombre; i++) {
+            tampon.putLong(borneIds[i]).put((byte) etats[i].ordinal());
+        }
+    }
+
+    /**
+     * Écrit une trame de relevés de compteur dans un tampon.
+     * @param tampon destination, avec au moins {@code TAILLE_ENTETE + nombre * TAILLE_MESURE} octets libres.
+     * @param borneIds identifiants des bornes.
+     * @param instants instants des relevés.
+     * @param compteursWh index des compteurs, en Wh.
+     * @param puissancesW puissances instantanées, en W.
+     * @param debut position du premier relevé à écrire.
+     * @param nombre nombre de relevés, au plus {@link #MAX_MESURES_PAR_TRAME}.
+     */
+    public static void ecrireTrameMesures(ByteBuffer tampon, long[] borneIds, LocalDateTime[] instants,
+                                          long[] compteursWh, int[] puissancesW, int debut, int nombre) {
+        if (nombre < 0 || nombre > MAX_MESURES_PAR_TRAME) throw new IllegalArgumentException("Trame de " + nombre + " relevés.");
+        tampon.put(TYPE_MESURES).putShort((short) nombre);
+        for (int i = debut; i < debut + nombre; i++) {
+            tampon.putLong(borneIds[i]).putLong(instants[i].toEpochSecond(ZoneOffset.UTC))
+                    .putLong(compteursWh[i]).putInt(puissancesW[i]);
+        }
+    }
+
+    private void boucler() {
+        long dernierLot = System.nanoTime();
+        try {
+            while (actif) {
+                selecteur.select(ATTENTE_MAX_MS);
+                Iterator<SelectionKey> cles = selecteur.selectedKeys().iterator();
+                while (cles.hasNext()) {
+                    SelectionKey cle = cles.next();
+                    cles.remove();
+                    if (!cle.isValid()) continue;
+                    if (cle.isAcceptable()) accepter();
+                    else if (cle.isReadable()) lire(cle);
+                }
+                // Un lot partiel attend au plus ATTENTE_MAX_MS : latence bornée, sans verrou par trame
+                if (tailleLot > 0 && System.nanoTime() - dernierLot >= ATTENTE_MAX_MS * 1_000_000) {
+                    appliquerLot();
+                    dernierLot = System.nanoTime();
+                }
+            }
+        } catch (IOException e) {
+            System.err.println("Erreur: Télémétrie des bornes interrompue: " + e.getMessage());
+        } finally {
+            if (tailleLot > 0) appliquerLot();
+            for (SelectionKey cle : selecteur.keys()) fermer(cle);
+            try {
+                selecteur.close();
+            } catch (IOException ignored) {
+                // Fermeture au mieux
+            }
+        }
+    }
+
+    private void accepter() throws IOException {
+        SocketChannel client;
+        while ((client = canalServeur.accept()) != null) {
+            client.configureBlocking(false);
+            client.setOption(StandardSocketOptions.TCP_NODELAY, true);
+            ByteBuffer tampon = ByteBuffer.allocateDirect(TAILLE_TAMPON).order(ByteOrder.BIG_ENDIAN);
+            client.register(selecteur, SelectionKey.OP_READ, tampon);
+        }
+    }
+
+    private void lire(SelectionKey cle) {
+        SocketChannel client = (SocketChannel) cle.channel();
+        ByteBuffer tampon = (ByteBuffer) cle.attachment();
+        try {
+            int lus;
+            while ((lus = client.read(tampon)) > 0) {
+                tampon.flip();
+                boolean valide = decoder(tampon);
+                tampon.compact(); // Garde le début d'une trame incomplète
+                if (!valide) {
+                    nbRejets.incrementAndGet();
+                    fermer(cle);
+                    return;
+                }
+            }
+            if (lus < 0) fermer(cle);
+        } catch (IOException e) {
+            fermer(cle); // Borne déconnectée
+        }
+    }
+
+    /**
+     * Décode toutes les trames complètes du tampon (en lecture) et les ajoute au lot.
+     * @return false si une trame est invalide.
+     */
+    private boolean decoder(ByteBuffer tampon) {
+        while (tampon.remaining() >= TAILLE_ENTETE) {
+            int position = tampon.position();
+            byte type = tampon.get(position);
+            int nombre = tampon.getShort(position + 1) & 0xFFFF;
+            if (type == TYPE_MESURES) {
+                ComptageService comptage = comptageService;
+                if (comptage == null || nombre > MAX_MESURES_PAR_TRAME) return false;
+                if (tampon.remaining() < TAILLE_ENTETE + nombre * TAILLE_MESURE) return true; // Suite au prochain read
+                tampon.position(position + TAILLE_ENTETE);
+                if (!decoderMesures(tampon, nombre, comptage)) return false;
+                nbTrames.incrementAndGet();
+                continue;
+            }
+            if (type != TYPE_ETATS || nombre > MAX_PAR_TRAME) return false;
+            if (tampon.remaining() < TAILLE_ENTETE + nombre * TAILLE_CHANGEMENT) return true; // Suite au prochain read
+            tampon.position(position + TAILLE_ENTETE);
+            for (int i = 0; i < nombre; i++) {
+                long borneId = tampon.getLong();
+                int etat = tampon.get();
+                if (etat < 0 || etat >= ETATS.length) return false;
+                lotIds[tailleLot] = borneId;
+                lotEtats[tailleLot] = ETATS[etat];
+                if (++tailleLot == TAILLE_LOT) appliquerLot();
+            }
+            nbTrames.incrementAndGet();
+        }
+        return true;
+    }
+
+    /**
+     * Transmet les relevés d'une trame au service de comptage.
+     * Un instant hors de la fenêtre de plausibilité autour de l'heure du serveur invalide la trame :
+     * un seul relevé daté de l'an 100000 bloquerait sinon tous les relevés suivants de sa borne.
+     * @return false si un relevé a un instant invalide.
+     */
+    private boolean decoderMesures(ByteBuffer tampon, int nombre, ComptageService comptage) {
+        long maintenant = System.currentTimeMillis() / 1000;
+        for (int i = 0; i < nombre; i++) {
+            long borneId = tampon.getLong();
+            long secondes = tampon.getLong();
+            if (secondes < maintenant - RETARD_MAX_MESURE_S || secondes > maintenant + AVANCE_MAX_MESURE_S) return false;
+            LocalDateTime instant = LocalDateTime.ofEpochSecond(secondes, 0, ZoneOffset.UTC);
+            long compteurWh = tampon.getLong();
+            int puissanceW = tampon.getInt();
+            if (comptage.enregistrerMesure(borneId, instant, compteurWh, puissanceW)) nbMesures.incrementAndGet();
+            else nbMesuresRefusees.incrementAndGet();
+        }
+        return true;
+    }
+
+    private void appliquerLot() {
+        try {
+            borneService.appliquerEtats(lotIds, lotEtats, tailleLot);
+        } catch (RuntimeException e) {
+            System.err.println("Erreur: Lot de télémétrie non appliqué: " + e);
+        }
+        nbChangements.addAndGet(tailleLot);
+        nbLots.incrementAndGet();
+        tailleLot = 0;
+    }
+
+    private static void fermer(SelectionKey cle) {
+        cle.cancel();
+        try {
+            cle.channel().close();
+        } catch (IOException ignored) {
+            // Fermeture au mieux
+        }
+    }
+}
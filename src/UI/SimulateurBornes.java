@@ -0,0 +1,162 @@
+package UI;
+
+import Services.BorneServiceImplement;
+import Services.FormatTopologie;
+import model.BorneRecharge;
+import model.EtatBorne;
+import model.LieuRecharge;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.net.StandardSocketOptions;
+import java.nio.ByteBuffer;
+import java.nio.channels.SocketChannel;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.SplittableRandom;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+/**
+ * Simulateur local de bornes pour {@link ServeurTelemetrie}.
+ * Les bornes simulées sont réparties sur quelques connexions (une par passerelle de site) ;
+ * chaque connexion envoie en continu des trames de changements d'état aléatoires, sans attendre de réponse.
+ * <p>
+ * Lancé seul ({@code java UI.SimulateurBornes [bornes] [connexions] [secondes]}), il mesure le débit
+ * d'ingestion de bout en bout : service, serveur et simulateur tournent dans le même processus.
+ */
+public class SimulateurBornes {
+
+    private static final int TAILLE_TAMPON = 64 * 1024;
+    private static final EtatBorne[] ETATS = EtatBorne.values();
+
+    private final String hote;
+    private final int port;
+    private final int changementsParTrame;
+
+    /**
+     * Constructeur.
+     * @param hote hôte du serveur de télémétrie.
+     * @param port port du serveur de télémétrie.
+     * @param changementsParTrame nombre de changements par trame, entre 1 et {@link ServeurTelemetrie#MAX_PAR_TRAME}.
+     */
+    public SimulateurBornes(String hote, int port, int changementsParTrame) {
+        if (changementsParTrame < 1 || changementsParTrame > ServeurTelemetrie.MAX_PAR_TRAME) {
+            throw new IllegalArgumentException("Nombre de changements par trame invalide.");
+        }
+        this.hote = hote;
+        this.port = port;
+        this.changementsParTrame = changementsParTrame;
+    }
+
+    /**
+     * Envoie des changements d'état pour les bornes données pendant la durée donnée.
+     * @param borneIds identifiants des bornes simulées.
+     * @param nbConnexions nombre de connexions, les bornes étant réparties entre elles.
+     * @param duree durée de la simulation.
+     * @return le nombre total de changements envoyés.
+     * @throws IOException si une connexion échoue.
+     */
+    public long lancer(long[] borneIds, int nbConnexions, Duration duree) throws IOException {
+        long fin = System.nanoTime() + duree.toNanos();
+        List<Future<Long>> envois = new ArrayList<>();
+        try (ExecutorService executeur = Executors.newVirtualThreadPerTaskExecutor()) {
+            for (int c = 0; c < nbConnexions; c++) {
+                int numero = c;
+                envois.add(executeur.submit(() -> envoyer(borneIds, numero, nbConnexions, fin)));
+            }
+            long total = 0;
+            for (Future<Long> envoi : envois) total += envoi.get();
+            return total;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IOException("Simulation interrompue.", e);
+        } catch (ExecutionException e) {
+            throw new IOException("Simulation échouée: " + e.getCause(), e.getCause());
+        }
+    }
+
+    /**
+     * Boucle d'une connexion : remplit le tampon de trames puis l'écrit d'un coup (pipeline).
+     */
+    private long envoyer(long[] borneIds, int numero, int nbConnexions, long fin) throws IOException {
+        // Bornes de cette connexion : une sur nbConnexions
+        int nbBornes = (borneIds.length - numero + nbConnexions - 1) / nbConnexions;
+        if (nbBornes <= 0) return 0;
+        long[] ids = new long[changementsParTrame];
+        EtatBorne[] etats = new EtatBorne[changementsParTrame];
+        SplittableRandom aleatoire = new SplittableRandom(numero);
+        ByteBuffer tampon = ByteBuffer.allocateDirect(TAILLE_TAMPON);
+        int tailleTrame = ServeurTelemetrie.TAILLE_ENTETE + changementsParTrame * ServeurTelemetrie.TAILLE_CHANGEMENT;
+        long envoyes = 0;
+        try (SocketChannel canal = SocketChannel.open(new InetSocketAddress(hote, port))) {
+            canal.setOption(StandardSocketOptions.TCP_NODELAY, true);
+            while (System.nanoTime() < fin) {
+                tampon.clear();
+                while (tampon.remaining() >= tailleTrame) {
+                    for (int i = 0; i < changementsParTrame; i++) {
+                        ids[i] = borneIds[numero + aleatoire.nextInt(nbBornes) * nbConnexions];
+                        etats[i] = ETATS[aleatoire.nextInt(ETATS.length)];
+                    }
+                    ServeurTelemetrie.ecrireTrame(tampon, ids, etats, 0, changementsParTrame);
+                    envoyes += changementsParTrame;
+                }
+                tampon.flip();
+                while (tampon.hasRemaining()) canal.write(tampon);
+            }
+        }
+        return envoyes;
+    }
+
+    /**
+     * Mesure le débit d'ingestion : crée les bornes, démarre le serveur, lance le simulateur et affiche
+     * le nombre de changements appliqués par seconde.
+     * @param args nombre de bornes (10000), de connexions (64) et durée en secondes (5).
+     * @throws Exception si le serveur ou une connexion échoue.
+     */
+    public static void main(String[] args) throws Exception {
+        int nbBornes = args.length > 0 ? Integer.parseInt(args[0]) : 10_000;
+        int nbConnexions = args.length > 1 ? Integer.parseInt(args[1]) : 64;
+        int secondes = args.length > 2 ? Integer.parseInt(args[2]) : 5;
+
+        // Topologie importée d'un bloc : pas de ligne affichée par borne
+        List<LieuRecharge> lieux = new ArrayList<>();
+        for (int i = 0; i < nbBornes; i++) {
+            if (i % 10 == 0) lieux.add(new LieuRecharge("Site " + (i / 10), (i / 10) + " Rue de la Simulation"));
+            LieuRecharge lieu = lieux.get(lieux.size() - 1);
+            lieu.ajouterBorne(new BorneRecharge(0.50, lieu.getId()));
+        }
+        ByteArrayOutputStream topologie = new ByteArrayOutputStream();
+        FormatTopologie.ecrireBinaire(lieux, topologie);
+        BorneServiceImplement borneService = new BorneServiceImplement();
+        borneService.importerTopologieBinaire(new ByteArrayInputStream(topologie.toByteArray()));
+        long[] borneIds = borneService.getLieuxVue().stream()
+                .flatMap(l -> l.getBornesVue().stream()).mapToLong(BorneRecharge::getId).toArray();
+
+        ServeurTelemetrie serveur = new ServeurTelemetrie(borneService);
+        serveur.demarrer(0);
+        try {
+            long debut = System.nanoTime();
+            long envoyes = new SimulateurBornes("localhost", serveur.getPort(), 512)
+                    .lancer(borneIds, nbConnexions, Duration.ofSeconds(secondes));
+            // Laisse le serveur vider les tampons réseau avant de compter
+            while (serveur.getNombreChangements() < envoyes && System.nanoTime() - debut < (secondes + 10) * 1_000_000_000L) {
+                Thread.sleep(10);
+            }
+            double ecoule = (System.nanoTime() - debut) / 1e9;
+            System.out.printf("%d bornes, %d connexions : %d changements envoyés, %d appliqués en %d lots, %.0f changements/s%n",
+                    borneIds.length, nbConnexions, envoyes, serveur.getNombreChangements(), serveur.getNombreLots(),
+                    serveur.getNombreChangements() / ecoule);
+            for (EtatBorne etat : EtatBorne.values()) {
+                System.out.println(etat + ": " + borneService.getNombreBornes(etat));
+            }
+        } finally {
+            serveur.arreter();
+        }
+    }
+}
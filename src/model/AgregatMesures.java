@@ -0,0 +1,96 @@
+package model;
+
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+
+/**
+ * Résumé des relevés de compteur d'une borne sur un intervalle : un point d'une courbe
+ * sous-échantillonnée, ou toute une session de charge.
+ * L'énergie d'un relevé est la hausse du compteur depuis le relevé précédent.
+ */
+public class AgregatMesures {
+
+    private final LocalDateTime debut;
+    private final int nbMesures;
+    private final LocalDateTime premiereMesure;
+    private final LocalDateTime derniereMesure;
+    private final long energieWh;
+    private final long sommePuissancesW;
+    private final int puissanceMaxW;
+
+    /**
+     * Constructeur.
+     * @param debut début de l'intervalle.
+     * @param nbMesures nombre de relevés dans l'intervalle (au moins 1).
+     * @param premiereMesure instant du premier relevé.
+     * @param derniereMesure instant du dernier relevé.
+     * @param energieWh énergie comptée, en Wh.
+     * @param sommePuissancesW somme des puissances relevées, en W.
+     * @param puissanceMaxW plus forte puissance relevée, en W.
+     */
+    public AgregatMesures(LocalDateTime debut, int nbMesures, LocalDateTime premiereMesure, LocalDateTime derniereMesure,
+                          long energieWh, long sommePuissancesW, int puissanceMaxW) {
+        this.debut = debut;
+        this.nbMesures = nbMesures;
+        this.premiereMesure = premiereMesure;
+        this.derniereMesure = derniereMesure;
+        this.energieWh = energieWh;
+        this.sommePuissancesW = sommePuissancesW;
+        this.puissanceMaxW = puissanceMaxW;
+    }
+
+    /**
+     * Retourne le début de l'intervalle.
+     * @return le début.
+     */
+    public LocalDateTime getDebut() { return debut; }
+    /**
+     * Retourne le nombre de relevés de l'intervalle.
+     * @return le nombre de relevés.
+     */
+    public int getNbMesures() { return nbMesures; }
+    /**
+     * Retourne l'instant du premier relevé.
+     * @return l'instant.
+     */
+    public LocalDateTime getPremiereMesure() { return premiereMesure; }
+    /**
+     * Retourne l'instant du dernier relevé.
+     * @return l'instant.
+     */
+    public LocalDateTime getDerniereMesure() { return derniereMesure; }
+    /**
+     * Retourne la durée entre le premier et le dernier relevé (durée de charge mesurée).
+     * @return la durée.
+     */
+    public Duration getDureeMesuree() { return Duration.between(premiereMesure, derniereMesure); }
+    /**
+     * Retourne l'énergie comptée.
+     * @return l'énergie en kWh.
+     */
+    public double getEnergieKwh() { return energieWh / 1000.0; }
+    /**
+     * Retourne la puissance moyenne des relevés.
+     * @return la puissance en kW.
+     */
+    public double getPuissanceMoyenneKw() { return sommePuissancesW / 1000.0 / nbMesures; }
+    /**
+     * Retourne la plus forte puissance relevée.
+     * @return la puissance en kW.
+     */
+    public double getPuissanceMaxKw() { return puissanceMaxW / 1000.0; }
+
+    /**
+     * Retourne une représentation textuelle de l'agrégat.
+     * @return Une chaîne de caractères décrivant l'agrégat.
+     */
+    @Override
+    public String toString() {
+        return "AgregatMesures{debut=" + debut +
+                ", nbMesures=" + nbMesures +
+                ", energie=" + String.format("%.3f", getEnergieKwh()) + " kWh" +
+                ", puissanceMoyenne=" + String.format("%.2f", getPuissanceMoyenneKw()) + " kW" +
+                ", puissanceMax=" + String.format("%.2f", getPuissanceMaxKw()) + " kW}";
+    }
+}
@@ -9,13 +9,13 @@ import java.util.Objects;
  * et un tarif horaire.
  */
 public class BorneRecharge {
-    private static long compteurId = 0;
-
     private final long id;
     private EtatBorne etat;
     private double tarifHoraire;
     // On a besoin de savoir à quel lieu elle appartient pour l'administration
     private final long lieuId;
+    // Lieu qui contient la borne, prévenu des changements d'état (null si la borne n'est rattachée à aucun lieu)
+    private LieuRecharge lieu;
 
     /**
      * Constructeur de BorneRecharge.
@@ -24,7 +24,28 @@ public class BorneRecharge {
      * @param lieuId l'id du lieu où se trouve la borne.
      */
     public BorneRecharge(double tarifHoraire, long lieuId) {
-        this.id = ++compteurId;
+        this(SequencesIds.GLOBALES, tarifHoraire, lieuId);
+    }
+
+    /**
+     * Construit une borne dont l'ID est pris dans les séquences données (celles d'un locataire).
+     * @param sequences les séquences d'identifiants.
+     * @param tarifHoraire tarif de l'utilisation de la borne en heure.
+     * @param lieuId l'id du lieu où se trouve la borne.
+     */
+    public BorneRecharge(SequencesIds sequences, double tarifHoraire, long lieuId) {
+        this(sequences.prochaineBorne(), tarifHoraire, lieuId);
+    }
+
+    /**
+     * Reconstruit une borne existante avec son ID (ex : copie sur un autre nœud), à l'état disponible.
+     * Aucun nouvel ID n'est attribué.
+     * @param id l'ID de la borne d'origine.
+     * @param tarifHoraire tarif de l'utilisation de la borne en heure.
+     * @param lieuId l'id du lieu où se trouve la borne.
+     */
+    public BorneRecharge(long id, double tarifHoraire, long lieuId) {
+        this.id = id;
         this.etat = EtatBorne.DISPONIBLE; // État initial
         this.tarifHoraire = tarifHoraire;
         this.lieuId = lieuId;
@@ -55,7 +76,16 @@ public class BorneRecharge {
      * Change l'état de la borne.
      * @param etat Le nouvel état de la borne ({@link EtatBorne}).
      */
-    public void setEtat(EtatBorne etat) { this.etat = etat; }
+    public void setEtat(EtatBorne etat) {
+        EtatBorne ancien = this.etat;
+        this.etat = etat;
+        if (lieu != null && ancien != etat) lieu.etatBorneModifie(ancien, etat);
+    }
+    /**
+     * Rattache la borne au lieu qui la contient (géré par {@link LieuRecharge}).
+     * @param lieu Le lieu, ou null si la borne en est retirée.
+     */
+    void setLieu(LieuRecharge lieu) { this.lieu = lieu; }
     /**
      * Met à jour le tarif horaire de la borne.
      * @param tarifHoraire Le nouveau tarif horaire (doit être positif ou nul).
@@ -2,7 +2,9 @@ package model;
 
 
 import java.util.ArrayList;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Objects;
 /**
  * Représente un lieu géographique (ex : parking, centre commercial) où se trouvent
@@ -10,13 +12,17 @@ import java.util.Objects;
  * Contient les informations descriptives du lieu et la liste des bornes associées.
  */
 public class LieuRecharge {
-    private static long compteurId = 0;
-
     private final long id;
     private String nom;
     private String adresse;
-    // La spécification demande List<BorneRecharge>
-    private final List<BorneRecharge> bornes;
+    // La spécification demande List<BorneRecharge> : exposée via getBornes(), stockée par id
+    // dans l'ordre d'ajout pour un ajout/une suppression en O(1)
+    private final Map<Long, BorneRecharge> bornes;
+    // Nombre de bornes par état (indice = ordinal de EtatBorne), tenu à jour à chaque changement
+    private final int[] nbBornesParEtat = new int[EtatBorne.values().length];
+    // Instantané non modifiable des bornes, reconstruit à la première lecture après une modification.
+    // Modifications et reconstruction se font sous le moniteur du lieu : un instantané ne peut pas manquer une modification
+    private volatile List<BorneRecharge> vueBornes;
     /**
      * Construit une nouvelle instance de LieuRecharge avec un nom et une adresse.
      * Le lieu est initialisé avec une liste de bornes vide et un ID unique lui a assigné.
@@ -25,10 +31,32 @@ public class LieuRecharge {
      * @param adresse L'adresse du lieu. Ne dois pas être null or vide.
      */
     public LieuRecharge(String nom, String adresse) {
-        this.id = ++compteurId;
+        this(SequencesIds.GLOBALES, nom, adresse);
+    }
+
+    /**
+     * Construit un lieu dont l'ID est pris dans les séquences données (celles d'un locataire).
+     *
+     * @param sequences Les séquences d'identifiants.
+     * @param nom Le nom du lieu.
+     * @param adresse L'adresse du lieu.
+     */
+    public LieuRecharge(SequencesIds sequences, String nom, String adresse) {
+        this(sequences.prochainLieu(), nom, adresse);
+    }
+
+    /**
+     * Reconstruit un lieu existant avec son ID (ex : copie sur un autre nœud). Aucun nouvel ID n'est attribué.
+     *
+     * @param id L'ID du lieu d'origine.
+     * @param nom Le nom du lieu.
+     * @param adresse L'adresse du lieu.
+     */
+    public LieuRecharge(long id, String nom, String adresse) {
+        this.id = id;
         this.nom = nom;
         this.adresse = adresse;
-        this.bornes = new ArrayList<>();
+        this.bornes = new LinkedHashMap<>();
     }
 
     /**
@@ -52,7 +80,32 @@ public class LieuRecharge {
      * @return Une {@code List} contenant les {@link BorneRecharge} du lieu.
      */
     // Retourne une copie pour éviter modification externe non contrôlée
-    public List<BorneRecharge> getBornes() { return new ArrayList<>(bornes); }
+    public synchronized List<BorneRecharge> getBornes() { return new ArrayList<>(bornes.values()); }
+    /**
+     * Retourne un instantané non modifiable des bornes du lieu, sans copie tant que
+     * le lieu n'est pas modifié. À préférer à {@link #getBornes()} pour la lecture seule.
+     * @return Une {@code List} non modifiable des {@link BorneRecharge} du lieu.
+     */
+    public List<BorneRecharge> getBornesVue() {
+        List<BorneRecharge> vue = vueBornes;
+        if (vue != null) return vue;
+        synchronized (this) {
+            if (vueBornes == null) vueBornes = List.copyOf(bornes.values());
+            return vueBornes;
+        }
+    }
+
+    /**
+     * Retourne le nombre de bornes du lieu.
+     * @return Le nombre de bornes.
+     */
+    public int getNombreBornes() { return bornes.size(); }
+    /**
+     * Retourne le nombre de bornes du lieu dans un état donné, en temps constant.
+     * @param etat L'{@link EtatBorne} recherché.
+     * @return Le nombre de bornes du lieu dans cet état.
+     */
+    public int getNombreBornes(EtatBorne etat) { return nbBornesParEtat[etat.ordinal()]; }
 
     /**
      * Met à jour le nom du lieu.
@@ -71,28 +124,42 @@ public class LieuRecharge {
      * @param borne La {@link BorneRecharge} à ajouter.
      */
     // --- Gestion des bornes (maintenue ici pour coller au modèle) ---
-    public void ajouterBorne(BorneRecharge borne) {
-        if (borne != null && borne.getLieuId() == this.id && !this.bornes.contains(borne)) {
-            this.bornes.add(borne);
+    public synchronized void ajouterBorne(BorneRecharge borne) {
+        if (borne != null && borne.getLieuId() == this.id && this.bornes.putIfAbsent(borne.getId(), borne) == null) {
+            this.nbBornesParEtat[borne.getEtat().ordinal()]++;
+            borne.setLieu(this); // La borne signale ensuite ses changements d'état
+            this.vueBornes = null;
         }
     }
     /**
      * Supprime une borne de la liste des bornes de ce lieu.
      * @param borne La {@link BorneRecharge} à supprimer.
      */
-    public void supprimerBorne(BorneRecharge borne) {
-        if (borne != null) {
-            this.bornes.remove(borne);
+    public synchronized void supprimerBorne(BorneRecharge borne) {
+        if (borne != null && this.bornes.remove(borne.getId(), borne)) {
+            this.nbBornesParEtat[borne.getEtat().ordinal()]--;
+            borne.setLieu(null);
+            this.vueBornes = null;
         }
     }
+    /**
+     * Met à jour les compteurs par état quand une borne du lieu change d'état.
+     * Appelée par {@link BorneRecharge#setEtat(EtatBorne)}.
+     * @param ancien L'état précédent de la borne.
+     * @param nouveau Le nouvel état de la borne.
+     */
+    void etatBorneModifie(EtatBorne ancien, EtatBorne nouveau) {
+        nbBornesParEtat[ancien.ordinal()]--;
+        nbBornesParEtat[nouveau.ordinal()]++;
+    }
     /**
      * Retourne une représentation textuelle de l'objet LieuRecharge,
-     * incluant son ID, nom, adresse et le nombre de bornes qu'il contient.
+     * incluant son ID, nom, adresse, le nombre de bornes qu'il contient et le nombre de bornes disponibles.
      * @return Une chaîne de caractères décrivant le lieu.
      */
     @Override
     public String toString() {
-        return "LieuRecharge{id=" + id + ", nom='" + nom + "', adresse='" + adresse + "', nbBornes=" + bornes.size() + '}';
+        return "LieuRecharge{id=" + id + ", nom='" + nom + "', adresse='" + adresse + "', nbBornes=" + bornes.size() + ", nbDisponibles=" + getNombreBornes(EtatBorne.DISPONIBLE) + '}';
     }
     /**
      * Compare ce lieu à un autre objet pour vérifier l'égalité.
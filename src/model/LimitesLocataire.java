@@ -0,0 +1,68 @@
+package model;
+
+
+/**
+ * Limites de ressources d'un locataire (une enseigne) dans un déploiement partagé :
+ * requêtes traitées en même temps, threads de vérification des mots de passe, et quotas de bornes et de comptes.
+ * Un locataire très sollicité plafonne sur ses propres limites au lieu de prendre les ressources des autres.
+ */
+public class LimitesLocataire {
+
+    /** Limites par défaut : 8 requêtes simultanées, 1 thread de vérification, sans quota. */
+    public static final LimitesLocataire PAR_DEFAUT = new LimitesLocataire(8, 1, Integer.MAX_VALUE, Integer.MAX_VALUE);
+
+    private final int requetesSimultanees;
+    private final int threadsVerification;
+    private final int maxBornes;
+    private final int maxUtilisateurs;
+
+    /**
+     * Constructeur.
+     * @param requetesSimultanees nombre maximal de requêtes du locataire traitées en même temps.
+     * @param threadsVerification threads dédiés à la vérification des mots de passe du locataire.
+     * @param maxBornes nombre maximal de bornes.
+     * @param maxUtilisateurs nombre maximal de comptes.
+     */
+    public LimitesLocataire(int requetesSimultanees, int threadsVerification, int maxBornes, int maxUtilisateurs) {
+        if (requetesSimultanees <= 0 || threadsVerification <= 0 || maxBornes < 0 || maxUtilisateurs < 0) {
+            throw new IllegalArgumentException("Limites de locataire invalides.");
+        }
+        this.requetesSimultanees = requetesSimultanees;
+        this.threadsVerification = threadsVerification;
+        this.maxBornes = maxBornes;
+        this.maxUtilisateurs = maxUtilisateurs;
+    }
+
+    /**
+     * Retourne le nombre maximal de requêtes traitées en même temps.
+     * @return le nombre de requêtes.
+     */
+    public int getRequetesSimultanees() { return requetesSimultanees; }
+    /**
+     * Retourne le nombre de threads de vérification des mots de passe.
+     * @return le nombre de threads.
+     */
+    public int getThreadsVerification() { return threadsVerification; }
+    /**
+     * Retourne le nombre maximal de bornes.
+     * @return le quota de bornes.
+     */
+    public int getMaxBornes() { return maxBornes; }
+    /**
+     * Retourne le nombre maximal de comptes.
+     * @return le quota de comptes.
+     */
+    public int getMaxUtilisateurs() { return maxUtilisateurs; }
+
+    /**
+     * Retourne une représentation textuelle des limites.
+     * @return Une chaîne de caractères résumant les limites.
+     */
+    @Override
+    public String toString() {
+        return "LimitesLocataire{requetesSimultanees=" + requetesSimultanees +
+                ", threadsVerification=" + threadsVerification +
+                ", maxBornes=" + maxBornes +
+                ", maxUtilisateurs=" + maxUtilisateurs + "}";
+    }
+}
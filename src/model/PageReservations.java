@@ -0,0 +1,43 @@
+package model;
+
+
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Une page de résultats d'une recherche de réservations par plage de temps.
+ * Le curseur permet de demander la page suivante sans recalculer les précédentes.
+ */
+public class PageReservations {
+
+    private final List<Reservation> reservations;
+    private final String curseurSuivant;
+
+    /**
+     * Constructeur.
+     * @param reservations les réservations de la page, triées par date de début.
+     * @param curseurSuivant le curseur de la page suivante, ou null s'il n'y en a pas.
+     */
+    public PageReservations(List<Reservation> reservations, String curseurSuivant) {
+        this.reservations = Collections.unmodifiableList(reservations);
+        this.curseurSuivant = curseurSuivant;
+    }
+
+    /**
+     * Retourne les réservations de la page (non modifiable).
+     * @return la liste des {@link Reservation}.
+     */
+    public List<Reservation> getReservations() { return reservations; }
+
+    /**
+     * Retourne le curseur à passer pour obtenir la page suivante.
+     * @return le curseur, ou null si c'est la dernière page.
+     */
+    public String getCurseurSuivant() { return curseurSuivant; }
+
+    /**
+     * Indique s'il reste des résultats après cette page.
+     * @return true si une page suivante existe.
+     */
+    public boolean aUneSuite() { return curseurSuivant != null; }
+}
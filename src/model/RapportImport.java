@@ -0,0 +1,69 @@
+package model;
+
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Rapport compact d'un import en masse : compteurs de lignes acceptées/rejetées
+ * et quelques exemples de rejets (nombre limité pour rester léger sur de gros fichiers).
+ * Peut être alimenté par plusieurs threads en même temps.
+ */
+public class RapportImport {
+    private static final int MAX_EXEMPLES_REJETS = 100;
+
+    private final LongAdder acceptees = new LongAdder();
+    private final LongAdder rejetees = new LongAdder();
+    private final List<String> exemplesRejets = new ArrayList<>();
+
+    /**
+     * Comptabilise une ligne acceptée.
+     */
+    public void accepter() { acceptees.increment(); }
+
+    /**
+     * Comptabilise une ligne rejetée et garde le motif si le quota d'exemples n'est pas atteint.
+     * @param numeroLigne numéro de la ligne dans le fichier source (à partir de 1).
+     * @param motif raison du rejet.
+     */
+    public void rejeter(long numeroLigne, String motif) {
+        rejetees.increment();
+        synchronized (exemplesRejets) {
+            if (exemplesRejets.size() < MAX_EXEMPLES_REJETS) {
+                exemplesRejets.add("Ligne " + numeroLigne + ": " + motif);
+            }
+        }
+    }
+
+    /**
+     * Retourne le nombre de lignes acceptées.
+     * @return le nombre de lignes acceptées.
+     */
+    public long getNbAcceptees() { return acceptees.sum(); }
+
+    /**
+     * Retourne le nombre de lignes rejetées.
+     * @return le nombre de lignes rejetées.
+     */
+    public long getNbRejetees() { return rejetees.sum(); }
+
+    /**
+     * Retourne une copie des premiers motifs de rejet (au plus 100).
+     * @return une {@code List} de descriptions de rejets.
+     */
+    public List<String> getExemplesRejets() {
+        synchronized (exemplesRejets) {
+            return new ArrayList<>(exemplesRejets);
+        }
+    }
+
+    /**
+     * Représentation textuelle du rapport.
+     * @return une chaîne résumant le rapport.
+     */
+    @Override
+    public String toString() {
+        return "RapportImport{acceptees=" + getNbAcceptees() + ", rejetees=" + getNbRejetees() + '}';
+    }
+}
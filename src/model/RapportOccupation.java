@@ -0,0 +1,145 @@
+package model;
+
+
+import java.time.LocalDate;
+import java.time.temporal.ChronoUnit;
+import java.util.Collections;
+import java.util.Map;
+
+/**
+ * Rapport d'occupation sur une période (jours inclus) pour une borne, un lieu ou tout le réseau :
+ * minutes occupées (réservations ACCEPTEE) et demandes (réservations créées) par heure de la journée,
+ * nombre de réservations par {@link StatutReservation}, et pour le réseau le détail par borne et par lieu.
+ * Les réservations sont rattachées au jour de leur début ; les minutes occupées au jour et à l'heure où elles ont lieu.
+ */
+public class RapportOccupation {
+
+    private final LocalDate du;
+    private final LocalDate au;
+    private final long[] minutesParHeure;
+    private final long[] demandesParHeure;
+    private final long[] nbParStatut;
+    private final Map<Long, Long> minutesParBorne;
+    private final Map<Long, Long> minutesParLieu;
+
+    /**
+     * Constructeur.
+     * @param du premier jour de la période.
+     * @param au dernier jour de la période (inclus).
+     * @param minutesParHeure minutes occupées pour chaque heure de la journée (24 cases).
+     * @param demandesParHeure réservations créées selon l'heure de leur début (24 cases).
+     * @param nbParStatut nombre de réservations par statut (indice : ordinal du statut).
+     * @param minutesParBorne minutes occupées par id de borne (vide hors rapport réseau).
+     * @param minutesParLieu minutes occupées par id de lieu (vide hors rapport réseau).
+     */
+    public RapportOccupation(LocalDate du, LocalDate au, long[] minutesParHeure, long[] demandesParHeure, long[] nbParStatut,
+                             Map<Long, Long> minutesParBorne, Map<Long, Long> minutesParLieu) {
+        this.du = du;
+        this.au = au;
+        this.minutesParHeure = minutesParHeure;
+        this.demandesParHeure = demandesParHeure;
+        this.nbParStatut = nbParStatut;
+        this.minutesParBorne = Collections.unmodifiableMap(minutesParBorne);
+        this.minutesParLieu = Collections.unmodifiableMap(minutesParLieu);
+    }
+
+    /**
+     * Retourne le premier jour de la période.
+     * @return le premier jour.
+     */
+    public LocalDate getDu() { return du; }
+    /**
+     * Retourne le dernier jour de la période.
+     * @return le dernier jour (inclus).
+     */
+    public LocalDate getAu() { return au; }
+    /**
+     * Retourne le nombre de jours de la période.
+     * @return le nombre de jours.
+     */
+    public long getNbJours() { return ChronoUnit.DAYS.between(du, au) + 1; }
+    /**
+     * Retourne les minutes occupées pour chaque heure de la journée.
+     * @return une copie du tableau (indice 0 : de 0h à 1h).
+     */
+    public long[] getMinutesParHeure() { return minutesParHeure.clone(); }
+    /**
+     * Retourne le nombre de réservations demandées selon l'heure de leur début.
+     * @return une copie du tableau (indice 0 : de 0h à 1h).
+     */
+    public long[] getDemandesParHeure() { return demandesParHeure.clone(); }
+    /**
+     * Retourne le nombre de réservations dans un statut.
+     * @param statut le statut.
+     * @return le nombre de réservations.
+     */
+    public long getNombre(StatutReservation statut) { return nbParStatut[statut.ordinal()]; }
+    /**
+     * Retourne le nombre total de réservations de la période.
+     * @return le nombre de réservations.
+     */
+    public long getNombreReservations() {
+        long total = 0;
+        for (long nb : nbParStatut) total += nb;
+        return total;
+    }
+    /**
+     * Retourne la part des réservations refusées (manuellement ou automatiquement).
+     * @return le taux entre 0 et 1, 0 sans réservation.
+     */
+    public double getTauxRefus() {
+        long total = getNombreReservations();
+        return total == 0 ? 0 : (double) getNombre(StatutReservation.REFUSEE) / total;
+    }
+    /**
+     * Retourne l'heure de la journée où le plus de réservations commencent (pic de demande).
+     * @return l'heure (0 à 23), ou -1 sans réservation.
+     */
+    public int getHeurePointe() {
+        int pointe = -1;
+        for (int h = 0; h < demandesParHeure.length; h++) {
+            if (demandesParHeure[h] > 0 && (pointe < 0 || demandesParHeure[h] > demandesParHeure[pointe])) pointe = h;
+        }
+        return pointe;
+    }
+    /**
+     * Retourne le total des minutes occupées.
+     * @return les minutes.
+     */
+    public long getMinutesOccupees() {
+        long total = 0;
+        for (long m : minutesParHeure) total += m;
+        return total;
+    }
+    /**
+     * Retourne le taux d'utilisation de {@code nbBornes} bornes sur la période.
+     * @param nbBornes nombre de bornes du périmètre (1 pour un rapport de borne).
+     * @return le taux entre 0 et 1.
+     */
+    public double getTauxUtilisation(int nbBornes) {
+        return nbBornes <= 0 ? 0 : getMinutesOccupees() / (nbBornes * getNbJours() * 1440.0);
+    }
+    /**
+     * Retourne les minutes occupées par borne (rapport réseau).
+     * @return une map non modifiable id de borne vers minutes.
+     */
+    public Map<Long, Long> getMinutesParBorne() { return minutesParBorne; }
+    /**
+     * Retourne les minutes occupées par lieu (rapport réseau).
+     * @return une map non modifiable id de lieu vers minutes.
+     */
+    public Map<Long, Long> getMinutesParLieu() { return minutesParLieu; }
+
+    /**
+     * Retourne une représentation textuelle du rapport.
+     * @return Une chaîne de caractères résumant le rapport.
+     */
+    @Override
+    public String toString() {
+        return "RapportOccupation{du=" + du + ", au=" + au +
+                ", reservations=" + getNombreReservations() +
+                ", minutesOccupees=" + getMinutesOccupees() +
+                ", heurePointe=" + getHeurePointe() +
+                ", tauxRefus=" + String.format("%.1f", getTauxRefus() * 100) + "%}";
+    }
+}
@@ -0,0 +1,77 @@
+package model;
+
+
+import java.time.DayOfWeek;
+import java.time.LocalTime;
+import java.util.EnumSet;
+import java.util.Set;
+
+/**
+ * Règle de tarification horaire : sur certains jours et une plage horaire,
+ * le tarif horaire des bornes est multiplié par un coefficient (heures pleines/creuses, week-end...).
+ * Une règle peut s'appliquer à tout le réseau ou à un seul lieu ; les règles d'un lieu
+ * sont prioritaires sur les règles générales.
+ */
+public class RegleTarifaire {
+
+    private final Long lieuId;
+    private final Set<DayOfWeek> jours;
+    private final LocalTime debut;
+    private final LocalTime fin;
+    private final double multiplicateur;
+
+    /**
+     * Construit une règle tarifaire.
+     * Si {@code fin} est avant {@code debut}, la plage passe minuit (ex : 22:00 - 06:00) ;
+     * si {@code fin} est égale à {@code debut}, la règle couvre la journée entière.
+     *
+     * @param lieuId L'id du lieu concerné, ou null pour tout le réseau.
+     * @param jours Les jours de la semaine concernés. Ne dois pas être vide.
+     * @param debut Heure de début de la plage (incluse).
+     * @param fin Heure de fin de la plage (exclue).
+     * @param multiplicateur Coefficient appliqué au tarif horaire de la borne (positif ou nul).
+     */
+    public RegleTarifaire(Long lieuId, Set<DayOfWeek> jours, LocalTime debut, LocalTime fin, double multiplicateur) {
+        if (jours == null || jours.isEmpty() || debut == null || fin == null || !(multiplicateur >= 0)) {
+            throw new IllegalArgumentException("Règle tarifaire invalide.");
+        }
+        this.lieuId = lieuId;
+        this.jours = EnumSet.copyOf(jours);
+        this.debut = debut;
+        this.fin = fin;
+        this.multiplicateur = multiplicateur;
+    }
+
+    /**
+     * Retourne l'id du lieu concerné.
+     * @return l'id du lieu, ou null si la règle vaut pour tout le réseau.
+     */
+    public Long getLieuId() { return lieuId; }
+    /**
+     * Retourne le coefficient appliqué au tarif horaire.
+     * @return le multiplicateur.
+     */
+    public double getMultiplicateur() { return multiplicateur; }
+
+    /**
+     * Indique si la règle s'applique à un jour et une heure donnés.
+     * @param jour le jour de la semaine.
+     * @param heure l'heure.
+     * @return true si la règle s'applique.
+     */
+    public boolean couvre(DayOfWeek jour, LocalTime heure) {
+        if (!jours.contains(jour)) return false;
+        if (debut.equals(fin)) return true;
+        if (debut.isBefore(fin)) return !heure.isBefore(debut) && heure.isBefore(fin);
+        return !heure.isBefore(debut) || heure.isBefore(fin); // Plage qui passe minuit
+    }
+
+    /**
+     * Représentation textuelle de la règle.
+     * @return une chaîne décrivant la règle.
+     */
+    @Override
+    public String toString() {
+        return "RegleTarifaire{lieuId=" + lieuId + ", jours=" + jours + ", " + debut + "-" + fin + ", x" + multiplicateur + '}';
+    }
+}
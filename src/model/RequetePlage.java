@@ -0,0 +1,103 @@
+package model;
+
+
+import java.time.LocalDateTime;
+import java.util.EnumSet;
+import java.util.Set;
+
+/**
+ * Décrit une recherche de réservations sur une plage de temps :
+ * sur une borne, sur un lieu ou sur tout le réseau, éventuellement filtrée par statut.
+ * Une réservation fait partie du résultat si elle chevauche le créneau [debut, fin[.
+ */
+public class RequetePlage {
+
+    private final Long borneId;
+    private final Long lieuId;
+    private final LocalDateTime debut;
+    private final LocalDateTime fin;
+    private final Set<StatutReservation> statuts;
+
+    private RequetePlage(Long borneId, Long lieuId, LocalDateTime debut, LocalDateTime fin, Set<StatutReservation> statuts) {
+        if (debut == null || fin == null || !fin.isAfter(debut)) {
+            throw new IllegalArgumentException("Créneau invalide.");
+        }
+        this.borneId = borneId;
+        this.lieuId = lieuId;
+        this.debut = debut;
+        this.fin = fin;
+        this.statuts = statuts;
+    }
+
+    /**
+     * Crée une recherche sur une borne.
+     * @param borneId l'id de la borne.
+     * @param debut début du créneau.
+     * @param fin fin du créneau (postérieure au début).
+     * @return la requête, tous statuts confondus.
+     */
+    public static RequetePlage parBorne(long borneId, LocalDateTime debut, LocalDateTime fin) {
+        return new RequetePlage(borneId, null, debut, fin, EnumSet.allOf(StatutReservation.class));
+    }
+
+    /**
+     * Crée une recherche sur toutes les bornes d'un lieu.
+     * @param lieuId l'id du lieu.
+     * @param debut début du créneau.
+     * @param fin fin du créneau (postérieure au début).
+     * @return la requête, tous statuts confondus.
+     */
+    public static RequetePlage parLieu(long lieuId, LocalDateTime debut, LocalDateTime fin) {
+        return new RequetePlage(null, lieuId, debut, fin, EnumSet.allOf(StatutReservation.class));
+    }
+
+    /**
+     * Crée une recherche sur tout le réseau.
+     * @param debut début du créneau.
+     * @param fin fin du créneau (postérieure au début).
+     * @return la requête, tous statuts confondus.
+     */
+    public static RequetePlage reseau(LocalDateTime debut, LocalDateTime fin) {
+        return new RequetePlage(null, null, debut, fin, EnumSet.allOf(StatutReservation.class));
+    }
+
+    /**
+     * Retourne une copie de la requête limitée aux statuts donnés.
+     * @param premier un statut à garder.
+     * @param autres les autres statuts à garder.
+     * @return la nouvelle requête.
+     */
+    public RequetePlage avecStatuts(StatutReservation premier, StatutReservation... autres) {
+        return new RequetePlage(borneId, lieuId, debut, fin, EnumSet.of(premier, autres));
+    }
+
+    /**
+     * Retourne l'id de la borne ciblée.
+     * @return l'id de la borne, ou null si la recherche ne porte pas sur une borne.
+     */
+    public Long getBorneId() { return borneId; }
+    /**
+     * Retourne l'id du lieu ciblé.
+     * @return l'id du lieu, ou null si la recherche ne porte pas sur un lieu.
+     */
+    public Long getLieuId() { return lieuId; }
+    /**
+     * Retourne le début du créneau.
+     * @return le {@link LocalDateTime} de début.
+     */
+    public LocalDateTime getDebut() { return debut; }
+    /**
+     * Retourne la fin du créneau.
+     * @return le {@link LocalDateTime} de fin.
+     */
+    public LocalDateTime getFin() { return fin; }
+
+    /**
+     * Indique si une réservation correspond au créneau et aux statuts demandés.
+     * @param r la réservation à tester.
+     * @return true si elle chevauche le créneau et a un statut demandé.
+     */
+    public boolean correspond(Reservation r) {
+        return statuts.contains(r.getStatut()) && r.chevauche(debut, fin);
+    }
+}
@@ -4,6 +4,7 @@ package model;
 import java.time.LocalDateTime; // Pour gérer dates et heures
 import java.time.format.DateTimeFormatter;
 import java.util.Objects;
+import java.util.concurrent.atomic.AtomicReference;
 
 /**
  * Représente une réservation d'une {@link BorneRecharge} par un {@link Utilisateur}
@@ -11,14 +12,13 @@ import java.util.Objects;
  * Une réservation possède un statut qui évolue ({@link StatutReservation}).
  */
 public class Reservation {
-    private static long compteurId = 0;
-
     private final long id;
     private final Utilisateur utilisateur;
     private final BorneRecharge borne;
     private final LocalDateTime dateDebut;
     private final LocalDateTime dateFin;
-    private StatutReservation statut;
+    // Référence atomique : les transitions de statut se font par compare-and-set, sans verrou
+    private final AtomicReference<StatutReservation> statut;
     /**
      * Construit une nouvelle instance de Reservation.
      * La réservation est initialisée avec le statut EN_ATTENTE et un ID unique lui a assigné.
@@ -29,12 +29,41 @@ public class Reservation {
      * @param dateFin La date et heure de fin de la réservation. Ne dois pas être null et doit être postérieure à {@code dateDebut}.
      */
     public Reservation(Utilisateur utilisateur, BorneRecharge borne, LocalDateTime dateDebut, LocalDateTime dateFin) {
-        this.id = ++compteurId;
+        this(SequencesIds.GLOBALES, utilisateur, borne, dateDebut, dateFin);
+    }
+
+    /**
+     * Construit une nouvelle réservation EN_ATTENTE dont l'ID est pris dans les séquences données (celles d'un locataire).
+     *
+     * @param sequences Les séquences d'identifiants.
+     * @param utilisateur L'{@link Utilisateur} qui réserve.
+     * @param borne La {@link BorneRecharge} réservée.
+     * @param dateDebut La date et heure de début de la réservation.
+     * @param dateFin La date et heure de fin de la réservation.
+     */
+    public Reservation(SequencesIds sequences, Utilisateur utilisateur, BorneRecharge borne, LocalDateTime dateDebut, LocalDateTime dateFin) {
+        this(sequences.prochaineReservation(), utilisateur, borne, dateDebut, dateFin, StatutReservation.EN_ATTENTE); // Statut initial obligatoire
+    }
+
+    /**
+     * Reconstruit une réservation existante avec son ID et son statut (ex : relue depuis les archives).
+     * Aucun nouvel ID n'est attribué.
+     *
+     * @param id L'ID de la réservation d'origine.
+     * @param utilisateur L'{@link Utilisateur} qui a réservé.
+     * @param borne La {@link BorneRecharge} réservée.
+     * @param dateDebut La date et heure de début de la réservation.
+     * @param dateFin La date et heure de fin de la réservation.
+     * @param statut Le {@link StatutReservation} de la réservation.
+     */
+    public Reservation(long id, Utilisateur utilisateur, BorneRecharge borne, LocalDateTime dateDebut, LocalDateTime dateFin,
+                       StatutReservation statut) {
+        this.id = id;
         this.utilisateur = utilisateur;
         this.borne = borne;
         this.dateDebut = dateDebut;
         this.dateFin = dateFin;
-        this.statut = StatutReservation.EN_ATTENTE; // Statut initial obligatoire
+        this.statut = new AtomicReference<>(statut);
     }
 
     /**
@@ -66,14 +95,25 @@ public class Reservation {
      * Retourne le statut actuel de la réservation.
      * @return Le {@link StatutReservation} de la réservation.
      */
-    public StatutReservation getStatut() { return statut; }
+    public StatutReservation getStatut() { return statut.get(); }
 
     /**
      * Met à jour le statut de la réservation.
      * Typiquement utilisé par l'administrateur pour accepter ou refuser une réservation.
      * @param statut Le nouveau {@link StatutReservation}.
      */
-    public void setStatut(StatutReservation statut) { this.statut = statut; }
+    public void setStatut(StatutReservation statut) { this.statut.set(statut); }
+
+    /**
+     * Change le statut de façon atomique, uniquement s'il vaut encore {@code attendu}.
+     * Si deux opérateurs traitent la même réservation en même temps, un seul réussit.
+     * @param attendu Le statut que la réservation doit avoir.
+     * @param nouveau Le nouveau {@link StatutReservation}.
+     * @return true si la transition a eu lieu, false si le statut avait déjà changé.
+     */
+    public boolean changerStatut(StatutReservation attendu, StatutReservation nouveau) {
+        return this.statut.compareAndSet(attendu, nouveau);
+    }
 
     /** Vérifie si cette réservation chevauche un créneau donné. */
     public boolean chevauche(LocalDateTime debutTest, LocalDateTime finTest) {
@@ -93,7 +133,7 @@ public class Reservation {
                 ", borneId=" + (borne != null ? borne.getId() : "null") +
                 ", debut=" + (dateDebut != null ? dateDebut.format(formatter) : "null") +
                 ", fin=" + (dateFin != null ? dateFin.format(formatter) : "null") +
-                ", statut=" + statut + '}';
+                ", statut=" + statut.get() + '}';
     }
     /**
      * Compare cette réservation à un autre objet pour vérifier l'égalité.
@@ -0,0 +1,107 @@
+package model;
+
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Séquences d'identifiants des objets du modèle (lieux, bornes, utilisateurs, réservations, séries).
+ * Sans précision, les objets prennent leur id dans les séquences {@link #GLOBALES} ;
+ * chaque locataire d'un déploiement partagé a ses propres séquences, et ses ids commencent donc à 1.
+ * Les séquences peuvent être utilisées par plusieurs threads en même temps.
+ * <p>
+ * Des séquences entrelacées ({@link #SequencesIds(long, long)}) donnent des ids qui ne se recouvrent pas
+ * entre plusieurs processus : par exemple, chaque nœud d'un réseau partitionné numérote ses réservations
+ * à partir de son propre numéro, avec le même pas.
+ */
+public class SequencesIds {
+
+    /** Séquences utilisées par les constructeurs sans séquences explicites. */
+    public static final SequencesIds GLOBALES = new SequencesIds();
+
+    private final AtomicLong lieux = new AtomicLong();
+    private final AtomicLong bornes = new AtomicLong();
+    private final AtomicLong utilisateurs = new AtomicLong();
+    private final AtomicLong reservations = new AtomicLong();
+    private final AtomicLong series = new AtomicLong();
+    private final long premier;
+    private final long pas;
+
+    /**
+     * Séquences commençant à 1, de pas 1.
+     */
+    public SequencesIds() {
+        this(1, 1);
+    }
+
+    /**
+     * Séquences entrelacées : premier, premier + pas, premier + 2 × pas...
+     * @param premier premier id de chaque séquence, au moins 1.
+     * @param pas écart entre deux ids successifs, au moins 1.
+     */
+    public SequencesIds(long premier, long pas) {
+        if (premier < 1 || pas < 1) throw new IllegalArgumentException("Séquence invalide.");
+        this.premier = premier;
+        this.pas = pas;
+    }
+
+    private long suivant(AtomicLong compteur) {
+        return premier + compteur.getAndIncrement() * pas;
+    }
+
+    /**
+     * Fait passer une séquence après un id déjà attribué (ids relus d'un stockage au démarrage).
+     */
+    private void depasser(AtomicLong compteur, long id) {
+        if (id >= premier) compteur.accumulateAndGet((id - premier) / pas + 1, Math::max);
+    }
+
+    /**
+     * Garantit que les prochains ids de lieu seront supérieurs à un id existant.
+     * @param id id déjà attribué.
+     */
+    public void depasserLieu(long id) { depasser(lieux, id); }
+
+    /**
+     * Garantit que les prochains ids de borne seront supérieurs à un id existant.
+     * @param id id déjà attribué.
+     */
+    public void depasserBorne(long id) { depasser(bornes, id); }
+
+    /**
+     * Garantit que les prochains ids d'utilisateur seront supérieurs à un id existant.
+     * @param id id déjà attribué.
+     */
+    public void depasserUtilisateur(long id) { depasser(utilisateurs, id); }
+
+    /**
+     * Garantit que les prochains ids de réservation seront supérieurs à un id existant.
+     * @param id id déjà attribué.
+     */
+    public void depasserReservation(long id) { depasser(reservations, id); }
+
+    /**
+     * Retourne le prochain id de lieu.
+     * @return l'id.
+     */
+    public long prochainLieu() { return suivant(lieux); }
+    /**
+     * Retourne le prochain id de borne.
+     * @return l'id.
+     */
+    public long prochaineBorne() { return suivant(bornes); }
+    /**
+     * Retourne le prochain id d'utilisateur.
+     * @return l'id.
+     */
+    public long prochainUtilisateur() { return suivant(utilisateurs); }
+    /**
+     * Retourne le prochain id de réservation.
+     * @return l'id.
+     */
+    public long prochaineReservation() { return suivant(reservations); }
+    /**
+     * Retourne le prochain id de série de réservations.
+     * @return l'id.
+     */
+    public long prochaineSerie() { return suivant(series); }
+}
@@ -0,0 +1,247 @@
+package model;
+
+
+import java.time.*;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.stream.Stream;
+
+/**
+ * Réservation récurrente d'une {@link BorneRecharge} : le même créneau (heure de début et durée)
+ * certains jours de la semaine, entre deux dates, sauf les jours annulés (exceptions).
+ * La série est stockée sous forme de règle : les occurrences ne sont calculées qu'à la demande,
+ * une série d'un an occupe donc autant de mémoire qu'une seule réservation.
+ * Le statut ({@link StatutReservation}) s'applique à toute la série.
+ */
+public class SerieReservation {
+    private final long id;
+    private final Utilisateur utilisateur;
+    private final BorneRecharge borne;
+    private final LocalDate premierJour;
+    private final LocalDate dernierJour;
+    private final Set<DayOfWeek> jours;
+    private final LocalTime heureDebut;
+    private final Duration duree;
+    private final Set<LocalDate> exceptions = ConcurrentHashMap.newKeySet();
+    private final AtomicReference<StatutReservation> statut;
+
+    /**
+     * Construit une nouvelle série, avec le statut EN_ATTENTE et un ID unique.
+     *
+     * @param utilisateur L'{@link Utilisateur} qui réserve. Ne dois pas être null.
+     * @param borne La {@link BorneRecharge} réservée. Ne dois pas être null.
+     * @param premierJour Le premier jour de la série (inclus).
+     * @param dernierJour Le dernier jour de la série (inclus), au plus tôt {@code premierJour}.
+     * @param jours Les jours de la semaine concernés. Ne dois pas être vide.
+     * @param heureDebut L'heure de début de chaque occurrence.
+     * @param duree La durée de chaque occurrence, strictement positive et d'au plus 24 heures.
+     */
+    public SerieReservation(Utilisateur utilisateur, BorneRecharge borne, LocalDate premierJour, LocalDate dernierJour,
+                            Set<DayOfWeek> jours, LocalTime heureDebut, Duration duree) {
+        this(SequencesIds.GLOBALES, utilisateur, borne, premierJour, dernierJour, jours, heureDebut, duree);
+    }
+
+    /**
+     * Construit une nouvelle série dont l'ID est pris dans les séquences données (celles d'un locataire).
+     *
+     * @param sequences Les séquences d'identifiants.
+     * @param utilisateur L'{@link Utilisateur} qui réserve.
+     * @param borne La {@link BorneRecharge} réservée.
+     * @param premierJour Le premier jour de la série (inclus).
+     * @param dernierJour Le dernier jour de la série (inclus).
+     * @param jours Les jours de la semaine concernés.
+     * @param heureDebut L'heure de début de chaque occurrence.
+     * @param duree La durée de chaque occurrence.
+     */
+    public SerieReservation(SequencesIds sequences, Utilisateur utilisateur, BorneRecharge borne, LocalDate premierJour,
+                            LocalDate dernierJour, Set<DayOfWeek> jours, LocalTime heureDebut, Duration duree) {
+        if (utilisateur == null || borne == null || premierJour == null || dernierJour == null || dernierJour.isBefore(premierJour)
+                || jours == null || jours.isEmpty() || heureDebut == null || duree == null
+                || duree.isNegative() || duree.isZero() || duree.compareTo(Duration.ofDays(1)) > 0) {
+            throw new IllegalArgumentException("Série de réservations invalide.");
+        }
+        this.id = sequences.prochaineSerie();
+        this.utilisateur = utilisateur;
+        this.borne = borne;
+        this.premierJour = premierJour;
+        this.dernierJour = dernierJour;
+        this.jours = EnumSet.copyOf(jours);
+        this.heureDebut = heureDebut;
+        this.duree = duree;
+        this.statut = new AtomicReference<>(StatutReservation.EN_ATTENTE);
+    }
+
+    /**
+     * Retourne l'identifiant unique de la série.
+     * @return L'ID de la série.
+     */
+    public long getId() { return id; }
+    /**
+     * Retourne l'utilisateur associé à cette série.
+     * @return L'{@link Utilisateur} de la série.
+     */
+    public Utilisateur getUtilisateur() { return utilisateur; }
+    /**
+     * Retourne la borne de recharge réservée.
+     * @return La {@link BorneRecharge} réservée.
+     */
+    public BorneRecharge getBorne() { return borne; }
+    /**
+     * Retourne le premier jour de la série.
+     * @return Le premier jour (inclus).
+     */
+    public LocalDate getPremierJour() { return premierJour; }
+    /**
+     * Retourne le dernier jour de la série.
+     * @return Le dernier jour (inclus).
+     */
+    public LocalDate getDernierJour() { return dernierJour; }
+    /**
+     * Retourne la durée de chaque occurrence.
+     * @return La durée.
+     */
+    public Duration getDuree() { return duree; }
+    /**
+     * Retourne l'heure de début des occurrences.
+     * @return L'heure de début.
+     */
+    public LocalTime getHeureDebut() { return heureDebut; }
+    /**
+     * Retourne le statut actuel de la série.
+     * @return Le {@link StatutReservation} de la série.
+     */
+    public StatutReservation getStatut() { return statut.get(); }
+
+    /**
+     * Change le statut de façon atomique, uniquement s'il vaut encore {@code attendu}.
+     * @param attendu Le statut que la série doit avoir.
+     * @param nouveau Le nouveau {@link StatutReservation}.
+     * @return true si la transition a eu lieu, false si le statut avait déjà changé.
+     */
+    public boolean changerStatut(StatutReservation attendu, StatutReservation nouveau) {
+        return this.statut.compareAndSet(attendu, nouveau);
+    }
+
+    /**
+     * Annule l'occurrence d'un jour (le reste de la série est conservé).
+     * @param jour le jour à annuler.
+     * @return true si ce jour portait une occurrence non encore annulée.
+     */
+    public boolean ajouterException(LocalDate jour) {
+        return aOccurrence(jour) && exceptions.add(jour);
+    }
+
+    /**
+     * Indique si la série a une occurrence ce jour-là.
+     * @param jour le jour.
+     * @return true si une occurrence commence ce jour-là.
+     */
+    public boolean aOccurrence(LocalDate jour) {
+        return !jour.isBefore(premierJour) && !jour.isAfter(dernierJour)
+                && jours.contains(jour.getDayOfWeek()) && !exceptions.contains(jour);
+    }
+
+    /**
+     * Vérifie si une occurrence de la série chevauche le créneau [debut, fin[.
+     * Seuls les jours pouvant porter une telle occurrence sont examinés (quelques-uns pour un créneau court).
+     * @param debut début du créneau.
+     * @param fin fin du créneau.
+     * @return true si au moins une occurrence chevauche le créneau.
+     */
+    public boolean chevauche(LocalDateTime debut, LocalDateTime fin) {
+        // Une occurrence chevauche si elle commence dans ]debut - duree, fin[
+        LocalDate jour = max(debut.minus(duree).toLocalDate(), premierJour);
+        LocalDate dernier = min(fin.toLocalDate(), dernierJour);
+        for (; !jour.isAfter(dernier); jour = jour.plusDays(1)) {
+            if (!aOccurrence(jour)) continue;
+            LocalDateTime debutOccurrence = jour.atTime(heureDebut);
+            if (debutOccurrence.isBefore(fin) && debutOccurrence.plus(duree).isAfter(debut)) return true;
+        }
+        return false;
+    }
+
+    /**
+     * Vérifie si une occurrence de cette série chevauche une occurrence d'une autre série.
+     * @param autre l'autre série.
+     * @return true si les deux séries se chevauchent au moins une fois.
+     */
+    public boolean chevauche(SerieReservation autre) {
+        LocalDate du = max(premierJour, autre.premierJour.minusDays(1));
+        LocalDate au = min(dernierJour, autre.dernierJour.plusDays(1));
+        return debutsOccurrences(du, au).anyMatch(d -> autre.chevauche(d, d.plus(duree)));
+    }
+
+    /**
+     * Calcule, à la demande, les débuts des occurrences de la série entre deux jours.
+     * @param du premier jour (inclus).
+     * @param au dernier jour (inclus).
+     * @return un flux paresseux des débuts d'occurrences, dans l'ordre.
+     */
+    public Stream<LocalDateTime> debutsOccurrences(LocalDate du, LocalDate au) {
+        LocalDate debut = max(du, premierJour);
+        LocalDate fin = min(au, dernierJour);
+        if (fin.isBefore(debut)) return Stream.empty();
+        return debut.datesUntil(fin.plusDays(1)).filter(this::aOccurrence).map(j -> j.atTime(heureDebut));
+    }
+
+    /**
+     * Retourne la fin de l'occurrence du dernier jour de la série, qu'elle existe ou non :
+     * aucune occurrence ne finit après, même si des jours sont annulés ensuite.
+     * @return la borne supérieure des fins d'occurrences.
+     */
+    public LocalDateTime getFinMax() {
+        return dernierJour.atTime(heureDebut).plus(duree);
+    }
+
+    /**
+     * Retourne la fin de la dernière occurrence de la série.
+     * @return la fin de la dernière occurrence, ou null si toutes ont été annulées.
+     */
+    public LocalDateTime getFinDerniereOccurrence() {
+        for (LocalDate jour = dernierJour; !jour.isBefore(premierJour); jour = jour.minusDays(1)) {
+            if (aOccurrence(jour)) return jour.atTime(heureDebut).plus(duree);
+        }
+        return null;
+    }
+
+    private static LocalDate max(LocalDate a, LocalDate b) { return a.isAfter(b) ? a : b; }
+
+    private static LocalDate min(LocalDate a, LocalDate b) { return a.isBefore(b) ? a : b; }
+
+    /**
+     * Retourne une représentation textuelle de la série.
+     * @return Une chaîne de caractères décrivant la série.
+     */
+    @Override
+    public String toString() {
+        return "SerieReservation{id=" + id +
+                ", user=" + utilisateur.getEmail() +
+                ", borneId=" + borne.getId() +
+                ", du=" + premierJour + ", au=" + dernierJour +
+                ", jours=" + jours + ", " + heureDebut + " (" + duree.toMinutes() + " min)" +
+                ", exceptions=" + exceptions.size() +
+                ", statut=" + statut.get() + '}';
+    }
+
+    /**
+     * Deux séries sont égales si elles ont le même ID.
+     * @param o L'objet à comparer.
+     * @return true si les objets sont égaux (même ID), false sinon.
+     */
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) return true;
+        if (o == null || getClass() != o.getClass()) return false;
+        return id == ((SerieReservation) o).id;
+    }
+
+    /**
+     * Retourne un code de hachage basé sur l'ID.
+     * @return Le code de hachage de la série.
+     */
+    @Override
+    public int hashCode() {
+        return Objects.hash(id);
+    }
+}
@@ -0,0 +1,71 @@
+package model;
+
+
+import java.time.LocalDateTime;
+
+/**
+ * Créneau proposé à la place d'une recherche qui donne peu de bornes : un lieu et un horaire
+ * proche de celui demandé, choisis parmi les moins demandés d'après l'historique des réservations.
+ */
+public class SuggestionCreneau {
+
+    private final LieuRecharge lieu;
+    private final LocalDateTime debut;
+    private final LocalDateTime fin;
+    private final double occupationPrevue;
+    private final int bornesLibres;
+
+    /**
+     * Constructeur.
+     * @param lieu le lieu proposé.
+     * @param debut début du créneau proposé.
+     * @param fin fin du créneau proposé (même durée que le créneau demandé).
+     * @param occupationPrevue part des bornes du lieu habituellement réservées sur ce créneau (0 à 1).
+     * @param bornesLibres nombre de bornes du lieu libres sur ce créneau au moment de la suggestion.
+     */
+    public SuggestionCreneau(LieuRecharge lieu, LocalDateTime debut, LocalDateTime fin, double occupationPrevue, int bornesLibres) {
+        this.lieu = lieu;
+        this.debut = debut;
+        this.fin = fin;
+        this.occupationPrevue = occupationPrevue;
+        this.bornesLibres = bornesLibres;
+    }
+
+    /**
+     * Retourne le lieu proposé.
+     * @return Le {@link LieuRecharge}.
+     */
+    public LieuRecharge getLieu() { return lieu; }
+    /**
+     * Retourne le début du créneau proposé.
+     * @return La date et heure de début.
+     */
+    public LocalDateTime getDebut() { return debut; }
+    /**
+     * Retourne la fin du créneau proposé.
+     * @return La date et heure de fin.
+     */
+    public LocalDateTime getFin() { return fin; }
+    /**
+     * Retourne l'occupation habituelle du lieu sur ce créneau, d'après l'historique.
+     * @return Un taux entre 0 et 1.
+     */
+    public double getOccupationPrevue() { return occupationPrevue; }
+    /**
+     * Retourne le nombre de bornes libres du lieu sur ce créneau.
+     * @return Le nombre de bornes.
+     */
+    public int getBornesLibres() { return bornesLibres; }
+
+    /**
+     * Retourne une représentation textuelle de la suggestion.
+     * @return Une chaîne de caractères décrivant la suggestion.
+     */
+    @Override
+    public String toString() {
+        return "SuggestionCreneau{lieu=" + lieu.getNom() +
+                ", debut=" + debut + ", fin=" + fin +
+                ", occupationPrevue=" + String.format("%.0f", occupationPrevue * 100) + "%" +
+                ", bornesLibres=" + bornesLibres + '}';
+    }
+}
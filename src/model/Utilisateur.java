@@ -3,44 +3,62 @@ package model;
 
 import java.util.Objects;
 public class Utilisateur {
-    private static long compteurId = 0;
-
     private final long id;
     private final String email;
     private final String motDePasse;
-    private String codeValidation;
     private boolean estValide;
 
     /**
      * Contient tout ce qui sert pour l'identification, l'authentification et la validation
      * @param email permet de faire la connexion
-     * @param motDePasse permet de faire la connexion
+     * @param motDePasse empreinte du mot de passe (calculée par le service d'authentification)
      */
     public Utilisateur(String email, String motDePasse) {
-        this.id = ++compteurId;
+        this(SequencesIds.GLOBALES, email, motDePasse);
+    }
+
+    /**
+     * Construit un utilisateur dont l'id est pris dans les séquences données (celles d'un locataire).
+     * @param sequences les séquences d'identifiants
+     * @param email permet de faire la connexion
+     * @param motDePasse empreinte du mot de passe
+     */
+    public Utilisateur(SequencesIds sequences, String email, String motDePasse) {
+        this(sequences.prochainUtilisateur(), email, motDePasse);
+    }
+
+    /**
+     * Reconstruit un utilisateur existant avec son id (ex : copie sur un autre nœud), non validé.
+     * Aucun nouvel id n'est attribué.
+     * @param id l'id de l'utilisateur d'origine
+     * @param email permet de faire la connexion
+     * @param motDePasse empreinte du mot de passe
+     */
+    public Utilisateur(long id, String email, String motDePasse) {
+        this.id = id;
         this.email = email;
         this.motDePasse = motDePasse;
         this.estValide = false;
-        // codeValidation défini par le service
+        // Le code de validation est géré par le service d'authentification
     }
 
     /**
-     * Retourne l'id de l'utilisateur
+     * Retourne l'identifiant unique de l'utilisateur
      * @return l'id de l'utilisateur
      */
-    public String getEmail() { return email; }
+    public long getId() { return id; }
 
     /**
-     * Retourne le mot de passe de l'utilisateur
-     * @return le mot de passe de l'utilisateur
+     * Retourne l'id de l'utilisateur
+     * @return l'id de l'utilisateur
      */
-    public String getMotDePasse() { return motDePasse; }
+    public String getEmail() { return email; }
 
     /**
-     * Retourne le code de validation de l'utilisateur.
-     * @return le code de validation de l'utilisateur.
+     * Retourne l'empreinte du mot de passe de l'utilisateur
+     * @return l'empreinte du mot de passe de l'utilisateur
      */
-    public String getCodeValidation() { return codeValidation; }
+    public String getMotDePasse() { return motDePasse; }
 
     /**
      * Indique si l'utilisateur est valide ou non.
@@ -48,12 +66,6 @@ public class Utilisateur {
      */
     public boolean isEstValide() { return estValide; }
 
-    /**
-     * Définit le code de validation de l'utilisateur.
-     * @param codeValidation le code de validation de l'utilisateur.
-     */
-    public void setCodeValidation(String codeValidation) { this.codeValidation = codeValidation; }
-
     /**
      * Change le statut de validation de l'utilisateur.
      * @param estValide true si valide sinon false.
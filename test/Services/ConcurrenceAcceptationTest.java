@@ -0,0 +1,138 @@
+package Services;
+
+
+import Interfaces.DocumentService;
+import model.BorneRecharge;
+import model.LieuRecharge;
+import model.Reservation;
+import model.StatutReservation;
+import model.Utilisateur;
+
+import java.io.OutputStream;
+import java.io.PrintStream;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Test de contention des approbations : plusieurs opérateurs acceptent et refusent les mêmes
+ * réservations en même temps. Chaque réservation doit finir dans un seul statut, avec exactement
+ * un reçu si elle est acceptée et aucun sinon.
+ * <p>
+ * Sans dépendance : se lance avec {@code java Services.ConcurrenceAcceptationTest} (sources de
+ * {@code src} et {@code test} compilées ensemble) et s'arrête avec un code non nul en cas d'échec.
+ */
+public class ConcurrenceAcceptationTest {
+
+    private static final int NB_RESERVATIONS = 2_000;
+    private static final int NB_OPERATEURS = 8;
+    private static final int NB_TOURS = 5;
+
+    /**
+     * Lance le test.
+     * @param args non utilisés.
+     * @throws InterruptedException si le test est interrompu.
+     */
+    public static void main(String[] args) throws InterruptedException {
+        PrintStream sortie = System.out;
+        PrintStream erreurs = System.err;
+        System.setOut(new PrintStream(OutputStream.nullOutputStream())); // Les services affichent chaque opération
+        System.setErr(new PrintStream(OutputStream.nullOutputStream()));
+        List<String> echecs = new ArrayList<>();
+        try {
+            for (int tour = 0; tour < NB_TOURS; tour++) {
+                executerTour(tour, echecs);
+            }
+        } finally {
+            System.setOut(sortie);
+            System.setErr(erreurs);
+        }
+        if (!echecs.isEmpty()) {
+            echecs.stream().limit(20).forEach(System.err::println);
+            System.err.println("ECHEC: " + echecs.size() + " anomalies.");
+            System.exit(1);
+        }
+        System.out.println("OK: " + NB_TOURS + " tours de " + NB_RESERVATIONS + " réservations, "
+                + NB_OPERATEURS + " opérateurs concurrents, un reçu par réservation acceptée.");
+    }
+
+    private static void executerTour(int tour, List<String> echecs) throws InterruptedException {
+        BorneServiceImplement borneService = new BorneServiceImplement();
+        ReservationServiceImplement reservationService = new ReservationServiceImplement();
+        borneService.setReservationService(reservationService);
+        Map<Long, AtomicInteger> recus = new ConcurrentHashMap<>();
+        DocumentService documents = resa -> recus.computeIfAbsent(resa.getId(), id -> new AtomicInteger()).incrementAndGet();
+        reservationService.setDocumentService(documents);
+
+        LieuRecharge lieu = borneService.ajouterLieu("Lieu test", "1 rue du Test");
+        for (int i = 0; i < NB_RESERVATIONS; i++) borneService.ajouterBorne(lieu.getId(), 2.0);
+        Utilisateur utilisateur = new Utilisateur("operateur" + tour + "@test.fr", "x");
+        utilisateur.setEstValide(true);
+        LocalDateTime debut = LocalDateTime.now().plusDays(1);
+        for (BorneRecharge borne : lieu.getBornesVue()) {
+            reservationService.creerReservation(utilisateur, borne, debut, debut.plusHours(2));
+        }
+        List<Long> ids = new ArrayList<>();
+        for (Reservation r : reservationService.getReservationsVue()) ids.add(r.getId());
+        if (ids.size() != NB_RESERVATIONS) {
+            echecs.add("Tour " + tour + ": " + ids.size() + " réservations créées au lieu de " + NB_RESERVATIONS);
+            return;
+        }
+
+        Map<Long, AtomicInteger> acceptations = new ConcurrentHashMap<>();
+        Map<Long, AtomicInteger> refus = new ConcurrentHashMap<>();
+        CountDownLatch depart = new CountDownLatch(1);
+        List<Thread> operateurs = new ArrayList<>();
+        for (int t = 0; t < NB_OPERATEURS; t++) {
+            List<Long> ordre = new ArrayList<>(ids);
+            Collections.shuffle(ordre, new Random(31L * tour + t));
+            boolean refuseAussi = t % 2 == 1; // La moitié des opérateurs refuse une réservation sur trois
+            Thread operateur = new Thread(() -> {
+                try {
+                    depart.await();
+                } catch (InterruptedException e) {
+                    return;
+                }
+                for (long id : ordre) {
+                    if (refuseAussi && id % 3 == 0) {
+                        if (reservationService.refuserReservation(id)) refus.computeIfAbsent(id, k -> new AtomicInteger()).incrementAndGet();
+                    } else if (reservationService.accepterReservation(id)) {
+                        acceptations.computeIfAbsent(id, k -> new AtomicInteger()).incrementAndGet();
+                    }
+                }
+            });
+            operateur.start();
+            operateurs.add(operateur);
+        }
+        depart.countDown();
+        for (Thread operateur : operateurs) operateur.join();
+
+        Map<Long, StatutReservation> statuts = new ConcurrentHashMap<>();
+        for (Reservation r : reservationService.getReservationsVue()) statuts.put(r.getId(), r.getStatut());
+        for (long id : ids) {
+            int nbAcceptations = compte(acceptations, id);
+            int nbRefus = compte(refus, id);
+            int nbRecus = compte(recus, id);
+            StatutReservation statut = statuts.get(id);
+            if (nbAcceptations + nbRefus != 1) {
+                echecs.add("Tour " + tour + ", réservation " + id + ": " + nbAcceptations + " acceptations et "
+                        + nbRefus + " refus gagnants");
+            } else if (nbAcceptations == 1 && (nbRecus != 1 || statut != StatutReservation.ACCEPTEE)) {
+                echecs.add("Tour " + tour + ", réservation " + id + " acceptée: " + nbRecus + " reçus, statut " + statut);
+            } else if (nbRefus == 1 && (nbRecus != 0 || statut != StatutReservation.REFUSEE)) {
+                echecs.add("Tour " + tour + ", réservation " + id + " refusée: " + nbRecus + " reçus, statut " + statut);
+            }
+        }
+    }
+
+    private static int compte(Map<Long, AtomicInteger> compteurs, long id) {
+        AtomicInteger compteur = compteurs.get(id);
+        return compteur == null ? 0 : compteur.get();
+    }
+}